@@ -0,0 +1,286 @@
+package com.modeln.build.ant.depends;
+
+import org.apache.tools.ant.util.FileUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Vector;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+
+/**
+ * Index of the class files contained in each element of a classpath.
+ * Each Jar file and directory in the classpath is examined once, and
+ * each class resource name is mapped to the list of classpath elements
+ * which contain it, in classpath order.  This allows a resource to be
+ * located without opening every Jar file in the classpath for each
+ * lookup.  The Jar file contents can be saved to an index file and
+ * reused by later runs as long as the size and modification time of
+ * the Jar file have not changed.
+ */
+public final class ClasspathIndex {
+
+    /** Prefix identifying a Jar file record in the index file */
+    private static final String JAR_RECORD = "#jar\t";
+
+    /** Suffix of the resources included in the index */
+    private static final String CLASS_SUFFIX = ".class";
+
+    private static final FileUtils FILE_UTILS = FileUtils.getFileUtils();
+
+    /** Classpath elements in the order they were specified */
+    private File[] elements;
+
+    /** Maps each resource name to the indexes of the elements which contain it */
+    private Hashtable<String, int[]> resources = new Hashtable<String, int[]>();
+
+    /** Contents of each Jar file that was read from disk or from the index file */
+    private Hashtable<String, JarContents> jars = new Hashtable<String, JarContents>();
+
+    /** Number of Jar files which were reused from the index file */
+    private int reusedCount = 0;
+
+
+    /**
+     * Construct an index of the classpath.
+     *
+     * @param   path       List of classpath elements
+     * @param   indexFile  Index file saved by a previous run, or null if none
+     */
+    public ClasspathIndex(String[] path, File indexFile) throws IOException {
+        Hashtable<String, JarContents> saved = new Hashtable<String, JarContents>();
+        if ((indexFile != null) && indexFile.isFile()) {
+            saved = load(indexFile);
+        }
+
+        elements = new File[path.length];
+        for (int idx = 0; idx < path.length; idx++) {
+            elements[idx] = new File(path[idx]);
+
+            // Elements which appear more than once are only searched the first time
+            boolean duplicate = false;
+            for (int prevIdx = 0; prevIdx < idx; prevIdx++) {
+                duplicate = duplicate || elements[prevIdx].equals(elements[idx]);
+            }
+
+            Vector<String> names = null;
+            if (duplicate) {
+                continue;
+            } else if (elements[idx].isDirectory()) {
+                names = new Vector<String>();
+                scanDirectory(elements[idx], "", names);
+            } else if (elements[idx].isFile()) {
+                String key = elements[idx].getAbsolutePath();
+                JarContents contents = saved.get(key);
+                if ((contents == null) ||
+                    (contents.modified != elements[idx].lastModified()) ||
+                    (contents.size != elements[idx].length()))
+                {
+                    contents = scanJar(elements[idx]);
+                } else {
+                    reusedCount++;
+                }
+                jars.put(key, contents);
+                names = contents.names;
+            }
+
+            if (names != null) {
+                for (int nameIdx = 0; nameIdx < names.size(); nameIdx++) {
+                    addResource(names.get(nameIdx), idx);
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the number of Jar files which were reused from the index file
+     * rather than being read from disk.
+     *
+     * @return Number of Jar files
+     */
+    public int getReusedCount() {
+        return reusedCount;
+    }
+
+    /**
+     * Return the list of URLs for the resource in classpath order.  The
+     * URLs are constructed in the same format as the Ant class loader.
+     * If the resource cannot be found, an empty list is returned.
+     *
+     * @param   name   Resource name using forward slashes as the separator
+     * @return  List of resource URLs
+     */
+    public Vector<URL> getResources(String name) throws IOException {
+        Vector<URL> urls = new Vector<URL>();
+        int[] matches = resources.get(name);
+        if (matches != null) {
+            for (int idx = 0; idx < matches.length; idx++) {
+                File element = elements[matches[idx]];
+                if (element.isDirectory()) {
+                    urls.add(FILE_UTILS.getFileURL(new File(element, name)));
+                } else {
+                    urls.add(new URL("jar:" + FILE_UTILS.getFileURL(element) + "!/" + name));
+                }
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * Save the contents of each Jar file to the index file.  Directories
+     * are not saved since their contents can change without affecting
+     * the modification time of the directory.
+     *
+     * @param   indexFile   File where the index will be written
+     */
+    public void save(File indexFile) throws IOException {
+        BufferedWriter writer = null;
+        try {
+            writer = new BufferedWriter(new FileWriter(indexFile));
+            Enumeration<String> keys = jars.keys();
+            while (keys.hasMoreElements()) {
+                String key = keys.nextElement();
+                JarContents contents = jars.get(key);
+                writer.write(JAR_RECORD + contents.modified + "\t" + contents.size + "\t" + key + "\n");
+                for (int idx = 0; idx < contents.names.size(); idx++) {
+                    writer.write(contents.names.get(idx) + "\n");
+                }
+            }
+        } finally {
+            if (writer != null) writer.close();
+        }
+    }
+
+
+    /**
+     * Load the Jar file contents from an index file.
+     *
+     * @param   indexFile   File containing the saved index
+     * @return  Jar file contents, keyed by absolute path
+     */
+    private static Hashtable<String, JarContents> load(File indexFile) throws IOException {
+        Hashtable<String, JarContents> saved = new Hashtable<String, JarContents>();
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new FileReader(indexFile));
+            JarContents current = null;
+            String line = null;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(JAR_RECORD)) {
+                    String[] fields = line.substring(JAR_RECORD.length()).split("\t", 3);
+                    current = new JarContents();
+                    try {
+                        current.modified = Long.parseLong(fields[0]);
+                        current.size = Long.parseLong(fields[1]);
+                        saved.put(fields[2], current);
+                    } catch (RuntimeException ex) {
+                        // Ignore malformed records so the Jar file will be scanned again
+                        current = new JarContents();
+                    }
+                } else if ((current != null) && (line.length() > 0)) {
+                    current.names.add(line);
+                }
+            }
+        } finally {
+            if (reader != null) reader.close();
+        }
+        return saved;
+    }
+
+    /**
+     * Read the list of class files contained in the Jar file.
+     *
+     * @param   file   Jar file
+     * @return  Jar file contents
+     */
+    private static JarContents scanJar(File file) throws IOException {
+        JarContents contents = new JarContents();
+        contents.modified = file.lastModified();
+        contents.size = file.length();
+
+        JarFile jar = null;
+        try {
+            jar = new JarFile(file);
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (!entry.isDirectory() && entry.getName().endsWith(CLASS_SUFFIX)) {
+                    contents.names.add(entry.getName());
+                }
+            }
+        } catch (IOException ioex) {
+            // Files which are not valid Jar files contain no resources
+        } finally {
+            if (jar != null) jar.close();
+        }
+        return contents;
+    }
+
+    /**
+     * Recursively add the class files contained in the directory.
+     *
+     * @param   dir     Directory to be examined
+     * @param   prefix  Resource name of the directory relative to the classpath element
+     * @param   names   List of resource names
+     */
+    private static void scanDirectory(File dir, String prefix, Vector<String> names) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (int idx = 0; idx < files.length; idx++) {
+            String name = prefix + files[idx].getName();
+            if (files[idx].isDirectory()) {
+                scanDirectory(files[idx], name + "/", names);
+            } else if (name.endsWith(CLASS_SUFFIX)) {
+                names.add(name);
+            }
+        }
+    }
+
+    /**
+     * Add the classpath element to the list of locations for the resource.
+     *
+     * @param   name     Resource name
+     * @param   element  Index of the classpath element
+     */
+    private void addResource(String name, int element) {
+        int[] current = resources.get(name);
+        int[] updated = null;
+        if (current == null) {
+            updated = new int[] { element };
+        } else if (current[current.length - 1] != element) {
+            updated = new int[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, current.length);
+            updated[current.length] = element;
+        }
+        if (updated != null) {
+            resources.put(name, updated);
+        }
+    }
+
+
+    /**
+     * Contents of a Jar file and the file attributes used to determine
+     * whether the contents are still current.
+     */
+    private static final class JarContents {
+        /** Modification time of the Jar file */
+        long modified;
+
+        /** Size of the Jar file in bytes */
+        long size;
+
+        /** List of class files in the Jar */
+        Vector<String> names = new Vector<String>();
+    }
+
+}
@@ -33,6 +33,10 @@ import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.StringTokenizer;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 
 /**
@@ -43,7 +47,9 @@ import java.util.Vector;
  * referenced by import statements.  The import classes
  * are then added to a hashtable of required resources.  Once
  * all classes have been processed, a summary of the required resources
- * will be generated by the task.
+ * will be generated by the task.  The classpath is indexed once
+ * when the task is executed so that each import can be located without
+ * searching every Jar file in the classpath.
  *
  * @author Shawn Stafford
  */
@@ -106,6 +112,26 @@ public final class DependencyListTask extends Task {
      */
     private String reportFormat = "text";
 
+    /**
+     * File where the classpath index is saved between runs.
+     */
+    private File indexFile = null;
+
+    /**
+     * Number of threads used to parse the source files.
+     */
+    private int threads = 1;
+
+    /**
+     * Index of the classes contained in the classpath.
+     */
+    private ClasspathIndex index = null;
+
+    /**
+     * List of locations for each resource that has already been located.
+     */
+    private ConcurrentHashMap<String, Vector<URL>> resourceCache = new ConcurrentHashMap<String, Vector<URL>>();
+
     /**
      * Determine whether the dependency summary should be
      * restricted to only Jar files.
@@ -317,6 +343,27 @@ public final class DependencyListTask extends Task {
         reportFile = file;
     }
 
+    /**
+     * Set the file where the classpath index will be saved.  If the file
+     * exists, the contents of any Jar file whose size and modification
+     * time have not changed will be loaded from the index rather than
+     * being read from the Jar file.
+     */
+    public void setIndexFile(File file) {
+        indexFile = file;
+    }
+
+    /**
+     * Set the number of threads used to parse the source files.
+     * The default is a single thread.
+     */
+    public void setThreads(int count) {
+        if (count < 1) {
+            throw new BuildException("The number of threads must be at least 1: " + count);
+        }
+        threads = count;
+    }
+
     /**
      * Determine if the current import class should be processed 
      * for dependencies.
@@ -417,6 +464,19 @@ public final class DependencyListTask extends Task {
 
         printClasspath();
 
+        // Index the classpath once rather than searching it for each import
+        if (classpath != null) {
+            try {
+                index = new ClasspathIndex(classpath.list(), indexFile);
+                if (indexFile != null) {
+                    log("Loaded " + index.getReusedCount() + " Jar files from the index: " + indexFile, Project.MSG_VERBOSE);
+                    index.save(indexFile);
+                }
+            } catch (IOException ioex) {
+                throw new BuildException("Unable to index the classpath: " + ioex, ioex);
+            }
+        }
+
         // Iterate through the list of classes
         for (Enumeration<DataType> e = classes.elements(); e.hasMoreElements(); ) {
             Object o = e.nextElement();
@@ -528,6 +588,9 @@ public final class DependencyListTask extends Task {
 
     /**
      * Iterate through the list of files and parse each source file.
+     * The files are parsed in parallel if more than one thread has been
+     * specified, but the dependencies are always recorded in the original
+     * file order so that the report does not depend on the number of threads.
      *
      * @param base        Root directory that the files are relative to
      * @param filenames   List of class files
@@ -537,11 +600,32 @@ public final class DependencyListTask extends Task {
             System.out.println("Parsing source files...");
         }
 
+        Vector<SourceParser> parsers = new Vector<SourceParser>();
         for (int i = 0; i < filenames.length; ++i) {
+            parsers.add(new SourceParser(new File(base, filenames[i])));
+        }
+
+        if ((threads > 1) && (parsers.size() > 1)) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                pool.invokeAll(parsers);
+            } catch (InterruptedException iex) {
+                Thread.currentThread().interrupt();
+                throw new BuildException("Interrupted while parsing source files.", iex);
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            for (int i = 0; i < parsers.size(); ++i) {
+                parsers.get(i).call();
+            }
+        }
+
+        for (int i = 0; i < parsers.size(); ++i) {
             if (displayProgress && ((i%80) == 0)) {
                 System.out.print("\n");
             }
-            parseClass(new File(base, filenames[i]));
+            recordImports(parsers.get(i));
         }
 
         // Make sure the current progress line is displayed
@@ -552,48 +636,99 @@ public final class DependencyListTask extends Task {
     }
 
     /**
-     * Parse the source file to determine which classes are referenced by
-     * import statements.
+     * Record the dependencies for each import statement found in the
+     * source file.
      */
-    private void parseClass(File file) {
+    private void recordImports(SourceParser parser) {
+        File file = parser.getFile();
         if (displayProgress) {
             System.out.print(".");
         }
 
         log("Processing file: " + file, Project.MSG_DEBUG);
-        if (file.exists()) {
-            try {
-                // Load the import statements from the current source file
-                BufferedReader reader = new BufferedReader(new FileReader(file));
-                String line = null;
-                while ((line = reader.readLine()) != null) {
-                    if (line.startsWith("import ") && (line.indexOf("*") < 0) && (line.indexOf(";") > 0)) {
-                        // Obtain the name of the current import
-                        String name = line.substring(7, line.indexOf(";")).trim();
-
-                        // Load the imported class if it is 
-                        int classIdx = name.lastIndexOf('.');
-                        if (classIdx > 0) {
-                            String pkgName = name.substring(0, classIdx);
-                            PackageName pkg = new PackageName();
-                            pkg.setName(pkgName);
-                            if (allowImport(pkg)) {
-                                String resourceName = name.replace('.', File.separatorChar) + ".class";
-                                loadResource(new File(resourceName), file);
-                            }
-                        }
-
-                    }
-                }
-            } catch (Exception ex) {
+        if (parser.exists()) {
+            Vector<String> imports = parser.getImports();
+            for (int idx = 0; idx < imports.size(); idx++) {
+                loadResource(new File(imports.get(idx)), file);
+            }
+            if (parser.getError() != null) {
                 log("Unable to process source file: " + file, Project.MSG_ERR);
-                ex.printStackTrace();
+                parser.getError().printStackTrace();
             }
         } else {
             log("File " + file + " does not exist.", Project.MSG_ERR);
         }
     }
 
+    /**
+     * Parse the source file to determine which classes are referenced by
+     * import statements.
+     *
+     * @param   file     Source file
+     * @param   imports  List of resource names for each import
+     */
+    private void parseClass(File file, Vector<String> imports) throws IOException {
+        // Load the import statements from the current source file
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line = null;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("import ") && (line.indexOf("*") < 0) && (line.indexOf(";") > 0)) {
+                    // Obtain the name of the current import
+                    String name = line.substring(7, line.indexOf(";")).trim();
+
+                    // Load the imported class if it is 
+                    int classIdx = name.lastIndexOf('.');
+                    if (classIdx > 0) {
+                        String pkgName = name.substring(0, classIdx);
+                        PackageName pkg = new PackageName();
+                        pkg.setName(pkgName);
+                        if (allowImport(pkg)) {
+                            String resourceName = name.replace('.', File.separatorChar) + ".class";
+                            imports.add(resourceName);
+
+                            // Locate the resource while the file is being parsed
+                            getResources(resourceName.replace(File.separatorChar, '/'));
+                        }
+                    }
+
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Return the list of locations where the resource can be found, in the
+     * order that the class loader would search them.  Resources provided by
+     * the Ant class loader are listed first, followed by the resources found
+     * in the classpath index.
+     *
+     * @param   resourceName   Resource name using forward slashes as the separator
+     * @return  List of resource locations
+     */
+    private Vector<URL> getResources(String resourceName) throws IOException {
+        Vector<URL> urls = resourceCache.get(resourceName);
+        if (urls == null) {
+            urls = new Vector<URL>();
+            ClassLoader loader = (index != null) ?
+                getProject().getClass().getClassLoader() :
+                DependencyListTask.class.getClassLoader();
+            if (loader != null) {
+                Enumeration<URL> resources = loader.getResources(resourceName);
+                while (resources.hasMoreElements()) {
+                    urls.add(resources.nextElement());
+                }
+            }
+            if (index != null) {
+                urls.addAll(index.getResources(resourceName));
+            }
+            resourceCache.putIfAbsent(resourceName, urls);
+        }
+        return urls;
+    }
+
 
     /**
      * Load the specified file using the classloader and add the file to the
@@ -609,16 +744,12 @@ public final class DependencyListTask extends Task {
         resourceName = resourceName.replace(File.separatorChar, '/');
 
         // Locate the class being imported
-        ClassLoader loader = (classpath != null) ? 
-            getProject().createClassLoader(classpath) : 
-            DependencyListTask.class.getClassLoader();
-
         try {
-            Enumeration<URL> resources = loader.getResources(resourceName);
+            Vector<URL> resources = getResources(resourceName);
             URL prev = null;
             URL current = null;
-            while (resources.hasMoreElements()) {
-                current = (URL) resources.nextElement();
+            for (int idx = 0; idx < resources.size(); idx++) {
+                current = resources.get(idx);
                 if (allowResource(current)) {
                     processResource(current, source, prev);
                     prev = current;
@@ -703,6 +834,57 @@ public final class DependencyListTask extends Task {
     // Inner static classes
     // ========================================================================
 
+    /**
+     * Parses a single source file.  The parser is executed by the thread
+     * pool and holds the results until they are recorded by the task.
+     */
+    private final class SourceParser implements Callable<Object> {
+        /** Source file to be parsed */
+        private File file;
+
+        /** Boolean indicating whether the source file exists */
+        private boolean found = false;
+
+        /** List of resource names for each import */
+        private Vector<String> imports = new Vector<String>();
+
+        /** Error encountered while parsing the file */
+        private Exception error = null;
+
+        public SourceParser(File file) {
+            this.file = file;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public boolean exists() {
+            return found;
+        }
+
+        public Vector<String> getImports() {
+            return imports;
+        }
+
+        public Exception getError() {
+            return error;
+        }
+
+        public Object call() {
+            found = file.exists();
+            if (found) {
+                try {
+                    parseClass(file, imports);
+                } catch (Exception ex) {
+                    error = ex;
+                }
+            }
+            return null;
+        }
+    }
+
+
     /**
      * Used to keep track of matching resources.
      */
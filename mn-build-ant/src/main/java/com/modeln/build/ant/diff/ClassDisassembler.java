@@ -0,0 +1,589 @@
+package com.modeln.build.ant.diff;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Produces a text listing of a compiled class in the same general format
+ * as the javap disassembler.  The class is read directly from a stream,
+ * so classes can be disassembled from the bytes of a jar entry without
+ * extracting them to disk or starting an external process.  Private
+ * members are omitted from the listing, matching the default behavior
+ * of javap.  If the bytecode option is enabled, the instructions of each
+ * method are listed as well.
+ */
+public final class ClassDisassembler {
+
+    /** Instruction mnemonics indexed by opcode */
+    private static final String[] OPCODES = (
+        "nop aconst_null iconst_m1 iconst_0 iconst_1 iconst_2 iconst_3 iconst_4 iconst_5 " +
+        "lconst_0 lconst_1 fconst_0 fconst_1 fconst_2 dconst_0 dconst_1 bipush sipush " +
+        "ldc ldc_w ldc2_w iload lload fload dload aload " +
+        "iload_0 iload_1 iload_2 iload_3 lload_0 lload_1 lload_2 lload_3 " +
+        "fload_0 fload_1 fload_2 fload_3 dload_0 dload_1 dload_2 dload_3 " +
+        "aload_0 aload_1 aload_2 aload_3 iaload laload faload daload aaload baload caload saload " +
+        "istore lstore fstore dstore astore " +
+        "istore_0 istore_1 istore_2 istore_3 lstore_0 lstore_1 lstore_2 lstore_3 " +
+        "fstore_0 fstore_1 fstore_2 fstore_3 dstore_0 dstore_1 dstore_2 dstore_3 " +
+        "astore_0 astore_1 astore_2 astore_3 iastore lastore fastore dastore aastore bastore castore sastore " +
+        "pop pop2 dup dup_x1 dup_x2 dup2 dup2_x1 dup2_x2 swap " +
+        "iadd ladd fadd dadd isub lsub fsub dsub imul lmul fmul dmul idiv ldiv fdiv ddiv " +
+        "irem lrem frem drem ineg lneg fneg dneg ishl lshl ishr lshr iushr lushr " +
+        "iand land ior lor ixor lxor iinc i2l i2f i2d l2i l2f l2d f2i f2l f2d d2i d2l d2f i2b i2c i2s " +
+        "lcmp fcmpl fcmpg dcmpl dcmpg ifeq ifne iflt ifge ifgt ifle " +
+        "if_icmpeq if_icmpne if_icmplt if_icmpge if_icmpgt if_icmple if_acmpeq if_acmpne " +
+        "goto jsr ret tableswitch lookupswitch ireturn lreturn freturn dreturn areturn return " +
+        "getstatic putstatic getfield putfield invokevirtual invokespecial invokestatic " +
+        "invokeinterface invokedynamic new newarray anewarray arraylength athrow checkcast " +
+        "instanceof monitorenter monitorexit wide multianewarray ifnull ifnonnull goto_w jsr_w"
+    ).split(" ");
+
+    /** Primitive array types used by the newarray instruction */
+    private static final String[] ARRAY_TYPES = {
+        null, null, null, null, "boolean", "char", "float", "double", "byte", "short", "int", "long"
+    };
+
+    /** Constant pool tag values */
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    /** Access flags */
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_PROTECTED = 0x0004;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SYNCHRONIZED = 0x0020;
+    private static final int ACC_VOLATILE = 0x0040;
+    private static final int ACC_TRANSIENT = 0x0080;
+    private static final int ACC_NATIVE = 0x0100;
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+    private static final int ACC_STRICT = 0x0800;
+
+
+    /** Include the method instructions in the listing */
+    private boolean showBytecode = false;
+
+    /** Tag of each constant pool entry */
+    private int[] tags;
+
+    /** Value of each constant pool entry */
+    private Object[] values;
+
+
+    /**
+     * Construct a disassembler.
+     *
+     * @param   bytecode   TRUE if the method instructions should be listed
+     */
+    public ClassDisassembler(boolean bytecode) {
+        showBytecode = bytecode;
+    }
+
+    /**
+     * Return a text listing of the class read from the stream.
+     *
+     * @param   input   Stream containing the compiled class
+     * @return  Disassembled class listing
+     */
+    public String disassemble(InputStream input) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        if (in.readInt() != 0xCAFEBABE) {
+            throw new IOException("Invalid class file format.");
+        }
+        in.readUnsignedShort();   // minor version
+        in.readUnsignedShort();   // major version
+        readConstantPool(in);
+
+        int access = in.readUnsignedShort();
+        String className = getClassName(in.readUnsignedShort());
+        int superIndex = in.readUnsignedShort();
+        int interfaceCount = in.readUnsignedShort();
+        String[] interfaces = new String[interfaceCount];
+        for (int idx = 0; idx < interfaceCount; idx++) {
+            interfaces[idx] = getClassName(in.readUnsignedShort());
+        }
+
+        StringBuffer members = new StringBuffer();
+        int fieldCount = in.readUnsignedShort();
+        for (int idx = 0; idx < fieldCount; idx++) {
+            readField(in, members);
+        }
+        int methodCount = in.readUnsignedShort();
+        for (int idx = 0; idx < methodCount; idx++) {
+            readMethod(in, className, members);
+        }
+
+        // Obtain the source file name from the class attributes
+        String sourceFile = null;
+        int attrCount = in.readUnsignedShort();
+        for (int idx = 0; idx < attrCount; idx++) {
+            String attrName = getUtf8(in.readUnsignedShort());
+            byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            if ("SourceFile".equals(attrName) && (data.length == 2)) {
+                sourceFile = getUtf8(((data[0] & 0xFF) << 8) | (data[1] & 0xFF));
+            }
+        }
+
+        StringBuffer listing = new StringBuffer();
+        if (sourceFile != null) {
+            listing.append("Compiled from \"" + sourceFile + "\"\n");
+        }
+        boolean isInterface = ((access & ACC_INTERFACE) != 0);
+        listing.append(getModifiers(access & ~(ACC_SYNCHRONIZED | ACC_INTERFACE | (isInterface ? ACC_ABSTRACT : 0))));
+        listing.append(isInterface ? "interface " : "class ");
+        listing.append(className);
+        if ((superIndex != 0) && !isInterface) {
+            listing.append(" extends " + getClassName(superIndex));
+        }
+        for (int idx = 0; idx < interfaces.length; idx++) {
+            listing.append(((idx == 0) ? (isInterface ? " extends " : " implements ") : ","));
+            listing.append(interfaces[idx]);
+        }
+        listing.append("{\n");
+        listing.append(members);
+        listing.append("}\n");
+
+        return listing.toString();
+    }
+
+    /**
+     * Return a text listing of the class contained in the byte array.
+     *
+     * @param   data   Compiled class
+     * @return  Disassembled class listing
+     */
+    public String disassemble(byte[] data) throws IOException {
+        return disassemble(new ByteArrayInputStream(data));
+    }
+
+
+    /**
+     * Read the constant pool entries.
+     */
+    private void readConstantPool(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        tags = new int[count];
+        values = new Object[count];
+        for (int idx = 1; idx < count; idx++) {
+            int tag = in.readUnsignedByte();
+            tags[idx] = tag;
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    values[idx] = in.readUTF();
+                    break;
+                case CONSTANT_INTEGER:
+                    values[idx] = Integer.valueOf(in.readInt());
+                    break;
+                case CONSTANT_FLOAT:
+                    values[idx] = Float.valueOf(in.readFloat());
+                    break;
+                case CONSTANT_LONG:
+                    values[idx] = Long.valueOf(in.readLong());
+                    idx++;
+                    break;
+                case CONSTANT_DOUBLE:
+                    values[idx] = Double.valueOf(in.readDouble());
+                    idx++;
+                    break;
+                case CONSTANT_CLASS:
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    values[idx] = new int[] { in.readUnsignedShort() };
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    values[idx] = new int[] { in.readUnsignedByte(), in.readUnsignedShort() };
+                    break;
+                case CONSTANT_FIELDREF:
+                case CONSTANT_METHODREF:
+                case CONSTANT_INTERFACE_METHODREF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    values[idx] = new int[] { in.readUnsignedShort(), in.readUnsignedShort() };
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag + " at index " + idx);
+            }
+        }
+    }
+
+    /**
+     * Read a field and append it to the listing.
+     */
+    private void readField(DataInputStream in, StringBuffer listing) throws IOException {
+        int access = in.readUnsignedShort();
+        String name = getUtf8(in.readUnsignedShort());
+        String descriptor = getUtf8(in.readUnsignedShort());
+        skipAttributes(in);
+
+        if ((access & ACC_PRIVATE) == 0) {
+            listing.append("    " + getModifiers(access) + getFieldType(descriptor, new int[] { 0 }) + " " + name + ";\n");
+        }
+    }
+
+    /**
+     * Read a method and append it to the listing.
+     */
+    private void readMethod(DataInputStream in, String className, StringBuffer listing) throws IOException {
+        int access = in.readUnsignedShort();
+        String name = getUtf8(in.readUnsignedShort());
+        String descriptor = getUtf8(in.readUnsignedShort());
+
+        byte[] code = null;
+        StringBuffer exceptions = new StringBuffer();
+        int attrCount = in.readUnsignedShort();
+        for (int idx = 0; idx < attrCount; idx++) {
+            String attrName = getUtf8(in.readUnsignedShort());
+            int length = in.readInt();
+            if ("Code".equals(attrName)) {
+                in.readUnsignedShort();   // max stack
+                in.readUnsignedShort();   // max locals
+                code = new byte[in.readInt()];
+                in.readFully(code);
+                int handlerCount = in.readUnsignedShort();
+                in.skipBytes(handlerCount * 8);
+                skipAttributes(in);
+            } else if ("Exceptions".equals(attrName)) {
+                int count = in.readUnsignedShort();
+                for (int exIdx = 0; exIdx < count; exIdx++) {
+                    exceptions.append((exIdx == 0) ? " throws " : ", ");
+                    exceptions.append(getClassName(in.readUnsignedShort()));
+                }
+            } else {
+                in.skipBytes(length);
+            }
+        }
+
+        if ((access & ACC_PRIVATE) != 0) {
+            return;
+        }
+
+        // Parse the parameter and return types from the descriptor
+        int[] pos = new int[] { 1 };
+        StringBuffer params = new StringBuffer();
+        while (descriptor.charAt(pos[0]) != ')') {
+            if (params.length() > 0) params.append(", ");
+            params.append(getFieldType(descriptor, pos));
+        }
+        pos[0]++;
+        String returnType = getFieldType(descriptor, pos);
+
+        listing.append("    " + getModifiers(access & ~(ACC_VOLATILE | ACC_TRANSIENT)));
+        if ("<clinit>".equals(name)) {
+            listing.append("{}");
+        } else if ("<init>".equals(name)) {
+            listing.append(className + "(" + params + ")");
+        } else {
+            listing.append(returnType + " " + name + "(" + params + ")");
+        }
+        listing.append(exceptions);
+        listing.append(";\n");
+
+        if (showBytecode && (code != null)) {
+            listing.append("  Code:\n");
+            appendCode(code, listing);
+        }
+        listing.append("\n");
+    }
+
+    /**
+     * Append the instructions of a method to the listing.
+     */
+    private void appendCode(byte[] code, StringBuffer listing) {
+        int pc = 0;
+        while (pc < code.length) {
+            int opcode = code[pc] & 0xFF;
+            String mnemonic = (opcode < OPCODES.length) ? OPCODES[opcode] : ("opcode_" + opcode);
+            listing.append("   " + pc + ":\t" + mnemonic);
+
+            int next = pc + 1;
+            if ((opcode == 16) || (opcode == 188)) {
+                // bipush, newarray
+                int value = (opcode == 16) ? code[next] : (code[next] & 0xFF);
+                if ((opcode == 188) && (value < ARRAY_TYPES.length) && (ARRAY_TYPES[value] != null)) {
+                    listing.append(" " + ARRAY_TYPES[value]);
+                } else {
+                    listing.append("\t" + value);
+                }
+                next += 1;
+            } else if (opcode == 17) {
+                // sipush
+                listing.append("\t" + readShort(code, next));
+                next += 2;
+            } else if (opcode == 18) {
+                // ldc
+                int index = code[next] & 0xFF;
+                listing.append("\t#" + index + "; //" + getConstant(index));
+                next += 1;
+            } else if (((opcode >= 21) && (opcode <= 25)) || ((opcode >= 54) && (opcode <= 58)) || (opcode == 169)) {
+                // load, store, ret with a local variable index
+                listing.append("\t" + (code[next] & 0xFF));
+                next += 1;
+            } else if (opcode == 132) {
+                // iinc
+                listing.append("\t" + (code[next] & 0xFF) + ", " + code[next + 1]);
+                next += 2;
+            } else if (((opcode >= 153) && (opcode <= 168)) || (opcode == 198) || (opcode == 199)) {
+                // Branch with a 16 bit offset
+                listing.append("\t" + (pc + readShort(code, next)));
+                next += 2;
+            } else if ((opcode == 200) || (opcode == 201)) {
+                // Branch with a 32 bit offset
+                listing.append("\t" + (pc + readInt(code, next)));
+                next += 4;
+            } else if ((opcode == 19) || (opcode == 20) || ((opcode >= 178) && (opcode <= 184)) ||
+                       (opcode == 187) || (opcode == 189) || (opcode == 192) || (opcode == 193)) {
+                // Constant pool reference
+                int index = readUnsignedShort(code, next);
+                listing.append("\t#" + index + "; //" + getConstant(index));
+                next += 2;
+            } else if ((opcode == 185) || (opcode == 186)) {
+                // invokeinterface, invokedynamic
+                int index = readUnsignedShort(code, next);
+                listing.append("\t#" + index);
+                if (opcode == 185) {
+                    listing.append(",  " + (code[next + 2] & 0xFF));
+                }
+                listing.append("; //" + getConstant(index));
+                next += 4;
+            } else if (opcode == 197) {
+                // multianewarray
+                int index = readUnsignedShort(code, next);
+                listing.append("\t#" + index + ",  " + (code[next + 2] & 0xFF) + "; //" + getConstant(index));
+                next += 3;
+            } else if (opcode == 196) {
+                // wide
+                int wideOpcode = code[next] & 0xFF;
+                listing.append(" " + OPCODES[wideOpcode] + "\t" + readUnsignedShort(code, next + 1));
+                if (wideOpcode == 132) {
+                    listing.append(", " + readShort(code, next + 3));
+                    next += 5;
+                } else {
+                    next += 3;
+                }
+            } else if ((opcode == 170) || (opcode == 171)) {
+                // tableswitch, lookupswitch
+                next = (pc + 4) & ~3;
+                int defaultOffset = readInt(code, next);
+                next += 4;
+                listing.append("{ //");
+                if (opcode == 170) {
+                    int low = readInt(code, next);
+                    int high = readInt(code, next + 4);
+                    next += 8;
+                    listing.append(low + " to " + high + "\n");
+                    for (int value = low; value <= high; value++) {
+                        listing.append("\t\t" + value + ": " + (pc + readInt(code, next)) + ";\n");
+                        next += 4;
+                    }
+                } else {
+                    int count = readInt(code, next);
+                    next += 4;
+                    listing.append(count + "\n");
+                    for (int idx = 0; idx < count; idx++) {
+                        listing.append("\t\t" + readInt(code, next) + ": " + (pc + readInt(code, next + 4)) + ";\n");
+                        next += 8;
+                    }
+                }
+                listing.append("\t\tdefault: " + (pc + defaultOffset) + " }");
+            }
+            listing.append("\n");
+            pc = next;
+        }
+    }
+
+
+    /**
+     * Skip over a list of attributes.
+     */
+    private static void skipAttributes(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        for (int idx = 0; idx < count; idx++) {
+            in.readUnsignedShort();
+            in.skipBytes(in.readInt());
+        }
+    }
+
+    /**
+     * Return the string value of a UTF8 constant.
+     */
+    private String getUtf8(int index) {
+        return (String) values[index];
+    }
+
+    /**
+     * Return the fully qualified name of a class constant.
+     */
+    private String getClassName(int index) {
+        String name = getUtf8(((int[]) values[index])[0]);
+        if (name.startsWith("[")) {
+            return getFieldType(name, new int[] { 0 });
+        } else {
+            return name.replace('/', '.');
+        }
+    }
+
+    /**
+     * Return a description of a constant pool entry.
+     */
+    private String getConstant(int index) {
+        if ((index <= 0) || (index >= values.length) || (values[index] == null)) {
+            return "invalid constant";
+        }
+
+        int[] refs = (values[index] instanceof int[]) ? (int[]) values[index] : null;
+        switch (tags[index]) {
+            case CONSTANT_UTF8:
+                return (String) values[index];
+            case CONSTANT_INTEGER:
+                return "int " + values[index];
+            case CONSTANT_FLOAT:
+                return "float " + values[index] + "f";
+            case CONSTANT_LONG:
+                return "long " + values[index] + "l";
+            case CONSTANT_DOUBLE:
+                return "double " + values[index] + "d";
+            case CONSTANT_CLASS:
+                return "class " + getUtf8(refs[0]);
+            case CONSTANT_STRING:
+                return "String " + getUtf8(refs[0]);
+            case CONSTANT_FIELDREF:
+                return "Field " + getMemberRef(refs);
+            case CONSTANT_METHODREF:
+                return "Method " + getMemberRef(refs);
+            case CONSTANT_INTERFACE_METHODREF:
+                return "InterfaceMethod " + getMemberRef(refs);
+            case CONSTANT_NAME_AND_TYPE:
+                return getNameAndType(index);
+            case CONSTANT_METHOD_HANDLE:
+                return "MethodHandle " + refs[0] + ":" + getConstant(refs[1]);
+            case CONSTANT_METHOD_TYPE:
+                return "MethodType " + getUtf8(refs[0]);
+            case CONSTANT_DYNAMIC:
+                return "Dynamic #" + refs[0] + ":" + getNameAndType(refs[1]);
+            case CONSTANT_INVOKE_DYNAMIC:
+                return "InvokeDynamic #" + refs[0] + ":" + getNameAndType(refs[1]);
+            default:
+                return "constant #" + index;
+        }
+    }
+
+    /**
+     * Return a description of a field or method reference.
+     */
+    private String getMemberRef(int[] refs) {
+        String owner = getUtf8(((int[]) values[refs[0]])[0]);
+        return owner + "." + getNameAndType(refs[1]);
+    }
+
+    /**
+     * Return a description of a name and type constant.
+     */
+    private String getNameAndType(int index) {
+        int[] refs = (int[]) values[index];
+        String name = getUtf8(refs[0]);
+        if (name.startsWith("<")) {
+            name = "\"" + name + "\"";
+        }
+        return name + ":" + getUtf8(refs[1]);
+    }
+
+
+    /**
+     * Convert the type descriptor beginning at the given position to
+     * a Java type name.  The position is advanced past the descriptor.
+     *
+     * @param   descriptor   Type descriptor
+     * @param   pos          Current position within the descriptor
+     * @return  Java type name
+     */
+    private static String getFieldType(String descriptor, int[] pos) {
+        int dimensions = 0;
+        while (descriptor.charAt(pos[0]) == '[') {
+            dimensions++;
+            pos[0]++;
+        }
+
+        String type = null;
+        char ch = descriptor.charAt(pos[0]++);
+        switch (ch) {
+            case 'B': type = "byte"; break;
+            case 'C': type = "char"; break;
+            case 'D': type = "double"; break;
+            case 'F': type = "float"; break;
+            case 'I': type = "int"; break;
+            case 'J': type = "long"; break;
+            case 'S': type = "short"; break;
+            case 'Z': type = "boolean"; break;
+            case 'V': type = "void"; break;
+            case 'L':
+                int end = descriptor.indexOf(';', pos[0]);
+                type = descriptor.substring(pos[0], end).replace('/', '.');
+                pos[0] = end + 1;
+                break;
+            default:
+                type = String.valueOf(ch);
+        }
+
+        StringBuffer result = new StringBuffer(type);
+        for (int idx = 0; idx < dimensions; idx++) {
+            result.append("[]");
+        }
+        return result.toString();
+    }
+
+    /**
+     * Convert the access flags to a list of modifiers.
+     */
+    private static String getModifiers(int access) {
+        StringBuffer mods = new StringBuffer();
+        if ((access & ACC_PUBLIC) != 0) mods.append("public ");
+        if ((access & ACC_PRIVATE) != 0) mods.append("private ");
+        if ((access & ACC_PROTECTED) != 0) mods.append("protected ");
+        if ((access & ACC_STATIC) != 0) mods.append("static ");
+        if ((access & ACC_FINAL) != 0) mods.append("final ");
+        if ((access & ACC_SYNCHRONIZED) != 0) mods.append("synchronized ");
+        if ((access & ACC_VOLATILE) != 0) mods.append("volatile ");
+        if ((access & ACC_TRANSIENT) != 0) mods.append("transient ");
+        if ((access & ACC_NATIVE) != 0) mods.append("native ");
+        if ((access & ACC_ABSTRACT) != 0) mods.append("abstract ");
+        if ((access & ACC_STRICT) != 0) mods.append("strictfp ");
+        return mods.toString();
+    }
+
+    private static int readUnsignedShort(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
+    }
+
+    private static int readShort(byte[] data, int offset) {
+        return (short) readUnsignedShort(data, offset);
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16) |
+               ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+
+}
@@ -21,16 +21,23 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.InputStreamReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Vector;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
+import com.modeln.build.util.DiffUtility;
+
 import org.apache.tools.ant.Task;
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.types.PatternSet;
@@ -44,6 +51,9 @@ import org.apache.tools.ant.types.selectors.SelectorUtils;
  * deleted, or modified.  If a directory has been specified, the task
  * recursively examines every file under that directory.  If the file
  * is a Jar file, the task examines every file in the Jar file. 
+ * If more than one thread is specified, the modified files are compared
+ * in parallel and class files are disassembled in-process from the
+ * contents of the Jar files.
  *
  * @author Shawn Stafford
  */
@@ -95,6 +105,12 @@ private int modified_to_unchanged=0;
     /** Name of the updated Jar file */
     private File newFile = null;
 
+    /** Original Jar file, opened once and shared by all comparisons */
+    private JarFile oldJar = null;
+
+    /** Updated Jar file, opened once and shared by all comparisons */
+    private JarFile newJar = null;
+
     /** Executable for disassembling Java class files */
     private File disassembler = null;
 
@@ -122,8 +138,8 @@ private int modified_to_unchanged=0;
     /** Set the maximum number of lines that a file can contain */
     private int maxLines = 10000;
 
-    /** Flag if exceeding the maxLines   Flag is reset for every iteration of the diff loop  */
-    private boolean exceedMaxLines = false;
+    /** Number of threads used to compare the modified files */
+    private int threads = 1;
 
     /** Save a copy of any modified files for reference */
     private boolean saveModified = false;
@@ -154,6 +170,19 @@ private int modified_to_unchanged=0;
         maxLines = max.intValue();
     }
 
+    /**
+     * Set the number of threads used to compare modified files.  If more
+     * than one thread is specified, the files are compared in parallel.
+     * Class files are disassembled in-process unless an external
+     * disassembler is specified, and the external disassembler cannot be
+     * used with more than one thread.
+     *
+     * @param   count   Number of worker threads
+     */
+    public void setThreads(Integer count) {
+        threads = count.intValue();
+    }
+
     /**
      * Enable or disable verbose output of status messages during execution. 
      *
@@ -219,6 +248,8 @@ private int modified_to_unchanged=0;
 
     /**
      * Enable or disable the display of bytecode when comparing java classes. 
+     * The bytecode is included by the in-process disassembler, or by the
+     * external disassembler if one is specified.
      *
      * @param   enabled   True if modified files should be listed
      */
@@ -338,9 +369,12 @@ private int modified_to_unchanged=0;
             throw new BuildException(
                 "Unable to access dissassembler binary: " + disassembler.getAbsolutePath());
         }
-        if (showBytecode && (disassembler == null)) {
+        if (threads < 1) {
+            throw new BuildException("The 'threads' attribute must be at least 1.");
+        }
+        if ((disassembler != null) && (threads > 1)) {
             throw new BuildException(
-                "The 'disassembler' attribute must be specified when 'showBytecode' is enabled."); 
+                "The 'disassembler' attribute cannot be used when 'threads' is greater than 1.");
         }
 
         // Make sure the report directory if valid
@@ -377,6 +411,8 @@ private int modified_to_unchanged=0;
 
 
         try {
+            oldJar = new JarFile(oldFile);
+            newJar = new JarFile(newFile);
             Hashtable<String, String> files = compareJars();
             if (reportDir != null) {
                 writeStatusSummary(); 
@@ -401,6 +437,15 @@ private int modified_to_unchanged=0;
         } catch (Exception ex) {
             ex.printStackTrace();
             throw new BuildException("Unknown error occurred during report generation.", ex);
+        } finally {
+            try {
+                if (oldJar != null) oldJar.close();
+                if (newJar != null) newJar.close();
+            } catch (IOException ioex) {
+                System.out.println("Unable to close Jar file: " + ioex.getMessage());
+            }
+            oldJar = null;
+            newJar = null;
         }
     }
 
@@ -413,17 +458,13 @@ private int modified_to_unchanged=0;
      *
      * @return Hashtable of files and their diff status
      */
-    private Hashtable<String, String> compareJars() throws BuildException {
-    Hashtable<String, String> allFiles = null;
+    private Hashtable<String, String> compareJars() throws IOException, BuildException {
+        Hashtable<String, String> allFiles = new Hashtable<String, String>();
         System.out.println("Comparing contents of " + oldFile.getName() + " with " + newFile.getName() + "...");
         try {
-            JarFile oldJar = new JarFile(oldFile);
-            JarFile newJar = new JarFile(newFile);
-
             // Get one big list of Jar file entries from both jars
             Enumeration<JarEntry> oldFiles = oldJar.entries();
             Enumeration<JarEntry> newFiles = newJar.entries();
-            allFiles = new Hashtable<String, String>();
             JarEntry currentEntry = null;
             String currentName = null;
             // First add all the old files and assume they've been deleted
@@ -449,31 +490,30 @@ private int modified_to_unchanged=0;
 
             // Determine whether existing files have changed based on 
             // first the Jar CRC values and then the diff algorithm
-            Enumeration<String> keys = allFiles.keys();
-            String currentKey = null;
-            String currentValue = null;
-
-            while (keys.hasMoreElements()) {
-                currentKey = (String) keys.nextElement();
-                currentValue = (String) allFiles.get(currentKey);
-                if (currentValue == STATUS_UNCHANGED) {
+            Vector<String> keys = getSortedKeys(allFiles);
+            Vector<String> candidates = new Vector<String>();
+            for (String currentKey : keys) {
+                if (allFiles.get(currentKey) == STATUS_UNCHANGED) {
                     long oldCrc = oldJar.getJarEntry(currentKey).getCrc();
                     long newCrc = newJar.getJarEntry(currentKey).getCrc();
                     if (oldCrc != newCrc) {
                         System.out.println("diffing: "+currentKey);
-                        // determine if the file is modified using the diff algorithm
-                           if (diffFile(currentKey, null)) {
-                            allFiles.put(currentKey, STATUS_MODIFIED);
-                        } else {
-                            modified_to_unchanged++;
-                            System.out.println("  modified_to_unchanged: "+Integer.toString(modified_to_unchanged)+"\n");
-                        }
+                        candidates.add(currentKey);
                     }
                 }
             }
+
+            // determine if the file is modified using the diff algorithm
+            DiffResult[] results = diffFiles(candidates, null);
+            for (int idx = 0; idx < candidates.size(); idx++) {
+                if (results[idx].hasDiffs) {
+                    allFiles.put(candidates.get(idx), STATUS_MODIFIED);
+                } else {
+                    modified_to_unchanged++;
+                    System.out.println("  modified_to_unchanged: "+Integer.toString(modified_to_unchanged)+"\n");
+                }
+            }
     
-        } catch (IOException ioex) {
-            System.out.println("Unable to open Jar file: " + ioex.getMessage());
         } catch (SecurityException sex) {
             System.out.println("Unable to open Jar file: " + sex.getMessage());
         }
@@ -573,17 +613,24 @@ private int modified_to_unchanged=0;
      * @param   files   Hashtable containing the list of files and status
      */
     private void generateTextReport(Hashtable<String, String> files) {
-        Enumeration<String> keys = files.keys();
-
-        String currentKey = null;
-        String currentValue = null;
-        while (keys.hasMoreElements()) {
-            currentKey = (String) keys.nextElement();
-            currentValue = (String) files.get(currentKey);
-            System.out.println(currentValue + " " + currentKey);
+        for (String currentKey : getSortedKeys(files)) {
+            System.out.println(files.get(currentKey) + " " + currentKey);
         }
     }
 
+    /**
+     * Return the list of files in alphabetical order so that the reports
+     * are generated in the same order every time.
+     *
+     * @param   files   Hashtable containing the list of files and status
+     * @return  Sorted list of file names
+     */
+    private Vector<String> getSortedKeys(Hashtable<String, String> files) {
+        Vector<String> keys = new Vector<String>(files.keySet());
+        Collections.sort(keys);
+        return keys;
+    }
+
 
     /**
      * Generate an HTML report of the differences between each file in the jars.
@@ -593,7 +640,7 @@ private int modified_to_unchanged=0;
     private void generateHtmlReport(Hashtable<String, String> files) throws IOException {
         int fileIndex = 0;
 
-        Enumeration<String> keys = files.keys();
+        Vector<String> keys = getSortedKeys(files);
         String reportName = reportDir.getAbsolutePath() + File.separator + "index.html";
 
         FileWriter writer = null;
@@ -630,14 +677,32 @@ private int modified_to_unchanged=0;
                 writer.write("    </tr>\n");
             }
 
+            // Generate the diff file for each modified file before writing the index
+            Hashtable<String, DiffResult> diffs = new Hashtable<String, DiffResult>();
+            if (showDiffs) {
+                Vector<String> modifiedFiles = new Vector<String>();
+                Vector<String> linkfiles = new Vector<String>();
+                int modifiedCount = getStatusCount(files, STATUS_MODIFIED);
+                for (int idx = 0; idx < keys.size(); idx++) {
+                    if (files.get(keys.get(idx)) == STATUS_MODIFIED) {
+                        modifiedFiles.add(keys.get(idx));
+                        linkfiles.add(getPaddedValue(idx + 1, 9) + ".html");
+                        if (verbose) System.out.println("Performing file diff " + modifiedFiles.size() + " of " + modifiedCount + ": " + keys.get(idx));
+                    }
+                }
+
+                DiffResult[] results = diffFiles(modifiedFiles, linkfiles);
+                for (int idx = 0; idx < modifiedFiles.size(); idx++) {
+                    diffs.put(modifiedFiles.get(idx), results[idx]);
+                }
+            }
+
             String currentKey = null;
             String currentValue = null;
-            int modifiedCount = getStatusCount(files, STATUS_MODIFIED);
-            int modifiedProgress = 0;
-            while (keys.hasMoreElements()) {
+            for (int keyIdx = 0; keyIdx < keys.size(); keyIdx++) {
                 fileIndex++;
                 String linkfile = getPaddedValue(fileIndex, 9) + ".html";
-                currentKey = (String) keys.nextElement();
+                currentKey = keys.get(keyIdx);
                 currentValue = (String) files.get(currentKey);
 
                 // Generate a diff file and determine if there were differences
@@ -648,16 +713,15 @@ private int modified_to_unchanged=0;
 
                 if (showDiffs) {
                     if (currentValue == STATUS_MODIFIED) {
-                        modifiedProgress++;
-                        if (verbose) System.out.println("Performing file diff " + modifiedProgress + " of " + modifiedCount + ": " + currentKey);
                         String note = "";  // Special status notes
 
-                        // Perform a diff based on the type of file
-                        hasDiffs = diffFile(currentKey, linkfile);
+                        // Obtain the results of the diff performed above
+                        DiffResult result = diffs.get(currentKey);
+                        hasDiffs = result.hasDiffs;
                         
                         // If the file has no visual diffs, a link won't help the user
                         if (hasDiffs) {
-                            if ( exceedMaxLines ) {
+                            if ( result.exceedMaxLines ) {
                                 note = " (File exceeds maximum number of lines allowed. max = "+maxLines+")";
                                 link = currentKey + note;
                             } else {
@@ -673,19 +737,19 @@ private int modified_to_unchanged=0;
                         link = stringToHtml(currentKey);
                         File originalFile = new File(currentKey);
                         newLink = "<a href=\"" + SUBDIR_NEW + File.separator + originalFile.getPath() + "\">new</a>";
-                        extract(new JarFile(newFile), originalFile, newDir);
+                        extract(newJar, originalFile, newDir);
                     } else if (saveDeleted && (currentValue == STATUS_DELETED)) {
                         link = stringToHtml(currentKey);
                         File originalFile = new File(currentKey);
                         oldLink = "<a href=\"" + SUBDIR_OLD + File.separator + originalFile.getPath() + "\">old</a>";
-                        extract(new JarFile(oldFile), originalFile, oldDir);
+                        extract(oldJar, originalFile, oldDir);
                     } else if (saveUnchanged && (currentValue == STATUS_UNCHANGED)) {
                         link = stringToHtml(currentKey);
                         File originalFile = new File(currentKey);
                         oldLink = "<a href=\"" + SUBDIR_OLD + File.separator + originalFile.getPath() + "\">old</a>";
                         newLink = "<a href=\"" + SUBDIR_NEW + File.separator + originalFile.getPath() + "\">new</a>";
-                        extract(new JarFile(newFile), originalFile, newDir);
-                        extract(new JarFile(oldFile), originalFile, oldDir);
+                        extract(newJar, originalFile, newDir);
+                        extract(oldJar, originalFile, oldDir);
                     }  // end of if (currentValue == STATUS_MODIFIED) 
                 } //end of if (showDiffs)
 
@@ -734,27 +798,49 @@ private int modified_to_unchanged=0;
     }
 
 
+    /**
+     * Determine if each file is modified using the diff algorithm.  If more
+     * than one thread has been specified, the files are compared in parallel.
+     * The results are returned in the same order as the list of files.
+     *
+     * @param  files  List of files to be diff'ed
+     * @param  names  Name of the diff output file for each file, or null if no output is required
+     * @return Results of the diff for each file
+     */
+    private DiffResult[] diffFiles(Vector<String> files, Vector<String> names) throws IOException, BuildException {
+        DiffResult[] results = new DiffResult[files.size()];
+        if ((threads > 1) && (files.size() > 1)) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                pool.invoke(new DiffTask(files, names, results, 0, files.size()));
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            for (int idx = 0; idx < files.size(); idx++) {
+                String name = (names != null) ? names.get(idx) : null;
+                results[idx] = diffFile(files.get(idx), name);
+            }
+        }
+        return results;
+    }
+
     /**
      * Determine if the file is modified using the diff algorithm 
      *
      * @param  file  File to be diff'ed
      * @param  name  Name of the diff output file
-     * @return True if the file contains differences
+     * @return Result of the diff
      */
-    private boolean diffFile(String file, String name) throws IOException, BuildException {
-        boolean hasDiffs = false;
+    private DiffResult diffFile(String file, String name) throws IOException, BuildException {
+        DiffResult result = new DiffResult();
         FileInputStream oldReportInputStream = null;
         FileInputStream newReportInputStream = null;
         InputStream oldInputStream = null;
         InputStream newInputStream = null;
         try {
-            // Access the old and new files from the jars
-            JarFile oldJar = new JarFile(oldFile);
-            JarFile newJar = new JarFile(newFile);
-
             // call the diff algorithm
-            if (file.endsWith(".class")) {
-              if (disassembler != null) {
+            if (file.endsWith(".class") && (disassembler != null)) {
                 // Generate the disassembled class file output
                 File oldClassReport = new File(reportDir.getAbsolutePath() + File.separator + "old.data");
                 File newClassReport = new File(reportDir.getAbsolutePath() + File.separator + "new.data");
@@ -763,19 +849,23 @@ private int modified_to_unchanged=0;
 
                 oldReportInputStream = new FileInputStream(oldClassReport);
                 newReportInputStream = new FileInputStream(newClassReport);
-                hasDiffs = hasDifferences(oldReportInputStream, newReportInputStream, file, name);
+                result = hasDifferences(new InputStreamReader(oldReportInputStream), new InputStreamReader(newReportInputStream), file, name);
 
                 // Delete the temporary files
                 oldClassReport.delete();
                 newClassReport.delete();
-              } else {
-                throw new BuildException(
-                "The 'disassembler' attribute must be specified when diffing class files.");
-              }
+            } else if (file.endsWith(".class")) {
+                // Disassemble the classes directly from the jar contents
+                ClassDisassembler javap = new ClassDisassembler(showBytecode);
+                oldInputStream = new BufferedInputStream(oldJar.getInputStream(oldJar.getJarEntry(file)));
+                newInputStream = new BufferedInputStream(newJar.getInputStream(newJar.getJarEntry(file)));
+                String oldClass = javap.disassemble(oldInputStream);
+                String newClass = javap.disassemble(newInputStream);
+                result = hasDifferences(new StringReader(oldClass), new StringReader(newClass), file, name);
             } else {
-              oldInputStream = oldJar.getInputStream(oldJar.getJarEntry(file));
-              newInputStream = newJar.getInputStream(newJar.getJarEntry(file));
-              hasDiffs = hasDifferences(oldInputStream, newInputStream, file, name);
+                oldInputStream = oldJar.getInputStream(oldJar.getJarEntry(file));
+                newInputStream = newJar.getInputStream(newJar.getJarEntry(file));
+                result = hasDifferences(new InputStreamReader(oldInputStream), new InputStreamReader(newInputStream), file, name);
             }
         } catch (SecurityException sex) {
             System.out.println("Unable to access file: " + sex.getMessage());
@@ -786,7 +876,7 @@ private int modified_to_unchanged=0;
             if (newReportInputStream != null) newReportInputStream.close();
         }
 
-        return hasDiffs;
+        return result;
     }
 
     /**
@@ -906,21 +996,21 @@ private int modified_to_unchanged=0;
      * Generate and HTML report which indicates the difference between two
      * files. 
      * 
-     * The diff algorith was adapted from code written by Robert Sedgewick
-     * and Kevin Wayne.  The URL is shown here:
-     * http://www.cs.princeton.edu/introcs/96optimization/Diff.java.html
+     * The differences are calculated by DiffUtility, which requires memory
+     * proportional to the number of lines rather than the product of the
+     * line counts.
      *
-     * @param  older InputStream for reading the old version of the file
-     * @param  newer InputStream for reading the new version of the file 
+     * @param  older Reader for the old version of the file
+     * @param  newer Reader for the new version of the file 
      * @param  file  Name of the original file
      * @param  name  Name of the diff output file
-     * @return True if the file contains differences
+     * @return Result of the diff
      */
-    private boolean hasDifferences(InputStream older, InputStream newer, String file, String name) throws IOException {
+    private DiffResult hasDifferences(Reader older, Reader newer, String file, String name) throws IOException {
+        DiffResult result = new DiffResult();
         boolean hasDiffs = false;
         BufferedReader oldReader = null;
         BufferedReader newReader = null;
-        exceedMaxLines = false;
         File originalFile = new File(file);
         FileWriter writer = null;
         FileWriter oldWriter = null;
@@ -955,84 +1045,54 @@ private int modified_to_unchanged=0;
                 writer.write("<pre>\n");
             }
 
-            oldReader = new BufferedReader(new InputStreamReader(older));
-            newReader = new BufferedReader(new InputStreamReader(newer));
+            oldReader = new BufferedReader(older);
+            newReader = new BufferedReader(newer);
 
-            String[] x = new String[maxLines];  // lines in first file
-            String[] y = new String[maxLines];  // lines in second file
-            int M = 0;                          // number of lines of first file
-            int N = 0;                          // number of lines of second file
+            Vector<String> x = new Vector<String>();  // lines in first file
+            Vector<String> y = new Vector<String>();  // lines in second file
 
             // read in input from two files
             String line;
             while ((line = oldReader.readLine()) != null) {
-                x[M++] = line;
+                x.add(line);
                 if ((saveModified) && (name!=null)) {
                     oldWriter.write(line + "\n");
                 }
             }
             while ((line = newReader.readLine()) != null) {
-                y[N++] = line;
+                y.add(line);
                 if ((saveModified) && (name!=null)) {
                     newWriter.write(line + "\n");
                 }
             }
 
-            // opt[i][j] = length of LCS of x[i..M] and y[j..N]
-            int[][] opt = new int[M+1][N+1];
-
-            // compute length of LCS and all subproblems via dynamic programming
-            for (int i = M-1; i >= 0; i--) {
-                for (int j = N-1; j >= 0; j--) {
-                    if (x[i].equals(y[j])) {
-                        opt[i][j] = opt[i+1][j+1] + 1;
-                    } else { 
-                        opt[i][j] = Math.max(opt[i+1][j], opt[i][j+1]);
-                    }
-                }
-            }
-
-            // recover LCS itself and print out non-matching lines to standard output
-            int i = 0, j = 0;
-            while(i < M && j < N) {
-                if (x[i].equals(y[j])) {
-                    printDiff(writer, "&nbsp; <font class=\"unchanged\">" + stringToHtml(y[j]) + "</font>\n");
-                    i++;
-                    j++;
-                } else if (opt[i+1][j] >= opt[i][j+1]) {
-                    printDiff(writer, "&lt; <font class=\"deleted\">" + stringToHtml(x[i++]) + "</font>\n");
-                    hasDiffs = true;
-                    if (name == null)  break;
-                } else {
-                    printDiff(writer, "&gt; <font class=\"added\">" + stringToHtml(y[j++]) + "</font>\n");
-                    hasDiffs = true;
-                    if (name == null)  break;
-                }
-            }
-
-            // dump out one remainder of one string if the other is exhausted
-            if (name != null) {
-                while(i < M || j < N) {
-                    if (i == M) {
-                        printDiff(writer, "&gt; <font class=\"added\">" + stringToHtml(y[j++]) + "</font>\n");
-                        hasDiffs = true;
-                    } else if (j == N) { 
-                        printDiff(writer,"&lt; <font class=\"deleted\">" + stringToHtml(x[i++]) + "</font>\n");
-                        hasDiffs = true;
-                    }
-                }
+            if ((x.size() > maxLines) || (y.size() > maxLines)) {
+                System.out.println("File exceeds maximum number of lines allowed. (max = " + maxLines + ")");
+                hasDiffs = true;
+                result.exceedMaxLines = true;
+            } else if (name == null) {
+                // Only need to know whether the files differ
+                hasDiffs = !x.equals(y);
             } else {
-                if (M != N) {
-                    hasDiffs = true;
+                // Print out the changes required to transform the old file into the new file
+                Vector<DiffUtility.Delta> deltas = DiffUtility.getDeltas(x, y);
+                for (DiffUtility.Delta delta : deltas) {
+                    for (int idx = 0; idx < delta.getLength(); idx++) {
+                        if (delta.getOp() == DiffUtility.Operation.UNCHANGED) {
+                            printDiff(writer, "&nbsp; <font class=\"unchanged\">" + stringToHtml(y.get(delta.getNewIndex() + idx)) + "</font>\n");
+                        } else if (delta.getOp() == DiffUtility.Operation.DELETED) {
+                            printDiff(writer, "&lt; <font class=\"deleted\">" + stringToHtml(x.get(delta.getOldIndex() + idx)) + "</font>\n");
+                            hasDiffs = true;
+                        } else {
+                            printDiff(writer, "&gt; <font class=\"added\">" + stringToHtml(y.get(delta.getNewIndex() + idx)) + "</font>\n");
+                            hasDiffs = true;
+                        }
+                    }
                 }
             }
             
         } catch (SecurityException sex) {
             System.out.println("Unable to access file: " + sex.getMessage());
-        } catch (ArrayIndexOutOfBoundsException obex) {
-            System.out.println("File exceeds maximum number of lines allowed. (max = " + maxLines + ")");
-            hasDiffs = true;
-            exceedMaxLines = true;
         } finally {
             if (writer != null) {
                 printDiff(writer,"</pre>\n");
@@ -1046,7 +1106,8 @@ private int modified_to_unchanged=0;
             if (newReader != null) newReader.close();
         }
 
-        return hasDiffs;
+        result.hasDiffs = hasDiffs;
+        return result;
     }
 
     private void printDiff(FileWriter writer, String line) {
@@ -1215,6 +1276,55 @@ private int modified_to_unchanged=0;
         return included;
     }
 
-}
 
+    /**
+     * Result of comparing the old and new versions of a file.
+     */
+    private static final class DiffResult {
+        /** True if the file contains differences */
+        boolean hasDiffs = false;
+
+        /** True if the file exceeds the maximum number of lines */
+        boolean exceedMaxLines = false;
+    }
 
+    /**
+     * Compares a range of files on the fork-join pool.  The range is split
+     * in half until a single file remains, and each result is stored at the
+     * same index as the file so that the results are independent of the
+     * order in which the comparisons complete.
+     */
+    private final class DiffTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private Vector<String> files;
+        private Vector<String> names;
+        private DiffResult[] results;
+        private int start;
+        private int end;
+
+        DiffTask(Vector<String> files, Vector<String> names, DiffResult[] results, int start, int end) {
+            this.files = files;
+            this.names = names;
+            this.results = results;
+            this.start = start;
+            this.end = end;
+        }
+
+        protected void compute() {
+            if (end - start > 1) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new DiffTask(files, names, results, start, middle),
+                          new DiffTask(files, names, results, middle, end));
+            } else if (end > start) {
+                String name = (names != null) ? names.get(start) : null;
+                try {
+                    results[start] = diffFile(files.get(start), name);
+                } catch (IOException ioex) {
+                    throw new BuildException("Unable to compare " + files.get(start) + ": " + ioex.getMessage(), ioex);
+                }
+            }
+        }
+    }
+
+}
@@ -42,6 +42,15 @@ public final class CreateConfig extends Task {
     /** Base compiler configuration file inherit from */
     protected File basefile = null;
 
+    /** Determine whether the base configuration file should be merged as a stream */
+    protected boolean streaming = false;
+
+    /** Names of the configuration elements which are identified by key attributes */
+    protected Vector<String> keyElements = new Vector<String>();
+
+    /** Key attributes of each element in the list of element names */
+    protected Vector<String[]> keyAttributes = new Vector<String[]>();
+
     /** XML representation of the configuration file */
     protected Document config = null;
 
@@ -88,6 +97,50 @@ public final class CreateConfig extends Task {
     }
 
 
+    /**
+     * Merge the base configuration file as a stream rather than loading
+     * it into memory.  This reduces the memory required to merge large
+     * configuration files, but the generated file will not be indented.
+     *
+     * @param   enable  TRUE if the base file should be streamed
+     */
+    public void setStreaming(boolean enable) {
+        streaming = enable;
+    }
+
+
+    /**
+     * Set the attributes which identify a configuration element when the
+     * base configuration file is merged.  By default, elements are matched
+     * by name alone.  The value is a semicolon separated list of element
+     * names, each followed by a colon and a comma separated list of the
+     * key attributes for that element:
+     * <pre>
+     *   keyattributes="path-element:kind;locale:name,region"
+     * </pre>
+     *
+     * @param   value   List of elements and key attributes
+     */
+    public void setKeyAttributes(String value) {
+        String[] elements = value.split(";");
+        for (int idx = 0; idx < elements.length; idx++) {
+            String entry = elements[idx].trim();
+            if (entry.length() > 0) {
+                int sep = entry.indexOf(':');
+                if ((sep < 1) || (sep == entry.length() - 1)) {
+                    throw new BuildException("Invalid key attributes for element: " + entry);
+                }
+                String[] attrs = entry.substring(sep + 1).split(",");
+                for (int attrIdx = 0; attrIdx < attrs.length; attrIdx++) {
+                    attrs[attrIdx] = attrs[attrIdx].trim();
+                }
+                keyElements.addElement(entry.substring(0, sep).trim());
+                keyAttributes.addElement(attrs);
+            }
+        }
+    }
+
+
     /**
      * List of resource bundle files to include in the config file.
      *
@@ -132,6 +185,9 @@ public final class CreateConfig extends Task {
     public void execute() {
         // Construct an XML merge object for generating the final config data
         XmlMergeUtil xmlUtil = new XmlMergeUtil(XmlMergeUtil.MERGE, XmlMergeUtil.OVERWRITE);
+        for (int idx = 0; idx < keyElements.size(); idx++) {
+            xmlUtil.setKeyAttributes(keyElements.get(idx), keyAttributes.get(idx));
+        }
 
         // Construct a configuration data object from the user data
         Document userconfig = null;
@@ -141,6 +197,17 @@ public final class CreateConfig extends Task {
             pex.printStackTrace();
         }
 
+        // Merge the config values with a base config file as a stream
+        if ((basefile != null) && streaming && (userconfig != null)) {
+            try {
+                if (xmlUtil.merge(basefile, userconfig, configfile)) {
+                    return;
+                }
+            } catch (IOException ioex) {
+                throw new BuildException("Unable to generate the configuration file: " + configfile);
+            }
+        }
+
         // Merge the config values with a base config file if specified
         if (basefile != null) {
             try {
@@ -10,22 +10,44 @@
 package com.modeln.build.ant.flex;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.*;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
 /**
- * Provides methods for merging XML documents. 
+ * Provides methods for merging XML documents.  Sibling nodes are matched
+ * using an identity key made up of the node type, the node name, and the
+ * values of any key attributes configured for the element.  The children
+ * of each node are indexed by key so that documents can be merged in time
+ * proportional to the number of nodes.
  *
  * @author Shawn Stafford
  */
@@ -61,6 +83,13 @@ public final class XmlMergeUtil {
     public static final int OVERWRITE = 3;
 
 
+    /**
+     * Parser property which reports CDATA sections as CDATA events rather
+     * than as character data.
+     */
+    private static final String REPORT_CDATA = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+
+
     /**
      * Type of merge action to perform when matching nodes are found. 
      */
@@ -71,6 +100,11 @@ public final class XmlMergeUtil {
      */
     private int contentMode = OVERWRITE;
 
+    /**
+     * Names of the attributes which identify an element, indexed by element name.
+     */
+    private Hashtable<String, String[]> keyAttributes = new Hashtable<String, String[]>();
+
 
     /**
      * Construct the merge utility.
@@ -84,29 +118,104 @@ public final class XmlMergeUtil {
     }
 
     /**
-     * Determine if the two nodes can be merged.  Nodes can be merged if all
-     * of the following criteria can be met:
+     * Set the attributes which identify an element.  By default, elements
+     * are matched by name alone.  When key attributes are specified, elements
+     * with the given name must also have the same values for each of the 
+     * key attributes in order to be merged.
+     *
+     * @param  element     Element name
+     * @param  attributes  Names of the key attributes
+     */
+    public void setKeyAttributes(String element, String[] attributes) {
+        if ((attributes != null) && (attributes.length > 0)) {
+            keyAttributes.put(element, attributes);
+        } else {
+            keyAttributes.remove(element);
+        }
+    }
+
+    /**
+     * Return the identity key of a node.  Two nodes can be merged if they
+     * have the same key, which is the case when all of the following 
+     * criteria are met:
      *
      * - Both nodes are of the same type
      * - Both nodes have the same name
+     * - Both nodes have the same values for any key attributes
      *
-     * @param  node1  Document node
-     * @param  node2  Document node
+     * @param  node   Document node
+     * @return Identity key
      */
-    private boolean isMergePossible(Node node1, Node node2) {
-        boolean possible = true;
+    private String getKey(Node node) {
+        String name = node.getNodeName();
+        String[] attrs = null;
+        if (node.getNodeType() == Node.ELEMENT_NODE) {
+            attrs = keyAttributes.get(name);
+        }
 
-        // Fail if node types do not match
-        if (node1.getNodeType() != node2.getNodeType()) {
-            return false;
+        StringBuffer key = new StringBuffer();
+        key.append(node.getNodeType() + ":" + name);
+        if (attrs != null) {
+            Element element = (Element) node;
+            for (int idx = 0; idx < attrs.length; idx++) {
+                key.append("|" + element.getAttribute(attrs[idx]));
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Return the identity key of the element at the current position
+     * of the stream.
+     *
+     * @param  reader   XML stream positioned at the start of an element
+     * @return Identity key
+     */
+    private String getKey(XMLStreamReader reader) {
+        String name = getName(reader.getPrefix(), reader.getLocalName());
+        String[] attrs = keyAttributes.get(name);
+
+        StringBuffer key = new StringBuffer();
+        key.append(Node.ELEMENT_NODE + ":" + name);
+        if (attrs != null) {
+            for (int idx = 0; idx < attrs.length; idx++) {
+                String value = null;
+                for (int attrIdx = 0; attrIdx < reader.getAttributeCount(); attrIdx++) {
+                    String attrName = getName(reader.getAttributePrefix(attrIdx), reader.getAttributeLocalName(attrIdx));
+                    if (attrName.equals(attrs[idx])) {
+                        value = reader.getAttributeValue(attrIdx);
+                    }
+                }
+                key.append("|" + ((value != null) ? value : ""));
+            }
         }
+        return key.toString();
+    }
 
-        // Fail if node names do not match
-        if (!node1.getNodeName().equals(node2.getNodeName())) {
-            return false;
+    /**
+     * Return the qualified name of a node.
+     *
+     * @param  prefix   Namespace prefix
+     * @param  local    Local name
+     * @return Qualified name
+     */
+    private static String getName(String prefix, String local) {
+        if ((prefix != null) && (prefix.length() > 0)) {
+            return prefix + ":" + local;
+        } else {
+            return local;
         }
+    }
 
-        return possible;
+    /**
+     * Determine if the two nodes can be merged.  Nodes can be merged if
+     * they have the same identity key.
+     *
+     * @param  node1  Document node
+     * @param  node2  Document node
+     */
+    private boolean isMergePossible(Node node1, Node node2) {
+        return getKey(node1).equals(getKey(node2));
     }
 
 
@@ -114,10 +223,14 @@ public final class XmlMergeUtil {
      * Merge the content of two nodes.
      */
     private String mergeContent(Node node1, Node node2) {
-        String content = null;
+        return mergeContent(node1.getNodeValue(), node2.getNodeValue());
+    }
 
-        String content1 = node1.getNodeValue();
-        String content2 = node2.getNodeValue();
+    /**
+     * Merge the content of two nodes.
+     */
+    private String mergeContent(String content1, String content2) {
+        String content = null;
 
         switch (contentMode) {
             case APPEND:
@@ -159,52 +272,60 @@ public final class XmlMergeUtil {
      * @param  list2   List of child nodes
      */
     private void mergeChildren(Node parent, NodeList list1, NodeList list2) {
-        Node mergedNode = null;
-        Node currentNode1 = null;
-        Node currentNode2 = null;
-
-        // Keep track of whether the items each list have been merged
-        boolean[] matched1 = new boolean[list1.getLength()];
-        boolean[] matched2 = new boolean[list2.getLength()];
-        for (int idx = 0; idx < list1.getLength(); idx++) {
-            matched1[idx] = false;
-        }
-        for (int idx = 0; idx < list2.getLength(); idx++) {
-            matched2[idx] = false;
-        }
+        ChildIndex index = new ChildIndex(list2);
 
-        // Iterate through each child to determine if it should be merged in the list
+        // Merge each child with the first unmatched child of the same key
         for (int idx1 = 0; idx1 < list1.getLength(); idx1++) {
-            currentNode1 = list1.item(idx1);
-            for (int idx2 = 0; idx2 < list2.getLength(); idx2++) {
-                currentNode2 = list2.item(idx2);
-                // Merge the two nodes if they match
-                if (!matched1[idx1] && !matched2[idx2] && isMergePossible(currentNode1, currentNode2)) {
-                    mergedNode = mergeNode(currentNode1, currentNode2);
-                    //System.out.println("Adding merged node to parent: parent=" + parent.getNodeName() + ", child=" + mergedNode.getNodeName());
-                    parent.appendChild(mergedNode);
-                    matched1[idx1] = true;
-                    matched2[idx2] = true; 
-                }
-            }
-
-            // If no match was found for the node, add the unmodified version to the parent node
-            if (!matched1[idx1]) {
-                mergedNode = currentNode1.cloneNode(true);
-                //System.out.println("Adding unmatched node1 to parent: parent=" + parent.getNodeName() + ", child=" + mergedNode.getNodeName());
-                parent.appendChild(mergedNode);
+            Node currentNode1 = list1.item(idx1);
+            Node currentNode2 = index.take(getKey(currentNode1));
+            if (currentNode2 != null) {
+                parent.appendChild(mergeNode(currentNode1, currentNode2));
+            } else {
+                // If no match was found for the node, add the unmodified version to the parent node
+                parent.appendChild(currentNode1.cloneNode(true));
             }
         }
 
         // Add all remaining elements in list 2 to the parent
-        for (int idx = 0; idx < list2.getLength(); idx++) {
-            if (!matched2[idx]) {
-                mergedNode = list2.item(idx).cloneNode(true);
-                //System.out.println("Adding unmatched node2 to parent: parent=" + parent.getNodeName() + ", child=" + mergedNode.getNodeName());
-                parent.appendChild(mergedNode);
+        List<Node> remaining = index.getRemaining();
+        for (int idx = 0; idx < remaining.size(); idx++) {
+            parent.appendChild(remaining.get(idx).cloneNode(true));
+        }
+
+    }
+
+    /**
+     * Combines two sets of DOM nodes as the children of a combined node by
+     * replacing nodes in the first list with the matching nodes from the
+     * second list.  Nodes which do not match are kept from both lists. 
+     *
+     * <pre>
+     * Node 1:  a b c
+     * Node 2:  c' d
+     * Result:  a b c' d
+     * </pre>
+     *
+     * @param  parent  Parent node
+     * @param  list1   List of child nodes
+     * @param  list2   List of child nodes
+     */
+    private void overwriteChildren(Node parent, NodeList list1, NodeList list2) {
+        ChildIndex index = new ChildIndex(list2);
+
+        for (int idx1 = 0; idx1 < list1.getLength(); idx1++) {
+            Node currentNode1 = list1.item(idx1);
+            Node currentNode2 = index.take(getKey(currentNode1));
+            if (currentNode2 != null) {
+                parent.appendChild(currentNode2.cloneNode(true));
+            } else {
+                parent.appendChild(currentNode1.cloneNode(true));
             }
         }
 
+        List<Node> remaining = index.getRemaining();
+        for (int idx = 0; idx < remaining.size(); idx++) {
+            parent.appendChild(remaining.get(idx).cloneNode(true));
+        }
     }
 
 
@@ -427,7 +548,11 @@ public final class XmlMergeUtil {
                 Node mergedElement = null;
                 switch (nodeMode) {
                     case APPEND:
-                        System.out.println("APPEND mode has not been implemented.");
+                        mergedElement = element1.cloneNode(true);
+                        NodeList appendList = element2.getChildNodes();
+                        for (int idx = 0; idx < appendList.getLength(); idx++) {
+                            mergedElement.appendChild(appendList.item(idx).cloneNode(true));
+                        }
                         break;
                     case COLLATE: 
                         mergedElement = collateNode(element1, element2);
@@ -437,7 +562,8 @@ public final class XmlMergeUtil {
                         mergedElement = mergeNode(element1, element2);
                         break;
                     case OVERWRITE:
-                        System.out.println("OVERWRITE mode has not been implemented.");
+                        mergedElement = element1.cloneNode(false);
+                        overwriteChildren(mergedElement, element1.getChildNodes(), element2.getChildNodes());
                         break;
                     default:
                         System.out.println("Unknown merge type: " + nodeMode);
@@ -460,6 +586,234 @@ public final class XmlMergeUtil {
         return result;
     }
 
+    /**
+     * Merge a configuration file with a configuration document and write
+     * the result to a file.  The first file is read as a stream rather than
+     * being loaded into memory, so only the second document must be held in
+     * memory.  Only the MERGE and OVERWRITE node modes can be performed on
+     * a stream.  The merged content is identical to the result of merging
+     * the two documents, including any CDATA sections, although the output
+     * is not indented.
+     *
+     * @param  file1    XML file to be merged
+     * @param  doc2     Document to merge into the file
+     * @param  outfile  File to write the merged content to
+     * @return TRUE if the documents were merged
+     */
+    public boolean merge(File file1, Document doc2, File outfile) throws IOException {
+        if ((nodeMode != MERGE) && (nodeMode != OVERWRITE)) {
+            System.out.println("Merge type cannot be performed on a stream: " + nodeMode);
+            return false;
+        }
+
+        InputStream in = null;
+        OutputStream out = null;
+        try {
+            in = new FileInputStream(file1);
+            out = new FileOutputStream(outfile);
+            merge(in, doc2, out);
+            System.out.println("Configuration file written to " + outfile);
+        } catch (XMLStreamException xsex) {
+            System.out.println("Failed to merge XML stream: " + file1);
+            xsex.printStackTrace();
+            return false;
+        } finally {
+            if (in != null) in.close();
+            if (out != null) out.close();
+        }
+
+        return true;
+    }
+
+    /**
+     * Merge an XML stream with a document and write the result to the
+     * output stream.  Each element of the stream is matched against the
+     * children of the corresponding document node as it is read.
+     *
+     * @param  in     XML stream to be merged
+     * @param  doc2   Document to merge into the stream
+     * @param  out    Stream to write the merged content to
+     */
+    private void merge(InputStream in, Document doc2, OutputStream out) throws XMLStreamException {
+        XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+        if (inputFactory.isPropertySupported(REPORT_CDATA)) {
+            inputFactory.setProperty(REPORT_CDATA, Boolean.TRUE);
+        }
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+        XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+
+        // Each level of the stack contains the document node matching the
+        // current stream element, or null if the element is copied unchanged
+        LinkedList<StreamLevel> stack = new LinkedList<StreamLevel>();
+
+        // The stream is not coalesced so that CDATA sections are reported
+        // separately, but the parser may then split a single text node into
+        // several events.  The text is collected until the next event so
+        // that it can be matched against a single document text node.
+        StringBuffer text = new StringBuffer();
+        try {
+            writer.writeStartDocument("UTF-8", "1.0");
+            while (reader.hasNext()) {
+                int event = reader.next();
+                StreamLevel parent = stack.isEmpty() ? null : stack.getFirst();
+                boolean isText = (event == XMLStreamConstants.CHARACTERS) || (event == XMLStreamConstants.SPACE);
+                if (!isText && (text.length() > 0)) {
+                    writeContent(writer, XMLStreamConstants.CHARACTERS, text.toString(), parent);
+                    text.setLength(0);
+                }
+                switch (event) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        Node match = null;
+                        if (parent == null) {
+                            // The root elements are always merged
+                            match = doc2.getDocumentElement();
+                        } else if (parent.isMerged()) {
+                            match = parent.index.take(getKey(reader));
+                        }
+
+                        if ((parent != null) && parent.skip) {
+                            stack.addFirst(new StreamLevel(null, true));
+                        } else if ((match != null) && (parent != null) && (nodeMode == OVERWRITE)) {
+                            // Replace the stream element with the document node
+                            writeNode(writer, match);
+                            stack.addFirst(new StreamLevel(null, true));
+                        } else {
+                            writer.writeStartElement(getName(reader.getPrefix(), reader.getLocalName()));
+                            for (int idx = 0; idx < reader.getAttributeCount(); idx++) {
+                                writer.writeAttribute(
+                                    getName(reader.getAttributePrefix(idx), reader.getAttributeLocalName(idx)),
+                                    reader.getAttributeValue(idx));
+                            }
+                            stack.addFirst(new StreamLevel(match, false));
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        StreamLevel level = stack.removeFirst();
+                        if (!level.skip) {
+                            // Add any document nodes which did not match the stream
+                            if (level.isMerged()) {
+                                List<Node> remaining = level.index.getRemaining();
+                                for (int idx = 0; idx < remaining.size(); idx++) {
+                                    writeNode(writer, remaining.get(idx));
+                                }
+                            }
+                            writer.writeEndElement();
+                        }
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.SPACE:
+                        if ((parent != null) && !parent.skip) {
+                            text.append(reader.getText());
+                        }
+                        break;
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.COMMENT:
+                        if ((parent != null) && !parent.skip) {
+                            writeContent(writer, event, reader.getText(), parent);
+                        }
+                        break;
+                    case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                        if ((parent == null) || !parent.skip) {
+                            writer.writeProcessingInstruction(reader.getPITarget(), reader.getPIData());
+                        }
+                        break;
+                    default:
+                        // Document level events do not produce output
+                }
+            }
+            writer.writeEndDocument();
+            writer.flush();
+        } finally {
+            reader.close();
+            writer.close();
+        }
+    }
+
+    /**
+     * Write the content of a stream node, merging it with the first 
+     * unmatched document node of the same type.
+     *
+     * @param  writer   Merged output
+     * @param  event    Type of stream event
+     * @param  text     Content of the stream node
+     * @param  parent   Level of the stream containing the content
+     */
+    private void writeContent(XMLStreamWriter writer, int event, String text, StreamLevel parent)
+        throws XMLStreamException
+    {
+        short type = Node.TEXT_NODE;
+        String name = "#text";
+        if (event == XMLStreamConstants.CDATA) {
+            type = Node.CDATA_SECTION_NODE;
+            name = "#cdata-section";
+        } else if (event == XMLStreamConstants.COMMENT) {
+            type = Node.COMMENT_NODE;
+            name = "#comment";
+        }
+
+        Node match = null;
+        if (parent.isMerged()) {
+            match = parent.index.take(type + ":" + name);
+        }
+        if ((match != null) && (nodeMode == OVERWRITE)) {
+            writeNode(writer, match);
+            return;
+        } else if (match != null) {
+            text = mergeContent(text, match.getNodeValue());
+        }
+
+        if (text == null) {
+            return;
+        } else if (type == Node.CDATA_SECTION_NODE) {
+            writer.writeCData(text);
+        } else if (type == Node.COMMENT_NODE) {
+            writer.writeComment(text);
+        } else {
+            writer.writeCharacters(text);
+        }
+    }
+
+    /**
+     * Write a document node and all of its children to the stream.
+     *
+     * @param  writer   Merged output
+     * @param  node     Document node
+     */
+    private static void writeNode(XMLStreamWriter writer, Node node) throws XMLStreamException {
+        switch (node.getNodeType()) {
+            case Node.ELEMENT_NODE:
+                writer.writeStartElement(node.getNodeName());
+                NamedNodeMap attrs = node.getAttributes();
+                for (int idx = 0; idx < attrs.getLength(); idx++) {
+                    Node attr = attrs.item(idx);
+                    writer.writeAttribute(attr.getNodeName(), attr.getNodeValue());
+                }
+                NodeList children = node.getChildNodes();
+                for (int idx = 0; idx < children.getLength(); idx++) {
+                    writeNode(writer, children.item(idx));
+                }
+                writer.writeEndElement();
+                break;
+            case Node.TEXT_NODE:
+                writer.writeCharacters(node.getNodeValue());
+                break;
+            case Node.CDATA_SECTION_NODE:
+                writer.writeCData(node.getNodeValue());
+                break;
+            case Node.COMMENT_NODE:
+                writer.writeComment(node.getNodeValue());
+                break;
+            case Node.PROCESSING_INSTRUCTION_NODE:
+                writer.writeProcessingInstruction(node.getNodeName(), node.getNodeValue());
+                break;
+            default:
+                // Other node types do not appear within an element
+        }
+    }
+
+
     /**
      * Parse the XML file and return a document object.
      *
@@ -515,5 +869,109 @@ public final class XmlMergeUtil {
     }
 
 
-}
 
+    /**
+     * Index of the children of a node by identity key.  Children with the
+     * same key are kept in document order so that each lookup returns the
+     * first child which has not already been matched.
+     */
+    private class ChildIndex {
+
+        /** Unmatched children indexed by key */
+        private HashMap<String, LinkedList<Node>> children = new HashMap<String, LinkedList<Node>>();
+
+        /** All children in document order */
+        private ArrayList<Node> order = new ArrayList<Node>();
+
+        /** Children which have been matched */
+        private IdentityHashMap<Node, Node> matched = new IdentityHashMap<Node, Node>();
+
+        /**
+         * Construct an index of the nodes in the list.
+         *
+         * @param  list   List of child nodes
+         */
+        public ChildIndex(NodeList list) {
+            for (int idx = 0; idx < list.getLength(); idx++) {
+                Node node = list.item(idx);
+                String key = getKey(node);
+                LinkedList<Node> nodes = children.get(key);
+                if (nodes == null) {
+                    nodes = new LinkedList<Node>();
+                    children.put(key, nodes);
+                }
+                nodes.add(node);
+                order.add(node);
+            }
+        }
+
+        /**
+         * Return the first unmatched child with the key and mark it as matched.
+         *
+         * @param  key    Identity key
+         * @return Matching child, or null if no unmatched child has the key
+         */
+        public Node take(String key) {
+            LinkedList<Node> nodes = children.get(key);
+            if ((nodes != null) && (nodes.size() > 0)) {
+                Node node = nodes.removeFirst();
+                matched.put(node, node);
+                return node;
+            } else {
+                return null;
+            }
+        }
+
+        /**
+         * Return the children which have not been matched, in document order.
+         *
+         * @return List of unmatched children
+         */
+        public List<Node> getRemaining() {
+            List<Node> remaining = new ArrayList<Node>();
+            for (int idx = 0; idx < order.size(); idx++) {
+                Node node = order.get(idx);
+                if (!matched.containsKey(node)) {
+                    remaining.add(node);
+                }
+            }
+            return remaining;
+        }
+    }
+
+    /**
+     * State of a single element level while merging a stream.
+     */
+    private class StreamLevel {
+
+        /** Index of the children of the matching document node */
+        private ChildIndex index;
+
+        /** Determines whether the stream content at this level is discarded */
+        private boolean skip;
+
+        /**
+         * Construct the state of an element level.
+         *
+         * @param  match  Document node which matches the stream element, or null if none
+         * @param  skip   TRUE if the stream content is discarded
+         */
+        public StreamLevel(Node match, boolean skip) {
+            if (match != null) {
+                index = new ChildIndex(match.getChildNodes());
+            }
+            this.skip = skip;
+        }
+
+        /**
+         * Determine whether the stream content is merged with a document node.
+         *
+         * @return TRUE if the stream element matched a document node
+         */
+        public boolean isMerged() {
+            return (index != null);
+        }
+    }
+
+
+}
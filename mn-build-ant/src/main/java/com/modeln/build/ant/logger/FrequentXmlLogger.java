@@ -9,6 +9,7 @@
  */
 package com.modeln.build.ant.logger;
 
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -18,13 +19,7 @@ import java.io.Writer;
 import java.util.Hashtable;
 import java.util.Stack;
 import java.util.Enumeration;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import org.apache.tools.ant.util.DOMElementWriter;
 import org.apache.tools.ant.util.StringUtils;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Text;
 
 import org.apache.tools.ant.BuildEvent;
 import org.apache.tools.ant.BuildException;
@@ -39,8 +34,16 @@ import org.apache.tools.ant.util.DateUtils;
 /**
  * This logger extends the standard Ant XmlLogger by increasing the frequency
  * that files are written to the disk.  While the standard XmlLogger does not
- * write a log file until the build completes, this extension writes a log 
- * file as soon as each target starts and each time that one completes.
+ * write a log file until the build completes, this extension appends each
+ * event to a journal file as soon as it occurs.  The journal is forced to
+ * disk each time a target starts or completes.  Only the elements which
+ * have not yet finished are held in memory.
+ * <p>
+ * The journal is written to the XML log file name with an
+ * <code>.events</code> suffix.  When the build finishes, the journal is
+ * converted to the XML log file.  While the build is running, the
+ * journal can be converted to a valid XML log using
+ * {@link XmlLogJournal#writeXml}.
  *
  * @author Shawn Stafford
  */
@@ -49,22 +52,8 @@ public class FrequentXmlLogger implements BuildLogger {
     private int msgOutputLevel = Project.MSG_DEBUG;
     private PrintStream outStream;
 
-    /** DocumentBuilder to use when creating the document to start with. */
-    private static final DocumentBuilder builder = getDocumentBuilder();
-
-    /**
-     * Returns a default DocumentBuilder instance or throws an
-     * ExceptionInInitializerError if it can't be created.
-     *
-     * @return a default DocumentBuilder instance.
-     */
-    private static DocumentBuilder getDocumentBuilder() {
-        try {
-            return DocumentBuilderFactory.newInstance().newDocumentBuilder();
-        } catch (Exception exc) {
-            throw new ExceptionInInitializerError(exc);
-        }
-    }
+    /** Suffix appended to the log file name to form the journal file name */
+    public static final String JOURNAL_SUFFIX = ".events";
 
     /** XML element name for a build. */
     private static final String BUILD_TAG = "build";
@@ -72,23 +61,9 @@ public class FrequentXmlLogger implements BuildLogger {
     private static final String TARGET_TAG = "target";
     /** XML element name for a task. */
     private static final String TASK_TAG = "task";
-    /** XML element name for a message. */
-    private static final String MESSAGE_TAG = "message";
-    /** XML attribute name for a name. */
-    private static final String NAME_ATTR = "name";
-    /** XML attribute name for a time. */
-    private static final String TIME_ATTR = "time";
-    /** XML attribute name for a message priority. */
-    private static final String PRIORITY_ATTR = "priority";
-    /** XML attribute name for a file location. */
-    private static final String LOCATION_ATTR = "location";
-    /** XML attribute name for an error description. */
-    private static final String ERROR_ATTR = "error";
-    /** XML element name for a stack trace. */
-    private static final String STACKTRACE_TAG = "stacktrace";
-
-    /** The complete log document for this build. */
-    private Document doc = builder.newDocument();
+
+    /** Journal containing the log events for this build. */
+    private XmlLogJournal journal = null;
     /** Mapping for when tasks started (Task to TimedElement). */
     private Hashtable<Task, TimedElement> tasks = new Hashtable<Task, TimedElement>();
     /** Mapping for when targets started (Task to TimedElement). */
@@ -110,8 +85,8 @@ public class FrequentXmlLogger implements BuildLogger {
          * (as returned by <code>System.currentTimeMillis()</code>).
          */
         private long startTime;
-        /** Element created at the start time. */
-        private Element element;
+        /** Journal id of the element created at the start time. */
+        private int id;
     }
 
     /**
@@ -121,20 +96,42 @@ public class FrequentXmlLogger implements BuildLogger {
     }
 
     /**
-     * Fired when the build starts, this builds the top-level element for the
-     * document and remembers the time of the start of the build.
+     * Return the name of the XML log file.
      *
-     * @param event Ignored.
+     * @param   project   Project being built
+     * @return  Log file name
+     */
+    private static String getLogFilename(Project project) {
+        String outFilename = project.getProperty("XmlLogger.file");
+        if (outFilename == null) {
+            outFilename = "log.xml";
+        }
+        return outFilename;
+    }
+
+    /**
+     * Fired when the build starts, this creates the journal and the
+     * top-level element for the log and remembers the time of the start
+     * of the build.
+     *
+     * @param event An event with any relevant extra information.
      */
     public void buildStarted(BuildEvent event) {
         buildElement = new TimedElement();
         buildElement.startTime = System.currentTimeMillis();
-        buildElement.element = doc.createElement(BUILD_TAG);
+        try {
+            File journalFile = new File(getLogFilename(event.getProject()) + JOURNAL_SUFFIX);
+            journal = new XmlLogJournal(journalFile);
+            buildElement.id = journal.startElement(XmlLogJournal.BUILD_ID, BUILD_TAG, null, null);
+            journal.sync();
+        } catch (IOException exc) {
+            throw new BuildException("Unable to create log journal", exc);
+        }
     }
 
     /**
      * Fired when the build finishes, this adds the time taken and any
-     * error stacktrace to the build element and writes the document to disk.
+     * error stacktrace to the build element and writes the log to disk.
      *
      * @param event An event with any relevant extra information.
      *              Will not be <code>null</code>.
@@ -143,35 +140,30 @@ public class FrequentXmlLogger implements BuildLogger {
         writeLog(event);
 
         buildElement = null;
+        journal = null;
+        tasks.clear();
+        targets.clear();
+        threadStacks.clear();
     }
 
 
     /**
-     * Write the log file to disk.
+     * Record the end of the build in the journal and convert the journal
+     * to the XML log file.
      *
      * @param   event       Build event
      */
     private void writeLog(BuildEvent event) {
         long totalTime = System.currentTimeMillis() - buildElement.startTime;
-        buildElement.element.setAttribute(TIME_ATTR,
-                DateUtils.formatElapsedTime(totalTime));
-
-        if (event.getException() != null) {
-            buildElement.element.setAttribute(ERROR_ATTR,
-                    event.getException().toString());
-            // print the stacktrace in the build file it is always useful...
-            // better have too much info than not enough.
-            Throwable t = event.getException();
-            Text errText = doc.createCDATASection(StringUtils.getStackTrace(t));
-            Element stacktrace = doc.createElement(STACKTRACE_TAG);
-            stacktrace.appendChild(errText);
-            buildElement.element.appendChild(stacktrace);
+        File journalFile = journal.getFile();
+        try {
+            endElement(buildElement, totalTime, event.getException());
+            journal.close();
+        } catch (IOException exc) {
+            throw new BuildException("Unable to write log journal", exc);
         }
 
-        String outFilename = event.getProject().getProperty("XmlLogger.file");
-        if (outFilename == null) {
-            outFilename = "log.xml";
-        }
+        String outFilename = getLogFilename(event.getProject());
         String xslUri
                 = event.getProject().getProperty("ant.XmlLogger.stylesheet.uri");
         if (xslUri == null) {
@@ -186,13 +178,7 @@ public class FrequentXmlLogger implements BuildLogger {
                 stream = new FileOutputStream(outFilename);
             }
             out = new OutputStreamWriter(stream, "UTF8");
-            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n");
-            if (xslUri.length() > 0) {
-                out.write("<?xml-stylesheet type=\"text/xsl\" href=\""
-                        + xslUri + "\"?>\n\n");
-            }
-
-            (new DOMElementWriter()).write(buildElement.element, out, 0, "\t");
+            XmlLogJournal.writeXml(journalFile, out, xslUri);
             out.flush();
         } catch (IOException exc) {
             throw new BuildException("Unable to write log file", exc);
@@ -205,6 +191,28 @@ public class FrequentXmlLogger implements BuildLogger {
                 }
             }
         }
+
+        // The journal is no longer needed once the complete log has been written
+        journalFile.delete();
+    }
+
+    /**
+     * Record the end of an element in the journal.
+     *
+     * @param   element     Element which has finished
+     * @param   totalTime   Elapsed time in milliseconds
+     * @param   error       Exception which caused the element to fail, or null
+     */
+    private void endElement(TimedElement element, long totalTime, Throwable error) throws IOException {
+        String errorText = null;
+        String stacktrace = null;
+        if (error != null) {
+            // print the stacktrace in the build file it is always useful...
+            // better have too much info than not enough.
+            errorText = error.toString();
+            stacktrace = StringUtils.getStackTrace(error);
+        }
+        journal.endElement(element.id, DateUtils.formatElapsedTime(totalTime), errorText, stacktrace);
     }
 
     /**
@@ -230,12 +238,22 @@ public class FrequentXmlLogger implements BuildLogger {
      */
     public void targetStarted(BuildEvent event) {
         Target target = event.getTarget();
+        TimedElement parentElement = buildElement;
+        Stack<TimedElement> threadStack = getStack();
+        if (!threadStack.empty()) {
+            parentElement = (TimedElement) threadStack.peek();
+        }
+
         TimedElement targetElement = new TimedElement();
         targetElement.startTime = System.currentTimeMillis();
-        targetElement.element = doc.createElement(TARGET_TAG);
-        targetElement.element.setAttribute(NAME_ATTR, target.getName());
+        try {
+            targetElement.id = journal.startElement(parentElement.id, TARGET_TAG, target.getName(), null);
+            journal.sync();
+        } catch (IOException exc) {
+            throw new BuildException("Unable to write log journal", exc);
+        }
         targets.put(target, targetElement);
-        getStack().push(targetElement);
+        threadStack.push(targetElement);
     }
 
     /**
@@ -247,31 +265,26 @@ public class FrequentXmlLogger implements BuildLogger {
      */
     public void targetFinished(BuildEvent event) {
         Target target = event.getTarget();
-        TimedElement targetElement = (TimedElement) targets.get(target);
+        TimedElement targetElement = targets.remove(target);
         if (targetElement != null) {
             long totalTime
                     = System.currentTimeMillis() - targetElement.startTime;
-            targetElement.element.setAttribute(TIME_ATTR,
-                    DateUtils.formatElapsedTime(totalTime));
+            try {
+                endElement(targetElement, totalTime, null);
+                journal.sync();
+            } catch (IOException exc) {
+                throw new BuildException("Unable to write log journal", exc);
+            }
 
-            TimedElement parentElement = null;
             Stack<TimedElement> threadStack = getStack();
             if (!threadStack.empty()) {
                 TimedElement poppedStack = (TimedElement) threadStack.pop();
                 if (poppedStack != targetElement) {
                     throw new RuntimeException("Mismatch - popped element = "
-                            + poppedStack.element + " finished target element = "
-                            + targetElement.element);
-                }
-                if (!threadStack.empty()) {
-                    parentElement = (TimedElement) threadStack.peek();
+                            + poppedStack.id + " finished target element = "
+                            + targetElement.id);
                 }
             }
-            if (parentElement == null) {
-                buildElement.element.appendChild(targetElement.element);
-            } else {
-                parentElement.element.appendChild(targetElement.element);
-            }
         }
 
     }
@@ -285,15 +298,24 @@ public class FrequentXmlLogger implements BuildLogger {
      *              Will not be <code>null</code>.
      */
     public void taskStarted(BuildEvent event) {
+        Task task = event.getTask();
+        Target target = task.getOwningTarget();
+        TimedElement parentElement = null;
+        if (target != null) {
+            parentElement = targets.get(target);
+        }
+        if (parentElement == null) {
+            parentElement = buildElement;
+        }
+
         TimedElement taskElement = new TimedElement();
         taskElement.startTime = System.currentTimeMillis();
-        taskElement.element = doc.createElement(TASK_TAG);
-
-        Task task = event.getTask();
-        String name = event.getTask().getTaskName();
-        taskElement.element.setAttribute(NAME_ATTR, name);
-        taskElement.element.setAttribute(LOCATION_ATTR,
-                event.getTask().getLocation().toString());
+        try {
+            taskElement.id = journal.startElement(parentElement.id, TASK_TAG,
+                task.getTaskName(), task.getLocation().toString());
+        } catch (IOException exc) {
+            throw new BuildException("Unable to write log journal", exc);
+        }
         tasks.put(task, taskElement);
         getStack().push(taskElement);
     }
@@ -307,28 +329,22 @@ public class FrequentXmlLogger implements BuildLogger {
      */
     public void taskFinished(BuildEvent event) {
         Task task = event.getTask();
-        TimedElement taskElement = (TimedElement) tasks.get(task);
+        TimedElement taskElement = tasks.remove(task);
         if (taskElement != null) {
             long totalTime = System.currentTimeMillis() - taskElement.startTime;
-            taskElement.element.setAttribute(TIME_ATTR,
-                    DateUtils.formatElapsedTime(totalTime));
-            Target target = task.getOwningTarget();
-            TimedElement targetElement = null;
-            if (target != null) {
-                targetElement = (TimedElement) targets.get(target);
-            }
-            if (targetElement == null) {
-                buildElement.element.appendChild(taskElement.element);
-            } else {
-                targetElement.element.appendChild(taskElement.element);
+            try {
+                endElement(taskElement, totalTime, null);
+            } catch (IOException exc) {
+                throw new BuildException("Unable to write log journal", exc);
             }
+
             Stack<TimedElement> threadStack = getStack();
             if (!threadStack.empty()) {
                 TimedElement poppedStack = (TimedElement) threadStack.pop();
                 if (poppedStack != taskElement) {
                     throw new RuntimeException("Mismatch - popped element = "
-                            + poppedStack.element + " finished task element = "
-                            + taskElement.element);
+                            + poppedStack.id + " finished task element = "
+                            + taskElement.id);
                 }
             }
         }
@@ -369,10 +385,9 @@ public class FrequentXmlLogger implements BuildLogger {
      */
     public void messageLogged(BuildEvent event) {
         int priority = event.getPriority();
-        if (priority > msgOutputLevel) {
+        if ((priority > msgOutputLevel) || (journal == null)) {
             return;
         }
-        Element messageElement = doc.createElement(MESSAGE_TAG);
 
         String name = "debug";
         switch (event.getPriority()) {
@@ -389,10 +404,6 @@ public class FrequentXmlLogger implements BuildLogger {
                 name = "debug";
                 break;
         }
-        messageElement.setAttribute(PRIORITY_ATTR, name);
-
-        Text messageText = doc.createCDATASection(event.getMessage());
-        messageElement.appendChild(messageText);
 
         TimedElement parentElement = null;
 
@@ -405,23 +416,14 @@ public class FrequentXmlLogger implements BuildLogger {
         if (parentElement == null && target != null) {
             parentElement = (TimedElement) targets.get(target);
         }
-
-        /*
         if (parentElement == null) {
-            Stack threadStack
-                    = (Stack) threadStacks.get(Thread.currentThread());
-            if (threadStack != null) {
-                if (!threadStack.empty()) {
-                    parentElement = (TimedElement) threadStack.peek();
-                }
-            }
+            parentElement = buildElement;
         }
-        */
 
-        if (parentElement != null) {
-            parentElement.element.appendChild(messageElement);
-        } else {
-            buildElement.element.appendChild(messageElement);
+        try {
+            journal.message(parentElement.id, name, event.getMessage());
+        } catch (IOException exc) {
+            throw new BuildException("Unable to write log journal", exc);
         }
     }
 
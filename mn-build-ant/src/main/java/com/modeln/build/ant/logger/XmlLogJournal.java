@@ -0,0 +1,437 @@
+package com.modeln.build.ant.logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.util.Hashtable;
+import java.util.Vector;
+
+import org.apache.tools.ant.util.DOMElementWriter;
+
+
+/**
+ * Append-only journal of build log events.  Each event is written to the
+ * journal as a single line when it occurs, so the cost of logging an
+ * event does not depend on the size of the log.  The journal can be
+ * converted to the XML log format at any time, including while the build
+ * is still running, in which case any elements which have not finished
+ * are closed so that the XML is valid.
+ * <p>
+ * Each line of the journal contains tab separated fields, with tabs,
+ * newlines, and backslashes escaped:
+ * <pre>
+ *   S  id  parent  tag  name  location         element started
+ *   M  parent  priority  text                  message logged
+ *   E  id  time  error  stacktrace             element finished
+ * </pre>
+ * The build element always has an id of 0.
+ */
+public final class XmlLogJournal {
+
+    /** Record type for an element start */
+    private static final char START_RECORD = 'S';
+
+    /** Record type for a message */
+    private static final char MESSAGE_RECORD = 'M';
+
+    /** Record type for an element end */
+    private static final char END_RECORD = 'E';
+
+    /** Id of the top level build element */
+    public static final int BUILD_ID = 0;
+
+    /** XML element name for a message. */
+    private static final String MESSAGE_TAG = "message";
+    /** XML element name for a stack trace. */
+    private static final String STACKTRACE_TAG = "stacktrace";
+
+    /** Journal file */
+    private File file;
+
+    /** Stream used to write to the journal file */
+    private FileOutputStream stream;
+
+    /** Writer used to write to the journal file */
+    private Writer writer;
+
+    /** Next element id to be assigned */
+    private int nextId = BUILD_ID;
+
+
+    /**
+     * Create a new journal file.  Any existing file will be replaced.
+     *
+     * @param   journal   Journal file
+     */
+    public XmlLogJournal(File journal) throws IOException {
+        file = journal;
+        stream = new FileOutputStream(journal);
+        writer = new BufferedWriter(new OutputStreamWriter(stream, "UTF8"));
+    }
+
+    /**
+     * Return the journal file.
+     *
+     * @return Journal file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Record the start of an element.  The first element started is
+     * the build element.
+     *
+     * @param   parent    Id of the parent element
+     * @param   tag       XML element name
+     * @param   name      Value of the name attribute, or null if none
+     * @param   location  Value of the location attribute, or null if none
+     * @return  Id of the new element
+     */
+    public synchronized int startElement(int parent, String tag, String name, String location) throws IOException {
+        int id = nextId++;
+        writer.write(START_RECORD + "\t" + id + "\t" + parent + "\t" + escape(tag) + "\t" +
+            escape(name) + "\t" + escape(location) + "\n");
+        return id;
+    }
+
+    /**
+     * Record a message.
+     *
+     * @param   parent    Id of the element which contains the message
+     * @param   priority  Message priority name
+     * @param   text      Message text
+     */
+    public synchronized void message(int parent, String priority, String text) throws IOException {
+        writer.write(MESSAGE_RECORD + "\t" + parent + "\t" + escape(priority) + "\t" + escape(text) + "\n");
+    }
+
+    /**
+     * Record the end of an element.
+     *
+     * @param   id          Id of the element
+     * @param   time        Formatted elapsed time
+     * @param   error       Error description, or null if none
+     * @param   stacktrace  Error stack trace, or null if none
+     */
+    public synchronized void endElement(int id, String time, String error, String stacktrace) throws IOException {
+        writer.write(END_RECORD + "\t" + id + "\t" + escape(time) + "\t" + escape(error) + "\t" +
+            escape(stacktrace) + "\n");
+    }
+
+    /**
+     * Flush the journal and force it to be written to the disk.
+     */
+    public synchronized void sync() throws IOException {
+        writer.flush();
+        stream.getFD().sync();
+    }
+
+    /**
+     * Flush and close the journal.
+     */
+    public synchronized void close() throws IOException {
+        writer.flush();
+        writer.close();
+    }
+
+
+    /**
+     * Convert the journal to the XML log format.  Elements which have
+     * not finished are closed without a time attribute.
+     *
+     * @param   journal   Journal file
+     * @param   out       Writer to receive the XML log
+     * @param   xslUri    Stylesheet URI, or null if none
+     */
+    public static void writeXml(File journal, Writer out, String xslUri) throws IOException {
+        // Collect the structure of the log without the message text
+        Hashtable<Integer, ElementInfo> elements = new Hashtable<Integer, ElementInfo>();
+        long length = journal.length();
+        InputStream input = new BufferedInputStream(new FileInputStream(journal));
+        try {
+            long offset = 0;
+            byte[] line = null;
+            while ((line = readLine(input)) != null) {
+                long lineOffset = offset;
+                offset = offset + line.length + 1;
+
+                // The journal may end with a partial record if the build
+                // stopped before the journal was flushed
+                if (offset > length) {
+                    break;
+                }
+
+                String[] fields = split(new String(line, "UTF8"));
+                if ((fields.length >= 4) && (fields[0] != null) && (fields[0].length() == 1)) {
+                    try {
+                        readRecord(fields, lineOffset, elements);
+                    } catch (NumberFormatException nfex) {
+                        // Skip a record with a corrupt element id
+                    }
+                }
+            }
+        } finally {
+            input.close();
+        }
+
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n");
+        if ((xslUri != null) && (xslUri.length() > 0)) {
+            out.write("<?xml-stylesheet type=\"text/xsl\" href=\"" + xslUri + "\"?>\n\n");
+        }
+
+        // Write each element, reading the message text from the journal
+        ElementInfo build = elements.get(Integer.valueOf(BUILD_ID));
+        if (build != null) {
+            RandomAccessFile messages = new RandomAccessFile(journal, "r");
+            try {
+                writeElement(build, elements, messages, out, 0, new DOMElementWriter());
+            } finally {
+                messages.close();
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Add a journal record to the structure of the log.  Records which do
+     * not have all of the fields required by the record type are ignored.
+     *
+     * @param   fields     Record fields
+     * @param   offset     Location of the record in the journal
+     * @param   elements   Elements read so far, indexed by id
+     */
+    private static void readRecord(String[] fields, long offset, Hashtable<Integer, ElementInfo> elements) {
+        char type = fields[0].charAt(0);
+        if ((type == START_RECORD) && (fields.length >= 6)) {
+            ElementInfo info = new ElementInfo();
+            info.tag = fields[3];
+            info.name = fields[4];
+            info.location = fields[5];
+            Integer id = Integer.valueOf(fields[1]);
+            elements.put(id, info);
+            ElementInfo parent = elements.get(Integer.valueOf(fields[2]));
+            if ((parent != null) && (parent != info)) {
+                parent.children.add(Long.valueOf(-1 - id.intValue()));
+            }
+        } else if (type == MESSAGE_RECORD) {
+            ElementInfo parent = elements.get(Integer.valueOf(fields[1]));
+            if (parent != null) {
+                parent.children.add(Long.valueOf(offset));
+            }
+        } else if ((type == END_RECORD) && (fields.length >= 5)) {
+            ElementInfo info = elements.get(Integer.valueOf(fields[1]));
+            if (info != null) {
+                info.time = fields[2];
+                info.error = fields[3];
+                info.stacktrace = fields[4];
+            }
+        }
+    }
+
+    /**
+     * Write an element and all of its children.
+     */
+    private static void writeElement(ElementInfo info, Hashtable<Integer, ElementInfo> elements,
+            RandomAccessFile messages, Writer out, int indent, DOMElementWriter xml) throws IOException {
+        writeIndent(out, indent);
+        out.write("<" + info.tag);
+        writeAttribute(out, xml, "error", info.error);
+        writeAttribute(out, xml, "location", info.location);
+        writeAttribute(out, xml, "name", info.name);
+        writeAttribute(out, xml, "time", info.time);
+        out.write(">\n");
+
+        for (int idx = 0; idx < info.children.size(); idx++) {
+            long child = info.children.get(idx).longValue();
+            if (child < 0) {
+                ElementInfo childInfo = elements.get(Integer.valueOf((int) (-1 - child)));
+                writeElement(childInfo, elements, messages, out, indent + 1, xml);
+            } else {
+                messages.seek(child);
+                String[] fields = split(new String(readLine(messages), "UTF8"));
+                if (fields.length < 4) {
+                    continue;
+                }
+                writeIndent(out, indent + 1);
+                out.write("<" + MESSAGE_TAG);
+                writeAttribute(out, xml, "priority", fields[2]);
+                out.write("><![CDATA[" + xml.encodedata(fields[3]) + "]]></" + MESSAGE_TAG + ">\n");
+            }
+        }
+
+        if (info.stacktrace != null) {
+            writeIndent(out, indent + 1);
+            out.write("<" + STACKTRACE_TAG + "><![CDATA[" + xml.encodedata(info.stacktrace) + "]]></" + STACKTRACE_TAG + ">\n");
+        }
+
+        writeIndent(out, indent);
+        out.write("</" + info.tag + ">\n");
+    }
+
+    private static void writeAttribute(Writer out, DOMElementWriter xml, String name, String value) throws IOException {
+        if (value != null) {
+            out.write(" " + name + "=\"" + xml.encodeAttributeValue(value) + "\"");
+        }
+    }
+
+    private static void writeIndent(Writer out, int indent) throws IOException {
+        for (int idx = 0; idx < indent; idx++) {
+            out.write("\t");
+        }
+    }
+
+
+    /**
+     * Read the bytes of a single line, not including the line terminator.
+     *
+     * @return Line contents, or null if the end of the input has been reached
+     */
+    private static byte[] readLine(InputStream input) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+        int current = input.read();
+        if (current < 0) {
+            return null;
+        }
+        while ((current >= 0) && (current != '\n')) {
+            line.write(current);
+            current = input.read();
+        }
+        return line.toByteArray();
+    }
+
+    /**
+     * Read the bytes of a single line, not including the line terminator.
+     *
+     * @return Line contents, or null if the end of the file has been reached
+     */
+    private static byte[] readLine(RandomAccessFile input) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+        byte[] buffer = new byte[512];
+        int count = 0;
+        while ((count = input.read(buffer)) > 0) {
+            for (int idx = 0; idx < count; idx++) {
+                if (buffer[idx] == '\n') {
+                    line.write(buffer, 0, idx);
+                    return line.toByteArray();
+                }
+            }
+            line.write(buffer, 0, count);
+        }
+        return line.toByteArray();
+    }
+
+    /**
+     * Escape a field value so that it does not contain any tabs or newlines.
+     * Null values are written as a single backslash.
+     */
+    private static String escape(String value) {
+        if (value == null) {
+            return "\\";
+        }
+        StringBuffer escaped = new StringBuffer(value.length() + 16);
+        for (int idx = 0; idx < value.length(); idx++) {
+            char ch = value.charAt(idx);
+            switch (ch) {
+                case '\\': escaped.append("\\\\"); break;
+                case '\t': escaped.append("\\t"); break;
+                case '\n': escaped.append("\\n"); break;
+                case '\r': escaped.append("\\r"); break;
+                default:   escaped.append(ch);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Split a journal line into unescaped fields.
+     */
+    private static String[] split(String line) {
+        Vector<String> fields = new Vector<String>();
+        StringBuffer current = new StringBuffer();
+        boolean isNull = false;
+        for (int idx = 0; idx < line.length(); idx++) {
+            char ch = line.charAt(idx);
+            if (ch == '\t') {
+                fields.add(isNull ? null : current.toString());
+                current.setLength(0);
+                isNull = false;
+            } else if ((ch == '\\') && (idx + 1 < line.length()) && (line.charAt(idx + 1) != '\t')) {
+                idx++;
+                char next = line.charAt(idx);
+                if (next == 't') {
+                    current.append('\t');
+                } else if (next == 'n') {
+                    current.append('\n');
+                } else if (next == 'r') {
+                    current.append('\r');
+                } else {
+                    current.append(next);
+                }
+            } else if (ch == '\\') {
+                // A lone backslash represents a null value
+                isNull = true;
+            } else {
+                current.append(ch);
+            }
+        }
+        fields.add(isNull ? null : current.toString());
+
+        String[] result = new String[fields.size()];
+        fields.copyInto(result);
+        return result;
+    }
+
+
+    /**
+     * Convert a journal file to the XML log format.
+     *
+     * @param  args  Journal file, XML output file, and optional stylesheet URI
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: XmlLogJournal <journal> <xmlfile> [stylesheet]");
+            System.exit(1);
+        }
+
+        Writer out = null;
+        try {
+            out = new OutputStreamWriter(new FileOutputStream(args[1]), "UTF8");
+            writeXml(new File(args[0]), out, (args.length > 2) ? args[2] : null);
+        } catch (IOException ioex) {
+            System.err.println("Unable to convert journal: " + ioex.getMessage());
+            ioex.printStackTrace();
+        } finally {
+            try {
+                if (out != null) out.close();
+            } catch (IOException ioex) {
+                System.err.println("Unable to close XML file: " + ioex.getMessage());
+            }
+        }
+    }
+
+
+    /**
+     * Structure of an element read from the journal.
+     */
+    private static final class ElementInfo {
+        String tag;
+        String name;
+        String location;
+        String time;
+        String error;
+        String stacktrace;
+
+        /** Child message offsets, or -(id + 1) for child elements */
+        Vector<Long> children = new Vector<Long>();
+    }
+
+}
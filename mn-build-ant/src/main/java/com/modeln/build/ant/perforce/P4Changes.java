@@ -74,7 +74,7 @@ public final class P4Changes extends Task {
 
             Date date = change.getDate();
             if (date != null) {
-                getProject().setProperty("p4.date", "" + Common.SHORT_DATE_FORMAT.format(date));
+                getProject().setProperty("p4.date", "" + Common.formatShortDate(date));
             } else {
                 getProject().setProperty("p4.date", "");
             }
@@ -47,6 +47,12 @@ public final class ReportParseCriteria extends Task implements Comparator<Report
     /** Regular expression text used when searching for a matching report line */
     private String parseTarget;
 
+    /** Compiled regular expression, or null if the expression has not been compiled */
+    private Pattern parsePattern;
+
+    /** Text used to construct the compiled regular expression */
+    private String patternText;
+
     /** Type of message that the target text identifies (error, warning, etc) */
     private int targetType = 2;
 
@@ -183,6 +189,26 @@ public final class ReportParseCriteria extends Task implements Comparator<Report
     }
 
 
+    /**
+     * Return the compiled regular expression for the parse criteria.  The
+     * expression is compiled once and reused until the criteria text changes.
+     * If the criteria text is not a valid regular expression, null will be
+     * returned.
+     *
+     * @return  Compiled regular expression
+     */
+    public synchronized Pattern getPattern() {
+        if ((parseTarget != null) && !parseTarget.equals(patternText)) {
+            patternText = parseTarget;
+            try {
+                parsePattern = Pattern.compile(parseTarget);
+            } catch (Exception ex) {
+                parsePattern = null;
+            }
+        }
+        return parsePattern;
+    }
+
     /**
      * Determine if the event matches the parse criteria.  A regular expression
      * comparison is used to determine if the event message matches the regular
@@ -193,13 +219,10 @@ public final class ReportParseCriteria extends Task implements Comparator<Report
     public boolean matches(BuildEvent event) {
         boolean matchFound = false;
 
-        if (event.getMessage() != null) {
-            try {
-                Pattern regexPattern = Pattern.compile(parseTarget);
-                Matcher regex = regexPattern.matcher(event.getMessage());
-                matchFound = regex.find();
-            } catch (Exception ex) {
-            }
+        Pattern regexPattern = getPattern();
+        if ((event.getMessage() != null) && (regexPattern != null)) {
+            Matcher regex = regexPattern.matcher(event.getMessage());
+            matchFound = regex.find();
         }
 
         return matchFound;
@@ -0,0 +1,376 @@
+package com.modeln.build.ant.report;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+import java.util.regex.Pattern;
+
+/**
+ * Matches a message against a list of parse criteria in a single pass.
+ * The list of criteria is compiled once when the matcher is constructed.
+ * Criteria which contain only literal text are located using a single
+ * Aho-Corasick scan of the message.  Regular expression criteria which
+ * require a literal string in order to match are only evaluated if
+ * that literal string was found during the same scan.  The matching
+ * criteria are returned in the same order as the original list.
+ */
+public final class ReportParseMatcher {
+
+    /** Characters which have a special meaning in a regular expression */
+    private static final String REGEX_CHARS = "\\^$.|?*+()[]{}";
+
+    /** List of criteria in the order they were defined */
+    private ReportParseCriteria[] criteria;
+
+    /** Compiled regular expression for each criteria, or null if the criteria is a literal */
+    private Pattern[] patterns;
+
+    /** Index of the literal string which must be found before the criteria can match, or -1 if none */
+    private int[] required;
+
+    /** Scanner used to locate the literal strings in the message */
+    private LiteralScanner scanner;
+
+
+    /**
+     * Compile the list of criteria into a matcher.
+     *
+     * @param   list   List of parse criteria
+     */
+    public ReportParseMatcher(List<ReportParseCriteria> list) {
+        int count = (list != null) ? list.size() : 0;
+        criteria = new ReportParseCriteria[count];
+        patterns = new Pattern[count];
+        required = new int[count];
+
+        Vector<String> literals = new Vector<String>();
+        for (int idx = 0; idx < count; idx++) {
+            criteria[idx] = list.get(idx);
+            required[idx] = -1;
+
+            String text = criteria[idx].getText();
+            String literal = null;
+            if (isLiteral(text)) {
+                literal = text;
+            } else {
+                patterns[idx] = criteria[idx].getPattern();
+                if (patterns[idx] != null) {
+                    literal = getRequiredLiteral(text);
+                }
+            }
+
+            if ((literal != null) && (literal.length() > 0)) {
+                int literalIdx = literals.indexOf(literal);
+                if (literalIdx < 0) {
+                    literalIdx = literals.size();
+                    literals.add(literal);
+                }
+                required[idx] = literalIdx;
+            }
+        }
+
+        scanner = new LiteralScanner(literals);
+    }
+
+    /**
+     * Return the list of criteria which match the message.  If no matches
+     * are found, the list will be empty but non-null.
+     *
+     * @param   message   Message text
+     * @return  List of matching criteria
+     */
+    public Vector<ReportParseCriteria> getMatchingCriteria(String message) {
+        Vector<ReportParseCriteria> matches = new Vector<ReportParseCriteria>();
+        if (message == null) {
+            return matches;
+        }
+
+        boolean[] found = scanner.scan(message);
+        for (int idx = 0; idx < criteria.length; idx++) {
+            boolean match = false;
+            if ((required[idx] >= 0) && !found[required[idx]]) {
+                // The line does not contain the text required for a match
+                match = false;
+            } else if (patterns[idx] != null) {
+                match = patterns[idx].matcher(message).find();
+            } else if (required[idx] >= 0) {
+                match = true;
+            } else {
+                // Empty text matches any message, invalid expressions match nothing
+                String text = criteria[idx].getText();
+                match = (text != null) && isLiteral(text);
+            }
+
+            if (match) {
+                matches.add(criteria[idx]);
+            }
+        }
+
+        return matches;
+    }
+
+
+    /**
+     * Determine if the text contains no regular expression operators,
+     * in which case a plain substring search is equivalent to a regular
+     * expression search.
+     *
+     * @param   text   Criteria text
+     * @return  TRUE if the text can be matched literally
+     */
+    public static boolean isLiteral(String text) {
+        if (text == null) {
+            return false;
+        }
+        for (int idx = 0; idx < text.length(); idx++) {
+            if (REGEX_CHARS.indexOf(text.charAt(idx)) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return the longest literal string which must appear in any text
+     * matched by the regular expression.  Only the top level sequence of
+     * the expression is examined.  Literals within groups, character
+     * classes, or optional elements are ignored.  If the expression
+     * contains alternation or embedded flags, null is returned since no
+     * literal can be guaranteed.
+     *
+     * @param   regex   Regular expression
+     * @return  Required literal string, or null if none can be determined
+     */
+    public static String getRequiredLiteral(String regex) {
+        if ((regex == null) || (regex.indexOf("(?") >= 0) || (regex.indexOf("\\Q") >= 0)) {
+            return null;
+        }
+
+        String longest = "";
+        StringBuffer current = new StringBuffer();
+        int depth = 0;
+        int idx = 0;
+        while (idx < regex.length()) {
+            char ch = regex.charAt(idx);
+            boolean literal = false;
+            char value = ch;
+            int next = idx + 1;
+
+            if (ch == '\\') {
+                if (next >= regex.length()) {
+                    return null;
+                }
+                value = regex.charAt(next);
+                next++;
+                // Numeric, unicode, and named escapes are not examined
+                if (Character.isDigit(value) || ("xucpPkN".indexOf(value) >= 0)) {
+                    return null;
+                }
+                // Escaped letters are character classes or boundary matchers
+                literal = !Character.isLetter(value);
+            } else if (ch == '[') {
+                next = skipClass(regex, idx);
+                if (next < 0) {
+                    return null;
+                }
+            } else if (ch == '(') {
+                depth++;
+            } else if (ch == ')') {
+                depth--;
+            } else if (ch == '|') {
+                // Alternation at the top level means no literal is required
+                if (depth == 0) {
+                    return null;
+                }
+            } else if (ch == '{') {
+                next = regex.indexOf('}', idx);
+                if (next < 0) {
+                    return null;
+                }
+                next++;
+            } else if ((ch == '?') || (ch == '*') || (ch == '+')) {
+                // Quantifiers are handled when the preceding atom is processed
+                literal = false;
+            } else {
+                literal = (REGEX_CHARS.indexOf(ch) < 0);
+            }
+
+            // Determine if the atom is followed by a quantifier
+            char quantifier = (next < regex.length()) ? regex.charAt(next) : 0;
+            boolean optional = (quantifier == '?') || (quantifier == '*') || (quantifier == '{');
+            boolean repeated = (quantifier == '+');
+
+            if (literal && (depth == 0) && !optional) {
+                current.append(value);
+            }
+            if (!literal || (depth > 0) || optional || repeated) {
+                if (current.length() > longest.length()) {
+                    longest = current.toString();
+                }
+                current.setLength(0);
+            }
+
+            idx = next;
+        }
+        if (current.length() > longest.length()) {
+            longest = current.toString();
+        }
+
+        if (longest.length() > 0) {
+            return longest;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Return the index of the first character following the character
+     * class which begins at the given index.
+     *
+     * @param   regex   Regular expression
+     * @param   start   Index of the opening bracket
+     * @return  Index following the closing bracket, or -1 if the class is not terminated
+     */
+    private static int skipClass(String regex, int start) {
+        int depth = 0;
+        int idx = start;
+        while (idx < regex.length()) {
+            char ch = regex.charAt(idx);
+            if (ch == '\\') {
+                idx++;
+            } else if (ch == '[') {
+                depth++;
+                // A closing bracket at the start of the class is a literal
+                if ((idx + 1 < regex.length()) && (regex.charAt(idx + 1) == '^')) {
+                    idx++;
+                }
+                if ((idx + 1 < regex.length()) && (regex.charAt(idx + 1) == ']')) {
+                    idx++;
+                }
+            } else if (ch == ']') {
+                depth--;
+                if (depth == 0) {
+                    return idx + 1;
+                }
+            }
+            idx++;
+        }
+        return -1;
+    }
+
+
+    /**
+     * Aho-Corasick automaton used to locate a set of literal strings
+     * in a single pass over the text.
+     */
+    private static final class LiteralScanner {
+
+        /** Number of literal strings in the automaton */
+        private int literalCount;
+
+        /** Character transitions from each state */
+        private Vector<Map<Character, Integer>> transitions = new Vector<Map<Character, Integer>>();
+
+        /** Failure transition for each state */
+        private int[] failure;
+
+        /** Literal strings which end at each state, including those reached by failure transitions */
+        private int[][] output;
+
+        /**
+         * Construct the automaton from the list of literal strings.
+         *
+         * @param   literals   List of literal strings
+         */
+        public LiteralScanner(List<String> literals) {
+            literalCount = literals.size();
+            transitions.add(new HashMap<Character, Integer>());
+            Vector<Vector<Integer>> outputs = new Vector<Vector<Integer>>();
+            outputs.add(new Vector<Integer>());
+
+            // Construct the trie of literal strings
+            for (int literalIdx = 0; literalIdx < literals.size(); literalIdx++) {
+                String literal = literals.get(literalIdx);
+                int state = 0;
+                for (int idx = 0; idx < literal.length(); idx++) {
+                    Character ch = Character.valueOf(literal.charAt(idx));
+                    Integer nextState = transitions.get(state).get(ch);
+                    if (nextState == null) {
+                        nextState = Integer.valueOf(transitions.size());
+                        transitions.get(state).put(ch, nextState);
+                        transitions.add(new HashMap<Character, Integer>());
+                        outputs.add(new Vector<Integer>());
+                    }
+                    state = nextState.intValue();
+                }
+                outputs.get(state).add(Integer.valueOf(literalIdx));
+            }
+
+            // Compute the failure transitions in breadth first order
+            failure = new int[transitions.size()];
+            Vector<Integer> queue = new Vector<Integer>();
+            queue.addAll(transitions.get(0).values());
+            for (int queueIdx = 0; queueIdx < queue.size(); queueIdx++) {
+                int state = queue.get(queueIdx).intValue();
+                for (Map.Entry<Character, Integer> entry : transitions.get(state).entrySet()) {
+                    int child = entry.getValue().intValue();
+                    queue.add(entry.getValue());
+
+                    int fallback = failure[state];
+                    while ((fallback > 0) && !transitions.get(fallback).containsKey(entry.getKey())) {
+                        fallback = failure[fallback];
+                    }
+                    Integer target = transitions.get(fallback).get(entry.getKey());
+                    if ((target != null) && (target.intValue() != child)) {
+                        failure[child] = target.intValue();
+                    } else {
+                        failure[child] = 0;
+                    }
+                    outputs.get(child).addAll(outputs.get(failure[child]));
+                }
+            }
+
+            output = new int[outputs.size()][];
+            for (int state = 0; state < outputs.size(); state++) {
+                Vector<Integer> list = outputs.get(state);
+                output[state] = new int[list.size()];
+                for (int idx = 0; idx < list.size(); idx++) {
+                    output[state][idx] = list.get(idx).intValue();
+                }
+            }
+        }
+
+        /**
+         * Scan the text and determine which of the literal strings it contains.
+         *
+         * @param   text   Text to be scanned
+         * @return  Array indicating which literal strings were found
+         */
+        public boolean[] scan(String text) {
+            boolean[] found = new boolean[literalCount];
+            if (literalCount == 0) {
+                return found;
+            }
+
+            int state = 0;
+            for (int idx = 0; idx < text.length(); idx++) {
+                Character ch = Character.valueOf(text.charAt(idx));
+                Integer nextState = transitions.get(state).get(ch);
+                while ((nextState == null) && (state > 0)) {
+                    state = failure[state];
+                    nextState = transitions.get(state).get(ch);
+                }
+                if (nextState != null) {
+                    state = nextState.intValue();
+                }
+                for (int outIdx = 0; outIdx < output[state].length; outIdx++) {
+                    found[output[state][outIdx]] = true;
+                }
+            }
+
+            return found;
+        }
+    }
+
+}
@@ -42,6 +42,9 @@ public final class ReportParseTarget extends MatchingTask {
     /** List of search criteria that will be used for the current target */
     private Vector<ReportParseCriteria> criteria;
 
+    /** Search criteria compiled into a single matcher */
+    private ReportParseMatcher matcher;
+
     /** Execution status of the target */
     private String status = PENDING;
 
@@ -86,6 +89,7 @@ public final class ReportParseTarget extends MatchingTask {
     public void setTarget(String task) {
         target = task;
         criteria = new Vector<ReportParseCriteria>();
+        matcher = null;
     }
 
     /**
@@ -121,8 +125,9 @@ public final class ReportParseTarget extends MatchingTask {
      *
      * @param   entry   Information about the text being searched for
      */
-    public void addConfiguredFind(ReportParseCriteria entry) {
+    public synchronized void addConfiguredFind(ReportParseCriteria entry) {
         criteria.add(entry);
+        matcher = null;
     }
 
 
@@ -175,23 +180,27 @@ public final class ReportParseTarget extends MatchingTask {
      * Cycle through the list of search criteria to determine if the
      * event matches any of the criteria.  Matching criteria will be
      * returned as a list.  If no matches were found, the list will
-     * be empty but non-null.
+     * be empty but non-null.  The criteria are compiled into a single
+     * matcher the first time this method is called.
      *
      * @return  List of matching criteria
      */
     public Vector<ReportParseCriteria> getMatchingCriteria(BuildEvent event) {
-        Vector<ReportParseCriteria> matchingCriteria = new Vector<ReportParseCriteria>();
-
-        ReportParseCriteria currentCriteria = null;
-        for (int idx = 0; idx < criteria.size(); idx++) {
-            currentCriteria = (ReportParseCriteria) criteria.get(idx);
-            // If the message or exception match the parse criteria
-            if (currentCriteria.matches(event)) {
-                matchingCriteria.add(currentCriteria);
-            }
-        }
+        return getMatcher().getMatchingCriteria(event.getMessage());
+    }
 
-        return matchingCriteria;
+    /**
+     * Return the matcher used to compare events against the search criteria.
+     * The matcher is constructed when it is first requested and reconstructed
+     * if the search criteria change.
+     *
+     * @return  Compiled search criteria
+     */
+    private synchronized ReportParseMatcher getMatcher() {
+        if (matcher == null) {
+            matcher = new ReportParseMatcher(criteria);
+        }
+        return matcher;
     }
 
     /**
@@ -0,0 +1,276 @@
+package com.modeln.build.ant.report.db;
+
+import com.modeln.build.ant.report.ReportParseEvent;
+import com.modeln.testfw.reporting.CMnReportTable;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Vector;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes parsed build events to the database from a background thread.
+ * Events are placed in a bounded queue by the build thread and written
+ * to the database in batches.  A batch is written when the batch size
+ * is reached or when the flush interval expires, whichever comes first.
+ * If the database falls behind and the queue fills up, the build thread
+ * will block until the writer has made room in the queue.  If the writer
+ * thread stops unexpectedly, events are discarded rather than blocking
+ * the build.
+ * <p>
+ * The writer changes the transaction state of the connection while each
+ * batch is written, so the connection must not be shared with any other
+ * thread while the writer is running.
+ */
+public final class DbEventWriter extends Thread {
+
+    /** Marker placed in the queue to indicate that no more events will be added */
+    private static final ReportParseEvent END_OF_QUEUE = new ReportParseEvent();
+
+    /** Number of milliseconds to wait for room in the queue before checking the writer */
+    private static final long OFFER_TIMEOUT = 1000;
+
+    /** Connection to the build database */
+    private Connection dbConnection;
+
+    /** Database query object */
+    private CMnReportTable dbTable;
+
+    /** Version of the build being recorded */
+    private String buildVersion;
+
+    /** Events waiting to be written to the database */
+    private BlockingQueue<ReportParseEvent> queue;
+
+    /** Maximum number of events written to the database in a single batch */
+    private int batchSize = 100;
+
+    /** Maximum number of milliseconds an event will wait before being written */
+    private long flushInterval = 2000;
+
+    /** Number of events which could not be written to the database */
+    private volatile int failureCount = 0;
+
+    /** Boolean indicating whether the writer has been closed */
+    private volatile boolean closed = false;
+
+    /**
+     * Construct a thread to write events to the database.
+     *
+     * @param   conn       Connection to the database, used only by the writer
+     * @param   version    Build version string
+     * @param   table      Database query object
+     * @param   capacity   Maximum number of events waiting to be written
+     */
+    public DbEventWriter(Connection conn, String version, CMnReportTable table, int capacity) {
+        super("DbEventWriter");
+        dbConnection = conn;
+        buildVersion = version;
+        dbTable = table;
+        queue = new ArrayBlockingQueue<ReportParseEvent>(capacity);
+        setDaemon(true);
+    }
+
+    /**
+     * Set the maximum number of events written to the database in
+     * a single batch.
+     *
+     * @param  size   Number of events
+     */
+    public void setBatchSize(int size) {
+        if (size > 0) {
+            batchSize = size;
+        }
+    }
+
+    /**
+     * Return the maximum number of events written to the database in
+     * a single batch.
+     *
+     * @return Number of events
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Set the maximum number of milliseconds an event will wait in the
+     * queue before it is written to the database.
+     *
+     * @param  milliseconds   Number of milliseconds
+     */
+    public void setFlushInterval(long milliseconds) {
+        if (milliseconds > 0) {
+            flushInterval = milliseconds;
+        }
+    }
+
+    /**
+     * Return the maximum number of milliseconds an event will wait in the
+     * queue before it is written to the database.
+     *
+     * @return Number of milliseconds
+     */
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    /**
+     * Return the number of events which could not be written to the database.
+     *
+     * @return Number of failed events
+     */
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * Add an event to the queue.  If the queue is full, this method will
+     * block until the writer has made room for the event.  If the writer
+     * thread is no longer running, the event is discarded.
+     *
+     * @param   event   Parsed build event
+     */
+    public void add(ReportParseEvent event) {
+        if (closed) {
+            System.err.println("Unable to add build event after the event writer has been closed.");
+            return;
+        }
+
+        try {
+            while (!queue.offer(event, OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                if (!isAlive()) {
+                    failureCount++;
+                    System.err.println("Unable to add build event because the event writer has stopped.");
+                    return;
+                }
+            }
+        } catch (InterruptedException iex) {
+            Thread.currentThread().interrupt();
+            System.err.println("Interrupted while waiting to add a build event to the queue.");
+        }
+    }
+
+    /**
+     * Write any remaining events to the database and stop the writer thread.
+     * This method will block until all queued events have been written
+     * or the writer thread has stopped.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            while (isAlive() && !queue.offer(END_OF_QUEUE, OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                // Keep waiting for room in the queue while the writer is running
+            }
+            join();
+
+            // Any events left in the queue were not written
+            queue.remove(END_OF_QUEUE);
+            failureCount = failureCount + queue.size();
+            queue.clear();
+        } catch (InterruptedException iex) {
+            Thread.currentThread().interrupt();
+            System.err.println("Interrupted while waiting for build events to be written to the database.");
+        }
+    }
+
+    /**
+     * Continuously remove events from the queue and write them to the
+     * database until the writer is closed.
+     */
+    public void run() {
+        Vector<ReportParseEvent> batch = new Vector<ReportParseEvent>();
+        boolean done = false;
+        long deadline = 0;
+        try {
+            while (!done) {
+                try {
+                    ReportParseEvent event = null;
+                    if (batch.size() == 0) {
+                        event = queue.take();
+                        deadline = System.currentTimeMillis() + flushInterval;
+                    } else {
+                        long wait = deadline - System.currentTimeMillis();
+                        if (wait > 0) {
+                            event = queue.poll(wait, TimeUnit.MILLISECONDS);
+                        }
+                    }
+
+                    if (event == END_OF_QUEUE) {
+                        done = true;
+                    } else if (event != null) {
+                        batch.add(event);
+                        done = drain(batch);
+                    }
+
+                    // Write the batch when it is full, when the interval expires,
+                    // or when there are no more events to wait for
+                    if ((batch.size() > 0) &&
+                        (done || (event == null) || (batch.size() >= batchSize)))
+                    {
+                        write(batch);
+                        batch.clear();
+                    }
+                } catch (RuntimeException rex) {
+                    // Discard the current batch and continue draining the queue
+                    failureCount = failureCount + batch.size();
+                    batch.clear();
+                    System.err.println("Unexpected error while writing build events to the database: " + rex);
+                    rex.printStackTrace();
+                }
+            }
+        } catch (InterruptedException iex) {
+            // Make a final attempt to save whatever has been collected
+            drain(batch);
+            write(batch);
+        }
+    }
+
+    /**
+     * Move events from the queue into the batch without waiting, until
+     * the batch is full.
+     *
+     * @param   batch   List of events to be written
+     * @return  TRUE if the end of the queue was reached
+     */
+    private boolean drain(Vector<ReportParseEvent> batch) {
+        ReportParseEvent event = null;
+        while ((batch.size() < batchSize) && ((event = queue.poll()) != null)) {
+            if (event == END_OF_QUEUE) {
+                return true;
+            }
+            batch.add(event);
+        }
+        return false;
+    }
+
+    /**
+     * Write the batch of events to the database in a single transaction.
+     *
+     * @param   batch   List of events to be written
+     */
+    private void write(Vector<ReportParseEvent> batch) {
+        if ((dbConnection == null) || (batch.size() == 0)) {
+            return;
+        }
+
+        try {
+            dbTable.addEvents(dbConnection, buildVersion, batch);
+        } catch (SQLException sqe) {
+            failureCount = failureCount + batch.size();
+            System.err.println("Unable to add " + batch.size() + " build events to the database.");
+            sqe.printStackTrace();
+        } catch (RuntimeException rex) {
+            failureCount = failureCount + batch.size();
+            System.err.println("Unable to add " + batch.size() + " build events to the database: " + rex);
+            rex.printStackTrace();
+        }
+    }
+
+}
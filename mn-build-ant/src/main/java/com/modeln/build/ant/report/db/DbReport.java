@@ -76,6 +76,18 @@ public final class DbReport extends Report {
     /** Number of seconds between database polls */
     private int pollingInterval = 600;
 
+    /** Maximum number of events waiting to be written to the database */
+    private int queueSize = 10000;
+
+    /** Maximum number of events written to the database in a single batch */
+    private int batchSize = 100;
+
+    /** Maximum number of milliseconds an event will wait before being written */
+    private int flushInterval = 2000;
+
+    /** Determines whether the build version indexes should be created */
+    private boolean createIndexes = false;
+
     /** Thread which polls the database to determine connection status */
     private DbStatusThread polling = null;
 
@@ -289,6 +301,47 @@ public final class DbReport extends Report {
         pollingInterval = seconds;
     }
 
+    /**
+     * Set the maximum number of events which can be waiting to be written
+     * to the database.  The build will wait for the database to catch up
+     * if the limit is reached.
+     *
+     * @param size   Number of events
+     */
+    public void setQueueSize(int size) {
+        queueSize = size;
+    }
+
+    /**
+     * Set the maximum number of events written to the database in a
+     * single batch.
+     *
+     * @param size   Number of events
+     */
+    public void setBatchSize(int size) {
+        batchSize = size;
+    }
+
+    /**
+     * Set the maximum number of milliseconds an event will wait before
+     * it is written to the database.
+     *
+     * @param milliseconds   Number of milliseconds
+     */
+    public void setFlushInterval(int milliseconds) {
+        flushInterval = milliseconds;
+    }
+
+    /**
+     * Create the indexes used to look up the events and criteria of a
+     * build if they do not already exist.
+     *
+     * @param  enabled   Create the indexes
+     */
+    public void setCreateIndexes(boolean enabled) {
+        createIndexes = enabled;
+    }
+
 
     /**
      * Perform the task parsing and generate the report.  This method 
@@ -301,9 +354,19 @@ public final class DbReport extends Report {
 
         // Create a new build listener for parsing events
         Connection conn = getConnection();
+        if (createIndexes && (conn != null)) {
+            try {
+                dbTable.createIndexes(conn);
+            } catch (SQLException ex) {
+                log("Failed to create the event indexes: " + ex.getMessage(), Project.MSG_WARN);
+            }
+        }
         DbReportListener listener = new DbReportListener(conn, version, getParseTargets(), dbTable);
         listener.setMessageOutputLevel(targetPriority);
         listener.setCriteriaOnly(logCriteriaOnly);
+        listener.setQueueSize(queueSize);
+        listener.setBatchSize(batchSize);
+        listener.setFlushInterval(flushInterval);
         if (failureCriteriaLevel != null) {
             listener.enableFailOnCriteriaMatch(failureCriteriaLevel);
         }
@@ -311,9 +374,11 @@ public final class DbReport extends Report {
         // Add the event listeners to the project
         project.addBuildListener(listener);
 
-        // Add a thread to poll the database
+        // Add a thread to poll the database.  The polling thread uses its
+        // own connection since the event writer controls the transactions
+        // on the listener connection.
         if (pollingEnabled) {
-            polling = new DbStatusThread(conn);
+            polling = new DbStatusThread(getConnection());
             polling.setInterval(pollingInterval * 1000);
             polling.start();
         }
@@ -16,7 +16,6 @@ import com.modeln.testfw.reporting.CMnReportTable;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.Enumeration;
 import java.util.Vector;
 
 import org.apache.tools.ant.BuildEvent;
@@ -27,6 +26,8 @@ import org.apache.tools.ant.Project;
 /**
  * Parses the output of Ant events, categorizes the events based upon a 
  * defined parse criteria, and stores the results in a database.
+ * The events are written to the database by a background thread
+ * so that the build is not delayed by database inserts.
  *
  * @author Shawn Stafford
  */
@@ -35,11 +36,17 @@ public class DbReportListener implements BuildListener {
     /** List of report entries received so far */
     private Vector<ReportParseTarget> targets;
 
-    /** List of parse events that have not yet been committed to the database */
-    private Vector<ReportParseEvent> pendingEvents = new Vector<ReportParseEvent>();
+    /** Thread which writes the parse events to the database */
+    private DbEventWriter eventWriter = null;
 
-    /** The pending events will be flushed to the database when the maximum limit is reached */
-    private int maxEventCount = 20;
+    /** Maximum number of events waiting to be written to the database */
+    private int queueSize = 10000;
+
+    /** Maximum number of events written to the database in a single batch */
+    private int batchSize = 100;
+
+    /** Maximum number of milliseconds an event will wait before being written */
+    private long flushInterval = 2000;
 
 
     /** The root node of the task execution tree */
@@ -139,6 +146,45 @@ public class DbReportListener implements BuildListener {
         this.msgOutputLevel = level;
     }
 
+    /**
+     * Set the maximum number of events which can be waiting to be written
+     * to the database.  If the limit is reached, the build will wait for
+     * the database to catch up.  This must be set before the first event
+     * is logged.
+     *
+     * @param  size   Number of events
+     */
+    public void setQueueSize(int size) {
+        if (size > 0) {
+            queueSize = size;
+        }
+    }
+
+    /**
+     * Set the maximum number of events written to the database in
+     * a single batch.  This must be set before the first event is logged.
+     *
+     * @param  size   Number of events
+     */
+    public void setBatchSize(int size) {
+        if (size > 0) {
+            batchSize = size;
+        }
+    }
+
+    /**
+     * Set the maximum number of milliseconds an event will wait before
+     * it is written to the database.  This must be set before the first
+     * event is logged.
+     *
+     * @param  milliseconds   Number of milliseconds
+     */
+    public void setFlushInterval(long milliseconds) {
+        if (milliseconds > 0) {
+            flushInterval = milliseconds;
+        }
+    }
+
     /**
      * Enable logging only for events which match the parsing criteria.
      *
@@ -163,6 +209,8 @@ public class DbReportListener implements BuildListener {
     /**
      * Signals that the last target has finished. This event
      * will still be fired if an error occurred during the build.
+     * Any events which have not yet been written to the database
+     * will be written before this method returns.
      * 
      * @param event An event with any relevant extra information.
      *              Must not be <code>null</code>.
@@ -171,6 +219,7 @@ public class DbReportListener implements BuildListener {
      */
     public void buildFinished(BuildEvent event) {
         pop(event);
+        close();
     }
 
     /**
@@ -270,20 +319,13 @@ public class DbReportListener implements BuildListener {
             if (logCriteriaOnly) {
                 // Determine if the event has a criteria which qualifies for logging
                 if (parseEvent.getCriteriaCount() > 0) {
-                    pendingEvents.add(parseEvent);
+                    queueEvent(parseEvent);
                 }
             } else {
                 // Log every event regardless of whether it matches the criteria
-                pendingEvents.add(parseEvent);
+                queueEvent(parseEvent);
             }
         }
-        // Flush pending events if the event queue gets too large
-        // This is common for forked processes that have a lot of output
-        // Otherwise the events will only be flushed at the beginning and
-        // end of tasks and targets.
-        if (pendingEvents.size() > maxEventCount) {
-            commitEvents();
-        }
 
     }
 
@@ -309,12 +351,7 @@ public class DbReportListener implements BuildListener {
      * Set the given event as a new node in the tree.
      */
     private void push(BuildEvent event) {
-        commitEvents();
-
         // Make sure the code is thread safe by synchronizing on the currentNode
-        // The entire method is not synchronized because the commitEvents call
-        // contains some database connection calls which do not require synchronization
-        // and would impact performance if synchronized.
 
         // Make sure the root node is initialized
         if (root == null) {
@@ -369,9 +406,6 @@ public class DbReportListener implements BuildListener {
         BuildEventNode oldNode = null;
 
         // Make sure the code is thread safe by synchronizing on the currentNode
-        // The entire method is not synchronized because the commitEvents call
-        // contains some database connection calls which do not require synchronization
-        // and would impact performance if synchronized.
         if (currentNode != null) {
             // It's possible that this class was created within a deeply nested target
             // Make sure we don't try to pop the stack beyond where we started recording
@@ -381,46 +415,50 @@ public class DbReportListener implements BuildListener {
             }
         }
 
-        commitEvents();
         return oldNode;
     }
 
     /**
-     * Commit any pending events to the database.  Events should only be committed
-     * during the push/pop operations in order to reduce the frequency of database
-     * transactions.
+     * Queue the event to be written to the database by the event writer.
+     * The event writer thread is started when the first event is queued.
+     *
+     * @param   event   Parsed build event
      */
-    private void commitEvents() {
-        // Obtain a list of events to be committed to the database
-        // Syncronize on the pendingEvent list to ensure that a parallel thread
-        // does not consume the same event or clear out the list before the current
-        // item can be obtained.
-        Enumeration<ReportParseEvent> events = null;
-        synchronized (pendingEvents) {
-            @SuppressWarnings("unchecked")
-			Vector<ReportParseEvent> eventList = (Vector<ReportParseEvent>) pendingEvents.clone();
-            events = eventList.elements();
-            pendingEvents.clear();
+    private void queueEvent(ReportParseEvent event) {
+        if (dbConnection == null) {
+            return;
         }
 
-        // We don't care too much about new events coming in that we miss, but
-        // we do want to ensure that we don't loop over more elements than the
-        // list actually contains
-        ReportParseEvent currentEvent = null;
-        while ((events != null) && (events.hasMoreElements())) {
-            currentEvent = (ReportParseEvent) events.nextElement();
-            if ((dbConnection != null) && (currentEvent != null)) {
-                try {
-                    // Commit the current event to the database
-                    dbTable.addEvent(dbConnection, buildVersion, currentEvent);
-                } catch (SQLException sqe) {
-                    System.err.println("Unable to add build event to the database.");
-                    sqe.printStackTrace();
-                }
+        DbEventWriter writer = null;
+        synchronized (this) {
+            if (eventWriter == null) {
+                eventWriter = new DbEventWriter(dbConnection, buildVersion, dbTable, queueSize);
+                eventWriter.setBatchSize(batchSize);
+                eventWriter.setFlushInterval(flushInterval);
+                eventWriter.start();
             }
+            writer = eventWriter;
+        }
+        writer.add(event);
+    }
 
+    /**
+     * Write any pending events to the database and stop the event writer.
+     * This method blocks until all queued events have been written.
+     */
+    public void close() {
+        DbEventWriter writer = null;
+        synchronized (this) {
+            writer = eventWriter;
+            eventWriter = null;
         }
 
+        if (writer != null) {
+            writer.close();
+            if (writer.getFailureCount() > 0) {
+                System.err.println("Failed to add " + writer.getFailureCount() + " build events to the database.");
+            }
+        }
     }
 
 }
@@ -0,0 +1,266 @@
+package com.modeln.build.ant.report.db;
+
+import com.modeln.testfw.reporting.CMnAcceptanceTestTable;
+import com.modeln.testfw.reporting.CMnFlexTestTable;
+import com.modeln.testfw.reporting.CMnTestTable;
+import com.modeln.testfw.reporting.CMnUitTable;
+import com.modeln.testfw.reporting.CMnUnittestTable;
+
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.Task;
+import org.apache.tools.ant.BuildException;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Vector;
+
+/**
+ * Maintains the suite summary tables which contain the test counts of
+ * each test suite.  The summary tables are updated as test results are
+ * added to the build database, but the test results stored before the
+ * summary tables existed must be summarized using this task.  The task
+ * can also compare the summary tables with the test tables to verify
+ * that the summary counts are consistent.
+ */
+public final class DbTestSummary extends Task {
+
+    /** Summarize the suites which have not been summarized */
+    public static final String BACKFILL_ACTION = "backfill";
+
+    /** Summarize every suite, replacing any existing summary */
+    public static final String REBUILD_ACTION = "rebuild";
+
+    /** Compare the summary counts with the test tables */
+    public static final String CHECK_ACTION = "check";
+
+
+    /** JDBC Driver class name. */
+    private String jdbcDriver;
+
+    /** JDBC URL for connecting to the database. */
+    private String jdbcUrl;
+
+    /** Username required to connect to the database */
+    private String jdbcUsername;
+
+    /** Password required to connect to the database */
+    private String jdbcPassword;
+
+    /** Build ID used to limit the suites being processed */
+    private String buildId;
+
+    /** Action to be performed on the summary tables */
+    private String action = BACKFILL_ACTION;
+
+    /** Determines whether inconsistent summaries should be rebuilt */
+    private boolean repair = false;
+
+    /** Determines whether the build should fail if inconsistencies are found */
+    private boolean failOnError = false;
+
+
+    /**
+     * Set the JDBC driver class to use when establishing a connection
+     * to the reporting database.
+     *
+     * @param   driver     Name of the JDBC driver class
+     */
+    public void setDriver(String driver) throws BuildException {
+        jdbcDriver = driver;
+    }
+
+    /**
+     * Set the JDBC URL to use when establishing a connection
+     * to the reporting database.
+     *
+     * @param   url     JDBC URL
+     */
+    public void setUrl(String url) throws BuildException {
+        jdbcUrl = url;
+    }
+
+    /**
+     * Set the JDBC username to use when establishing a connection
+     * to the reporting database.
+     *
+     * @param   username    Database username
+     */
+    public void setUsername(String username) throws BuildException {
+        jdbcUsername = username;
+    }
+
+    /**
+     * Set the JDBC password to use when establishing a connection
+     * to the reporting database.
+     *
+     * @param   password    Database password
+     */
+    public void setPassword(String password) throws BuildException {
+        jdbcPassword = password;
+    }
+
+    /**
+     * Limit the suites being processed to the suites of a single build.
+     * By default, the suites of all builds are processed.
+     *
+     * @param   id     Build ID
+     */
+    public void setBuildId(String id) {
+        buildId = id;
+    }
+
+    /**
+     * Set the action to be performed on the summary tables.  The action
+     * must be one of backfill, rebuild, or check.
+     *
+     * @param   name    Action name
+     */
+    public void setAction(String name) throws BuildException {
+        if (BACKFILL_ACTION.equalsIgnoreCase(name) ||
+            REBUILD_ACTION.equalsIgnoreCase(name) ||
+            CHECK_ACTION.equalsIgnoreCase(name))
+        {
+            action = name.toLowerCase();
+        } else {
+            throw new BuildException("Invalid action: " + name, getLocation());
+        }
+    }
+
+    /**
+     * Determines whether the summary of any inconsistent suites
+     * should be rebuilt when performing a check.
+     *
+     * @param   enable   TRUE if inconsistent summaries should be rebuilt
+     */
+    public void setRepair(boolean enable) {
+        repair = enable;
+    }
+
+    /**
+     * Determines whether the build should fail if a check finds
+     * suites with inconsistent summaries that were not repaired.
+     *
+     * @param   enable   TRUE if the build should fail
+     */
+    public void setFailOnError(boolean enable) {
+        failOnError = enable;
+    }
+
+
+    /**
+     * Perform the action on the summary table of each type of test.
+     */
+    public void execute() throws BuildException {
+        if (jdbcUrl == null) {
+            throw new BuildException("The url attribute must be specified.", getLocation());
+        }
+
+        CMnTestTable[] tables = new CMnTestTable[] {
+            CMnUnittestTable.getInstance(),
+            CMnAcceptanceTestTable.getInstance(),
+            CMnUitTable.getInstance(),
+            CMnFlexTestTable.getInstance()
+        };
+
+        Connection conn = getConnection();
+        if (conn == null) {
+            throw new BuildException("Unable to connect to the database: " + jdbcUrl, getLocation());
+        }
+
+        int errorCount = 0;
+        try {
+            for (int idx = 0; idx < tables.length; idx++) {
+                errorCount += execute(conn, tables[idx]);
+            }
+        } catch (SQLException ex) {
+            throw new BuildException("Failed to update the summary tables: " + ex.getMessage(), ex, getLocation());
+        } finally {
+            try {
+                conn.close();
+            } catch (SQLException ex) {
+                log("Failed to close the database connection: " + ex.getMessage(), Project.MSG_WARN);
+            }
+        }
+
+        if (failOnError && (errorCount > 0)) {
+            throw new BuildException("Found " + errorCount + " suites with inconsistent summaries.", getLocation());
+        }
+    }
+
+
+    /**
+     * Perform the action on the summary table.
+     *
+     * @param   conn    Database connection
+     * @param   table   Test table
+     * @return  Number of inconsistent suites which were not repaired
+     */
+    private int execute(Connection conn, CMnTestTable table) throws SQLException {
+        int errorCount = 0;
+        String summaryTable = table.getSummaryTable();
+
+        if (CHECK_ACTION.equals(action)) {
+            Vector<String> suites = table.checkSummaries(conn, buildId);
+            for (int idx = 0; idx < suites.size(); idx++) {
+                String suiteId = suites.get(idx);
+                if (repair && table.rebuildSummary(conn, suiteId)) {
+                    log("Repaired the summary of suite " + suiteId + " in " + summaryTable, Project.MSG_INFO);
+                } else {
+                    log("Inconsistent summary for suite " + suiteId + " in " + summaryTable, Project.MSG_WARN);
+                    errorCount++;
+                }
+            }
+            log("Checked " + summaryTable + ": " + suites.size() + " inconsistent suites", Project.MSG_INFO);
+        } else {
+            table.createSummaryTable(conn);
+            boolean missing = BACKFILL_ACTION.equals(action);
+            int count = table.rebuildSummaries(conn, buildId, missing);
+            log("Summarized " + count + " suites in " + summaryTable, Project.MSG_INFO);
+        }
+
+        return errorCount;
+    }
+
+
+    /**
+     * Establish a connection to the database.
+     *
+     * @return  Database connection
+     */
+    private Connection getConnection() {
+        Connection conn = null;
+
+        // Force the class loader to load the JDBC driver
+        try {
+            Class.forName(jdbcDriver);
+        } catch (Exception ex) {
+            System.err.println("Failed to load the JDBC driver: " + jdbcDriver);
+        }
+
+        // Include the username and password on the URL
+        StringBuffer url = new StringBuffer();
+        url.append(jdbcUrl);
+        if (jdbcUsername != null) {
+            url.append("?user=" + jdbcUsername);
+            if (jdbcPassword != null) {
+                url.append("&password=" + jdbcPassword);
+            }
+        }
+
+        // Establish a connection to the database
+        try {
+            conn = DriverManager.getConnection(url.toString());
+        } catch (SQLException ex) {
+            System.err.println("Failed to establish a database connection: url=" + url.toString());
+            System.err.println("SQLException: " + ex.getMessage());
+            System.err.println("SQLState: " + ex.getSQLState());
+            System.err.println("VendorError: " + ex.getErrorCode());
+            ex.printStackTrace();
+        }
+
+        return conn;
+    }
+
+
+}
@@ -108,6 +108,19 @@ public class CMnProgressTable {
     }
 
 
+    /**
+     * Return the current date formatted as a database timestamp.  The
+     * shared formatter is not thread safe, so access to it is synchronized.
+     *
+     * @return  Current date and time
+     */
+    private static String getCurrentTimestamp() {
+        synchronized (DATETIME) {
+            return DATETIME.format(new Date());
+        }
+    }
+
+
     /**
      * Add information about the listener to the build database.
      *
@@ -116,13 +129,13 @@ public class CMnProgressTable {
      * @param   hostname    Host where the target was executed
      * @return  Autogenerated primary key for the inserted database row
      */
-    public synchronized int addListener(
+    public int addListener(
             Connection conn,
             String version,
             String hostname)
         throws SQLException
     {
-        String startDate = DATETIME.format(new Date());
+        String startDate = getCurrentTimestamp();
         int groupId = 0;
 
         StringBuffer sql = new StringBuffer();
@@ -167,14 +180,14 @@ public class CMnProgressTable {
      * @param   target      Ant target information 
      * @return  Autogenerated primary key for the inserted database row
      */
-    public synchronized int addTarget(
+    public int addTarget(
             Connection conn, 
             int gid, 
             ProgressTarget indicator, 
             Target target)
         throws SQLException {
 
-        String startDate = DATETIME.format(new Date());
+        String startDate = getCurrentTimestamp();
         int progressId = 0; 
 
         StringBuffer sql = new StringBuffer();
@@ -217,10 +230,10 @@ public class CMnProgressTable {
      * @param   target      Ant target information
      * @return  Autogenerated primary key for the inserted database row
      */
-    public synchronized void updateTarget(Connection conn, int id, ProgressTarget indicator, Target target)
+    public void updateTarget(Connection conn, int id, ProgressTarget indicator, Target target)
         throws SQLException
     {
-        String endDate = DATETIME.format(new Date());
+        String endDate = getCurrentTimestamp();
 
         StringBuffer sql = new StringBuffer();
         sql.append("UPDATE " + progressTable + " ");
@@ -245,7 +258,7 @@ public class CMnProgressTable {
      *
      * @return  List of progress entries
      */
-    public synchronized Vector<CMnDbProgressData> getProgressList(Connection conn, int gid)
+    public Vector<CMnDbProgressData> getProgressList(Connection conn, int gid)
         throws SQLException
     {
         Vector<CMnDbProgressData> list = new Vector<CMnDbProgressData>();
@@ -284,7 +297,7 @@ public class CMnProgressTable {
      *
      * @return  List of progress groups 
      */
-    public synchronized Vector<CMnDbProgressData> getLatestProgressByHost(Connection conn, String host)
+    public Vector<CMnDbProgressData> getLatestProgressByHost(Connection conn, String host)
         throws SQLException
     {
         Vector<CMnDbProgressData> list = null;
@@ -18,7 +18,11 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.Hashtable;
+import java.util.List;
 import java.util.Vector;
 import org.apache.tools.ant.BuildEvent;
 import org.apache.tools.ant.Project;
@@ -35,6 +39,15 @@ public class CMnReportTable {
     /** Timestamp used to prefix every test message line */
     protected static final SimpleDateFormat DATETIME = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 
+    /** Maximum number of criteria IDs included in a single IN clause */
+    private static final int CRITERIA_BATCH_SIZE = 500;
+
+    /** Name of the index used to look up the events of a build */
+    public static final String EVENT_VERSION_INDEX = "event_version_idx";
+
+    /** Name of the index used to look up the criteria of a build */
+    public static final String CRITERIA_VERSION_INDEX = "criteria_version_idx";
+
 
     /** Name of the log parsing criteria table. */
     private String criteriaTable = "event_criteria";
@@ -158,12 +171,13 @@ public class CMnReportTable {
      * @param   version Foreign key that links the criteria to a build
      * @param   target  Report parsing information
      */
-    public synchronized void addCriteria(
+    public void addCriteria(
             Connection conn, 
             String version, 
             ReportParseTarget target) 
         throws SQLException
     {
+        version = normalizeVersion(version);
         String targetName = target.getTargetName();
         Vector<ReportParseCriteria> criteriaList = target.getAllCriteria();
         ReportParseCriteria currentCriteria = null;
@@ -213,12 +227,74 @@ public class CMnReportTable {
      * @param   conn    Database connection
      * @param   target  Report parsing information
      */
-    public synchronized void addEvent(
+    public void addEvent(
             Connection conn, 
             String version,
             ReportParseEvent event) 
         throws SQLException
     {
+        String sql = getEventInsertSql(version, event);
+        Statement st = conn.createStatement();
+        try {
+            st.execute(sql);
+        } catch (SQLException ex) {
+            System.err.println("Failed to add event: " + sql);
+            ex.printStackTrace();
+        } finally {
+            st.close();
+        }
+
+
+    }
+
+    /**
+     * Store a list of parsed log events in the database.  The events are
+     * submitted as a single JDBC batch and committed in one transaction.
+     * If any of the inserts fail, the transaction is rolled back and the
+     * exception is thrown to the caller so that none of the events in the
+     * list are recorded.
+     * 
+     * @param   conn    Database connection
+     * @param   version Foreign key that links the events to a build
+     * @param   events  List of parsed log events
+     */
+    public void addEvents(
+            Connection conn, 
+            String version,
+            List<ReportParseEvent> events) 
+        throws SQLException
+    {
+        if ((events == null) || (events.size() == 0)) {
+            return;
+        }
+
+        boolean autoCommit = conn.getAutoCommit();
+        Statement st = conn.createStatement();
+        try {
+            conn.setAutoCommit(false);
+            for (int idx = 0; idx < events.size(); idx++) {
+                st.addBatch(getEventInsertSql(version, events.get(idx)));
+            }
+            st.executeBatch();
+            conn.commit();
+        } catch (SQLException ex) {
+            conn.rollback();
+            throw ex;
+        } finally {
+            st.close();
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Construct the SQL statement used to insert a parsed log event.
+     * 
+     * @param   version Foreign key that links the event to a build
+     * @param   event   Parsed log event
+     * @return  SQL insert statement
+     */
+    private String getEventInsertSql(String version, ReportParseEvent event) {
+        version = normalizeVersion(version);
         ReportParseCriteria criteria = event.getHighestCriteria();
         StringBuffer sql = new StringBuffer();
         sql.append("INSERT INTO " + eventTable + " ");
@@ -236,7 +312,11 @@ public class CMnReportTable {
         sql.append(", " + EVENT_MESSAGE);
         sql.append(") VALUES ");
 
-        sql.append("(\"" + DATETIME.format(event.getParseDate()) + "\"");
+        String eventDate = null;
+        synchronized (DATETIME) {
+            eventDate = DATETIME.format(event.getParseDate());
+        }
+        sql.append("(\"" + eventDate + "\"");
         if (criteria != null) {
             sql.append(", \"" + criteria.getId() + "\"");
         }
@@ -249,31 +329,116 @@ public class CMnReportTable {
         sql.append(", \"" + priorityToString(event.getBuildEvent().getPriority()) + "\"");
         sql.append(", \"" + escapeQueryText(event.getBuildEvent().getMessage()) + "\")");
 
+        return sql.toString();
+    }
+
+    /**
+     * Return the build version in the form used to identify the build
+     * events and criteria in the database.  Leading and trailing white
+     * space is removed so that the version can be matched exactly against
+     * the indexed build version column.
+     *
+     * @param   version   Build version string
+     * @return  Normalized build version, or null if the version is empty
+     */
+    public static String normalizeVersion(String version) {
+        if (version != null) {
+            version = version.trim();
+            if (version.length() == 0) {
+                version = null;
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Return the SQL condition which matches the events or criteria of
+     * a build version.
+     *
+     * @param   table    Table name
+     * @param   version  Build version string
+     * @return  SQL condition
+     */
+    private static String getVersionSql(String table, String version) {
+        return table + "." + BUILD_VERSION + "=\"" + escapeQueryText(normalizeVersion(version)) + "\"";
+    }
+
+
+    /**
+     * Create the indexes used to look up the events and criteria of a
+     * build if they do not already exist.  Adding an index to a large
+     * event table can take a long time, so this should be performed when
+     * the table is not being used by a build.
+     *
+     * @param   conn    Database connection
+     */
+    public void createIndexes(Connection conn) throws SQLException {
+        createIndex(conn, eventTable, EVENT_VERSION_INDEX, BUILD_VERSION + ", " + EVENT_ID);
+        createIndex(conn, criteriaTable, CRITERIA_VERSION_INDEX, BUILD_VERSION);
+    }
+
+    /**
+     * Create an index on the table if an index with the same name does not
+     * already exist.
+     *
+     * @param   conn     Database connection
+     * @param   table    Table name
+     * @param   name     Index name
+     * @param   columns  Comma separated list of indexed columns
+     */
+    private void createIndex(Connection conn, String table, String name, String columns)
+        throws SQLException
+    {
         Statement st = conn.createStatement();
+        ResultSet rs = null;
         try {
-            st.execute(sql.toString());
-        } catch (SQLException ex) {
-            System.err.println("Failed to add event: " + sql.toString());
-            ex.printStackTrace();
+            rs = st.executeQuery("SHOW INDEX FROM " + table + " WHERE Key_name = '" + name + "'");
+            if (!rs.next()) {
+                st.execute("CREATE INDEX " + name + " ON " + table + " (" + columns + ")");
+            }
+        } finally {
+            if (rs != null) rs.close();
+            st.close();
         }
+    }
 
 
+    /**
+     * Look up all of the build events which belong to the build version.
+     *
+     * @param   conn    Database connection
+     * @param   version Build version string
+     *
+     * @return  List of build event objects
+     */
+    public Vector<ReportParseEvent> getEventList(
+            Connection conn, 
+            String version)
+        throws SQLException
+    {
+        return getEventList(conn, version, 0, 0);
     }
 
     /**
-     * Look up any build events which match the build version number. 
-     * The build version number may be a full version number or a partial string.
-     * The database query will use the LIKE operator to locate any entries that
-     * match the string.
+     * Look up a page of the build events which belong to the build version.
+     * The events are returned in the order they were logged, starting with
+     * the first event after the specified event ID.  The event ID of the last
+     * event in the list can be used to request the next page of events, which
+     * allows the events to be located using the build version index without
+     * counting the events on the preceding pages.
      *
      * @param   conn    Database connection
-     * @param   build   Build information  
+     * @param   version Build version string
+     * @param   afterId Return only events with an ID greater than this value
+     * @param   limit   Maximum number of events to return, or 0 for all events
      *
      * @return  List of build event objects
      */
-    public synchronized Vector<ReportParseEvent> getEventList(
+    public Vector<ReportParseEvent> getEventList(
             Connection conn, 
-            String version)
+            String version,
+            int afterId,
+            int limit)
         throws SQLException
     {
         Vector<ReportParseEvent> list = null;
@@ -281,9 +446,13 @@ public class CMnReportTable {
         StringBuffer sql = new StringBuffer();
         sql.append(
             "SELECT * FROM " + eventTable + 
-            " WHERE " + BUILD_VERSION + " LIKE '%" + version + "%'" +
+            " WHERE " + getVersionSql(eventTable, version) +
+            " AND " + EVENT_ID + ">" + afterId +
             " ORDER BY " + EVENT_ID + " ASC"
         );
+        if (limit > 0) {
+            sql.append(" LIMIT " + limit);
+        }
 
         Statement st = conn.createStatement();
         try {
@@ -296,6 +465,8 @@ public class CMnReportTable {
         } catch (SQLException ex) {
             System.err.println("Failed to obtain build event.");
             ex.printStackTrace();
+        } finally {
+            st.close();
         }
 
         return list;
@@ -310,7 +481,7 @@ public class CMnReportTable {
      *
      * @return  Build version assoicated with the specified event ID
      */
-    public synchronized String getBuildVersion(
+    public String getBuildVersion(
             Connection conn, 
             int eventId)
         throws SQLException
@@ -342,11 +513,8 @@ public class CMnReportTable {
     
 
     /**
-     * Look up any build events which match the build version number and which 
-     * occurred just before or just after the specified event ID. 
-     * The build version number may be a full version number or a partial string.
-     * The database query will use the LIKE operator to locate any entries that
-     * match the string.  The event ID must be an exact match.
+     * Look up any build events which belong to the same build as the
+     * specified event and which occurred just before or just after it.
      *
      * @param   conn    Database connection
      * @param   eventId Primary key used to identify a single build event
@@ -354,7 +522,7 @@ public class CMnReportTable {
      *
      * @return  List of build event objects
      */
-    public synchronized Vector<ReportParseEvent> getEventContext(
+    public Vector<ReportParseEvent> getEventContext(
             Connection conn, 
             int eventId,
             int size)
@@ -362,6 +530,9 @@ public class CMnReportTable {
     {
         Vector<ReportParseEvent> list = null;
         String version = getBuildVersion(conn, eventId);
+        if (version == null) {
+            return new Vector<ReportParseEvent>();
+        }
 
         int idMin = eventId - (size / 2);
         int idMax = eventId + (size / 2);
@@ -369,7 +540,7 @@ public class CMnReportTable {
         StringBuffer sql = new StringBuffer();
         sql.append(
             "SELECT * FROM " + eventTable + 
-            " WHERE " + BUILD_VERSION + " LIKE '%" + version + "%'" +
+            " WHERE " + getVersionSql(eventTable, version) +
             " AND " + EVENT_ID + ">" + idMin +
             " AND " + EVENT_ID + "<" + idMax +
             " ORDER BY " + EVENT_ID + " ASC"
@@ -386,6 +557,8 @@ public class CMnReportTable {
         } catch (SQLException ex) {
             System.err.println("Failed to obtain build event.");
             ex.printStackTrace();
+        } finally {
+            st.close();
         }
 
         return list;
@@ -393,11 +566,8 @@ public class CMnReportTable {
 
 
     /**
-     * Look up only those build events which match the build version number
-     * and have an associated criteria.  The build version number may be a 
-     * full version number or a partial string.  The database query will 
-     * use the LIKE operator to locate any entries that match the string.
-     * The list of events will contain references to the build targets
+     * Look up only those build events which belong to the build version
+     * and have an associated criteria.  The list of events will contain references to the build targets
      * that were used to categorize the events.
      *
      * @param   conn    Database connection
@@ -405,7 +575,7 @@ public class CMnReportTable {
      *
      * @return  List of build event objects
      */
-    public synchronized Vector<ReportParseEvent> getEventSummary(
+    public Vector<ReportParseEvent> getEventSummary(
             Connection conn,
             String version)
         throws SQLException
@@ -415,7 +585,7 @@ public class CMnReportTable {
         StringBuffer sql = new StringBuffer();
         sql.append(
             "SELECT * FROM " + eventTable +
-            " WHERE " + BUILD_VERSION + " LIKE '%" + version + "%'" +
+            " WHERE " + getVersionSql(eventTable, version) +
             " AND " + CRITERIA_ID + " > 0" +
             " ORDER BY " + EVENT_ID + " ASC LIMIT 5000"
         );
@@ -431,6 +601,8 @@ public class CMnReportTable {
         } catch (SQLException ex) {
             System.err.println("Failed to obtain build event.");
             ex.printStackTrace();
+        } finally {
+            st.close();
         }
 
         return list;
@@ -446,7 +618,7 @@ public class CMnReportTable {
      *
      * @return  Criteria information
      */
-    public synchronized ReportParseTarget getCriteria(
+    public ReportParseTarget getCriteria(
             Connection conn, 
             int id) 
         throws SQLException
@@ -478,6 +650,58 @@ public class CMnReportTable {
     }
 
 
+    /**
+     * Retrieve the event criteria information for a list of criteria IDs.
+     * The criteria are loaded using a small number of queries rather than
+     * one query per criteria.  Each target returned contains only the
+     * criteria identified by the key.
+     *
+     * @param   conn    Database connection
+     * @param   ids     Primary keys used to locate the criteria info
+     *
+     * @return  Criteria information, indexed by criteria ID
+     */
+    public Hashtable<Integer, ReportParseTarget> getCriteria(
+            Connection conn,
+            Collection<Integer> ids)
+        throws SQLException
+    {
+        Hashtable<Integer, ReportParseTarget> targets = new Hashtable<Integer, ReportParseTarget>();
+
+        List<Integer> idList = new ArrayList<Integer>(ids);
+        for (int start = 0; start < idList.size(); start += CRITERIA_BATCH_SIZE) {
+            int end = Math.min(start + CRITERIA_BATCH_SIZE, idList.size());
+            StringBuffer idStr = new StringBuffer();
+            for (int idx = start; idx < end; idx++) {
+                if (idx > start) {
+                    idStr.append(", ");
+                }
+                idStr.append(idList.get(idx));
+            }
+
+            String sql =
+                "SELECT * FROM " + criteriaTable +
+                " WHERE " + CRITERIA_ID + " IN (" + idStr + ")";
+
+            Statement st = conn.createStatement();
+            try {
+                ResultSet rs = st.executeQuery(sql);
+                while (rs.next()) {
+                    ReportParseTarget target = parseTargetData(rs);
+                    targets.put(Integer.valueOf(rs.getInt(criteriaTable + "." + CRITERIA_ID)), target);
+                }
+            } catch (SQLException ex) {
+                System.err.println("Failed to obtain build data: " + sql);
+                ex.printStackTrace();
+            } finally {
+                st.close();
+            }
+        }
+
+        return targets;
+    }
+
+
     /**
      * Return the logging event priority as a string.
      */
@@ -514,7 +738,9 @@ public class CMnReportTable {
 
 
     /**
-     * Parse the result set to obtain a list of events. 
+     * Parse the result set to obtain a list of events.  The criteria
+     * referenced by the events are loaded once for the entire list and
+     * shared by all of the events which match the same criteria.
      *
      * @param   conn  Connection to the database (in case subsequent queries must be run)
      * @param   rs    Result set containing event data
@@ -526,26 +752,49 @@ public class CMnReportTable {
     {
         Vector<ReportParseEvent> list = new Vector<ReportParseEvent>();
 
-        ReportParseEvent event = null;
-        ReportParseCriteria criteria = null;
+        // Collect the criteria IDs referenced by the events
+        Hashtable<Integer, Integer> criteriaIds = new Hashtable<Integer, Integer>();
         while (rs.next()) {
-            event = parseEventData(rs);
+            ReportParseEvent event = parseEventData(rs);
             Vector<ReportParseCriteria> criteriaList = event.getCriteria();
             for (int idx = 0; idx < criteriaList.size(); idx++) {
-                criteria = (ReportParseCriteria) criteriaList.get(idx);
+                ReportParseCriteria criteria = criteriaList.get(idx);
+                if (criteria != null) {
+                    Integer id = Integer.valueOf(criteria.getId());
+                    criteriaIds.put(id, id);
+                }
+            }
+            list.add(event);
+        }
+        if (criteriaIds.size() == 0) {
+            return list;
+        }
+
+        // Replace the criteria placeholders with the criteria information
+        // The assumption here is that each target will contain only a single criteria object
+        Hashtable<Integer, ReportParseCriteria> criteriaMap = new Hashtable<Integer, ReportParseCriteria>();
+        Hashtable<Integer, ReportParseTarget> targets = getCriteria(conn, criteriaIds.keySet());
+        for (Integer id : targets.keySet()) {
+            ReportParseTarget newTarget = targets.get(id);
+            Vector<ReportParseCriteria> allCriteria = newTarget.getAllCriteria();
+            if ((allCriteria != null) && (allCriteria.size() > 0)) {
+                ReportParseCriteria newCriteria = (ReportParseCriteria) allCriteria.get(0);
+                newCriteria.setParent(newTarget);
+                criteriaMap.put(id, newCriteria);
+            }
+        }
+        for (int eventIdx = 0; eventIdx < list.size(); eventIdx++) {
+            ReportParseEvent event = list.get(eventIdx);
+            Vector<ReportParseCriteria> criteriaList = new Vector<ReportParseCriteria>(event.getCriteria());
+            for (int idx = 0; idx < criteriaList.size(); idx++) {
+                ReportParseCriteria criteria = criteriaList.get(idx);
                 if (criteria != null) {
-                    // The assumption here is that the getCriteria call will always return
-                    // a valid target containing only a single criteria object
-                    ReportParseTarget newTarget = getCriteria(conn, criteria.getId());
-                    Vector<ReportParseCriteria> allCriteria = newTarget.getAllCriteria();
-                    if ((allCriteria != null) && (allCriteria.size() > 0)) {
-                        ReportParseCriteria newCriteria = (ReportParseCriteria) allCriteria.get(0);
-                        newCriteria.setParent(newTarget);
+                    ReportParseCriteria newCriteria = criteriaMap.get(Integer.valueOf(criteria.getId()));
+                    if (newCriteria != null) {
                         event.replaceCriteria(criteria, newCriteria);
                     }
                 }
             }
-            list.add(event);
         }
 
         return list;
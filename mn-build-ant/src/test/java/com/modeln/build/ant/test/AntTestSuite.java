@@ -1,6 +1,9 @@
 package com.modeln.build.ant.test;
 
+import com.modeln.build.ant.test.ClassDisassemblerTest;
 import com.modeln.build.ant.test.ReportTest;
+import com.modeln.build.ant.test.XmlLogJournalTest;
+import com.modeln.build.ant.test.XmlMergeUtilTest;
 
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -23,6 +26,9 @@ public class AntTestSuite {
     public static Test suite() {
         TestSuite suite = new TestSuite("Test");
         suite.addTest(new TestSuite(ReportTest.class));
+        suite.addTest(new TestSuite(ClassDisassemblerTest.class));
+        suite.addTest(new TestSuite(XmlLogJournalTest.class));
+        suite.addTest(new TestSuite(XmlMergeUtilTest.class));
         
         return suite;
     }
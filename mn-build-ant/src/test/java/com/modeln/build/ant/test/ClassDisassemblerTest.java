@@ -0,0 +1,127 @@
+package com.modeln.build.ant.test;
+
+import com.modeln.build.ant.diff.ClassDisassembler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+
+import junit.framework.TestCase;
+
+/**
+ * Test methods for verifying the class file disassembler.
+ */
+public class ClassDisassemblerTest extends TestCase {
+
+    /** Class used as input for the disassembler */
+    public static class Sample implements Serializable {
+        private static final long serialVersionUID = 1L;
+        public static final String NAME = "sample";
+        public int count;
+        protected long[] totals;
+        private String hidden;
+
+        static {
+            System.getProperty(NAME);
+        }
+
+        public Sample(int count) {
+            this.count = count;
+        }
+
+        public int add(int value) throws IOException {
+            count = count + value;
+            return count;
+        }
+
+        public String getName() {
+            return NAME + count;
+        }
+
+        private void update() {
+            hidden = getName();
+        }
+    }
+
+    /** Interface used as input for the disassembler */
+    public interface SampleListener extends Runnable {
+        void notify(Sample sample, String[] names);
+    }
+
+    private static byte[] getClassBytes(Class<?> cls) throws IOException {
+        String name = cls.getName();
+        name = name.substring(name.lastIndexOf('.') + 1) + ".class";
+        InputStream in = cls.getResourceAsStream(name);
+        assertNotNull("Unable to load " + name, in);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int len = in.read(buffer);
+            while (len > 0) {
+                out.write(buffer, 0, len);
+                len = in.read(buffer);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    public void testClassListing() throws Exception {
+        String listing = new ClassDisassembler(false).disassemble(getClassBytes(Sample.class));
+        String className = Sample.class.getName();
+
+        assertTrue(listing, listing.startsWith("Compiled from \"ClassDisassemblerTest.java\"\n"));
+        assertTrue(listing, listing.indexOf("public class " + className + " extends java.lang.Object implements java.io.Serializable{\n") > 0);
+        assertTrue(listing, listing.indexOf("    public static final java.lang.String NAME;\n") > 0);
+        assertTrue(listing, listing.indexOf("    public int count;\n") > 0);
+        assertTrue(listing, listing.indexOf("    protected long[] totals;\n") > 0);
+        assertTrue(listing, listing.indexOf("    public " + className + "(int);\n") > 0);
+        assertTrue(listing, listing.indexOf("    public int add(int) throws java.io.IOException;\n") > 0);
+        assertTrue(listing, listing.indexOf("    public java.lang.String getName();\n") > 0);
+        assertTrue(listing, listing.indexOf("    static {};\n") > 0);
+        assertTrue(listing, listing.endsWith("}\n"));
+
+        // Private members are omitted, as with javap
+        assertTrue(listing, listing.indexOf("hidden") < 0);
+        assertTrue(listing, listing.indexOf("update") < 0);
+        assertTrue(listing, listing.indexOf("serialVersionUID") < 0);
+        assertTrue(listing, listing.indexOf("Code:") < 0);
+    }
+
+    public void testInterfaceListing() throws Exception {
+        String listing = new ClassDisassembler(false).disassemble(getClassBytes(SampleListener.class));
+        assertTrue(listing, listing.indexOf("public interface " + SampleListener.class.getName() + " extends java.lang.Runnable{\n") > 0);
+        assertTrue(listing, listing.indexOf("    public abstract void notify(" + Sample.class.getName() + ", java.lang.String[]);\n") > 0);
+    }
+
+    public void testBytecode() throws Exception {
+        String listing = new ClassDisassembler(true).disassemble(getClassBytes(Sample.class));
+        assertTrue(listing, listing.indexOf("  Code:\n") > 0);
+        assertTrue(listing, listing.indexOf("\tiadd") > 0);
+        assertTrue(listing, listing.indexOf("\tputfield") > 0);
+        assertTrue(listing, listing.indexOf("\tireturn") > 0);
+
+        // The listing without bytecode is a subset of the full listing
+        String summary = new ClassDisassembler(false).disassemble(getClassBytes(Sample.class));
+        assertTrue(listing.length() > summary.length());
+    }
+
+    public void testRepeatable() throws Exception {
+        ClassDisassembler javap = new ClassDisassembler(true);
+        String first = javap.disassemble(getClassBytes(Sample.class));
+        javap.disassemble(getClassBytes(SampleListener.class));
+        assertEquals(first, javap.disassemble(getClassBytes(Sample.class)));
+        assertEquals(first, new ClassDisassembler(true).disassemble(getClassBytes(Sample.class)));
+    }
+
+    public void testInvalidClass() throws Exception {
+        try {
+            new ClassDisassembler(false).disassemble("not a class file".getBytes("UTF-8"));
+            fail("Invalid class file was accepted");
+        } catch (IOException ex) {
+        }
+    }
+
+}
@@ -1,6 +1,9 @@
 package com.modeln.build.ant.test;
 
 import com.modeln.build.ant.report.ReportParseCriteria;
+import com.modeln.build.ant.report.ReportParseMatcher;
+
+import java.util.Vector;
 
 import junit.framework.TestCase;
 
@@ -68,4 +71,39 @@ public class ReportTest extends TestCase {
         assertEquals(false, criteria.matches(event));
     }
 
+    public void testRequiredLiteral() throws Exception {
+        assertEquals("ORA-", ReportParseMatcher.getRequiredLiteral("ORA-[0-9]+:"));
+        assertEquals(" errors", ReportParseMatcher.getRequiredLiteral("with [1-9] errors"));
+        assertEquals("[WARN]", ReportParseMatcher.getRequiredLiteral("\\[WARN\\]"));
+        assertEquals("a", ReportParseMatcher.getRequiredLiteral("ab?c"));
+        assertNull(ReportParseMatcher.getRequiredLiteral("error|warning"));
+        assertNull(ReportParseMatcher.getRequiredLiteral("(?i)error"));
+    }
+
+    public void testMatcherOrder() throws Exception {
+        String[] text = { "warning", "ORA-[0-9]+:", "(?i)FATAL", "ORA", "invalid[" };
+        Vector<ReportParseCriteria> list = new Vector<ReportParseCriteria>();
+        for (int idx = 0; idx < text.length; idx++) {
+            ReportParseCriteria criteria = new ReportParseCriteria();
+            criteria.setText(text[idx]);
+            list.add(criteria);
+        }
+        ReportParseMatcher matcher = new ReportParseMatcher(list);
+
+        // Verify that the matches are returned in the order they were defined
+        Vector<ReportParseCriteria> matches = matcher.getMatchingCriteria("fatal: ORA-00942: table not found (warning)");
+        assertEquals(4, matches.size());
+        assertSame(list.get(0), matches.get(0));
+        assertSame(list.get(1), matches.get(1));
+        assertSame(list.get(2), matches.get(2));
+        assertSame(list.get(3), matches.get(3));
+
+        // Verify that the regular expression is not matched by its literal prefix alone
+        matches = matcher.getMatchingCriteria("ORA-XYZ");
+        assertEquals(1, matches.size());
+        assertSame(list.get(3), matches.get(0));
+
+        assertEquals(0, matcher.getMatchingCriteria("BUILD SUCCESSFUL").size());
+    }
+
 }
@@ -0,0 +1,155 @@
+package com.modeln.build.ant.test;
+
+import com.modeln.build.ant.logger.XmlLogJournal;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import junit.framework.TestCase;
+
+/**
+ * Test methods for verifying the conversion of a build log journal to XML,
+ * including journals which were cut off when the build stopped.
+ */
+public class XmlLogJournalTest extends TestCase {
+
+    /** Journal written by each test */
+    private File journalFile;
+
+    /** Truncated copy of the journal */
+    private File truncatedFile;
+
+    protected void setUp() throws Exception {
+        journalFile = File.createTempFile("journal", ".log");
+        truncatedFile = File.createTempFile("truncated", ".log");
+    }
+
+    protected void tearDown() throws Exception {
+        journalFile.delete();
+        truncatedFile.delete();
+    }
+
+    /**
+     * Write a journal containing a build with one target and task.
+     */
+    private void writeJournal() throws IOException {
+        XmlLogJournal journal = new XmlLogJournal(journalFile);
+        int build = journal.startElement(XmlLogJournal.BUILD_ID, "build", null, null);
+        journal.message(build, "info", "Starting build");
+        int target = journal.startElement(build, "target", "compile", null);
+        int task = journal.startElement(target, "task", "javac", "build.xml:12: ");
+        journal.message(task, "info", "Compiling 3 source files");
+        journal.message(task, "warn", "line one\n\tline <two> & \\three");
+        journal.endElement(task, "2 seconds", null, null);
+        journal.endElement(target, "3 seconds", null, null);
+        journal.message(build, "info", "Build finished");
+        journal.endElement(build, "4 seconds", "Build failed", "stack\ttrace");
+        journal.close();
+    }
+
+    private static byte[] read(File file) throws IOException {
+        byte[] data = new byte[(int) file.length()];
+        FileInputStream in = new FileInputStream(file);
+        try {
+            int count = 0;
+            while (count < data.length) {
+                count += in.read(data, count, data.length - count);
+            }
+        } finally {
+            in.close();
+        }
+        return data;
+    }
+
+    private static void write(File file, byte[] data, int length) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data, 0, length);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Convert the journal to XML and parse it.
+     *
+     * @return XML document, or null if the journal does not contain the build element
+     */
+    private static Document convert(File journal) throws Exception {
+        StringWriter xml = new StringWriter();
+        XmlLogJournal.writeXml(journal, xml, null);
+        if (xml.toString().indexOf("<build") < 0) {
+            return null;
+        }
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(
+            new ByteArrayInputStream(xml.toString().getBytes("UTF-8")));
+    }
+
+    public void testComplete() throws Exception {
+        writeJournal();
+        Document doc = convert(journalFile);
+        Element build = doc.getDocumentElement();
+        assertEquals("build", build.getTagName());
+        assertEquals("4 seconds", build.getAttribute("time"));
+        assertEquals("Build failed", build.getAttribute("error"));
+        assertEquals("stack\ttrace", build.getElementsByTagName("stacktrace").item(0).getTextContent());
+
+        NodeList messages = build.getElementsByTagName("message");
+        assertEquals(4, messages.getLength());
+        assertEquals("line one\n\tline <two> & \\three", messages.item(2).getTextContent());
+        assertEquals("warn", ((Element) messages.item(2)).getAttribute("priority"));
+
+        Element task = (Element) build.getElementsByTagName("task").item(0);
+        assertEquals("javac", task.getAttribute("name"));
+        assertEquals("build.xml:12: ", task.getAttribute("location"));
+    }
+
+    public void testTruncatedMessage() throws Exception {
+        writeJournal();
+        byte[] data = read(journalFile);
+        String text = new String(data, "UTF-8");
+
+        // Cut the journal in the middle of the text of the second task message
+        int cut = text.indexOf("line one") + 4;
+        write(truncatedFile, data, cut);
+        Document doc = convert(truncatedFile);
+        Element build = doc.getDocumentElement();
+        assertEquals("", build.getAttribute("time"));
+        NodeList messages = build.getElementsByTagName("message");
+        assertEquals(2, messages.getLength());
+        assertEquals("Compiling 3 source files", messages.item(1).getTextContent());
+    }
+
+    public void testTruncatedAnywhere() throws Exception {
+        writeJournal();
+        byte[] data = read(journalFile);
+        int lines = 0;
+        for (int length = 0; length <= data.length; length++) {
+            write(truncatedFile, data, length);
+            Document doc = convert(truncatedFile);
+
+            // Only complete records appear in the log
+            int count = 0;
+            if (doc != null) {
+                count = 1 + doc.getElementsByTagName("message").getLength()
+                    + doc.getElementsByTagName("target").getLength()
+                    + doc.getElementsByTagName("task").getLength();
+            }
+            assertTrue("Truncated at " + length, count <= lines);
+            if ((length < data.length) && (data[length] == '\n')) {
+                lines++;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,188 @@
+package com.modeln.build.ant.test;
+
+import com.modeln.build.ant.flex.CreateConfig;
+import com.modeln.build.ant.flex.XmlMergeUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Random;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.apache.tools.ant.BuildException;
+import org.w3c.dom.Document;
+
+import junit.framework.TestCase;
+
+/**
+ * Test methods for verifying that merging an XML file as a stream
+ * produces the same content as merging the parsed documents.
+ */
+public class XmlMergeUtilTest extends TestCase {
+
+    /** Number of random document pairs merged in each mode */
+    private static final int ITERATIONS = 200;
+
+    /** Element names used in the random documents */
+    private static final String[] NAMES = { "a", "b", "c", "d" };
+
+    /** Base file read as a stream */
+    private File infile;
+
+    /** Result of the stream merge */
+    private File outfile;
+
+    protected void setUp() throws Exception {
+        infile = File.createTempFile("merge", ".xml");
+        outfile = File.createTempFile("merged", ".xml");
+    }
+
+    protected void tearDown() throws Exception {
+        infile.delete();
+        outfile.delete();
+    }
+
+    /**
+     * Append random child content to the document.  The content includes
+     * elements which differ only by key attribute, text which the parser
+     * may report in several pieces, CDATA sections and comments.
+     */
+    private static void generate(StringBuffer xml, Random rnd, int depth) {
+        int count = rnd.nextInt(4);
+        for (int idx = 0; idx < count; idx++) {
+            int type = rnd.nextInt(8);
+            if (type == 0) {
+                xml.append("txt" + rnd.nextInt(3));
+            } else if (type == 1) {
+                xml.append("a&amp;b" + rnd.nextInt(3));
+            } else if (type == 2) {
+                xml.append("<![CDATA[<cdata" + rnd.nextInt(3) + ">]]>");
+            } else if (type == 3) {
+                xml.append("<!--c" + rnd.nextInt(3) + "-->");
+            } else {
+                String name = NAMES[rnd.nextInt(NAMES.length)];
+                xml.append("<" + name + " id=\"" + rnd.nextInt(2) + "\">");
+                if (depth < 4) {
+                    generate(xml, rnd, depth + 1);
+                }
+                xml.append("</" + name + ">");
+            }
+            if (rnd.nextInt(3) == 0) {
+                xml.append("\n  ");
+            }
+        }
+    }
+
+    private static String generate(Random rnd) {
+        StringBuffer xml = new StringBuffer("<root>");
+        generate(xml, rnd, 0);
+        xml.append("</root>");
+        return xml.toString();
+    }
+
+    private static Document parse(String xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(
+            new ByteArrayInputStream(xml.getBytes("UTF-8")));
+    }
+
+    private static String serialize(Document doc) throws Exception {
+        StringWriter writer = new StringWriter();
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        transformer.transform(new DOMSource(doc), new StreamResult(writer));
+        return writer.toString();
+    }
+
+    private void write(String xml) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(infile), "UTF-8");
+        try {
+            writer.write(xml);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Merge random document pairs with and without key attributes and
+     * verify that the stream result matches the document result.
+     */
+    private void assertStreamEquivalent(int mode) throws Exception {
+        Random rnd = new Random(42);
+        for (int idx = 0; idx < ITERATIONS; idx++) {
+            String xml1 = generate(rnd);
+            String xml2 = generate(rnd);
+            XmlMergeUtil util = new XmlMergeUtil(mode, XmlMergeUtil.OVERWRITE);
+            if ((idx % 2) == 1) {
+                util.setKeyAttributes("a", new String[] { "id" });
+            }
+
+            String expected = serialize(util.merge(parse(xml1), parse(xml2)));
+            write(xml1);
+            assertTrue(util.merge(infile, parse(xml2), outfile));
+            String actual = serialize(util.parse(outfile));
+            assertEquals("Merged " + xml1 + " with " + xml2, expected, actual);
+        }
+    }
+
+    public void testMergeStream() throws Exception {
+        assertStreamEquivalent(XmlMergeUtil.MERGE);
+    }
+
+    public void testOverwriteStream() throws Exception {
+        assertStreamEquivalent(XmlMergeUtil.OVERWRITE);
+    }
+
+    public void testCdataPreserved() throws Exception {
+        String xml1 = "<root><a><![CDATA[<one>]]></a><b>x &amp; y</b></root>";
+        String xml2 = "<root><a><![CDATA[<two>]]></a><c/></root>";
+        XmlMergeUtil util = new XmlMergeUtil(XmlMergeUtil.MERGE, XmlMergeUtil.OVERWRITE);
+        write(xml1);
+        assertTrue(util.merge(infile, parse(xml2), outfile));
+        String actual = serialize(util.parse(outfile));
+        assertEquals("<root><a><![CDATA[<two>]]></a><b>x &amp; y</b><c/></root>", actual);
+        assertEquals(serialize(util.merge(parse(xml1), parse(xml2))), actual);
+    }
+
+    public void testAppend() throws Exception {
+        Random rnd = new Random(42);
+        for (int idx = 0; idx < ITERATIONS; idx++) {
+            String xml1 = generate(rnd);
+            String xml2 = generate(rnd);
+            XmlMergeUtil util = new XmlMergeUtil(XmlMergeUtil.APPEND, XmlMergeUtil.OVERWRITE);
+            String expected = xml1.substring(0, xml1.length() - "</root>".length())
+                + xml2.substring("<root>".length());
+            assertEquals(serialize(parse(expected)), serialize(util.merge(parse(xml1), parse(xml2))));
+        }
+
+        // The append mode cannot be performed on a stream
+        XmlMergeUtil util = new XmlMergeUtil(XmlMergeUtil.APPEND, XmlMergeUtil.OVERWRITE);
+        write("<root><a/></root>");
+        assertFalse(util.merge(infile, parse("<root><b/></root>"), outfile));
+    }
+
+    public void testInvalidKeyAttributes() throws Exception {
+        CreateConfig task = new CreateConfig();
+        task.setKeyAttributes("path-element:kind; locale:name,region;");
+        try {
+            task.setKeyAttributes("locale");
+            fail("Element without key attributes was accepted");
+        } catch (BuildException ex) {
+        }
+        try {
+            task.setKeyAttributes(":name");
+            fail("Key attributes without an element were accepted");
+        } catch (BuildException ex) {
+        }
+    }
+
+}
@@ -0,0 +1,731 @@
+package com.modeln.build.common.mail;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Properties;
+import java.util.Vector;
+import java.util.logging.Logger;
+
+import javax.mail.Address;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.ContentType;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+
+/**
+ * The mail queue sends e-mail messages in the background so that the
+ * caller does not have to wait for the mail server.  Messages are written
+ * to a spool directory when they are queued and removed once they have
+ * been sent, so messages which are still queued when the application
+ * stops are sent the next time the queue is started.
+ * <p>
+ * A pool of worker threads delivers the messages.  Each worker keeps its
+ * connection to the mail server open while there are messages to send.
+ * Messages which cannot be delivered are retried with an increasing
+ * delay between attempts.  If a message is queued while an identical
+ * message is waiting to be sent, any recipients who would already receive
+ * the waiting message are removed from the new one so that each recipient
+ * only receives a single copy.
+ */
+public class CMnMailQueue {
+
+    /** Default limit on the number of messages in the queue */
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    /** Default number of worker threads */
+    public static final int DEFAULT_WORKERS = 2;
+
+    /** Default number of delivery attempts before a message is abandoned */
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+    /** Default number of milliseconds to wait before the first retry (30 seconds) */
+    public static final long DEFAULT_RETRY_DELAY = 30 * 1000;
+
+    /** Number of milliseconds an unused connection to the mail server is kept open */
+    public static final long IDLE_TIMEOUT = 5 * 1000;
+
+    /** File extension of the messages in the spool directory */
+    private static final String SPOOL_SUFFIX = ".eml";
+
+    /** Directory within the spool directory where abandoned messages are kept */
+    private static final String FAILED_DIR = "failed";
+
+
+    /** Logger */
+    private Logger logger = Logger.getLogger(CMnMailQueue.class.getName());
+
+    /** Mail session used to connect to the mail server */
+    private final Session session;
+
+    /** Directory where queued messages are stored, or null if messages are not stored */
+    private final File spoolDir;
+
+    /** Maximum number of messages in the queue */
+    private final int capacity;
+
+    /** Number of worker threads */
+    private final int workerCount;
+
+    /** Number of delivery attempts before a message is abandoned */
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+    /** Number of milliseconds to wait before the first retry */
+    private long retryDelay = DEFAULT_RETRY_DELAY;
+
+    /** Messages waiting to be sent, in the order they were queued */
+    private final LinkedList<Entry> pending = new LinkedList<Entry>();
+
+    /** Messages which have been accepted but are still being written to the spool */
+    private final LinkedList<Entry> spooling = new LinkedList<Entry>();
+
+    /** Number of messages currently being sent */
+    private int sending = 0;
+
+    /** Worker threads */
+    private Thread[] workers = null;
+
+    /** TRUE while the workers are running */
+    private boolean running = false;
+
+    /** Number of messages sent */
+    private int sentCount = 0;
+
+    /** Number of messages abandoned */
+    private int failedCount = 0;
+
+    /** Sequence number used to create unique spool file names */
+    private long sequence = 0;
+
+
+    /**
+     * Construct a mail queue.
+     *
+     * @param  props      Mail session properties, such as mail.smtp.host
+     * @param  spoolDir   Directory where queued messages are stored, or null
+     * @param  capacity   Maximum number of messages in the queue
+     * @param  workers    Number of worker threads
+     */
+    public CMnMailQueue(Properties props, File spoolDir, int capacity, int workers) {
+        Properties sessionProps = new Properties();
+        sessionProps.putAll(props);
+
+        // Make sure a mail server that stops responding cannot hold a worker forever
+        if (!sessionProps.containsKey("mail.smtp.connectiontimeout")) {
+            sessionProps.put("mail.smtp.connectiontimeout", "30000");
+        }
+        if (!sessionProps.containsKey("mail.smtp.timeout")) {
+            sessionProps.put("mail.smtp.timeout", "60000");
+        }
+
+        this.session = Session.getInstance(sessionProps);
+        this.spoolDir = spoolDir;
+        this.capacity = capacity;
+        this.workerCount = Math.max(1, workers);
+    }
+
+    /**
+     * Set the retry policy.  The delay doubles after each failed attempt.
+     *
+     * @param  attempts   Number of delivery attempts before a message is abandoned
+     * @param  delay      Number of milliseconds to wait before the first retry
+     */
+    public synchronized void setRetryPolicy(int attempts, long delay) {
+        maxAttempts = attempts;
+        retryDelay = delay;
+    }
+
+    /**
+     * Load any messages remaining in the spool directory and start the
+     * worker threads.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+
+        if (spoolDir != null) {
+            spoolDir.mkdirs();
+            // Messages queued before the queue was started are already loaded
+            HashSet<File> queued = new HashSet<File>();
+            Iterator<Entry> iter = pending.iterator();
+            while (iter.hasNext()) {
+                queued.add(iter.next().file);
+            }
+
+            int loaded = 0;
+            File[] files = spoolDir.listFiles();
+            if (files != null) {
+                Arrays.sort(files);
+                for (int idx = 0; idx < files.length; idx++) {
+                    if (files[idx].isFile() && files[idx].getName().endsWith(SPOOL_SUFFIX) && !queued.contains(files[idx])) {
+                        try {
+                            pending.add(load(files[idx]));
+                            loaded++;
+                        } catch (Exception ex) {
+                            logger.severe("Unable to load spooled message " + files[idx] + ": " + ex.toString());
+                            abandon(files[idx]);
+                        }
+                    }
+                }
+                if (loaded > 0) {
+                    logger.info("Loaded " + loaded + " spooled messages from " + spoolDir);
+                }
+            }
+        }
+
+        running = true;
+        workers = new Thread[workerCount];
+        for (int idx = 0; idx < workers.length; idx++) {
+            workers[idx] = new Thread("CMnMailQueue-" + idx) {
+                public void run() {
+                    deliver();
+                }
+            };
+            workers[idx].setDaemon(true);
+            workers[idx].start();
+        }
+    }
+
+    /**
+     * Stop the worker threads.  Messages which have not been sent remain
+     * in the spool directory and will be sent when the queue is started.
+     *
+     * @param  timeout   Number of milliseconds to wait for the workers to stop
+     */
+    public void shutdown(long timeout) {
+        Thread[] threads = null;
+        synchronized (this) {
+            running = false;
+            threads = workers;
+            workers = null;
+            notifyAll();
+        }
+
+        if (threads != null) {
+            long end = System.currentTimeMillis() + timeout;
+            for (int idx = 0; idx < threads.length; idx++) {
+                long remaining = end - System.currentTimeMillis();
+                if (remaining > 0) {
+                    try {
+                        threads[idx].join(remaining);
+                    } catch (InterruptedException iex) {
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Queue a message to be sent.  The message is rejected if the queue
+     * is full, in which case the caller may send the message directly.
+     *
+     * @param  from     Sender address
+     * @param  to       List of TO addresses
+     * @param  cc       List of CC addresses
+     * @param  subject  Subject line of the mail message
+     * @param  text     Body of the mail message
+     * @param  format   MIME subtype of the message body, such as plain or html
+     * @return TRUE if the message was queued, FALSE if the queue is full
+     * @throws MessagingException if the message cannot be written to the spool directory
+     */
+    public boolean send(InternetAddress from, InternetAddress[] to, InternetAddress[] cc, String subject, String text, String format)
+        throws MessagingException
+    {
+        Entry entry = new Entry(from, to, cc, subject, text, format);
+
+        synchronized (this) {
+            if ((pending.size() + spooling.size() + sending) >= capacity) {
+                logger.warning("Mail queue is full.  Unable to queue message: " + subject);
+                return false;
+            }
+
+            // Only send one copy of an identical message to each recipient
+            coalesce(entry, pending);
+            coalesce(entry, spooling);
+            if (!entry.hasRecipients()) {
+                logger.info("Coalesced message with a queued message: " + subject);
+                return true;
+            }
+
+            if (spoolDir != null) {
+                entry.file = new File(spoolDir, System.currentTimeMillis() + "-" + (sequence++) + SPOOL_SUFFIX);
+            }
+
+            // Reserve the slot so that other callers count the message and
+            // coalesce with it while it is being written to the spool
+            spooling.add(entry);
+        }
+
+        // Write the message outside of the lock so other callers are not blocked
+        boolean stored = false;
+        try {
+            if (entry.file != null) {
+                store(entry);
+            }
+            stored = true;
+        } finally {
+            synchronized (this) {
+                spooling.remove(entry);
+                if (stored) {
+                    pending.add(entry);
+                }
+                notifyAll();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Wait until all of the queued messages have been sent or abandoned.
+     *
+     * @param  timeout   Number of milliseconds to wait
+     * @return TRUE if the queue is empty
+     */
+    public synchronized boolean flush(long timeout) throws InterruptedException {
+        long end = System.currentTimeMillis() + timeout;
+        while ((pending.size() + spooling.size() + sending) > 0) {
+            long remaining = end - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Return the number of messages waiting to be sent.
+     *
+     * @return Number of messages in the queue
+     */
+    public synchronized int size() {
+        return pending.size() + spooling.size() + sending;
+    }
+
+    /**
+     * Return the number of messages which have been sent.
+     *
+     * @return Number of messages sent
+     */
+    public synchronized int getSentCount() {
+        return sentCount;
+    }
+
+    /**
+     * Return the number of messages which have been abandoned.
+     *
+     * @return Number of messages abandoned
+     */
+    public synchronized int getFailedCount() {
+        return failedCount;
+    }
+
+
+    /**
+     * Deliver messages until the queue is stopped.  The connection to the
+     * mail server is reused for each message and closed once the queue
+     * has been idle for a short time.
+     */
+    private void deliver() {
+        Transport transport = null;
+        while (true) {
+            Entry entry = null;
+            try {
+                entry = take(transport != null);
+            } catch (InterruptedException iex) {
+                break;
+            }
+
+            if (entry == null) {
+                transport = close(transport);
+                synchronized (this) {
+                    if (!running) {
+                        break;
+                    }
+                }
+                continue;
+            }
+
+            try {
+                if ((transport == null) || !transport.isConnected()) {
+                    transport = session.getTransport("smtp");
+                    transport.connect();
+                }
+                MimeMessage message = entry.toMessage(session);
+                transport.sendMessage(message, message.getAllRecipients());
+                complete(entry, true);
+            } catch (SendFailedException sfe) {
+                logger.warning("Failed to send message to some recipients: " + sfe.toString());
+
+                // Retry the recipients which were valid but not sent
+                boolean changed = entry.removeAll(sfe.getInvalidAddresses());
+                changed = entry.removeAll(sfe.getValidSentAddresses()) || changed;
+                if (entry.hasRecipients()) {
+                    // Update the spool so a restart does not send the message to the same recipients again
+                    if (changed && (entry.file != null)) {
+                        try {
+                            store(entry);
+                        } catch (MessagingException mex) {
+                            logger.warning("Failed to update spooled message: " + mex.toString());
+                        }
+                    }
+                    retry(entry);
+                } else {
+                    complete(entry, (sfe.getValidSentAddresses() != null));
+                }
+            } catch (MessagingException mex) {
+                logger.warning("Failed to send message: " + mex.toString());
+
+                // The connection may no longer be usable
+                transport = close(transport);
+                retry(entry);
+            } catch (RuntimeException rex) {
+                logger.severe("Unexpected error sending message: " + rex.toString());
+                transport = close(transport);
+                retry(entry);
+            }
+        }
+        close(transport);
+    }
+
+    /**
+     * Remove the next message which is ready to be sent from the queue.
+     * If no message is ready, wait until one becomes ready.
+     *
+     * @param  connected   TRUE if the worker has an open connection to the mail server
+     * @return Next message, or null if the queue has stopped or the connection has been idle
+     */
+    private synchronized Entry take(boolean connected) throws InterruptedException {
+        long idleEnd = System.currentTimeMillis() + IDLE_TIMEOUT;
+        while (running) {
+            long now = System.currentTimeMillis();
+            long wait = Long.MAX_VALUE;
+            Iterator<Entry> iter = pending.iterator();
+            while (iter.hasNext()) {
+                Entry entry = iter.next();
+                if (entry.nextAttempt <= now) {
+                    iter.remove();
+                    sending++;
+                    return entry;
+                }
+                wait = Math.min(wait, entry.nextAttempt - now);
+            }
+
+            if (connected) {
+                if (now >= idleEnd) {
+                    return null;
+                }
+                wait = Math.min(wait, idleEnd - now);
+            }
+
+            if (wait == Long.MAX_VALUE) {
+                wait();
+            } else {
+                wait(wait);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remove any recipients from the new message who will already receive
+     * an identical message from the list.
+     *
+     * @param  entry    New message
+     * @param  list     Queued messages
+     */
+    private void coalesce(Entry entry, LinkedList<Entry> list) {
+        Iterator<Entry> iter = list.iterator();
+        while (iter.hasNext()) {
+            Entry current = iter.next();
+            if (current.hasSameContent(entry)) {
+                entry.removeAll(current.getRecipients());
+            }
+        }
+    }
+
+    /**
+     * Remove a message from the spool once it has been sent.  The spool
+     * file is removed before the message stops counting as being sent, so
+     * the file is gone when flush returns.
+     *
+     * @param  entry    Message
+     * @param  sent     TRUE if the message was sent to at least one recipient
+     */
+    private void complete(Entry entry, boolean sent) {
+        if ((entry.file != null) && !entry.file.delete()) {
+            logger.warning("Unable to remove spooled message: " + entry.file);
+        }
+
+        synchronized (this) {
+            sending--;
+            if (sent) {
+                sentCount++;
+            } else {
+                failedCount++;
+            }
+            notifyAll();
+        }
+    }
+
+    /**
+     * Return a message to the queue to be sent again after a delay.  The
+     * delay doubles with each attempt.  The message is abandoned once the
+     * maximum number of attempts has been made.
+     *
+     * @param  entry    Message
+     */
+    private void retry(Entry entry) {
+        synchronized (this) {
+            entry.attempts++;
+            if (entry.attempts < maxAttempts) {
+                long delay = retryDelay << Math.min(entry.attempts - 1, 20);
+                entry.nextAttempt = System.currentTimeMillis() + delay;
+                sending--;
+                pending.add(entry);
+                notifyAll();
+                return;
+            }
+        }
+
+        // Move the spool file without holding the queue lock
+        logger.severe("Abandoning message after " + entry.attempts + " attempts: " + entry.subject);
+        if (entry.file != null) {
+            abandon(entry.file);
+        }
+
+        synchronized (this) {
+            sending--;
+            failedCount++;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Close the connection to the mail server.
+     *
+     * @param  transport   Connection to the mail server
+     * @return null
+     */
+    private Transport close(Transport transport) {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException mex) {
+                // The connection is being discarded anyway
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Move a message which could not be delivered out of the spool so that
+     * it is not loaded again.
+     *
+     * @param  file     Spooled message
+     */
+    private void abandon(File file) {
+        File failedDir = new File(file.getParentFile(), FAILED_DIR);
+        failedDir.mkdirs();
+        if (!file.renameTo(new File(failedDir, file.getName()))) {
+            file.delete();
+        }
+    }
+
+    /**
+     * Write the message to the spool directory.  The message is written
+     * to a temporary file first so that a partially written message is
+     * never loaded from the spool.
+     *
+     * @param  entry    Message
+     */
+    private void store(Entry entry) throws MessagingException {
+        File tmpFile = new File(entry.file.getPath() + ".tmp");
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(tmpFile);
+            entry.toMessage(session).writeTo(out);
+        } catch (IOException ioex) {
+            throw new MessagingException("Unable to spool message: " + tmpFile, ioex);
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ioex) {
+                }
+            }
+        }
+        if (!tmpFile.renameTo(entry.file)) {
+            tmpFile.delete();
+            throw new MessagingException("Unable to spool message: " + entry.file);
+        }
+    }
+
+    /**
+     * Load a message from the spool directory.
+     *
+     * @param  file     Spooled message
+     * @return Message
+     */
+    private Entry load(File file) throws MessagingException, IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            MimeMessage message = new MimeMessage(session, in);
+            Address[] from = message.getFrom();
+            Entry entry = new Entry(
+                ((from != null) && (from.length > 0)) ? (InternetAddress) from[0] : null,
+                (InternetAddress[]) message.getRecipients(Message.RecipientType.TO),
+                (InternetAddress[]) message.getRecipients(Message.RecipientType.CC),
+                message.getSubject(),
+                message.getContent().toString(),
+                new ContentType(message.getContentType()).getSubType());
+            entry.file = file;
+            return entry;
+        } finally {
+            in.close();
+        }
+    }
+
+
+    /**
+     * A message in the queue.
+     */
+    private static class Entry {
+        /** Sender address */
+        final InternetAddress from;
+
+        /** List of TO addresses */
+        final Vector<InternetAddress> to = new Vector<InternetAddress>();
+
+        /** List of CC addresses */
+        final Vector<InternetAddress> cc = new Vector<InternetAddress>();
+
+        /** Subject line */
+        final String subject;
+
+        /** Message body */
+        final String text;
+
+        /** MIME subtype of the message body */
+        final String format;
+
+        /** Spool file containing the message */
+        File file = null;
+
+        /** Number of failed delivery attempts */
+        int attempts = 0;
+
+        /** Time when the message can next be sent */
+        long nextAttempt = 0;
+
+        Entry(InternetAddress from, InternetAddress[] to, InternetAddress[] cc, String subject, String text, String format) {
+            this.from = from;
+            this.subject = subject;
+            this.text = text;
+            this.format = format;
+            if (to != null) {
+                this.to.addAll(Arrays.asList(to));
+            }
+            if (cc != null) {
+                this.cc.addAll(Arrays.asList(cc));
+            }
+        }
+
+        /**
+         * Determine whether the message has the same sender and content.
+         */
+        boolean hasSameContent(Entry other) {
+            return equal(from, other.from) && equal(subject, other.subject) &&
+                   equal(text, other.text) && equal(format, other.format);
+        }
+
+        /**
+         * Return all of the recipients of the message.
+         */
+        Vector<InternetAddress> getRecipients() {
+            Vector<InternetAddress> list = new Vector<InternetAddress>(to);
+            list.addAll(cc);
+            return list;
+        }
+
+        /**
+         * Determine whether the message has any recipients.
+         */
+        boolean hasRecipients() {
+            return (to.size() > 0) || (cc.size() > 0);
+        }
+
+        /**
+         * Remove the addresses from the list of recipients.  If only CC
+         * recipients remain, they become the TO recipients.
+         *
+         * @return TRUE if any recipients were removed
+         */
+        boolean removeAll(Vector<InternetAddress> list) {
+            boolean changed = to.removeAll(list);
+            changed = cc.removeAll(list) || changed;
+            if ((to.size() == 0) && (cc.size() > 0)) {
+                to.addAll(cc);
+                cc.clear();
+            }
+            return changed;
+        }
+
+        /**
+         * Remove the addresses from the list of recipients.
+         *
+         * @return TRUE if any recipients were removed
+         */
+        boolean removeAll(Address[] list) {
+            if (list != null) {
+                Vector<InternetAddress> addresses = new Vector<InternetAddress>();
+                for (int idx = 0; idx < list.length; idx++) {
+                    if (list[idx] instanceof InternetAddress) {
+                        addresses.add((InternetAddress) list[idx]);
+                    }
+                }
+                return removeAll(addresses);
+            }
+            return false;
+        }
+
+        /**
+         * Construct the MIME message.
+         */
+        MimeMessage toMessage(Session session) throws MessagingException {
+            MimeMessage message = new MimeMessage(session);
+            if (from != null) {
+                message.setFrom(from);
+            }
+            if (to.size() > 0) {
+                message.addRecipients(Message.RecipientType.TO, to.toArray(new InternetAddress[to.size()]));
+            }
+            if (cc.size() > 0) {
+                message.addRecipients(Message.RecipientType.CC, cc.toArray(new InternetAddress[cc.size()]));
+            }
+            message.setSubject(subject, "UTF-8");
+            message.setText(text, "UTF-8", format);
+            message.setSentDate(new Date());
+            return message;
+        }
+
+        private static boolean equal(Object a, Object b) {
+            return (a == null) ? (b == null) : a.equals(b);
+        }
+    }
+
+}
@@ -58,6 +58,25 @@ public class Changelist {
     /** Text label which identifies the changelist description */
     private static final String DESCRIPTION_LABEL = "Description:";
 
+
+    /** Tagged field which identifies the changelist number */
+    private static final String CHANGELIST_FIELD = "change";
+
+    /** Tagged field which identifies the changelist submission time */
+    private static final String TIME_FIELD = "time";
+
+    /** Tagged field which identifies the clientspec */
+    private static final String CLIENTSPEC_FIELD = "client";
+
+    /** Tagged field which identifies the Perforce user */
+    private static final String USER_FIELD = "user";
+
+    /** Tagged field which identifies the changelist status */
+    private static final String STATUS_FIELD = "status";
+
+    /** Tagged field which identifies the changelist description */
+    private static final String DESCRIPTION_FIELD = "desc";
+
     
     /** Changelist status value of "new" */
     private static final String STATUS_NEW = "new";
@@ -414,7 +433,7 @@ public class Changelist {
         String datestr = null;
         try {
             datestr = text.substring(16, 26);
-            change.setDate(Common.SHORT_DATE_FORMAT.parse(datestr));
+            change.setDate(Common.parseShortDate(datestr));
         } catch (Exception ex) {
             logger.error("Unable to parse changelist date: " + text);
         }
@@ -431,31 +450,58 @@ public class Changelist {
     }
 
 
+    /**
+     * Parse a record of tagged perforce output generated by a changelist 
+     * query.  This changelist output can be obtained by querying a range of
+     * changelists:
+     * <blockquote>
+     *   p4 -ztag changes //depot/...@date1,@date2
+     * </blockquote>
+     *
+     * @param   record   Tagged changelist record
+     * @return  Changelist information
+     */
+    public static Changelist parseTaggedFormat(TaggedRecord record) {
+        Changelist change = new Changelist();
+        change.setNumber(record.getIntField(CHANGELIST_FIELD, 0));
+        change.setDate(record.getDateField(TIME_FIELD));
+        change.setUser(record.getField(USER_FIELD));
+        change.setClient(record.getField(CLIENTSPEC_FIELD));
+        change.setStatus(record.getField(STATUS_FIELD));
+
+        String desc = record.getField(DESCRIPTION_FIELD);
+        if (desc != null) {
+            change.setDescription(desc.trim());
+        }
+
+        return change;
+    }
+
+
     /**
      * This method uses the Perforce command-line client to obtain a list of 
-     * changes submitted to the specified path from the specified date until 
-     * now.  This produces a list of changes just as if the following command 
-     * had been executed from the command line.
+     * changes and passes each change to the handler as it is read.  The
+     * arguments are passed to the changes command just as if the following
+     * command had been executed from the command line.
      * <blockquote>
-     *   p4 changes //depot/...@date1,@now
+     *   p4 changes [args]
      * </blockquote>
      *
-     * @param   path    Depot or path to which the search should be restricted
-     * @param   from    Starting date
+     * @param   args      Arguments to the changes command, such as the path and range
+     * @param   handler   Receives each changelist
+     * @return  TRUE if the command completed successfully
      */
-    public static Changelist[] getChanges(String path, Date from) {
-        ArrayList list = new ArrayList();
+    public static boolean getChanges(String args, final RecordHandler<Changelist> handler) {
+        boolean success = false;
         try {
-            // Execute the Perforce command
-            String cmd = "p4 changes " + path + 
-                "@" + Common.SHORT_DATE_FORMAT.format(from) + ",@now";
-            Process p4 = Common.exec(cmd);
-
-            BufferedReader p4in = new BufferedReader(new InputStreamReader(p4.getInputStream()));
-            String currentLine = Common.readLine(p4in);
-            while (currentLine != null) {
-                list.add(parseShortFormat(currentLine));
-                currentLine = Common.readLine(p4in);
+            CommonResult result = Common.exec("p4 -ztag changes " + args, new RecordHandler<TaggedRecord>() {
+                public void handleRecord(TaggedRecord record) {
+                    handler.handleRecord(parseTaggedFormat(record));
+                }
+            });
+            success = (result.getExitValue() == 0);
+            if (!success) {
+                logger.error(result.getStdErrText().trim());
             }
         } catch (IOException ex) {
             logger.error("Unable to perform the Perforce command.");
@@ -466,13 +512,23 @@ public class Changelist {
             ex.printStackTrace();
         }
 
-        // Return the changes as an array
-        Changelist[] changes = new Changelist[list.size()];
-        for (int idx = 0; idx < changes.length; idx++) {
-            changes[idx] = (Changelist) list.get(idx);
-        }
+        return success;
+    }
 
-        return changes;
+    /**
+     * This method uses the Perforce command-line client to obtain a list of 
+     * changes submitted to the specified path from the specified date until 
+     * now.  This produces a list of changes just as if the following command 
+     * had been executed from the command line.
+     * <blockquote>
+     *   p4 changes //depot/...@date1,@now
+     * </blockquote>
+     *
+     * @param   path    Depot or path to which the search should be restricted
+     * @param   from    Starting date
+     */
+    public static Changelist[] getChanges(String path, Date from) {
+        return getChangeArray(path + "@" + Common.formatShortDate(from) + ",@now");
     }
 
 
@@ -490,26 +546,9 @@ public class Changelist {
      * @param   to      Ending date
      */
     public static Changelist[] getChanges(String path, Date from, Date to) {
-        Changelist[] changes = null;
-
-        String cmd = "p4 changes " + path + "@" + 
-            Common.SHORT_DATE_FORMAT.format(from) + ",@" +
-            Common.SHORT_DATE_FORMAT.format(to);
-
-        // Execute the Perforce command
-        try {
-            Process p4 = Common.exec(cmd);
-            changes = getChanges(p4.getInputStream());
-        } catch (IOException ex) {
-            logger.error("Unable to perform the Perforce command.");
-            ex.printStackTrace();
-        } catch (InterruptedException ex) {
-            ex.printStackTrace();
-        } catch (RuntimeException ex) {
-            ex.printStackTrace();
-        }
-
-        return changes;
+        return getChangeArray(path + "@" + 
+            Common.formatShortDate(from) + ",@" +
+            Common.formatShortDate(to));
     }
 
 
@@ -527,24 +566,7 @@ public class Changelist {
      * @param   to      Ending changelist number
      */
     public static Changelist[] getChanges(String path, int from, int to) {
-        Changelist[] changes = null;
-
-        String cmd = "p4 changes " + path + "@" + from + "," + to;
-
-        // Execute the Perforce command
-        try {
-            Process p4 = Common.exec(cmd);
-            changes = getChanges(p4.getInputStream());
-        } catch (IOException ex) {
-            logger.error("Unable to perform the Perforce command.");
-            ex.printStackTrace();
-        } catch (InterruptedException ex) {
-            ex.printStackTrace();
-        } catch (RuntimeException ex) {
-            ex.printStackTrace();
-        }
-
-        return changes;
+        return getChangeArray(path + "@" + from + "," + to);
     }
 
     /**
@@ -622,22 +644,12 @@ public class Changelist {
      * @param   client  Clientspec to query against
      */
     public static Changelist getChange(String path, Client client) {
-        Changelist change = null;
-
-        try {
-            Process p4 = Common.exec("p4 changes -m 1 " + path + "@" + client.getName());
-            BufferedReader p4in = new BufferedReader(new InputStreamReader(p4.getInputStream()));
-            change = parseShortFormat(Common.readLine(p4in));
-        } catch (IOException ex) {
-            logger.error("Unable to perform the Perforce command.");
-            ex.printStackTrace();
-        } catch (InterruptedException ex) {
-            ex.printStackTrace();
-        } catch (RuntimeException ex) {
-            ex.printStackTrace();
+        Changelist[] changes = getChangeArray("-m 1 " + path + "@" + client.getName());
+        if (changes.length > 0) {
+            return changes[0];
+        } else {
+            return null;
         }
-
-        return change;
     }
 
 
@@ -651,22 +663,12 @@ public class Changelist {
      * @param   path    Depot or path to which the search should be restricted
      */
     public static Changelist getChange(String path) {
-        Changelist change = null;
-
-        try {
-            Process p4 = Common.exec("p4 changes -m 1 " + path);
-            BufferedReader p4in = new BufferedReader(new InputStreamReader(p4.getInputStream()));
-            change = parseShortFormat(Common.readLine(p4in));
-        } catch (IOException ex) {
-            logger.error("Unable to perform the Perforce command.");
-            ex.printStackTrace();
-        } catch (InterruptedException ex) {
-            ex.printStackTrace();
-        } catch (RuntimeException ex) {
-            ex.printStackTrace();
+        Changelist[] changes = getChangeArray("-m 1 " + path);
+        if (changes.length > 0) {
+            return changes[0];
+        } else {
+            return null;
         }
-
-        return change;
     }
 
     
@@ -858,33 +860,20 @@ public class Changelist {
 
 
     /**
-     * Parses the input stream and returns the list of changes that were 
-     * available.  This assumes that a "p4 changes" command has been executed
-     * and the results of this are contained in the input stream.
+     * Obtain the list of changes returned by the changes command.
      *
-     * @param   stream     Input stream from the Perforce command
-     */
-    private static Changelist[] getChanges(InputStream stream) {
-        ArrayList list = new ArrayList();
-        try {
-            BufferedReader p4in = new BufferedReader(new InputStreamReader(stream));
-            String currentLine = Common.readLine(p4in);
-            while (currentLine != null) {
-                list.add(parseShortFormat(currentLine));
-                currentLine = Common.readLine(p4in);
+     * @param   args     Arguments to the changes command
+     * @return  List of changes
+     */
+    private static Changelist[] getChangeArray(String args) {
+        final ArrayList<Changelist> list = new ArrayList<Changelist>();
+        getChanges(args, new RecordHandler<Changelist>() {
+            public void handleRecord(Changelist change) {
+                list.add(change);
             }
-        } catch (IOException ex) {
-            logger.error("Unable to perform the Perforce command.");
-            ex.printStackTrace();
-        }
-
-        // Return the changes as an array
-        Changelist[] changes = new Changelist[list.size()];
-        for (int idx = 0; idx < changes.length; idx++) {
-            changes[idx] = (Changelist) list.get(idx);
-        }
+        });
 
-        return changes;
+        return list.toArray(new Changelist[list.size()]);
     }
 
 
@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.StringTokenizer;
+import java.util.TimeZone;
 
 import org.apache.log4j.Logger;
 
@@ -54,6 +55,106 @@ public class Common {
     /** Date format used to represent a date (2003/10/01) */
     public static final DateFormat SHORT_DATE_FORMAT = new SimpleDateFormat("yyyy/MM/dd");
 
+    /** Pattern used by the short date format */
+    private static final String SHORT_DATE_PATTERN = "yyyy/MM/dd";
+
+    /** Time zone of the Perforce server, or null if it has not been queried */
+    private static TimeZone serverTimeZone = null;
+
+    /**
+     * Format the date using the short date format.  Access to the shared
+     * date format is synchronized since the format is not thread safe.
+     *
+     * @param   date    Date to format
+     * @return  Formatted date (2003/10/01)
+     */
+    public static String formatShortDate(Date date) {
+        synchronized (SHORT_DATE_FORMAT) {
+            return SHORT_DATE_FORMAT.format(date);
+        }
+    }
+
+    /**
+     * Format the date using the short date format in the specified time zone.
+     *
+     * @param   date    Date to format
+     * @param   zone    Time zone in which the date is represented
+     * @return  Formatted date (2003/10/01)
+     */
+    public static String formatShortDate(Date date, TimeZone zone) {
+        DateFormat format = new SimpleDateFormat(SHORT_DATE_PATTERN);
+        format.setTimeZone(zone);
+        return format.format(date);
+    }
+
+    /**
+     * Parse a date in the short date format.  Access to the shared date
+     * format is synchronized since the format is not thread safe.
+     *
+     * @param   text    Formatted date (2003/10/01)
+     * @return  Date
+     */
+    public static Date parseShortDate(String text) throws ParseException {
+        synchronized (SHORT_DATE_FORMAT) {
+            return SHORT_DATE_FORMAT.parse(text);
+        }
+    }
+
+    /**
+     * Return the time zone of the Perforce server.  The untagged command
+     * output represents dates in the time zone of the server, so this time
+     * zone must be used when formatting the times returned in tagged output.
+     * The server is queried once using the <code>tzoffset</code> field of
+     * <code>p4 -ztag info</code>.  If the server cannot be queried, the
+     * default time zone is returned.
+     *
+     * @return  Time zone of the Perforce server
+     */
+    public static synchronized TimeZone getServerTimeZone() {
+        if (serverTimeZone == null) {
+            final String[] offset = new String[1];
+            try {
+                exec("p4 -ztag info", new RecordHandler<TaggedRecord>() {
+                    public void handleRecord(TaggedRecord record) {
+                        if (record.hasField("tzoffset")) {
+                            offset[0] = record.getField("tzoffset");
+                        }
+                    }
+                });
+            } catch (IOException ex) {
+                logger.error("Unable to obtain the Perforce server time zone: " + ex.getMessage());
+            } catch (InterruptedException ex) {
+                logger.error("Interrupted while obtaining the Perforce server time zone.");
+            }
+
+            serverTimeZone = getTimeZone(offset[0]);
+            logger.debug("Perforce server time zone: " + serverTimeZone.getID());
+        }
+        return serverTimeZone;
+    }
+
+    /**
+     * Convert an offset from UTC into a time zone.  If the offset is not
+     * valid, the default time zone is returned.
+     *
+     * @param   offset   Number of seconds east of UTC
+     * @return  Time zone with the specified offset
+     */
+    protected static TimeZone getTimeZone(String offset) {
+        if (offset != null) {
+            try {
+                int seconds = Integer.parseInt(offset.trim());
+                int minutes = Math.abs(seconds) / 60;
+                String id = "GMT" + ((seconds < 0) ? "-" : "+") +
+                    (minutes / 60) + ":" + ((minutes % 60 < 10) ? "0" : "") + (minutes % 60);
+                return TimeZone.getTimeZone(id);
+            } catch (NumberFormatException ex) {
+                logger.error("Invalid Perforce server time zone offset: " + offset);
+            }
+        }
+        return TimeZone.getDefault();
+    }
+
     /**
      * Execute the Perforce command and return the resulting process.
      *
@@ -115,6 +216,99 @@ public class Common {
         return result;
     }
 
+    /**
+     * Execute a Perforce command which produces tagged output and pass each
+     * record to the handler as it is read.  The command should include the
+     * <code>-ztag</code> global option, for example:
+     * <blockquote>
+     *   p4 -ztag changes //depot/...@12300,12399
+     * </blockquote>
+     * The command output is processed as it is produced rather than being 
+     * collected in memory.  Only the error output of the command is returned.
+     *
+     * @param   cmd       Perforce command
+     * @param   handler   Receives each record of command output
+     *
+     * @return  CommonResult	errors and exit value of the Perforce command
+     */
+    protected static CommonResult exec(String cmd, RecordHandler<TaggedRecord> handler) throws IOException, InterruptedException {
+        StringBuffer err = new StringBuffer();
+        CommonResult result = new CommonResult();
+        logger.debug(cmd);
+
+        Process p4 = Runtime.getRuntime().exec(cmd);
+        StreamReaderThread errThread = new StreamReaderThread(p4.getErrorStream(), err);
+        errThread.start();
+
+        TaggedRecordReader reader = new TaggedRecordReader(p4.getInputStream());
+        try {
+            int count = reader.readAll(handler);
+            logger.debug("Read " + count + " records from " + cmd);
+        } catch (RuntimeException ex) {
+            // Stop the command if the output cannot be processed
+            p4.destroy();
+            throw ex;
+        } finally {
+            reader.close();
+        }
+
+        result.setExitValue(p4.waitFor());
+        errThread.join();
+        result.setStdErrText(err.toString());
+        if (result.getExitValue() != 0) {
+            logger.debug("Process " + cmd + " returned non-zero value:" + result.getExitValue());
+            logger.debug("----> " + err.toString());
+        }
+
+        return result;
+    }
+
+    /**
+     * Execute a Perforce command and pass each line of output to the handler
+     * as it is read.  The command output is processed as it is produced 
+     * rather than being collected in memory.  Only the error output of the 
+     * command is returned.
+     *
+     * @param   cmd       Perforce command
+     * @param   handler   Receives each line of command output
+     *
+     * @return  CommonResult	errors and exit value of the Perforce command
+     */
+    protected static CommonResult execLines(String cmd, RecordHandler<String> handler) throws IOException, InterruptedException {
+        StringBuffer err = new StringBuffer();
+        CommonResult result = new CommonResult();
+        logger.debug(cmd);
+
+        Process p4 = Runtime.getRuntime().exec(cmd);
+        StreamReaderThread errThread = new StreamReaderThread(p4.getErrorStream(), err);
+        errThread.start();
+
+        BufferedReader p4in = new BufferedReader(new InputStreamReader(p4.getInputStream()));
+        try {
+            String currentLine = readLine(p4in);
+            while (currentLine != null) {
+                handler.handleRecord(currentLine);
+                currentLine = readLine(p4in);
+            }
+        } catch (RuntimeException ex) {
+            // Stop the command if the output cannot be processed
+            p4.destroy();
+            throw ex;
+        } finally {
+            p4in.close();
+        }
+
+        result.setExitValue(p4.waitFor());
+        errThread.join();
+        result.setStdErrText(err.toString());
+        if (result.getExitValue() != 0) {
+            logger.debug("Process " + cmd + " returned non-zero value:" + result.getExitValue());
+            logger.debug("----> " + err.toString());
+        }
+
+        return result;
+    }
+
     /**
      * 
      * @param   input    Input stream from a Perforce command
@@ -162,6 +162,24 @@ public class File {
         }
     }
     
+    /**
+     * Construct a file object from a record of tagged file information.
+     * The record can be obtained from commands such as:
+     * <blockquote>
+     *   p4 -ztag opened
+     * </blockquote>
+     *
+     * @param   record   Tagged file record
+     * @return  File information
+     */
+    public static File parseTaggedFormat(TaggedRecord record) {
+        File file = new File();
+        file.setLocation(record.getField("depotFile"));
+        file.setRevision(record.getIntField("rev", 0));
+        file.setState(record.getField("action"));
+        return file;
+    }
+
     /**
      * Obtain a list of all opened files.
      * This is equivalent to executing the following p4 command: 
@@ -170,23 +188,18 @@ public class File {
      * </blockquote>
      */
     public static List getOpen() {
-        Vector files = new Vector();
+        final Vector files = new Vector();
 
         try {
-            Process p4 = Common.exec("p4 opened");
-            BufferedReader p4in = new BufferedReader(new InputStreamReader(p4.getInputStream()));
-            String currentLine = p4in.readLine();
-            if ((currentLine != null) && (currentLine.indexOf("already integrated.") < 0)) {
-                while (currentLine != null) {
-                    File currentFile = new File(currentLine);
-                    if (currentFile != null) {
-                        files.add(currentFile);
+            Common.exec("p4 -ztag opened", new RecordHandler<TaggedRecord>() {
+                public void handleRecord(TaggedRecord record) {
+                    if (record.hasField("depotFile")) {
+                        files.add(parseTaggedFormat(record));
                     } else {
-                        logger.error("Unable to parse open file: " + currentLine);
+                        logger.error("Unable to parse open file: " + record);
                     }
-                    currentLine = p4in.readLine();
                 }
-            }
+            });
         } catch (IOException ex) {
             logger.error("Unable to perform the Perforce command.");
             ex.printStackTrace();
@@ -46,23 +46,30 @@ public class Filelog {
      * @return  true if able to print the fileLog; false otherwise
      */
     private static List execute_getList(String flag, String file) {
-    	List outList = new ArrayList();
-    	String outText = execute(FLAG_CROSS_BRANCH, file);
-    	if (outText=="") {
-    		logger.error("p4 filelog stdout is an empty string!");
+    	final List outList = new ArrayList();
+    	boolean success = execute(flag, file, new RecordHandler<String>() {
+    		public void handleRecord(String line) {
+    			outList.add(line);
+    		}
+    	});
+    	if (!success) {
     		return null;
-    	} else if (outText==null) {
+    	}
+
+    	// Trim any blank lines from the end of the output
+    	while ((outList.size() > 0) && (((String) outList.get(outList.size() - 1)).trim().length() == 0)) {
+    		outList.remove(outList.size() - 1);
+    	}
+    	if (outList.size() == 0) {
+    		logger.error("p4 filelog stdout is an empty string!");
     		return null;
-        }       
-    	String[] lines = outText.split("\n");
-    	for (int i=0; i<lines.length; i++) {
-    		outList.add(lines[i]);
     	}
 	    return outList;
     }
     
     /**
-     * Print detailed information about files' revisions 
+     * Print detailed information about files' revisions, passing each line
+     * of output to the handler as it is read.
      * This is equivalent to executing the following p4 command:
      * <blockquote>
      *   p4 fileLog [flag]
@@ -70,17 +77,16 @@ public class Filelog {
      *
      * @return  true if able to print the fileLog; false otherwise
      */
-    private static String execute(String flag, String file) {
-    	String cmd, errText, outText;
+    private static boolean execute(String flag, String file, RecordHandler<String> handler) {
+    	String cmd, errText;
     	boolean success = false;
-    	CommonResult result= null;
     	try {
     		if (flag == "") {
     			cmd = "p4 filelog "+file;	
     		} else {
     			cmd = "p4 filelog "+flag+" "+file;
     		}    		
-            result = Common.exec(cmd, true, true);
+            CommonResult result = Common.execLines(cmd, handler);
             errText = result.getStdErrText();
             if ((errText==null)||(errText.compareTo("")==0)) {
             	success = true;
@@ -95,14 +101,7 @@ public class Filelog {
 	    } catch (RuntimeException ex) {
 	        ex.printStackTrace();
 	    }
-	    /* set returnText */
-		if (success) {
-            outText = result.getStdOutText();
-            if ( outText!=null ) {
-            	return outText.trim();
-            }
-        } 
-		return null;
+		return success;
     }
     
 }
@@ -1,7 +1,9 @@
 package com.modeln.build.perforce;
 
 import java.io.IOException;
+import java.util.Date;
 import java.util.List;
+import java.util.TimeZone;
 import java.util.ArrayList;
 
 import org.apache.log4j.Logger;
@@ -61,6 +63,42 @@ public class FixRecord {
 		_author = record[3];
     }
     
+    /**
+     * Parse one record of tagged fix output into a FixRecord object.  The
+     * date and author are formatted the same way as the untagged output,
+     * with the date represented in the time zone of the Perforce server.
+     *
+     * @param 	record	tagged output of the p4 -ztag fixes command
+     * @return	a FixRecord object
+     */
+    public static FixRecord parseTaggedFormat(TaggedRecord record) {
+    	return parseTaggedFormat(record, Common.getServerTimeZone());
+    }
+
+    /**
+     * Parse one record of tagged fix output into a FixRecord object.  The
+     * date and author are formatted the same way as the untagged output.
+     *
+     * @param 	record	tagged output of the p4 -ztag fixes command
+     * @param 	zone	time zone of the Perforce server
+     * @return	a FixRecord object
+     */
+    public static FixRecord parseTaggedFormat(TaggedRecord record, TimeZone zone) {
+    	String date = "";
+    	Date fixDate = record.getDateField("Date");
+    	if (fixDate != null) {
+    		date = Common.formatShortDate(fixDate, zone);
+    	}
+
+    	String author = record.getField("User");
+    	String client = record.getField("Client");
+    	if (client != null) {
+    		author = author + "@" + client;
+    	}
+
+    	return new FixRecord(record.getField("Job"), record.getField("Change"), date, author);
+    }
+
     public String toString() {
 		return _job+" fixed by change "+_changelist+" on "+_date+" by "+_author;
 	}
@@ -1,9 +1,9 @@
 package com.modeln.build.perforce;
 
 import java.io.IOException;
-import java.util.Iterator;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.TimeZone;
 
 import org.apache.log4j.Logger;
 
@@ -17,6 +17,18 @@ public class Fixes {
         return execute(filePattern);
     }
 
+    /**
+     * Pass each fix associated with the files to the handler as it is read
+     * rather than collecting the entire list of fixes.
+     *
+     * @param	filePattern	files for which fixes should be listed
+     * @param	handler		receives each fix record
+     * @return	true if the fixes were listed; false otherwise
+     */
+    public static boolean getFixes(String filePattern, RecordHandler<FixRecord> handler) {
+        return execute(filePattern, handler);
+    }
+
     public static List<FixRecord> getFixesForJob( String job, String filePattern ) {
         return execute("-j "+job+" "+filePattern);
     }
@@ -36,15 +48,45 @@ public class Fixes {
      * 			[job] fixed by change [changelist] on [date] by [userEmail] 
      */
     private static List<FixRecord> execute(String args) {
-    	List fixes = null;
-    	CommonResult result= null;
+    	final List<FixRecord> fixes = new ArrayList<FixRecord>();
+    	boolean success = execute(args, new RecordHandler<FixRecord>() {
+    		public void handleRecord(FixRecord fix) {
+    			fixes.add(fix);
+    		}
+    	});
+    	if (success) {
+    		return fixes;
+    	} else {
+    		return null;
+    	}
+    }
+
+    /**
+     * List what changelists fix what jobs, passing each fix to the handler 
+     * as the output of the command is read. 
+     * This is equivalent to executing the following p4 command:
+     * <blockquote>
+     *   p4 -ztag fixes [flag]
+     * </blockquote>
+     *
+     * @param	args	arguments to the fixes command
+     * @param	handler	receives each fix record
+     * @return	true if the fixes were listed; false otherwise
+     */
+    private static boolean execute(String args, final RecordHandler<FixRecord> handler) {
+    	boolean success = false;
     	try {
-    		String cmd = "p4 fixes "+args;
-            result = Common.exec(cmd, true, true);
-            String resultText = result.getStdOutText();
+    		// Tagged dates must be formatted in the time zone of the server
+    		final TimeZone serverZone = Common.getServerTimeZone();
+    		String cmd = "p4 -ztag fixes "+args;
+    		CommonResult result = Common.exec(cmd, new RecordHandler<TaggedRecord>() {
+    			public void handleRecord(TaggedRecord record) {
+    				handler.handleRecord(FixRecord.parseTaggedFormat(record, serverZone));
+    			}
+    		});
             String errText = result.getStdErrText();
             if ((errText==null)||(errText.compareTo("")==0)) {
-            	fixes = parseResults( resultText );
+            	success = true;
             } else {
             	logger.error(errText.trim());
             }
@@ -56,30 +98,7 @@ public class Fixes {
 	    } catch (RuntimeException ex) {
 	        ex.printStackTrace();
 	    }
-	    return fixes;
-    }
-    
-    /**
-     * Parse the result output into a list of fixes
-     *  
-     * @param 	resultText
-     * @return	List of FixRecords
-     */
-    private static List parseResults(String resultText ) {
-    	List fixes = new ArrayList();
-    	FixRecord fix;
-    	String fixString;
-    	String empty = "";
-    	
-    	String[] results = resultText.split("\n");
-    	for (int i=0; i<results.length; i++) {
-    		if ( ! results[i].trim().equals(empty)) {
-    			fixString = results[i];
-    			fix = new FixRecord( fixString );
-        		fixes.add(fix);
-    		}
-    	}
-    	return fixes;
+	    return success;
     }
 
 }
@@ -0,0 +1,18 @@
+package com.modeln.build.perforce;
+
+
+/**
+ * Receives the records produced by a Perforce command as they are read
+ * from the command output.  Processing each record as it arrives avoids
+ * holding the entire command output in memory.
+ */
+public interface RecordHandler<T> {
+
+    /**
+     * Process a single record of command output.
+     *
+     * @param   record    Record obtained from the command output
+     */
+    public void handleRecord(T record);
+
+}
@@ -15,10 +15,11 @@ public class StreamReaderThread extends Thread{
 	}
 	
 	public void run() {
-		int ch;
+		char[] buf = new char[8192];
+		int count;
 		try {
-				while ((ch=_in.read()) != -1) {
-					_out.append((char)ch);					
+				while ((count=_in.read(buf)) != -1) {
+					_out.append(buf, 0, count);
 				}
 		} catch (Exception e) {
 			_out.append("\n\tRead error: "+e.getMessage());
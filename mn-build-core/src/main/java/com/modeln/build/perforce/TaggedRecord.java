@@ -0,0 +1,140 @@
+package com.modeln.build.perforce;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+
+/**
+ * A single record of tagged Perforce output.  Each record contains the
+ * fields produced by a Perforce command when it is executed with the
+ * <code>-ztag</code> option:
+ * <blockquote>
+ *   ... change 98692       <br/>
+ *   ... time 1065002819    <br/>
+ *   ... user sstafford     <br/>
+ * </blockquote>
+ */
+public class TaggedRecord {
+
+    /** Field values in the order they were read */
+    private LinkedHashMap<String, String> fields = new LinkedHashMap<String, String>();
+
+    /** Name of the field most recently added to the record */
+    private String lastField;
+
+
+    /**
+     * Set the value of a field.
+     *
+     * @param   name    Field name
+     * @param   value   Field value
+     */
+    public void setField(String name, String value) {
+        fields.put(name, value);
+        lastField = name;
+    }
+
+    /**
+     * Append a line of text to the field most recently added to the record.
+     * Perforce continues multi-line values, such as a changelist description,
+     * on the lines which follow the field.
+     *
+     * @param   text    Line of text
+     * @return  TRUE if the text was appended, FALSE if the record has no fields
+     */
+    public boolean appendLine(String text) {
+        if (lastField != null) {
+            fields.put(lastField, fields.get(lastField) + Common.EOL + text);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Return the value of a field, or null if the field does not exist.
+     *
+     * @param   name    Field name
+     * @return  Field value
+     */
+    public String getField(String name) {
+        return fields.get(name);
+    }
+
+    /**
+     * Return the value of a numeric field.
+     *
+     * @param   name    Field name
+     * @param   defaultValue   Value returned if the field is missing or invalid
+     * @return  Field value
+     */
+    public int getIntField(String name, int defaultValue) {
+        String value = fields.get(name);
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException ex) {
+                // Fall through to the default value
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Return the value of a date field.  Perforce represents dates in
+     * tagged output as the number of seconds since the epoch.
+     *
+     * @param   name    Field name
+     * @return  Field value, or null if the field is missing or invalid
+     */
+    public Date getDateField(String name) {
+        String value = fields.get(name);
+        if (value != null) {
+            try {
+                return new Date(Long.parseLong(value.trim()) * 1000);
+            } catch (NumberFormatException ex) {
+                // Fall through to return null
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Determine whether the record contains the field.
+     *
+     * @param   name    Field name
+     * @return  TRUE if the field exists
+     */
+    public boolean hasField(String name) {
+        return fields.containsKey(name);
+    }
+
+    /**
+     * Return the names of the fields in the order they were read.
+     *
+     * @return  Field names
+     */
+    public Set<String> getFieldNames() {
+        return fields.keySet();
+    }
+
+    /**
+     * Return the number of fields in the record.
+     *
+     * @return  Number of fields
+     */
+    public int size() {
+        return fields.size();
+    }
+
+    /**
+     * Render the record as a string.
+     *
+     * @return String representation of the record
+     */
+    public String toString() {
+        return fields.toString();
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.modeln.build.perforce;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+
+/**
+ * Reads the records produced by a Perforce command executed with the
+ * <code>-ztag</code> option.  Each field is written on a line beginning
+ * with "<code>... </code>" and records are separated by a blank line.
+ * Records are read one at a time so the command output never has to be
+ * held in memory in its entirety.
+ */
+public class TaggedRecordReader {
+
+    /** Prefix which identifies a field in the tagged output */
+    private static final String FIELD_PREFIX = "... ";
+
+    /** Size of the buffer used when reading the command output */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Tagged command output */
+    private BufferedReader input;
+
+    /** Line which has been read but not yet processed */
+    private String pendingLine;
+
+
+    /**
+     * Construct a reader for the tagged command output.
+     *
+     * @param   in   Command output
+     */
+    public TaggedRecordReader(InputStream in) {
+        this(new InputStreamReader(in));
+    }
+
+    /**
+     * Construct a reader for the tagged command output.
+     *
+     * @param   in   Command output
+     */
+    public TaggedRecordReader(Reader in) {
+        input = new BufferedReader(in, BUFFER_SIZE);
+    }
+
+    /**
+     * Read the next record from the command output.
+     *
+     * @return  Next record, or null if the end of the output has been reached
+     */
+    public TaggedRecord next() throws IOException {
+        TaggedRecord record = new TaggedRecord();
+
+        String line = readLine();
+        while (line != null) {
+            if (line.startsWith(FIELD_PREFIX)) {
+                parseField(record, line);
+            } else if (line.length() == 0) {
+                // A blank line ends the record unless the next line continues
+                // the value of the last field, as in a multi-line description
+                String nextLine = readLine();
+                if ((nextLine == null) || nextLine.startsWith(FIELD_PREFIX)) {
+                    pendingLine = nextLine;
+                    if (record.size() > 0) {
+                        return record;
+                    }
+                } else if (record.size() > 0) {
+                    record.appendLine(line);
+                    pendingLine = nextLine;
+                } else {
+                    pendingLine = nextLine;
+                }
+            } else {
+                // Untagged text continues the value of the last field
+                record.appendLine(line);
+            }
+            line = readLine();
+        }
+
+        if (record.size() > 0) {
+            return record;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Read each record from the command output and pass it to the handler.
+     *
+     * @param   handler   Record handler
+     * @return  Number of records read
+     */
+    public int readAll(RecordHandler<TaggedRecord> handler) throws IOException {
+        int count = 0;
+        TaggedRecord record = next();
+        while (record != null) {
+            handler.handleRecord(record);
+            count++;
+            record = next();
+        }
+        return count;
+    }
+
+    /**
+     * Close the command output.
+     */
+    public void close() throws IOException {
+        input.close();
+    }
+
+    /**
+     * Return the next line of output, including any line that was
+     * read ahead.
+     *
+     * @return  Line of output, or null at the end of the output
+     */
+    private String readLine() throws IOException {
+        if (pendingLine != null) {
+            String line = pendingLine;
+            pendingLine = null;
+            return line;
+        } else {
+            return input.readLine();
+        }
+    }
+
+    /**
+     * Parse a line of tagged output and add the field to the record.
+     * Fields which belong to a nested record are prefixed more than once
+     * and are added to the record using the innermost field name.
+     *
+     * @param   record   Record being read
+     * @param   line     Line of tagged output
+     */
+    private static void parseField(TaggedRecord record, String line) {
+        int start = 0;
+        while (line.startsWith(FIELD_PREFIX, start)) {
+            start += FIELD_PREFIX.length();
+        }
+
+        int spaceIdx = line.indexOf(' ', start);
+        if (spaceIdx > start) {
+            record.setField(line.substring(start, spaceIdx), line.substring(spaceIdx + 1));
+        } else {
+            record.setField(line.substring(start).trim(), "");
+        }
+    }
+
+}
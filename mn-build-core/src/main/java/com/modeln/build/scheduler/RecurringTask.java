@@ -6,8 +6,11 @@
  */
 package com.modeln.build.scheduler;
 
+import java.util.Arrays;
+import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.StringTokenizer;
 
 /**
  * A RecurringTask is an event that is scheduled to occur at regular intervals.
@@ -33,8 +36,8 @@ public class RecurringTask extends Task {
     private int[] months;
 
 
-    /** Calendar used to schedule recurring tasks */
-    private static final GregorianCalendar calendar = new GregorianCalendar();
+    /** Number of years to search for the next occurrence of the task */
+    private static final int MAX_SEARCH_YEARS = 5;
 
     /** Date when the task last executed */
     private Date lastOccurance;
@@ -73,196 +76,295 @@ public class RecurringTask extends Task {
     }
 
     /**
-     * Determine the date and time at which the task should be executed
-     * relative to the date and time provided.
-     *
-     * @param   from    Date and time from which the next occurance is determined
+     * Return the date when the task last executed.
      *
-     * @return  A specific instance of a task
+     * @return  Date of the last occurrence, or null if the task has not executed
      */
-    public ScheduledTask getNextOccurrence(Date from) {
-        ScheduledTask task = null;
-
-        calendar.setTime(from);
+    public Date getLastOccurrence() {
+        return lastOccurance;
+    }
 
-        // Calculate the next minute and roll forward if it has already passed
-        int fromMinute = calendar.get(GregorianCalendar.MINUTE);
-        int nextMinute = getNextMinute(fromMinute);
-        if (fromMinute < nextMinute) {
-            calendar.set(GregorianCalendar.MINUTE, nextMinute);
-        } else {
-            calendar.set(GregorianCalendar.MINUTE, fromMinute);
-            calendar.add(GregorianCalendar.HOUR, 1);
+    /**
+     * Set the schedule using a cron expression.  The expression contains
+     * five fields separated by whitespace: minute (0-59), hour (0-23),
+     * day of the month (1-31), month (1-12) and day of the week (0-7,
+     * where 0 and 7 are Sunday).  Each field may be an asterisk, a single
+     * value, a range such as <code>1-5</code>, or a comma separated list
+     * of values and ranges.  A step may follow an asterisk or a range,
+     * such as <code>*&#47;15</code> for every fifteen minutes.
+     *
+     * @param   expr    Cron expression
+     * @throws  IllegalArgumentException if the expression cannot be parsed
+     */
+    public void setSchedule(String expr) throws IllegalArgumentException {
+        StringTokenizer st = new StringTokenizer(expr);
+        if (st.countTokens() != 5) {
+            throw new IllegalArgumentException("Invalid schedule: " + expr);
         }
-        
-        // Calculate the next hour and roll forward if it has already passed
-        int fromHour = calendar.get(GregorianCalendar.HOUR);
-        int nextHour = getNextHour(fromHour);
-        if (fromHour < nextHour) {
-            calendar.set(GregorianCalendar.HOUR, nextHour);
-        } else {
-            calendar.set(GregorianCalendar.HOUR, fromHour);
-            calendar.add(GregorianCalendar.DATE, 1);
+        minutes = parseField(st.nextToken(), 0, 59, 0);
+        hours = parseField(st.nextToken(), 0, 23, 0);
+        daysPerMonth = parseField(st.nextToken(), 1, 31, 0);
+
+        // Calendar months begin at zero
+        months = parseField(st.nextToken(), 1, 12, -1);
+
+        // Calendar days of the week begin at one (Sunday)
+        int[] days = parseField(st.nextToken(), 0, 7, 0);
+        if (days != null) {
+            boolean[] values = new boolean[8];
+            for (int idx = 0; idx < days.length; idx++) {
+                values[(days[idx] % 7) + Calendar.SUNDAY] = true;
+            }
+            days = toArray(values);
         }
+        daysPerWeek = days;
+    }
 
-        // Calculate the next date and roll forward if it has already passed
-        int fromDay = calendar.get(GregorianCalendar.DATE);
-        int nextDay = getNextDate(fromDay);
-        if (fromDay < nextDay) {
-            calendar.set(GregorianCalendar.DATE, nextDay);
-        } else {
-            calendar.set(GregorianCalendar.DATE, fromDay);
-            calendar.add(GregorianCalendar.MONTH, 1);
-        }
-        
-        // Calculate the next month and roll forward if it has already passed
-        int fromMonth = calendar.get(GregorianCalendar.MONTH);
-        int nextMonth = getNextMonth(fromMonth);
-        if (fromMonth < nextMonth) {
-            calendar.set(GregorianCalendar.MONTH, nextMonth);
-        } else {
-            calendar.set(GregorianCalendar.MONTH, fromMonth);
-            calendar.add(GregorianCalendar.YEAR, 1);
-        }
+    /**
+     * Set the minutes of the hour at which the task should execute.
+     *
+     * @param   list    Minutes (0-59), or null for every minute
+     */
+    public void setMinutes(int[] list) {
+        minutes = sort(list);
+    }
 
-        // The day of the week is sort of quirky and must be treated as
-        // a special case.  The current implementation isn't correct because
-        // it performs a logical OR between DayOfWeek, Month, and Date.
-        // The correct implementation should use a logical AND.
-        int fromDayOfWeek = calendar.get(GregorianCalendar.DAY_OF_WEEK);
-        int nextDayOfWeek = getNextWeekDay(fromDayOfWeek);
-        if (fromDayOfWeek < nextDayOfWeek) {
-            // Roll forward to make up the difference in days
-            // This isn't really the correct way of doing this....
-            calendar.add(GregorianCalendar.DATE, nextDayOfWeek - fromDayOfWeek);
-        } else if (fromDayOfWeek > nextDayOfWeek) {
-            // Roll forward one week
-            // This isn't really the correct way of doing this....
-            calendar.add(GregorianCalendar.WEEK_OF_YEAR, 1);
-        }
+    /**
+     * Set the hours of the day at which the task should execute.
+     *
+     * @param   list    Hours (0-23), or null for every hour
+     */
+    public void setHours(int[] list) {
+        hours = sort(list);
+    }
 
+    /**
+     * Set the days of the month on which the task should execute.
+     *
+     * @param   list    Days of the month (1-31), or null for every day
+     */
+    public void setDaysOfMonth(int[] list) {
+        daysPerMonth = sort(list);
+    }
 
-        Date next = calendar.getTime();
-        if (next.after(from)) {
-            task = new ScheduledTask(getName(), getThreadGroup());
-            task.setSchedule(next);
-        } else {
-            // Task occurs in the past
-            task = new ScheduledTask(getName(), getThreadGroup());
-            task.setSchedule(from);
-        }
+    /**
+     * Set the days of the week on which the task should execute.
+     *
+     * @param   list    Days of the week (Calendar.SUNDAY-Calendar.SATURDAY), or null for every day
+     */
+    public void setDaysOfWeek(int[] list) {
+        daysPerWeek = sort(list);
+    }
 
-        return task;
+    /**
+     * Set the months of the year in which the task should execute.
+     *
+     * @param   list    Months (Calendar.JANUARY-Calendar.DECEMBER), or null for every month
+     */
+    public void setMonths(int[] list) {
+        months = sort(list);
     }
 
     /**
-     * Return the minute at which the next task occurrance should be scheduled.
-     * If the task recurrance is not dependent upon this field, the value
-     * provided will be returned.
+     * Determine the date and time at which the task should be executed
+     * relative to the date and time provided.  The task executes at the
+     * first minute after the given date which satisfies every field of
+     * the schedule.  The day of the month and the day of the week must
+     * both match.
      *
-     * @param   from    Current minute
+     * @param   from    Date and time from which the next occurance is determined
+     *
+     * @return  A specific instance of a task, or null if the schedule never occurs
      */
-    private int getNextMinute(int from) {
-        if ((minutes != null) && (minutes.length > 0)) {
-            for (int idx = 0; idx < minutes.length; idx++) {
-                if (minutes[idx] > from) {
-                    return minutes[idx];
-                }
+    public ScheduledTask getNextOccurrence(Date from) {
+        GregorianCalendar calendar = new GregorianCalendar();
+        calendar.setTime(from);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        calendar.add(Calendar.MINUTE, 1);
+
+        // Stop searching if the schedule can never occur, such as February 30
+        GregorianCalendar limit = (GregorianCalendar) calendar.clone();
+        limit.add(Calendar.YEAR, MAX_SEARCH_YEARS);
+
+        while (calendar.before(limit)) {
+            if (!matches(months, calendar.get(Calendar.MONTH))) {
+                // Roll forward to the start of the next month
+                calendar.set(Calendar.DATE, 1);
+                calendar.set(Calendar.HOUR_OF_DAY, 0);
+                calendar.set(Calendar.MINUTE, 0);
+                calendar.add(Calendar.MONTH, 1);
+            } else if (!matches(daysPerMonth, calendar.get(Calendar.DATE)) ||
+                       !matches(daysPerWeek, calendar.get(Calendar.DAY_OF_WEEK))) {
+                // Roll forward to the start of the next day
+                calendar.set(Calendar.HOUR_OF_DAY, 0);
+                calendar.set(Calendar.MINUTE, 0);
+                calendar.add(Calendar.DATE, 1);
+            } else if (!matches(hours, calendar.get(Calendar.HOUR_OF_DAY))) {
+                // Roll forward to the start of the next hour
+                calendar.set(Calendar.MINUTE, 0);
+                calendar.add(Calendar.HOUR_OF_DAY, 1);
+            } else if (!matches(minutes, calendar.get(Calendar.MINUTE))) {
+                calendar.add(Calendar.MINUTE, 1);
+            } else {
+                Occurrence task = new Occurrence();
+                task.setSchedule(calendar.getTime());
+                task.setTaskPriority(getTaskPriority());
+                return task;
             }
-
-            // Wrap around to the first entry if we went past the end
-            return minutes[0];
         }
 
-        return from;
+        return null;
     }
 
     /**
-     * Return the hour at which the next task occurrance should be scheduled.
-     * If the task recurrance is not dependent upon this field, the value
-     * provided will be returned.
+     * Determine whether the value is one of the values in the list.
+     * If the task recurrance is not dependent upon this field, any value
+     * will match.
      *
-     * @param   from    Current hour
+     * @param   list    Sorted list of values, or null if any value matches
+     * @param   value   Current value
+     * @return  TRUE if the value matches
      */
-    private int getNextHour(int from) {
-        if ((hours != null) && (hours.length > 0)) {
-            for (int idx = 0; idx < hours.length; idx++) {
-                if (hours[idx] > from) {
-                    return hours[idx];
-                }
-            }
+    private static boolean matches(int[] list, int value) {
+        return (list == null) || (Arrays.binarySearch(list, value) >= 0);
+    }
 
-            // Wrap around to the first entry if we went past the end
-            return hours[0];
+    /**
+     * Return a sorted copy of the list.
+     *
+     * @param   list    List of values
+     * @return  Sorted list, or null if the list is empty
+     */
+    private static int[] sort(int[] list) {
+        if ((list == null) || (list.length == 0)) {
+            return null;
         }
-
-        return from;
+        int[] sorted = list.clone();
+        Arrays.sort(sorted);
+        return sorted;
     }
 
     /**
-     * Return the date at which the next task occurrance should be scheduled.
-     * If the task recurrance is not dependent upon this field, the value
-     * provided will be returned.
+     * Parse a single field of a cron expression.
      *
-     * @param   from    Current day of the month
+     * @param   field   Field value
+     * @param   min     Minimum value of the field
+     * @param   max     Maximum value of the field
+     * @param   offset  Amount added to each value
+     * @return  Sorted list of values, or null if the field matches any value
+     * @throws  IllegalArgumentException if the field cannot be parsed
      */
-    private int getNextDate(int from) {
-        if ((daysPerMonth != null) && (daysPerMonth.length > 0)) {
-            for (int idx = 0; idx < daysPerMonth.length; idx++) {
-                if (daysPerMonth[idx] > from) {
-                    return daysPerMonth[idx];
+    private static int[] parseField(String field, int min, int max, int offset) throws IllegalArgumentException {
+        if (field.equals("*")) {
+            return null;
+        }
+
+        boolean[] values = new boolean[max + 1];
+        StringTokenizer st = new StringTokenizer(field, ",");
+        try {
+            while (st.hasMoreTokens()) {
+                String item = st.nextToken();
+                int step = 1;
+                int stepIdx = item.indexOf('/');
+                if (stepIdx >= 0) {
+                    step = Integer.parseInt(item.substring(stepIdx + 1));
+                    item = item.substring(0, stepIdx);
+                }
+
+                int first = min;
+                int last = max;
+                if (!item.equals("*")) {
+                    int rangeIdx = item.indexOf('-');
+                    if (rangeIdx > 0) {
+                        first = Integer.parseInt(item.substring(0, rangeIdx));
+                        last = Integer.parseInt(item.substring(rangeIdx + 1));
+                    } else {
+                        first = Integer.parseInt(item);
+                        last = (stepIdx >= 0) ? max : first;
+                    }
                 }
-            }
 
-            // Wrap around to the first entry if we went past the end
-            return daysPerMonth[0];
+                if ((first < min) || (last > max) || (first > last) || (step < 1)) {
+                    throw new IllegalArgumentException("Invalid schedule field: " + field);
+                }
+                for (int value = first; value <= last; value += step) {
+                    values[value] = true;
+                }
+            }
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid schedule field: " + field);
         }
 
-        return from;
+        int[] list = toArray(values);
+        for (int idx = 0; idx < list.length; idx++) {
+            list[idx] += offset;
+        }
+        return list;
     }
 
     /**
-     * Return the day of the week at which the next task occurrance should be 
-     * scheduled.  If the task recurrance is not dependent upon this field, 
-     * the value provided will be returned.
+     * Convert a set of flags to the list of values which are set.
      *
-     * @param   from    Current day of the week
+     * @param   values  Flags indexed by value
+     * @return  Sorted list of values
      */
-    private int getNextWeekDay(int from) {
-        if ((daysPerWeek != null) && (daysPerWeek.length > 0)) {
-            for (int idx = 0; idx < daysPerWeek.length; idx++) {
-                if (daysPerWeek[idx] > from) {
-                    return daysPerWeek[idx];
-                }
+    private static int[] toArray(boolean[] values) {
+        int count = 0;
+        for (int idx = 0; idx < values.length; idx++) {
+            if (values[idx]) {
+                count++;
             }
-
-            // Wrap around to the first entry if we went past the end
-            return daysPerWeek[0];
         }
-
-        return from;
+        int[] list = new int[count];
+        count = 0;
+        for (int idx = 0; idx < values.length; idx++) {
+            if (values[idx]) {
+                list[count++] = idx;
+            }
+        }
+        return list;
     }
 
+
     /**
-     * Return the month at which the next task occurrance should be scheduled.
-     * If the task recurrance is not dependent upon this field, the value
-     * provided will be returned.
-     *
-     * @param   from    Current month
+     * A single occurrence of the recurring task.  Executing the occurrence
+     * executes the recurring task.
      */
-    private int getNextMonth(int from) {
-        if ((months != null) && (months.length > 0)) {
-            for (int idx = 0; idx < months.length; idx++) {
-                if (months[idx] > from) {
-                    return months[idx];
-                }
-            }
+    public class Occurrence extends ScheduledTask {
 
-            // Wrap around to the first entry if we went past the end
-            return months[0];
+        /**
+         * Construct an occurrence of the recurring task.
+         */
+        Occurrence() {
+            super(RecurringTask.this.getName(), RecurringTask.this.getThreadGroup());
         }
 
-        return from;
+        /**
+         * Execute the recurring task.
+         */
+        public void run() {
+            RecurringTask.this.run();
+        }
+
+        /**
+         * Determine whether the occurrence or the recurring task has been
+         * cancelled.
+         *
+         * @return  TRUE if the task has been cancelled
+         */
+        public boolean isCancelled() {
+            return super.isCancelled() || RecurringTask.this.isCancelled();
+        }
+
+        /**
+         * Return the recurring task.
+         *
+         * @return  Recurring task
+         */
+        public RecurringTask getRecurringTask() {
+            return RecurringTask.this;
+        }
     }
 
 }
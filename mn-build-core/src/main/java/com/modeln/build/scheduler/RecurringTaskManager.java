@@ -7,17 +7,27 @@
 package com.modeln.build.scheduler;
 
 import java.util.Date;
+import java.util.Hashtable;
 
 
 /**
  * The RecurringTaskManager is responsible for maintaining the list of 
- * recurring tasks.  
+ * recurring tasks.  Only the next occurrence of each recurring task is
+ * scheduled.  The following occurrence is scheduled once the current
+ * occurrence completes, so an occurrence which runs longer than the
+ * recurrence interval will not overlap with the next one.
  * 
  * @version            $Revision: 1.1 $  
  * @author             Shawn Stafford
  */
 public class RecurringTaskManager extends TaskManager {
 
+    /** Recurring tasks indexed by name */
+    private Hashtable<String, RecurringTask> recurring = new Hashtable<String, RecurringTask>();
+
+    /** Next occurrence of each recurring task */
+    private TaskQueue occurrences = new TaskQueue(this);
+
 
     /**
      * Construct the task manager
@@ -36,39 +46,104 @@ public class RecurringTaskManager extends TaskManager {
      * @param   task    Task to be added
      *
      * @throws  IllegalStateException if a task with the same name already exists
+     * @throws  IllegalArgumentException if the task is not a RecurringTask
      */
     public void add(Task task) throws IllegalStateException {
+        if (!(task instanceof RecurringTask)) {
+            throw new IllegalArgumentException("Task must be a RecurringTask: " + task.getName());
+        }
+        synchronized (lock) {
+            if (recurring.containsKey(task.getName())) {
+                throw new IllegalStateException("Task already scheduled: " + task.getName());
+            }
+            RecurringTask rt = (RecurringTask) task;
+            recurring.put(rt.getName(), rt);
+            scheduleNext(rt, new Date());
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Remove the named task from the list of recurring tasks.  An occurrence
+     * which is already executing is allowed to run to completion but the
+     * task will not be scheduled again.
+     *
+     * @param   name    Name of the task
+     * @return  TRUE if the task was found
+     */
+    public boolean cancel(String name) {
+        synchronized (lock) {
+            RecurringTask task = recurring.remove(name);
+            occurrences.remove(name);
+            if (task != null) {
+                task.cancel();
+                return true;
+            } else {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Schedule the next occurrence of a recurring task once the current
+     * occurrence has completed.
+     *
+     * @param   task    Task that has completed
+     */
+    protected void taskCompleted(ScheduledTask task) {
+        if (task instanceof RecurringTask.Occurrence) {
+            RecurringTask rt = ((RecurringTask.Occurrence) task).getRecurringTask();
+            if ((recurring.get(rt.getName()) == rt) && !rt.isCancelled()) {
+                // Skip any occurrences that were missed while the task was executing
+                Date from = new Date(Math.max(System.currentTimeMillis(), task.getSchedule().getTime()));
+                scheduleNext(rt, from);
+            }
+        }
+    }
+
+    /**
+     * Schedule the next occurrence of the recurring task after the given date.
+     *
+     * @param   task    Recurring task
+     * @param   from    Date after which the task should occur
+     */
+    private void scheduleNext(RecurringTask task, Date from) {
+        ScheduledTask next = task.getNextOccurrence(from);
+        if (next != null) {
+            occurrences.add(next);
+        }
     }
 
     /**
      * Get the next task that is scheduled to execute, but do not remove it or
      * mark it as having already been executed.  If no tasks are available to 
      * be scheduled, a null will be returned.  This method operates on
-     * recurring tasks by creating a ScheduledTask for the next occurrence
+     * recurring tasks by returning the ScheduledTask for the next occurrence
      * of a recurring task.
      *
      * @return  Next scheduled task
      */
     public ScheduledTask peekNext() {
-        // Iterate through the list of tasks
-        // Select the task that will occur next
-        // Create a scheduled task for the next occurrence
-        return null;
+        synchronized (lock) {
+            return occurrences.peek(System.currentTimeMillis());
+        }
     }
 
     /**
      * Get the next task that is scheduled to execute and remove it from
-     * the list of scheduled tasks.  If no tasks are available to be scheduled,
-     * a null will be returned.  This method operates on recurring tasks by
-     * constructing a ScheduledTask for the next occurrence of the next
-     * recurring task.  The recurring task will not be removed from the 
-     * list when this method is called, but the class may wish to track the
-     * fact that a particular occurrence of the task has been scheduled.
+     * the list of scheduled tasks.  If no tasks are due, a null will be
+     * returned.  This method operates on recurring tasks by returning the
+     * ScheduledTask for the next occurrence of the next recurring task.  
+     * The recurring task will not be removed from the list when this 
+     * method is called; its next occurrence is scheduled once the 
+     * current occurrence completes.
      *
      * @return  Next scheduled task
      */
     public ScheduledTask removeNext() {
-        return null;
+        synchronized (lock) {
+            return occurrences.poll(System.currentTimeMillis());
+        }
     }
 
     /** 
@@ -78,7 +153,9 @@ public class RecurringTaskManager extends TaskManager {
      * @return  TRUE if tasks are available for scheduling
      */
     public boolean hasTasks() {
-        return false;
+        synchronized (lock) {
+            return (occurrences.size() > 0);
+        }
     }
 
     /**
@@ -90,7 +167,9 @@ public class RecurringTaskManager extends TaskManager {
      * @return  Number of milliseconds until the next task
      */
     public long getTimeToNext() {
-        return 0;
+        synchronized (lock) {
+            return occurrences.getTimeToNext(System.currentTimeMillis());
+        }
     }
 
 }
@@ -52,6 +52,15 @@ public class ScheduledTask extends Task {
         startAt = date;
     }
 
+    /**
+     * Schedule the task to execute after the specified delay.
+     *
+     * @param   delay   Number of milliseconds from now
+     */
+    public void setDelay(long delay) {
+        startAt = new Date(System.currentTimeMillis() + delay);
+    }
+
     /** 
      * Return the date when the task is scheduled to execute.
      *
@@ -6,18 +6,21 @@
  */
 package com.modeln.build.scheduler;
 
-import java.util.Date;
-
 
 /**
  * The ScheduledTaskManager is responsible for maintaining the list of 
- * scheduled on-time tasks.  
+ * scheduled on-time tasks.  Each task is executed once, at or after its
+ * scheduled date.  When several tasks are due, the task with the highest
+ * priority is executed first.
  * 
  * @version            $Revision: 1.1 $  
  * @author             Shawn Stafford
  */
 public class ScheduledTaskManager extends TaskManager {
 
+    /** List of tasks waiting to execute */
+    private TaskQueue tasks = new TaskQueue(this);
+
 
     /**
      * Construct the task manager
@@ -34,32 +37,62 @@ public class ScheduledTaskManager extends TaskManager {
      * @param   task    Task to be added
      *
      * @throws  IllegalStateException if a task with the same name already exists
+     * @throws  IllegalArgumentException if the task is not a ScheduledTask
      */
     public void add(Task task) throws IllegalStateException {
+        if (!(task instanceof ScheduledTask)) {
+            throw new IllegalArgumentException("Task must be a ScheduledTask: " + task.getName());
+        }
+        synchronized (lock) {
+            tasks.add((ScheduledTask) task);
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Remove the named task from the list of scheduled tasks.  
+     *
+     * @param   name    Name of the task
+     * @return  TRUE if the task was found
+     */
+    public boolean cancel(String name) {
+        synchronized (lock) {
+            ScheduledTask task = tasks.remove(name);
+            if (task != null) {
+                task.cancel();
+                return true;
+            } else {
+                return false;
+            }
+        }
     }
 
     /**
      * Get the next task that is scheduled to execute, but do not remove it or
      * mark it as having already been executed.  If no tasks are available to 
-     * be scheduled, a null will be returned.  This method operates on
-     * recurring tasks by creating a ScheduledTask for the next occurrence
-     * of a recurring task.
+     * be scheduled, a null will be returned.  If a task is due, the highest
+     * priority task which is due will be returned.  Otherwise the task
+     * scheduled to execute next is returned.
      *
      * @return  Next scheduled task
      */
     public ScheduledTask peekNext() {
-        return null;
+        synchronized (lock) {
+            return tasks.peek(System.currentTimeMillis());
+        }
     }
 
     /**
      * Get the next task that is scheduled to execute and remove it from
-     * the list of scheduled tasks.  If no tasks are available to be scheduled,
-     * a null will be returned.  
+     * the list of scheduled tasks.  If no tasks are due, a null will be
+     * returned.  
      *
      * @return  Next scheduled task
      */
     public ScheduledTask removeNext() {
-        return null;
+        synchronized (lock) {
+            return tasks.poll(System.currentTimeMillis());
+        }
     }
 
     /** 
@@ -69,7 +102,9 @@ public class ScheduledTaskManager extends TaskManager {
      * @return  TRUE if tasks are available for scheduling
      */
     public boolean hasTasks() {
-        return false;
+        synchronized (lock) {
+            return (tasks.size() > 0);
+        }
     }
 
     /**
@@ -81,7 +116,9 @@ public class ScheduledTaskManager extends TaskManager {
      * @return  Number of milliseconds until the next task
      */
     public long getTimeToNext() {
-        return 0;
+        synchronized (lock) {
+            return tasks.getTimeToNext(System.currentTimeMillis());
+        }
     }
 
 }
@@ -53,10 +53,18 @@ public class Task extends Thread {
      */
     public static final int BACKGROUND_PRIORITY = 100;
 
+    /**
+     * Difference between adjacent priority levels.  A TaskPriority level
+     * is converted to a task priority by multiplying it by this value.
+     */
+    public static final int PRIORITY_STEP = HIGH_PRIORITY - CRITICAL_PRIORITY;
+
 
     /** Priority of the task in relation to other tasks */
     private int taskPriority = NORMAL_PRIORITY;
 
+    /** Set when the task has been cancelled */
+    private volatile boolean cancelled = false;
 
 
     /**
@@ -91,6 +99,17 @@ public class Task extends Thread {
         taskPriority = pri;
     }
 
+    /**
+     * Set the priority of the task using one of the priority levels
+     * defined by TaskPriority.  The lowest TaskPriority level corresponds
+     * to a background task.
+     *
+     * @param   pri     Task priority
+     */
+    public void setTaskPriority(TaskPriority pri) {
+        taskPriority = pri.toInt() * PRIORITY_STEP;
+    }
+
     /**
      * Returns the priority of the task.  Zero represents the highest priority,
      * meaning that tasks closest to zero will execute with a higher priority
@@ -104,6 +123,24 @@ public class Task extends Thread {
         return taskPriority;
     }
 
+    /**
+     * Cancel the task.  A task which has not started will not be executed.
+     * A task which is already executing is expected to check isCancelled
+     * periodically and return early once it has been cancelled.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Determine whether the task has been cancelled.
+     *
+     * @return  TRUE if the task has been cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
 
 
 }
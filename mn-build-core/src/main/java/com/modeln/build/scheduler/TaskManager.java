@@ -7,21 +7,35 @@
 package com.modeln.build.scheduler;
 
 import java.util.Date;
+import java.util.Hashtable;
+import java.util.Vector;
 
 
 /**
  * The TaskManager is responsible for maintaining the list of scheduled
- * tasks.  
- * 
- * @version            $Revision: 1.1 $  
+ * tasks.  When the task manager is started, a pool of worker threads
+ * executes the tasks as they become due.  Each worker takes the highest
+ * priority task which is due, so a long running task only occupies its
+ * own worker while the remaining workers continue to process the list.
+ * Idle workers wait until the next task is due or until a new task is
+ * added rather than polling the list of tasks.
+ * <p>
+ * Subclasses maintain the list of tasks.  Any method which modifies the
+ * list must synchronize on the <code>lock</code> object and notify the
+ * workers when a task is added.
+ *
+ * @version            $Revision: 1.1 $
  * @author             Shawn Stafford
  */
 public abstract class TaskManager extends Thread {
 
-    /** 
+    /** Default number of milliseconds a task waits to improve by one priority level */
+    public static final long DEFAULT_AGING_INTERVAL = 60 * 1000;
+
+    /**
      * Controls the runnable state of the task manager.
-     * When the task manager is running, it continually examines the list of
-     * tasks and executes the next available task.
+     * When the task manager is running, the workers continually examine
+     * the list of tasks and execute the next available task.
      */
     private boolean runnable = true;
 
@@ -31,9 +45,10 @@ public abstract class TaskManager extends Thread {
     /** Date and time when the task list was last evaluated */
     private Date lastEval;
 
-    /** 
-     * Amount of time that the thread sleeps before evaluating the list of
-     * scheduled tasks again.
+    /**
+     * Amount of time that an idle worker waits before evaluating the list of
+     * scheduled tasks again if the list reports a task is due but none is
+     * available.
      */
     private static final long evalInterval = 1000;
 
@@ -42,6 +57,21 @@ public abstract class TaskManager extends Thread {
      */
     private int maxThreads = 10;
 
+    /**
+     * Number of milliseconds a task must wait after its scheduled time
+     * before its priority is raised by one level.
+     */
+    private long agingInterval = DEFAULT_AGING_INTERVAL;
+
+    /** Number of tasks currently executing */
+    private int activeCount = 0;
+
+    /** Execution metrics indexed by task name */
+    private Hashtable<String, TaskMetrics> metrics = new Hashtable<String, TaskMetrics>();
+
+    /** Lock which guards the list of tasks and is used to signal the workers */
+    protected final Object lock = new Object();
+
 
     /**
      * Construct the task manager
@@ -49,46 +79,133 @@ public abstract class TaskManager extends Thread {
      * @param   name    Name of the task manager
      */
     public TaskManager(String name) {
+        super(name);
         threads = new ThreadGroup(name);
     }
 
     /**
-     * Select the highest priority task from the task list and run it.
+     * Start the worker threads and execute tasks until the task manager
+     * is shut down.  The current thread acts as one of the workers.  This
+     * method returns once all of the workers have stopped.
      */
     public void run() {
-        // Length of time the current thread sleeps betwee runs
-        long sleepInterval;
-
-        // Continually loop until task is stopped
-        while(runnable) {
-            sleepInterval = evalInterval;
-
-            // Execute the next available task
-            if (hasTasks() && (threads.activeCount() <= maxThreads)) {
-                lastEval = new Date();
-                ScheduledTask current = removeNext();
-                if (current != null) {
-                    current.run();
+        Thread[] workers = new Thread[Math.max(0, maxThreads - 1)];
+        for (int idx = 0; idx < workers.length; idx++) {
+            workers[idx] = new Thread(threads, getName() + "-" + (idx + 1)) {
+                public void run() {
+                    work();
                 }
+            };
+            workers[idx].start();
+        }
+
+        work();
 
-                // sleep until the next scheduled event
-                long snooze = getTimeToNext();
-                if (snooze > 0) {
-                    sleepInterval = snooze;
+        for (int idx = 0; idx < workers.length; idx++) {
+            try {
+                workers[idx].join();
+            } catch (InterruptedException ex) {
+                // Stop waiting for the remaining workers
+                break;
+            }
+        }
+    }
+
+    /**
+     * Stop the task manager.  Tasks which are executing will run to
+     * completion but no further tasks will be started.
+     */
+    public void shutdown() {
+        synchronized (lock) {
+            runnable = false;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Execute tasks as they become due until the task manager is stopped.
+     */
+    private void work() {
+        while (true) {
+            ScheduledTask current = null;
+            synchronized (lock) {
+                while (runnable && (current == null)) {
+                    try {
+                        if (hasTasks()) {
+                            long snooze = getTimeToNext();
+                            if (snooze <= 0) {
+                                lastEval = new Date();
+                                current = removeNext();
+                                if (current == null) {
+                                    lock.wait(evalInterval);
+                                }
+                            } else {
+                                // sleep until the next scheduled event
+                                lock.wait(snooze);
+                            }
+                        } else {
+                            // sleep until a task is added
+                            lock.wait();
+                        }
+                    } catch (InterruptedException ex) {
+                        // Re-evaluate the task list
+                    }
+                }
+                if (current == null) {
+                    return;
                 }
+                activeCount++;
             }
 
-            // Put the thread to sleep until another task is expected
             try {
-                sleep(sleepInterval);
-            } catch (InterruptedException ex) {
-                // Not really sure what the implications of this are
+                if (!current.isCancelled()) {
+                    execute(current);
+                }
+            } finally {
+                synchronized (lock) {
+                    activeCount--;
+                    taskCompleted(current);
+                    lock.notifyAll();
+                }
             }
+        }
+    }
 
-        } // end loop 
+    /**
+     * Execute the task and record the execution metrics.
+     *
+     * @param   task    Task to execute
+     */
+    private void execute(ScheduledTask task) {
+        long start = System.currentTimeMillis();
+        long wait = 0;
+        if (task.getSchedule() != null) {
+            wait = start - task.getSchedule().getTime();
+        }
+
+        Throwable error = null;
+        try {
+            task.run();
+        } catch (RuntimeException ex) {
+            error = ex;
+        } catch (Error ex) {
+            error = ex;
+        } finally {
+            getMetrics(task.getName(), true).record(start, System.currentTimeMillis(), wait, error);
+        }
+    }
+
+    /**
+     * Called once a task has finished executing or was skipped because it
+     * was cancelled.  The lock is held when this method is called.
+     * Subclasses may override this method to schedule additional tasks.
+     *
+     * @param   task    Task that has completed
+     */
+    protected void taskCompleted(ScheduledTask task) {
     }
 
-    /** 
+    /**
      * Add the task to the list of scheduled tasks.
      *
      * @param   task    Task to be added
@@ -97,9 +214,19 @@ public abstract class TaskManager extends Thread {
      */
     public abstract void add(Task task) throws IllegalStateException;
 
+    /**
+     * Remove the named task from the list of scheduled tasks.  A task which
+     * is already executing will be marked as cancelled but is allowed to
+     * run to completion.
+     *
+     * @param   name    Name of the task
+     * @return  TRUE if the task was found
+     */
+    public abstract boolean cancel(String name);
+
     /**
      * Get the next task that is scheduled to execute, but do not remove it or
-     * mark it as having already been executed.  If no tasks are available to 
+     * mark it as having already been executed.  If no tasks are available to
      * be scheduled, a null will be returned.
      *
      * @return  Next scheduled task
@@ -115,7 +242,7 @@ public abstract class TaskManager extends Thread {
      */
     public abstract ScheduledTask removeNext();
 
-    /** 
+    /**
      * Determine whether the manager has any tasks that need to be evaluated
      * for scheduling.
      *
@@ -126,7 +253,7 @@ public abstract class TaskManager extends Thread {
     /**
      * Return the amount of time in milliseconds until the next task is
      * scheduled for execution.  This method may return a negative value
-     * if the task has already passed the scheduled execution date.  If 
+     * if the task has already passed the scheduled execution date.  If
      * no tasks are available for scheduling, a zero will be returned.
      *
      * @return  Number of milliseconds until the next task
@@ -135,18 +262,132 @@ public abstract class TaskManager extends Thread {
 
     /**
      * Return the weighted priority by examining the priority of the task and
-     * the estimated length of time required to complete the task.  Weighted
+     * the length of time the task has been waiting to execute.  Weighted
      * priority values range from 0.0 to 1.0.  Weighted priorities close to
-     * 1.0 are considered the highest priority tasks and will be executed 
+     * 1.0 are considered the highest priority tasks and will be executed
      * before tasks with weighted values closer to 0.0.
      * <p>
-     * The weighted priority is calculated by examining all tasks that are
-     * actively being managed and ranking them relative to each other.
+     * The priority of a task which is due improves by one level for each
+     * aging interval that it has been waiting, so low priority tasks will
+     * eventually execute even when higher priority tasks are always
+     * available.
      *
      * @return  Weighted priority value
      */
     public float getWeightedPriority(ScheduledTask task) {
-        return (float)0.0;
+        float priority = task.getTaskPriority();
+        if ((task.getSchedule() != null) && (agingInterval > 0)) {
+            long waiting = System.currentTimeMillis() - task.getSchedule().getTime();
+            if (waiting > 0) {
+                priority = priority - ((float) waiting * Task.PRIORITY_STEP / agingInterval);
+            }
+        }
+        priority = Math.max(0, Math.min(priority, Task.BACKGROUND_PRIORITY));
+        return 1 - (priority / Task.BACKGROUND_PRIORITY);
+    }
+
+    /**
+     * Set the maximum number of tasks that are allowed to execute
+     * simultaneously.  This value must be set before the task manager
+     * is started.
+     *
+     * @param   count   Number of worker threads
+     */
+    public void setMaxThreads(int count) {
+        maxThreads = Math.max(1, count);
+    }
+
+    /**
+     * Return the maximum number of tasks that are allowed to execute
+     * simultaneously.
+     *
+     * @return  Number of worker threads
+     */
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    /**
+     * Set the number of milliseconds a task must wait after its scheduled
+     * time before its priority is raised by one level.  A value of zero
+     * disables aging, so due tasks execute strictly in priority order.
+     * The interval applies to tasks added after it is set.
+     *
+     * @param   interval   Aging interval in milliseconds
+     */
+    public void setAgingInterval(long interval) {
+        agingInterval = Math.max(0, interval);
+    }
+
+    /**
+     * Return the number of milliseconds a task must wait after its scheduled
+     * time before its priority is raised by one level.
+     *
+     * @return  Aging interval in milliseconds
+     */
+    public long getAgingInterval() {
+        return agingInterval;
+    }
+
+    /**
+     * Return the number of tasks which are currently executing.
+     *
+     * @return  Number of active tasks
+     */
+    public int getActiveCount() {
+        synchronized (lock) {
+            return activeCount;
+        }
+    }
+
+    /**
+     * Return the date and time when a task was last taken from the list.
+     *
+     * @return  Date of the last evaluation, or null if no task has been taken
+     */
+    public Date getLastEvaluation() {
+        synchronized (lock) {
+            return lastEval;
+        }
+    }
+
+    /**
+     * Return the execution metrics for the named task.
+     *
+     * @param   name    Name of the task
+     * @return  Task metrics, or null if the task has not been executed
+     */
+    public TaskMetrics getMetrics(String name) {
+        return metrics.get(name);
+    }
+
+    /**
+     * Return the execution metrics for all of the tasks which have been
+     * executed.
+     *
+     * @return  List of task metrics
+     */
+    public Vector<TaskMetrics> getMetrics() {
+        return new Vector<TaskMetrics>(metrics.values());
+    }
+
+    /**
+     * Return the execution metrics for the named task, creating them if
+     * they do not exist.
+     *
+     * @param   name    Name of the task
+     * @param   create  TRUE if the metrics should be created
+     * @return  Task metrics
+     */
+    private TaskMetrics getMetrics(String name, boolean create) {
+        synchronized (metrics) {
+            TaskMetrics current = metrics.get(name);
+            if ((current == null) && create) {
+                current = new TaskMetrics(name);
+                metrics.put(name, current);
+            }
+            return current;
+        }
     }
 
 }
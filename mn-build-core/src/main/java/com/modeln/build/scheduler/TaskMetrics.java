@@ -0,0 +1,175 @@
+package com.modeln.build.scheduler;
+
+import java.util.Date;
+
+
+/**
+ * The TaskMetrics class records how often a task has been executed and
+ * how long each execution took.  The task manager maintains one set of
+ * metrics for each task name, so the occurrences of a recurring task
+ * are combined.
+ */
+public class TaskMetrics {
+
+    /** Name of the task */
+    private final String name;
+
+    /** Number of times the task has been executed */
+    private int runCount = 0;
+
+    /** Number of executions which ended with an exception */
+    private int failureCount = 0;
+
+    /** Total execution time in milliseconds */
+    private long totalRunTime = 0;
+
+    /** Longest execution time in milliseconds */
+    private long maxRunTime = 0;
+
+    /** Total time in milliseconds between the scheduled time and the start of execution */
+    private long totalWaitTime = 0;
+
+    /** Date and time when the task was last started */
+    private Date lastStart = null;
+
+    /** Execution time of the last execution in milliseconds */
+    private long lastRunTime = 0;
+
+    /** Exception thrown by the last failed execution */
+    private Throwable lastError = null;
+
+
+    /**
+     * Construct the metrics for a task.
+     *
+     * @param   name    Name of the task
+     */
+    public TaskMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Record an execution of the task.
+     *
+     * @param   start     Time when execution started
+     * @param   end       Time when execution ended
+     * @param   wait      Number of milliseconds the task waited after its scheduled time
+     * @param   error     Exception thrown by the task, or null if it completed normally
+     */
+    synchronized void record(long start, long end, long wait, Throwable error) {
+        long elapsed = end - start;
+        runCount++;
+        totalRunTime += elapsed;
+        totalWaitTime += Math.max(0, wait);
+        maxRunTime = Math.max(maxRunTime, elapsed);
+        lastStart = new Date(start);
+        lastRunTime = elapsed;
+        if (error != null) {
+            failureCount++;
+            lastError = error;
+        }
+    }
+
+    /**
+     * Return the name of the task.
+     *
+     * @return  Task name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Return the number of times the task has been executed.
+     *
+     * @return  Number of executions
+     */
+    public synchronized int getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * Return the number of executions which ended with an exception.
+     *
+     * @return  Number of failed executions
+     */
+    public synchronized int getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * Return the total execution time of the task.
+     *
+     * @return  Execution time in milliseconds
+     */
+    public synchronized long getTotalRunTime() {
+        return totalRunTime;
+    }
+
+    /**
+     * Return the average execution time of the task.
+     *
+     * @return  Execution time in milliseconds
+     */
+    public synchronized long getAverageRunTime() {
+        return (runCount > 0) ? (totalRunTime / runCount) : 0;
+    }
+
+    /**
+     * Return the longest execution time of the task.
+     *
+     * @return  Execution time in milliseconds
+     */
+    public synchronized long getMaxRunTime() {
+        return maxRunTime;
+    }
+
+    /**
+     * Return the execution time of the most recent execution.
+     *
+     * @return  Execution time in milliseconds
+     */
+    public synchronized long getLastRunTime() {
+        return lastRunTime;
+    }
+
+    /**
+     * Return the average amount of time the task waited to start after
+     * its scheduled time.
+     *
+     * @return  Wait time in milliseconds
+     */
+    public synchronized long getAverageWaitTime() {
+        return (runCount > 0) ? (totalWaitTime / runCount) : 0;
+    }
+
+    /**
+     * Return the date and time when the task was last started.
+     *
+     * @return  Start date, or null if the task has not been executed
+     */
+    public synchronized Date getLastStart() {
+        return lastStart;
+    }
+
+    /**
+     * Return the exception thrown by the most recent failed execution.
+     *
+     * @return  Exception, or null if the task has not failed
+     */
+    public synchronized Throwable getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Return a summary of the metrics.
+     *
+     * @return  Summary
+     */
+    public synchronized String toString() {
+        return name + ": runs=" + runCount + ", failures=" + failureCount +
+               ", avg=" + getAverageRunTime() + "ms, max=" + maxRunTime +
+               "ms, wait=" + getAverageWaitTime() + "ms";
+    }
+
+}
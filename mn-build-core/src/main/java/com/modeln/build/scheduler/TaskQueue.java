@@ -0,0 +1,220 @@
+package com.modeln.build.scheduler;
+
+import java.util.Comparator;
+import java.util.Hashtable;
+import java.util.PriorityQueue;
+
+
+/**
+ * The TaskQueue orders scheduled tasks by execution time and priority.
+ * Tasks which are not yet due are kept in order of their scheduled time.
+ * Once a task is due it is moved to a second queue where it is ordered by
+ * priority.  The priority of a task improves by one level for each aging
+ * interval that the task has been waiting, so low priority tasks cannot
+ * be starved by a steady supply of higher priority tasks.
+ * <p>
+ * Since every waiting task ages at the same rate, the aged priority of a
+ * task can be expressed as a fixed sort key: the scheduled time plus the
+ * priority weighted by the aging interval.  This allows both queues to be
+ * kept as heaps rather than re-evaluating every task on each selection.
+ * The queue is not synchronized; the task manager is responsible for
+ * synchronizing access to it.
+ */
+class TaskQueue {
+
+    /**
+     * Aging interval used when aging is disabled.  Each priority level is
+     * worth a century of waiting, so tasks execute in priority order.
+     */
+    private static final long STRICT_INTERVAL = 100L * 365 * 24 * 60 * 60 * 1000;
+
+    /** Task manager which provides the aging interval */
+    private final TaskManager manager;
+
+    /** Tasks which are not yet due, ordered by scheduled time */
+    private final PriorityQueue<Entry> delayed = new PriorityQueue<Entry>(16, new Comparator<Entry>() {
+        public int compare(Entry e1, Entry e2) {
+            return compareKeys(e1.time, e2.time, e1, e2);
+        }
+    });
+
+    /** Tasks which are due, ordered by aged priority */
+    private final PriorityQueue<Entry> ready = new PriorityQueue<Entry>(16, new Comparator<Entry>() {
+        public int compare(Entry e1, Entry e2) {
+            return compareKeys(e1.key, e2.key, e1, e2);
+        }
+    });
+
+    /** Queued tasks indexed by name */
+    private final Hashtable<String, Entry> names = new Hashtable<String, Entry>();
+
+    /** Sequence number used to run tasks with the same key in the order they were added */
+    private long sequence = 0;
+
+
+    /**
+     * Construct an empty task queue.
+     *
+     * @param   manager   Task manager which provides the aging interval
+     */
+    TaskQueue(TaskManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Add the task to the queue.
+     *
+     * @param   task    Task to be added
+     * @throws  IllegalStateException if a task with the same name is already queued
+     */
+    void add(ScheduledTask task) throws IllegalStateException {
+        String name = task.getName();
+        if (names.containsKey(name)) {
+            throw new IllegalStateException("Task already scheduled: " + name);
+        }
+
+        Entry entry = new Entry();
+        entry.task = task;
+        entry.time = (task.getSchedule() != null) ? task.getSchedule().getTime() : System.currentTimeMillis();
+        long aging = manager.getAgingInterval();
+        if (aging <= 0) {
+            aging = STRICT_INTERVAL;
+        }
+        entry.key = entry.time + (task.getTaskPriority() * aging / Task.PRIORITY_STEP);
+        entry.seq = sequence++;
+        names.put(name, entry);
+        delayed.add(entry);
+    }
+
+    /**
+     * Return the next task without removing it from the queue.  If a task
+     * is due, the highest priority task which is due will be returned.
+     * Otherwise the task with the earliest scheduled time is returned.
+     *
+     * @param   now     Current time
+     * @return  Next task, or null if the queue is empty
+     */
+    ScheduledTask peek(long now) {
+        promote(now);
+        Entry entry = ready.peek();
+        if (entry == null) {
+            entry = delayed.peek();
+        }
+        return (entry != null) ? entry.task : null;
+    }
+
+    /**
+     * Remove the highest priority task which is due.
+     *
+     * @param   now     Current time
+     * @return  Next task, or null if no tasks are due
+     */
+    ScheduledTask poll(long now) {
+        promote(now);
+        Entry entry = ready.poll();
+        if (entry != null) {
+            names.remove(entry.task.getName());
+            return entry.task;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Remove the named task from the queue.
+     *
+     * @param   name    Task name
+     * @return  Task that was removed, or null if the task was not queued
+     */
+    ScheduledTask remove(String name) {
+        Entry entry = names.remove(name);
+        if (entry != null) {
+            if (!ready.remove(entry)) {
+                delayed.remove(entry);
+            }
+            return entry.task;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Determine whether a task with the specified name is queued.
+     *
+     * @param   name    Task name
+     * @return  TRUE if the task is queued
+     */
+    boolean contains(String name) {
+        return names.containsKey(name);
+    }
+
+    /**
+     * Return the number of tasks in the queue.
+     *
+     * @return  Number of tasks
+     */
+    int size() {
+        return names.size();
+    }
+
+    /**
+     * Return the number of milliseconds until the next task is due.
+     * The value is zero or negative if a task is already due, and zero
+     * if the queue is empty.
+     *
+     * @param   now     Current time
+     * @return  Number of milliseconds until the next task
+     */
+    long getTimeToNext(long now) {
+        // Any task in the ready queue is already due
+        Entry entry = ready.peek();
+        if (entry == null) {
+            entry = delayed.peek();
+        }
+        return (entry != null) ? (entry.time - now) : 0;
+    }
+
+    /**
+     * Move every task which is due from the delayed queue to the ready queue.
+     *
+     * @param   now     Current time
+     */
+    private void promote(long now) {
+        while ((delayed.peek() != null) && (delayed.peek().time <= now)) {
+            ready.add(delayed.poll());
+        }
+    }
+
+    /**
+     * Compare two queue entries by key, using the order in which they were
+     * added to break ties.
+     */
+    private static int compareKeys(long k1, long k2, Entry e1, Entry e2) {
+        if (k1 != k2) {
+            return (k1 < k2) ? -1 : 1;
+        } else if (e1.seq != e2.seq) {
+            return (e1.seq < e2.seq) ? -1 : 1;
+        } else {
+            return 0;
+        }
+    }
+
+
+    /**
+     * Task and the values used to order it in the queue.
+     */
+    private static class Entry {
+        /** Scheduled task */
+        ScheduledTask task;
+
+        /** Scheduled execution time */
+        long time;
+
+        /** Sort key which combines the scheduled time and priority */
+        long key;
+
+        /** Order in which the task was added */
+        long seq;
+    }
+
+}
@@ -1,5 +1,7 @@
 package com.modeln.build.sdtracker;
 
+import com.modeln.build.sourcecontrol.CMnCheckIn;
+
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
 import java.sql.Connection;
@@ -7,8 +9,11 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.Statement;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Hashtable;
 import java.util.Vector;
 
 
@@ -262,9 +267,20 @@ public class CMnBugTable extends CMnOracleTable {
 
 
 
+    /** Maximum number of bugs held in the approval group cache */
+    private static final int APPROVAL_GROUP_CACHE_SIZE = 20000;
+
+    /** Number of milliseconds that a cached approval group remains valid (1 hour) */
+    private static final long APPROVAL_GROUP_CACHE_TTL = 60 * 60 * 1000;
+
+
     /** Singleton instance of the table class */
     private static CMnBugTable instance;
 
+    /** Approval group names, keyed by bug ID */
+    private final CMnTimedCache<Integer, String> approvalGroupCache =
+        new CMnTimedCache<Integer, String>(APPROVAL_GROUP_CACHE_SIZE, APPROVAL_GROUP_CACHE_TTL);
+
     /**
      * Return the singleton instance of the class.
      */
@@ -404,16 +420,10 @@ public class CMnBugTable extends CMnOracleTable {
             Statement st = conn.createStatement();
             ResultSet rs = null;
             try {
-                // Get a reference to the fix table
-                CMnFixTable fixTable = CMnFixTable.getInstance();
                 getInstance().debugWrite("Attempting to execute: " + sql.toString());
                 rs = executeQuery(st, "getBugs", sql.toString());
                 while ((rs != null) && rs.next()) {
-                    CMnBug bug = parseBugData(rs);
-                    if (bug.getId() != null) {
-                        bug.setCheckIns(fixTable.getCheckIns(conn, bug.getId().toString()));
-                    }
-                    bugs.add(bug);
+                    bugs.add(parseBugData(rs));
                 }
             } catch (SQLException ex) {
                 System.err.println("Failed to obtain the list of fixed bugs: " + sql.toString());
@@ -422,6 +432,8 @@ public class CMnBugTable extends CMnOracleTable {
                 if (rs != null) rs.close();
                 if (st != null) st.close();
             }
+
+            setCheckIns(conn, bugs);
         }
 
         return bugs;
@@ -473,16 +485,10 @@ public class CMnBugTable extends CMnOracleTable {
         Statement st = conn.createStatement();
         ResultSet rs = null;
         try {
-            // Get a reference to the fix table
-            CMnFixTable fixTable = CMnFixTable.getInstance();
             getInstance().debugWrite("Attempting to execute: " + sql.toString());
             rs = executeQuery(st, "getFixedBugs", sql.toString());
             while ((rs != null) && rs.next()) {
-                CMnBug bug = parseBugData(rs);
-                if (bug.getId() != null) {
-                    bug.setCheckIns(fixTable.getCheckIns(conn, bug.getId().toString()));
-                }
-                bugs.add(bug);
+                bugs.add(parseBugData(rs));
             }
         } catch (SQLException ex) {
             System.err.println("Failed to obtain the list of fixed bugs: " + sql.toString());
@@ -492,10 +498,41 @@ public class CMnBugTable extends CMnOracleTable {
             if (st != null) st.close();
         }
 
+        setCheckIns(conn, bugs);
+
         return bugs;
     }
 
 
+    /**
+     * Query the check-ins for all of the bugs in the list and set the
+     * list of check-ins for each bug.
+     *
+     * @param   conn      Database connection
+     * @param   bugs      List of bugs
+     */
+    private void setCheckIns(Connection conn, Vector<CMnBug> bugs)
+        throws SQLException
+    {
+        Vector<Integer> ids = new Vector<Integer>(bugs.size());
+        for (int idx = 0; idx < bugs.size(); idx++) {
+            if (bugs.get(idx).getId() != null) {
+                ids.add(bugs.get(idx).getId());
+            }
+        }
+
+        if (ids.size() > 0) {
+            Hashtable<Integer, Vector<CMnCheckIn>> checkins = CMnFixTable.getInstance().getCheckIns(conn, ids);
+            for (int idx = 0; idx < bugs.size(); idx++) {
+                CMnBug bug = bugs.get(idx);
+                if (bug.getId() != null) {
+                    bug.setCheckIns(checkins.get(bug.getId()));
+                }
+            }
+        }
+    }
+
+
     /**
      * Retrieve the approval group associated with the SDR. 
      *
@@ -536,6 +573,103 @@ public class CMnBugTable extends CMnOracleTable {
     }
 
 
+    /**
+     * Retrieve the approval groups associated with each of the SDRs.
+     * The approval groups are queried in batches rather than querying
+     * each SDR individually.  If the cache is used, only the SDRs which
+     * are not found in the approval group cache are queried and the
+     * results of the query are added to the cache.  SDRs which are not
+     * associated with an approval group are not included in the results.
+     *
+     * @param   conn      Database connection
+     * @param   bugIds    List of SDTracker bug OIDs
+     * @param   cached    TRUE if the approval group cache should be used
+     *
+     * @return  Approval group names, keyed by bug OID
+     */
+    public Hashtable<Integer, String> getApprovalGroups(Connection conn, Collection<Integer> bugIds, boolean cached)
+        throws SQLException
+    {
+        Hashtable<Integer, String> groups = new Hashtable<Integer, String>();
+
+        // Determine which SDRs must be queried
+        HashSet<Integer> pending = new HashSet<Integer>();
+        Vector<Integer> ids = new Vector<Integer>();
+        for (Integer id : bugIds) {
+            if ((id != null) && pending.add(id)) {
+                if (cached && approvalGroupCache.containsKey(id)) {
+                    String name = approvalGroupCache.get(id);
+                    if (name != null) {
+                        groups.put(id, name);
+                    }
+                } else {
+                    ids.add(id);
+                }
+            }
+        }
+
+        for (int start = 0; start < ids.size(); start += MAX_IN_LIST_SIZE) {
+            int end = Math.min(start + MAX_IN_LIST_SIZE, ids.size());
+            Vector<Integer> batch = new Vector<Integer>(ids.subList(start, end));
+
+            StringBuffer sql = new StringBuffer();
+            sql.append("SELECT " + TABLE_SDR + "." + COLUMN_BUG_ID + " AS " + ALIAS_BUG_ID);
+            sql.append(", " + TABLE_APPROVAL_GROUP + "." + COLUMN_APPROVAL_GROUP_NAME);
+            sql.append(" FROM " + TABLE_SDR + ", " + TABLE_CATEGORY + ", " + TABLE_APPROVAL_GROUP);
+            sql.append(" WHERE " + TABLE_SDR + "." + COLUMN_BUG_ID + " IN (" + getQuotedIdList(batch) + ")");
+            sql.append(" AND " + TABLE_CATEGORY + "." + OID + " = " + TABLE_SDR + "." + COLUMN_BUG_CATEGORY);
+            sql.append(" AND " + TABLE_APPROVAL_GROUP + "." + OID + " = " + TABLE_CATEGORY + "." + COLUMN_CATEGORY_PRODUCT_AREA);
+
+            Statement st = conn.createStatement();
+            ResultSet rs = null;
+            boolean complete = false;
+            try {
+                rs = executeQuery(st, "getApprovalGroups", sql.toString());
+                while ((rs != null) && rs.next()) {
+                    Integer id = Integer.valueOf(rs.getInt(ALIAS_BUG_ID));
+                    groups.put(id, rs.getString(COLUMN_APPROVAL_GROUP_NAME));
+                }
+                complete = true;
+            } catch (SQLException ex) {
+                getInstance().debugWrite("Failed to obtain the approval groups: " + sql.toString());
+                getInstance().debugWrite("SQLException: " + ex.toString());
+            } finally {
+                if (rs != null) rs.close();
+                if (st != null) st.close();
+            }
+
+            // Cache the results, including the SDRs which have no approval group
+            if (cached && complete) {
+                for (int idx = 0; idx < batch.size(); idx++) {
+                    Integer id = batch.get(idx);
+                    approvalGroupCache.put(id, groups.get(id));
+                }
+            }
+        }
+
+        if (cached) {
+            getInstance().debugWrite("getApprovalGroups returned " + groups.size() + " groups for " + pending.size() +
+                " SDRs (queried=" + ids.size() +
+                ", cache hits=" + approvalGroupCache.getHitCount() +
+                ", cache misses=" + approvalGroupCache.getMissCount() + ")");
+        }
+
+        return groups;
+    }
+
+
+    /**
+     * Return the cache used to store the approval group of each SDR.
+     * The cache can be used to monitor the cache hit and miss counts
+     * or to discard the cached data.
+     *
+     * @return  Approval group cache
+     */
+    public CMnTimedCache<Integer, String> getApprovalGroupCache() {
+        return approvalGroupCache;
+    }
+
+
     /**
      * Display information about the result set meta data.
      *
@@ -10,7 +10,9 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.Statement;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Date;
+import java.util.Hashtable;
 import java.util.Vector;
 
 
@@ -149,6 +151,62 @@ public class CMnFixTable extends CMnOracleTable {
 
 
 
+    /**
+     * Retrieve the lists of check-ins associated with each of the bugs.
+     * The check-ins are queried in batches rather than querying each
+     * bug individually.  Every bug ID in the list will have an entry
+     * in the results, even if no check-ins were found for the bug.
+     *
+     * @param   conn      Database connection
+     * @param   bugIds    List of SDTracker bug IDs
+     *
+     * @return  Check-in information, keyed by bug ID
+     */
+    public Hashtable<Integer, Vector<CMnCheckIn>> getCheckIns(Connection conn, Collection<Integer> bugIds)
+        throws SQLException
+    {
+        Hashtable<Integer, Vector<CMnCheckIn>> checkins = new Hashtable<Integer, Vector<CMnCheckIn>>();
+        Vector<Integer> ids = new Vector<Integer>();
+        for (Integer id : bugIds) {
+            if ((id != null) && !checkins.containsKey(id)) {
+                checkins.put(id, new Vector<CMnCheckIn>());
+                ids.add(id);
+            }
+        }
+
+        for (int start = 0; start < ids.size(); start += MAX_IN_LIST_SIZE) {
+            int end = Math.min(start + MAX_IN_LIST_SIZE, ids.size());
+
+            StringBuffer sql = new StringBuffer();
+            sql.append("SELECT * FROM " + TABLE_NAME +
+                               " WHERE " + COLUMN_BUG_ID + " IN (" + getQuotedIdList(ids.subList(start, end)) + ")");
+
+            Statement st = conn.createStatement();
+            ResultSet rs = null;
+            try {
+                getInstance().debugWrite("Attempting to execute: " + sql.toString());
+                rs = executeQuery(st, "getCheckInsForBugs", sql.toString());
+                while ((rs != null) && rs.next()) {
+                    Integer bugId = Integer.valueOf(rs.getInt(COLUMN_BUG_ID));
+                    Vector<CMnCheckIn> list = checkins.get(bugId);
+                    if (list != null) {
+                        list.addAll(parseCheckInData(rs));
+                    }
+                }
+            } catch (SQLException ex) {
+                System.err.println("Failed to obtain the changelist data: " + sql.toString());
+                ex.printStackTrace();
+            } finally {
+                if (rs != null) rs.close();
+                if (st != null) st.close();
+            }
+        }
+
+        return checkins;
+    }
+
+
+
     /**
      * Parse the result set to obtain check-in information.
      *
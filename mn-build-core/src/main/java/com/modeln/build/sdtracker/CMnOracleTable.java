@@ -11,6 +11,7 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.List;
 
 
 /**
@@ -27,6 +28,9 @@ public class CMnOracleTable extends CMnTable {
     /** String used by the Oracle TO_DATE function when parsing a string */
     protected static final String ORACLE_DATE_FORMAT = "YYYY-MM-DD HH24:MI:SS";
 
+    /** Maximum number of expressions that Oracle allows in an IN list */
+    protected static final int MAX_IN_LIST_SIZE = 1000;
+
 
     /**
      * Convenience method for returning a string containing the date
@@ -39,5 +43,24 @@ public class CMnOracleTable extends CMnTable {
         return "TO_DATE('" + ORACLE_DATE.format(date) + "', '" + ORACLE_DATE_FORMAT + "')"; 
     }
 
+    /**
+     * Convenience method for returning a comma-separated list of quoted IDs
+     * for use in an IN list.  The IDs are quoted in the same way as a
+     * single ID compared with the column, so the database performs the
+     * same type conversion in both cases.  The caller is responsible for
+     * limiting the number of IDs to MAX_IN_LIST_SIZE.
+     *
+     * @param   ids    List of IDs
+     * @return  Comma-separated list of quoted IDs
+     */
+    protected static String getQuotedIdList(List<Integer> ids) {
+        StringBuffer list = new StringBuffer();
+        for (int idx = 0; idx < ids.size(); idx++) {
+            if (idx > 0) list.append(",");
+            list.append("'" + ids.get(idx) + "'");
+        }
+        return list.toString();
+    }
+
 }
 
@@ -0,0 +1,160 @@
+package com.modeln.build.sdtracker;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Bounded cache of values which expire after a fixed amount of time.
+ * When the cache is full, the least recently used entry is discarded.
+ * The cache keeps track of the number of hits and misses so that the
+ * effectiveness of the cache can be monitored.
+ */
+public class CMnTimedCache<K, V> {
+
+    /** Maximum number of entries held by the cache */
+    private final int maxSize;
+
+    /** Number of milliseconds that an entry remains valid */
+    private final long ttl;
+
+    /** Cached entries in least recently used order */
+    private final LinkedHashMap<K, CacheEntry<V>> entries;
+
+    /** Number of lookups which found a valid entry */
+    private long hitCount = 0;
+
+    /** Number of lookups which did not find a valid entry */
+    private long missCount = 0;
+
+
+    /**
+     * Construct a cache which holds the specified number of entries.
+     *
+     * @param   size    Maximum number of entries
+     * @param   ttl     Number of milliseconds that an entry remains valid
+     */
+    public CMnTimedCache(int size, long ttl) {
+        this.maxSize = size;
+        this.ttl = ttl;
+        this.entries = new LinkedHashMap<K, CacheEntry<V>>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Determine whether a valid entry exists for the key.  This counts
+     * as a cache lookup and updates the hit or miss count.  An entry
+     * may exist for a key even if the cached value is null.
+     *
+     * @param   key     Cache key
+     * @return  TRUE if a valid entry exists for the key
+     */
+    public synchronized boolean containsKey(K key) {
+        CacheEntry<V> entry = entries.get(key);
+        if ((entry != null) && (entry.expires < System.currentTimeMillis())) {
+            entries.remove(key);
+            entry = null;
+        }
+
+        if (entry != null) {
+            hitCount++;
+            return true;
+        } else {
+            missCount++;
+            return false;
+        }
+    }
+
+    /**
+     * Return the cached value for the key without updating the hit
+     * or miss count.  Null is returned if no valid entry exists or
+     * the cached value is null.
+     *
+     * @param   key     Cache key
+     * @return  Cached value
+     */
+    public synchronized V get(K key) {
+        CacheEntry<V> entry = entries.get(key);
+        if ((entry != null) && (entry.expires >= System.currentTimeMillis())) {
+            return entry.value;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Add a value to the cache, replacing any existing entry for the key.
+     *
+     * @param   key     Cache key
+     * @param   value   Value to be cached, which may be null
+     */
+    public synchronized void put(K key, V value) {
+        if (maxSize > 0) {
+            entries.put(key, new CacheEntry<V>(value, System.currentTimeMillis() + ttl));
+        }
+    }
+
+    /**
+     * Remove all entries from the cache.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Return the number of entries in the cache, including any
+     * expired entries which have not yet been removed.
+     *
+     * @return  Number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Return the number of lookups which found a valid entry.
+     *
+     * @return  Number of cache hits
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Return the number of lookups which did not find a valid entry.
+     *
+     * @return  Number of cache misses
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Reset the hit and miss counts to zero.
+     */
+    public synchronized void resetCounts() {
+        hitCount = 0;
+        missCount = 0;
+    }
+
+
+    /**
+     * Cached value and the time when it expires.
+     */
+    private static final class CacheEntry<V> {
+        /** Cached value */
+        final V value;
+
+        /** Time in milliseconds when the entry expires */
+        final long expires;
+
+        CacheEntry(V value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+
+}
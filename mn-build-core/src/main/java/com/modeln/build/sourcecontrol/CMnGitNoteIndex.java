@@ -0,0 +1,532 @@
+package com.modeln.build.sourcecontrol;
+
+import com.modeln.build.common.tool.CMnCmdLineTool;
+
+import java.io.*;
+import java.util.*;
+import java.util.logging.Logger;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * Index of the git notes which associate commits with bug IDs.  The index
+ * is built by reading the notes tree directly and is stored in a file so
+ * that it can be reused the next time the repository is opened.  When the
+ * notes change, only the notes which were added, modified, or removed
+ * since the index was last updated are read.
+ *
+ * The index also records the commits on each branch that has been queried
+ * so that subsequent queries only need to walk the commits added to the
+ * branch since the previous query.
+ */
+public class CMnGitNoteIndex {
+
+    /** Index file header which identifies the file format */
+    private static final String FILE_HEADER = "# git notes index v1";
+
+    /** Index file entry containing the notes commit that was indexed */
+    private static final String NOTES_ENTRY = "notes";
+
+    /** Index file entry containing the bug IDs of a commit */
+    private static final String NOTE_ENTRY = "note";
+
+    /** Index file entry containing the head of an indexed branch */
+    private static final String BRANCH_ENTRY = "branch";
+
+    /** Index file entry containing a commit on the preceding branch */
+    private static final String COMMIT_ENTRY = "commit";
+
+    /** Length of a SHA-1 object name */
+    private static final int SHA_LENGTH = Constants.OBJECT_ID_STRING_LENGTH;
+
+    /** Logger */
+    private Logger logger = Logger.getLogger(CMnGitNoteIndex.class.getName());
+
+    /** Git repository */
+    private Repository repository;
+
+    /** Notes namespace being indexed */
+    private String notesRef;
+
+    /** File containing the index */
+    private File indexFile;
+
+    /** Determines whether the index has been loaded from the file */
+    private boolean loaded = false;
+
+    /** Determines whether the index has changed since it was saved */
+    private boolean modified = false;
+
+    /** Notes commit which was most recently indexed */
+    private String notesCommit = null;
+
+    /** Bug IDs associated with each commit */
+    private HashMap<String, List<String>> commitBugs = new HashMap<String, List<String>>();
+
+    /** Commits associated with each bug ID */
+    private HashMap<String, List<String>> bugCommits = new HashMap<String, List<String>>();
+
+    /** Branch commits indexed by branch key */
+    private HashMap<String, BranchEntry> branches = new HashMap<String, BranchEntry>();
+
+
+    /**
+     * Construct an index of the notes in the specified namespace.
+     *
+     * @param  repository   Git repository
+     * @param  notesRef     Notes namespace, such as refs/notes/defect
+     * @param  file         File used to store the index
+     */
+    public CMnGitNoteIndex(Repository repository, String notesRef, File file) {
+        this.repository = repository;
+        this.notesRef = notesRef;
+        this.indexFile = file;
+    }
+
+    /**
+     * Return the file used to store the index.
+     *
+     * @return Index file
+     */
+    public File getFile() {
+        return indexFile;
+    }
+
+    /**
+     * Update the index with any changes made to the notes since the index
+     * was last updated.  The index is loaded from the index file the first
+     * time it is refreshed, and saved if the notes have changed.
+     */
+    public synchronized void refresh() throws IOException {
+        load();
+
+        ObjectId notesId = repository.resolve(notesRef);
+        String currentCommit = null;
+        if (notesId != null) {
+            currentCommit = notesId.getName();
+        }
+
+        // Nothing to do if the notes have not changed
+        if ((currentCommit == null) ? (notesCommit == null) : currentCommit.equals(notesCommit)) {
+            return;
+        }
+
+        Date startDate = new Date();
+        RevWalk walk = new RevWalk(repository);
+        ObjectReader reader = repository.newObjectReader();
+        try {
+            // Compare the previously indexed notes tree with the current tree
+            TreeWalk treeWalk = new TreeWalk(reader);
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            ObjectId previousTree = getTree(walk, notesCommit);
+            if (previousTree != null) {
+                treeWalk.addTree(previousTree);
+            } else {
+                // Index all of the notes if the previous notes are not available
+                clearNotes();
+                treeWalk.addTree(new EmptyTreeIterator());
+            }
+            ObjectId currentTree = getTree(walk, currentCommit);
+            if (currentTree != null) {
+                treeWalk.addTree(currentTree);
+            } else {
+                treeWalk.addTree(new EmptyTreeIterator());
+            }
+
+            // Notes may move when git changes the fan-out of the notes tree,
+            // so all removals must be applied before any additions
+            List<String> removed = new ArrayList<String>();
+            HashMap<String, List<String>> added = new HashMap<String, List<String>>();
+            while (treeWalk.next()) {
+                String commit = getCommitName(treeWalk.getPathString());
+                if (commit != null) {
+                    if (treeWalk.getFileMode(0) != FileMode.MISSING) {
+                        removed.add(commit);
+                    }
+                    if (treeWalk.getFileMode(1) != FileMode.MISSING) {
+                        added.put(commit, parseBugIds(reader, treeWalk.getObjectId(1)));
+                    }
+                }
+            }
+            for (int idx = 0; idx < removed.size(); idx++) {
+                removeNote(removed.get(idx));
+            }
+            Iterator<String> addIter = added.keySet().iterator();
+            while (addIter.hasNext()) {
+                String commit = addIter.next();
+                addNote(commit, added.get(commit));
+            }
+
+            logger.info("Indexed " + removed.size() + " removed and " + added.size() + " added notes from " + notesRef);
+        } finally {
+            reader.release();
+            walk.release();
+        }
+
+        notesCommit = currentCommit;
+        modified = true;
+        save();
+
+        CMnCmdLineTool.logElapsedTime(logger, startDate, new Date(), "Refresh notes index: ");
+    }
+
+    /**
+     * Return the bug IDs associated with the commit.
+     *
+     * @param  commit   Commit SHA
+     * @return Copy of the list of bug IDs, or null if the commit has no note
+     */
+    public synchronized List<String> getBugIds(String commit) {
+        return copy(commitBugs.get(commit.toLowerCase()));
+    }
+
+    /**
+     * Return the commits associated with the bug ID.
+     *
+     * @param  bugId    Bug ID
+     * @return Copy of the list of commit SHAs, or null if no commits refer to the bug
+     */
+    public synchronized List<String> getCheckIns(String bugId) {
+        return copy(bugCommits.get(bugId.toLowerCase()));
+    }
+
+    /**
+     * Return the commits on the branch, starting with the head of the branch
+     * and ending with the check-in from which the branch was created.  If the
+     * branch has been queried before, only the commits added since the
+     * previous query are walked.
+     *
+     * @param  branch   Branch name
+     * @param  start    Starting check-in from which the branch was created
+     * @return Copy of the list of commit SHAs
+     */
+    public synchronized List<String> getBranchCommits(String branch, String start) throws IOException {
+        load();
+
+        ObjectId headId = repository.resolve(branch);
+        ObjectId startId = repository.resolve(start);
+        if ((headId == null) || (startId == null)) {
+            throw new IOException("Unable to resolve the branch: " + branch + " from " + start);
+        }
+
+        String key = branch + " " + start;
+        BranchEntry entry = branches.get(key);
+        if ((entry != null) && entry.head.equals(headId.getName())) {
+            return copy(entry.commits);
+        }
+
+        RevWalk walk = new RevWalk(repository);
+        try {
+            walk.setRetainBody(false);
+            RevCommit head = walk.parseCommit(headId);
+            RevCommit branchPoint = walk.parseCommit(startId);
+
+            // Only walk the new commits if the previous head is still on the branch
+            RevCommit previousHead = null;
+            if (entry != null) {
+                ObjectId previousId = ObjectId.fromString(entry.head);
+                if (repository.hasObject(previousId)) {
+                    RevCommit commit = walk.parseCommit(previousId);
+                    if (walk.isMergedInto(commit, head)) {
+                        previousHead = commit;
+                    }
+                }
+                walk.reset();
+            }
+
+            List<String> commits = new ArrayList<String>();
+            walk.markStart(head);
+            walk.markUninteresting(branchPoint);
+            if (previousHead != null) {
+                walk.markUninteresting(previousHead);
+            }
+            RevCommit commit = walk.next();
+            while (commit != null) {
+                commits.add(commit.getName());
+                commit = walk.next();
+            }
+
+            if (previousHead != null) {
+                logger.info("Walked " + commits.size() + " new commits on " + branch);
+                commits.addAll(entry.commits);
+            } else {
+                commits.add(branchPoint.getName());
+                logger.info("Walked " + commits.size() + " commits on " + branch);
+            }
+
+            entry = new BranchEntry(headId.getName(), commits);
+            branches.put(key, entry);
+            modified = true;
+            save();
+        } finally {
+            walk.release();
+        }
+
+        return copy(entry.commits);
+    }
+
+
+    /**
+     * Load the index from the index file if it has not already been loaded.
+     * If the file cannot be read, the index is rebuilt from the notes.
+     */
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!indexFile.exists()) {
+            return;
+        }
+
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), "UTF-8"));
+            String line = reader.readLine();
+            if (!FILE_HEADER.equals(line)) {
+                logger.warning("Ignoring notes index with an unknown format: " + indexFile);
+                return;
+            }
+
+            BranchEntry branch = null;
+            line = reader.readLine();
+            while (line != null) {
+                StringTokenizer st = new StringTokenizer(line);
+                String type = st.hasMoreTokens() ? st.nextToken() : "";
+                if (NOTES_ENTRY.equals(type)) {
+                    notesCommit = st.nextToken();
+                } else if (NOTE_ENTRY.equals(type)) {
+                    String commit = st.nextToken();
+                    List<String> bugs = new ArrayList<String>();
+                    while (st.hasMoreTokens()) {
+                        bugs.add(st.nextToken());
+                    }
+                    addNote(commit, bugs);
+                } else if (BRANCH_ENTRY.equals(type)) {
+                    String head = st.nextToken();
+                    String start = st.nextToken();
+                    String name = st.nextToken();
+                    branch = new BranchEntry(head, new ArrayList<String>());
+                    branches.put(name + " " + start, branch);
+                } else if (COMMIT_ENTRY.equals(type) && (branch != null)) {
+                    branch.commits.add(st.nextToken());
+                }
+                line = reader.readLine();
+            }
+            logger.info("Loaded notes index: " + indexFile);
+        } catch (Exception ex) {
+            logger.warning("Unable to load the notes index " + indexFile + ": " + ex.toString());
+            clearNotes();
+            branches.clear();
+            notesCommit = null;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException ioex) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Save the index to the index file if it has been modified.  The index
+     * is written to a temporary file first so that an interrupted save does
+     * not leave a partial index behind.
+     */
+    private void save() throws IOException {
+        if (!modified) {
+            return;
+        }
+
+        File tmpFile = new File(indexFile.getPath() + ".tmp");
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(tmpFile), "UTF-8"));
+        try {
+            writer.println(FILE_HEADER);
+            if (notesCommit != null) {
+                writer.println(NOTES_ENTRY + " " + notesCommit);
+            }
+
+            Iterator<String> noteIter = commitBugs.keySet().iterator();
+            while (noteIter.hasNext()) {
+                String commit = noteIter.next();
+                StringBuffer line = new StringBuffer(NOTE_ENTRY + " " + commit);
+                List<String> bugs = commitBugs.get(commit);
+                for (int idx = 0; idx < bugs.size(); idx++) {
+                    line.append(" " + bugs.get(idx));
+                }
+                writer.println(line.toString());
+            }
+
+            Iterator<String> branchIter = branches.keySet().iterator();
+            while (branchIter.hasNext()) {
+                String key = branchIter.next();
+                BranchEntry branch = branches.get(key);
+                int split = key.lastIndexOf(' ');
+                writer.println(BRANCH_ENTRY + " " + branch.head + " " + key.substring(split + 1) + " " + key.substring(0, split));
+                for (int idx = 0; idx < branch.commits.size(); idx++) {
+                    writer.println(COMMIT_ENTRY + " " + branch.commits.get(idx));
+                }
+            }
+        } finally {
+            writer.close();
+        }
+        if (writer.checkError()) {
+            throw new IOException("Unable to write the notes index: " + tmpFile);
+        }
+
+        if (indexFile.exists() && !indexFile.delete()) {
+            throw new IOException("Unable to replace the notes index: " + indexFile);
+        }
+        if (!tmpFile.renameTo(indexFile)) {
+            throw new IOException("Unable to rename the notes index: " + tmpFile);
+        }
+        modified = false;
+    }
+
+    /**
+     * Return the tree of the notes commit.
+     *
+     * @param  walk     Revision walker
+     * @param  commit   Notes commit SHA, or null
+     * @return Notes tree, or null if the commit does not exist
+     */
+    private ObjectId getTree(RevWalk walk, String commit) throws IOException {
+        if (commit == null) {
+            return null;
+        }
+        ObjectId id = ObjectId.fromString(commit);
+        if (!repository.hasObject(id)) {
+            return null;
+        }
+        return walk.parseCommit(id).getTree();
+    }
+
+    /**
+     * Convert the path of a note to the name of the commit it annotates.
+     * Git splits the commit name into directories when there are many notes,
+     * so the directory separators must be removed.
+     *
+     * @param  path    Path of the note within the notes tree
+     * @return Commit SHA, or null if the path does not identify a commit
+     */
+    private static String getCommitName(String path) {
+        String name = path.replace("/", "");
+        if ((name.length() == SHA_LENGTH) && ObjectId.isId(name)) {
+            return name.toLowerCase();
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Parse the whitespace delimited list of bug IDs from the note.
+     *
+     * @param  reader   Object reader
+     * @param  blob     Note content
+     * @return List of bug IDs
+     */
+    private static List<String> parseBugIds(ObjectReader reader, ObjectId blob) throws IOException {
+        List<String> bugs = new ArrayList<String>();
+        ObjectLoader loader = reader.open(blob, Constants.OBJ_BLOB);
+        StringTokenizer st = new StringTokenizer(new String(loader.getCachedBytes(), "UTF-8"));
+        while (st.hasMoreTokens()) {
+            bugs.add(st.nextToken());
+        }
+        return bugs;
+    }
+
+    /**
+     * Add the association between a commit and its bugs to the index.
+     *
+     * @param  commit   Commit SHA
+     * @param  bugs     List of bug IDs
+     */
+    private void addNote(String commit, List<String> bugs) {
+        commitBugs.put(commit, bugs);
+        for (int idx = 0; idx < bugs.size(); idx++) {
+            String bugId = bugs.get(idx).toLowerCase();
+            List<String> commits = bugCommits.get(bugId);
+            if (commits == null) {
+                commits = new ArrayList<String>();
+                bugCommits.put(bugId, commits);
+            }
+            if (!commits.contains(commit)) {
+                commits.add(commit);
+            }
+        }
+    }
+
+    /**
+     * Remove the association between a commit and its bugs from the index.
+     *
+     * @param  commit   Commit SHA
+     */
+    private void removeNote(String commit) {
+        List<String> bugs = commitBugs.remove(commit);
+        if (bugs != null) {
+            for (int idx = 0; idx < bugs.size(); idx++) {
+                String bugId = bugs.get(idx).toLowerCase();
+                List<String> commits = bugCommits.get(bugId);
+                if (commits != null) {
+                    commits.remove(commit);
+                    if (commits.size() == 0) {
+                        bugCommits.remove(bugId);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Return a copy of the list so that callers cannot modify the index
+     * or observe changes made by a later refresh.
+     *
+     * @param  list     List from the index, or null
+     * @return Copy of the list, or null
+     */
+    private static List<String> copy(List<String> list) {
+        if (list != null) {
+            return new ArrayList<String>(list);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Remove all of the notes from the index.
+     */
+    private void clearNotes() {
+        commitBugs.clear();
+        bugCommits.clear();
+    }
+
+
+    /**
+     * Commits on a branch which have been indexed.
+     */
+    private static class BranchEntry {
+        /** Head of the branch when the commits were indexed */
+        final String head;
+
+        /** Commits from the head of the branch to the branch point */
+        final List<String> commits;
+
+        BranchEntry(String head, List<String> commits) {
+            this.head = head;
+            this.commits = commits;
+        }
+    }
+
+}
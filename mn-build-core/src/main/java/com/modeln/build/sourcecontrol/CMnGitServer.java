@@ -21,6 +21,7 @@ import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.lib.*;
 import org.eclipse.jgit.merge.ResolveMerger;
 import org.eclipse.jgit.notes.Note;
+import org.eclipse.jgit.notes.NoteMap;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevObject;
 import org.eclipse.jgit.revwalk.RevTree;
@@ -50,6 +51,9 @@ public class CMnGitServer implements IMnServer {
     /** Namespace for notes which contain the software defect association */
     private static final String DEFECT_NOTE_REF = "refs/notes/defect";
 
+    /** Name of the file within the git directory which contains the notes index */
+    private static final String NOTE_INDEX_FILE = "mn-defect-notes.idx";
+
     /** Delimiter used to separate fields of the merge note */
     private static final String MERGE_NOTE_DELIMITER = ":";
 
@@ -71,6 +75,9 @@ public class CMnGitServer implements IMnServer {
     /** Revision graph walker */
     private RevWalk revWalk = null;
 
+    /** Index of the bug notes */
+    private CMnGitNoteIndex noteIndex = null;
+
     /** Determine whether a native git client should be used instead of the jgit API **/
     private boolean useNative = false;
 
@@ -189,6 +196,10 @@ public class CMnGitServer implements IMnServer {
         // Initialize the git API for retrieving object information
         revWalk = new RevWalk(repository.getRepository());
 
+        // Index the bug notes so that bug and branch queries can be updated incrementally
+        File indexFile = new File(repository.getRepository().getDirectory(), NOTE_INDEX_FILE);
+        noteIndex = new CMnGitNoteIndex(repository.getRepository(), DEFECT_NOTE_REF, indexFile);
+
         // Display the elapsed time for this operation
         CMnCmdLineTool.logElapsedTime(logger, startDate, new Date(), "Repository initialization: ");
     }
@@ -205,44 +216,25 @@ public class CMnGitServer implements IMnServer {
         HashMap<String, List<String>> bugs = new HashMap<String, List<String>>();
         Date startDate = new Date();
 
-        // Determine the start and end point of the current branch for walking the object tree
-        RevCommit head = revWalk.lookupCommit(repository.getRepository().resolve(branch));
-        RevCommit branchPoint = revWalk.lookupCommit(repository.getRepository().resolve(start));
-        revWalk.markStart(head);
-
-        logger.info("Creating RevWalk from " + branchPoint.getName() + " to " + head.getName());
-
-        // Iterate through each commit, working backward from the head of the branch
-        RevCommit currentCommit = head;
-        while (!currentCommit.equals(branchPoint)) {
-            // Get the note associated with the current commit
-            currentCommit = revWalk.next();
-            ShowNoteCommand noteCmd = repository.notesShow();
-            noteCmd.setNotesRef(DEFECT_NOTE_REF);
-            noteCmd.setObjectId(currentCommit);
-            Note note = noteCmd.call();
-
-            // Get the list of bugs associated with the current note
-            List<String> bugIds = null;
-            if (note != null) {
-                bugIds = getBugIds(note);
-            }
+        // Obtain the list of commits on the branch and look up the notes in the index
+        noteIndex.refresh();
+        List<String> commits = noteIndex.getBranchCommits(branch, start);
+        Iterator<String> commitIter = commits.iterator();
+        while (commitIter.hasNext()) {
+            String currentCommit = commitIter.next();
+            List<String> bugIds = noteIndex.getBugIds(currentCommit);
 
-            // Associate the list of bugs with the commit
+            // Associate the commit with each bug
             if ((bugIds != null) && (bugIds.size() > 0)) {
-                Iterator bugIter = bugIds.iterator();
+                Iterator<String> bugIter = bugIds.iterator();
                 while (bugIter.hasNext()) {
-                    List<String> commits = null;
-                    String bugId = (String) bugIter.next();
-                    if (bugs.containsKey(bugId)) {
-                        // Add the commit to the list
-                        commits = bugs.get(bugId);
-                        commits.add(currentCommit.getName());
-                    } else {
-                        commits = new ArrayList<String>();
-                        commits.add(currentCommit.getName());
-                        bugs.put(bugId, commits);
+                    String bugId = bugIter.next();
+                    List<String> bugCommits = bugs.get(bugId);
+                    if (bugCommits == null) {
+                        bugCommits = new ArrayList<String>();
+                        bugs.put(bugId, bugCommits);
                     }
+                    bugCommits.add(currentCommit);
                 }
             }
         }
@@ -264,32 +256,15 @@ public class CMnGitServer implements IMnServer {
         HashMap<String, List<String>> checkins = new HashMap<String, List<String>>();
         Date startDate = new Date();
 
-        // Determine the start and end point of the current branch for walking the object tree
-        RevCommit head = revWalk.lookupCommit(repository.getRepository().resolve(branch));
-        RevCommit branchPoint = revWalk.lookupCommit(repository.getRepository().resolve(start));
-        revWalk.markStart(head);
-
-        logger.info("Creating RevWalk from " + branchPoint.getName() + " to " + head.getName());
-
-        // Iterate through each commit, working backward from the head of the branch
-        RevCommit currentCommit = head;
-        while (!currentCommit.equals(branchPoint)) {
-            // Get the note associated with the current commit
-            currentCommit = revWalk.next();
-            ShowNoteCommand noteCmd = repository.notesShow();
-            noteCmd.setNotesRef(DEFECT_NOTE_REF);
-            noteCmd.setObjectId(currentCommit);
-            Note note = noteCmd.call();
-
-            // Get the list of bugs associated with the current note
-            List<String> bugIds = null;
-            if (note != null) {
-                bugIds = getBugIds(note);
-            }
-
-            // Associate the list of bugs with the commit
+        // Obtain the list of commits on the branch and look up the notes in the index
+        noteIndex.refresh();
+        List<String> commits = noteIndex.getBranchCommits(branch, start);
+        Iterator<String> commitIter = commits.iterator();
+        while (commitIter.hasNext()) {
+            String currentCommit = commitIter.next();
+            List<String> bugIds = noteIndex.getBugIds(currentCommit);
             if ((bugIds != null) && (bugIds.size() > 0)) {
-                checkins.put(currentCommit.getName(), bugIds);
+                checkins.put(currentCommit, new ArrayList<String>(bugIds));
             }
         }
 
@@ -299,37 +274,13 @@ public class CMnGitServer implements IMnServer {
         return checkins;
     }
 
-    /**
-     * Parse the git note containing SDR numbers associated with the note.
-     *
-     * @param  note   Git note
-     * @return List of bug IDs, or null if none found
-     */
-    private List<String> getBugIds(Note note) {
-        List<String> bugs = new ArrayList<String>();
-
-        ObjectId noteObj = note.getData();
-        String noteId = noteObj.getName();
-        String noteText = noteObj.toString();
-        if (noteText != null) {
-            // Parse the delimited list of bug IDs from the note data
-            noteText = noteText.trim();
-            StringTokenizer st = new StringTokenizer(noteText);
-            while (st.hasMoreTokens()) {
-                bugs.add(st.nextToken());
-            }
-        }
-
-        return bugs;
-    }
-
     /**
      * Query the source control system for any information about the bug, such as
      * the list of check-ins or the branch.
      * On a system such as perforce, this would typically query the job information.
      * On a system like git, it would most likely query the notes.
-     * This operation is expensive in git because it queries the entire list of
-     * git bug notes looking for one that contains the specified bug ID.
+     * The git notes are read from the notes index, which is only updated
+     * with the notes that have changed since the last query.
      *
      * @param  id     Bug ID
      * @return Information about the specified bug 
@@ -337,52 +288,24 @@ public class CMnGitServer implements IMnServer {
     public CMnBug getBug(String id) throws Exception {
         CMnBug bug = null;
 
-        ListNotesCommand cmdNotes = repository.notesList();
-        cmdNotes.setNotesRef(DEFECT_NOTE_REF);
-        List<Note> notes = cmdNotes.call();
-        if ((notes != null) && (notes.size() > 0)) {
-            // Iterate through each note to determine if it matches the bug ID
-            Iterator noteIter = notes.iterator();
-            while (noteIter.hasNext()) {
-                Note currentNote = (Note) noteIter.next();
-                ObjectId noteObj = currentNote.getData();
-                String noteId = noteObj.getName();
-
-                // Iterate through each Bug ID associated with this note
-                List<String> bugIds = getBugIds(currentNote);
-                if (bugIds != null) {
-                    Iterator bugIter = bugIds.iterator();
-                    while (bugIter.hasNext()) {
-                        String currentId = (String) bugIter.next();
-                        // Compare the current bug ID from the note to the target ID
-                        if (id.equalsIgnoreCase(currentId)) {
-                            boolean addCheckin = true;
-
-                            // Construct the bug object if it does not already exist
-                            if (bug == null) {
-                                bug = new CMnBug();
-                                bug.setId(Integer.valueOf(id));
-                            } else {
-                                if (!bug.hasCheckIn(noteId)) {
-                                    addCheckin = false;
-                                }
-                            }
-
-                            // Add the git commit information to the bug
-                            if (addCheckin) {
-                                CMnCheckIn checkin = new CMnCheckIn();
-                                checkin.setId(noteId);
-                                bug.addCheckIn(checkin);
-                            }
-                        }
-                    }
+        noteIndex.refresh();
+        List<String> commits = noteIndex.getCheckIns(id);
+        if ((commits != null) && (commits.size() > 0)) {
+            bug = new CMnBug();
+            bug.setId(Integer.valueOf(id));
+
+            // Add the git commit information to the bug
+            Iterator<String> commitIter = commits.iterator();
+            while (commitIter.hasNext()) {
+                String commitId = commitIter.next();
+                if (!bug.hasCheckIn(commitId)) {
+                    CMnCheckIn checkin = new CMnCheckIn();
+                    checkin.setId(commitId);
+                    bug.addCheckIn(checkin);
                 }
             }
         }
 
-        // Fetch bug information
-        logger.severe("TODO: Implement CMnGitServer.getBug() using git notes");
-
         return bug;
     }
 
@@ -1117,6 +1040,22 @@ public class CMnGitServer implements IMnServer {
      * @return 1.0 if the check-ins are identical
      */
     public float getEquality(CMnCheckIn c1, CMnCheckIn c2) throws Exception {
+        return getEquality(c1, c2, RELATIVE_CERTAINTY_NONE);
+    }
+
+    /**
+     * Determine if the check-ins are identical.  The expensive comparison
+     * of the diff content is skipped when the check-ins cannot be more
+     * equal than the minimum value, in which case RELATIVE_CERTAINTY_NONE
+     * is returned.  Any value greater than the minimum is identical to
+     * the value returned by <code>getEquality(c1, c2)</code>.
+     *
+     * @param   c1       First check-in to compare
+     * @param   c2       Second check-in to compare
+     * @param   minimum  Equality value of interest to the caller
+     * @return 1.0 if the check-ins are identical
+     */
+    private float getEquality(CMnCheckIn c1, CMnCheckIn c2, float minimum) throws Exception {
         // Make sure both commits have files 
         if ((c1.getFiles() == null) || (c2.getFiles() == null)) {
             return RELATIVE_CERTAINTY_NONE;
@@ -1176,8 +1115,13 @@ public class CMnGitServer implements IMnServer {
             equality = fileMatchWeight * RELATIVE_CERTAINTY_FULL;
 //System.out.println("SSDEBUG: Equality value (same diff): " + fileMatchWeight + " * " + RELATIVE_CERTAINTY_FULL + " = " + equality);
         } else if ((diffstr1.length() > 0) && (diffstr2.length() > 0)) {
-            float diffEquality = StringUtility.getEquality(diffstr1, diffstr2);
-            equality = fileMatchWeight * diffEquality;
+            // Skip the line by line comparison if the diffs do not have
+            // enough lines in common to exceed the minimum
+            float maxEquality = fileMatchWeight * StringUtility.getMaxEquality(diffstr1, diffstr2);
+            if (maxEquality > minimum) {
+                float diffEquality = StringUtility.getEquality(diffstr1, diffstr2);
+                equality = fileMatchWeight * diffEquality;
+            }
 //System.out.println("======================= DIFF for " + c1.getFormattedId() + " =======================");
 //System.out.println(diffstr1);
 //System.out.println("======================= DIFF for " + c2.getFormattedId() + " =======================");
@@ -1213,6 +1157,10 @@ public class CMnGitServer implements IMnServer {
 
         // Determine the base of the service patch branch
         RevCommit base = getCommit(id);
+        if (base != null) {
+            // The commit body is discarded when a walk does not retain it
+            revWalk.parseBody(base);
+        }
         CMnCheckIn checkin = convert(base);
 
         // Determine the tip of the service patch branch
@@ -1257,97 +1205,119 @@ public class CMnGitServer implements IMnServer {
             logger.severe("Failed to parse Gerrit Change ID:" + idex.toString());
         }
 
-        // Walk backward from the HEAD to the base of the branch
-        revWalk.reset();
-        revWalk.setRetainBody(false);
-        revWalk.markStart(tip);
-        revWalk.markUninteresting(base);
-        RevCommit currentCommit = revWalk.next();
-        while (currentCommit != null) {
-            // Convert the git data object to our own data object
-            CMnCheckIn currentCheckin = convert(currentCommit);
-
-            String thisCommitSubject = null;
-            String thisCommitMsg = null;
-            String thisChangeId = null;
-            try {
-                thisCommitSubject = currentCommit.getShortMessage();
-                thisCommitMsg = currentCommit.getFullMessage();
-                thisChangeId = CMnGerritCheckIn.parseChangeId(thisCommitMsg);
-            } catch (Exception tidex) {
-                logger.severe("Failed to parse Gerrit Change ID: " + tidex.toString());
+        // Load the merge notes once rather than once for each commit
+        ObjectReader noteReader = repository.getRepository().newObjectReader();
+        try {
+            NoteMap noteMap = null;
+            Ref noteRef = repository.getRepository().getRef(notesref);
+            if (noteRef != null) {
+                RevWalk noteWalk = new RevWalk(noteReader);
+                noteMap = NoteMap.read(noteReader, noteWalk.parseCommit(noteRef.getObjectId()));
             }
 
-            // Check the Gerrit Change ID
-            if ((changeId != null) && (thisChangeId != null)) {
-                if (changeId.trim().equals(thisChangeId.trim())) {
-                    // Return immediately if the Gerrit Change ID maches
-                    matches.put(currentCheckin, new Float(RELATIVE_CERTAINTY_FULL));
-                    return matches;
+            // Walk backward from the HEAD to the base of the branch
+            revWalk.reset();
+            revWalk.setRetainBody(false);
+            revWalk.markStart(tip);
+            revWalk.markUninteresting(base);
+            RevCommit currentCommit = revWalk.next();
+            while (currentCommit != null) {
+                String thisCommitSubject = null;
+                String thisCommitMsg = null;
+                String thisChangeId = null;
+                try {
+                    revWalk.parseBody(currentCommit);
+                    thisCommitSubject = currentCommit.getShortMessage();
+                    thisCommitMsg = currentCommit.getFullMessage();
+                    thisChangeId = CMnGerritCheckIn.parseChangeId(thisCommitMsg);
+                } catch (Exception tidex) {
+                    logger.severe("Failed to parse Gerrit Change ID: " + tidex.toString());
                 }
-            }
 
-
-            // Check the git note 
-            ShowNoteCommand noteCmd = repository.notesShow();
-            noteCmd.setObjectId(currentCommit);
-            noteCmd.setNotesRef(notesref);
-            Note note = noteCmd.call();
-            if (note != null) {
-                String currentMsg = null;
-                ObjectLoader loader = repository.getRepository().open(note.getData());
-                if (loader.isLarge()) {
-                    // use loader.openStream()
-                    logger.severe("Terminating program.  Large notes are not supported by this tool.");
-                    System.exit(1);
-                } else {
-                    currentMsg = new String(loader.getCachedBytes());
-                    currentMsg = currentMsg.trim();
-                    if (targetMsg.contains(currentMsg)) {
-                        // Return immediately if a matching git note is found
-                        matches.put(currentCheckin, new Float(RELATIVE_CERTAINTY_FULL));
+                // Check the Gerrit Change ID
+                if ((changeId != null) && (thisChangeId != null)) {
+                    if (changeId.trim().equals(thisChangeId.trim())) {
+                        // Return immediately if the Gerrit Change ID maches
+                        matches.put(convert(currentCommit), Float.valueOf(RELATIVE_CERTAINTY_FULL));
                         return matches;
                     }
                 }
-            }
-
 
-            // Determine if the commits affect the same files
-            try {
-                float commitEqualityValue = getEquality(checkin, currentCheckin);
 
-                // Compare the commit subject
-                boolean subjectEquality = false;
-                if ((commitSubject != null) && (thisCommitSubject != null)) {
-                    if (commitSubject.equals(thisCommitSubject)) {
-                        subjectEquality = true;
+                // Check the git note 
+                Note note = null;
+                if (noteMap != null) {
+                    note = noteMap.getNote(currentCommit);
+                }
+                if (note != null) {
+                    String currentMsg = null;
+                    ObjectLoader loader = noteReader.open(note.getData());
+                    if (loader.isLarge()) {
+                        // use loader.openStream()
+                        logger.severe("Terminating program.  Large notes are not supported by this tool.");
+                        System.exit(1);
+                    } else {
+                        currentMsg = new String(loader.getCachedBytes());
+                        currentMsg = currentMsg.trim();
+                        if (targetMsg.contains(currentMsg)) {
+                            // Return immediately if a matching git note is found
+                            matches.put(convert(currentCommit), Float.valueOf(RELATIVE_CERTAINTY_FULL));
+                            return matches;
+                        }
                     }
                 }
 
-                // Compare the commit message
-                boolean msgEquality = false;
-                if ((commitMsg != null) && (thisCommitMsg != null)) {
-                    if (thisCommitMsg.contains(commitMsg.trim())) {
-                        msgEquality = true;
+
+                // Determine if the commits affect the same files
+                try {
+                    // Compare the commit subject
+                    boolean subjectEquality = false;
+                    if ((commitSubject != null) && (thisCommitSubject != null)) {
+                        if (commitSubject.equals(thisCommitSubject)) {
+                            subjectEquality = true;
+                        }
+                    }
+
+                    // Compare the commit message
+                    boolean msgEquality = false;
+                    if ((commitMsg != null) && (thisCommitMsg != null)) {
+                        if (thisCommitMsg.contains(commitMsg.trim())) {
+                            msgEquality = true;
+                        }
+                    }
+
+                    // A commit with a matching subject and message is recorded if its
+                    // diff is at all similar, otherwise it must be highly similar
+                    float minimum = RELATIVE_CERTAINTY_HIGH;
+                    if (subjectEquality && msgEquality) {
+                        minimum = RELATIVE_CERTAINTY_NONE;
                     }
-                }
 
-                // Record a potential match based on the commit information 
-                // and comparison of the file diff information
-                if (subjectEquality && msgEquality && (commitEqualityValue > RELATIVE_CERTAINTY_NONE)) {
-                    matches.put(currentCheckin, new Float(commitEqualityValue));
-                } else if (commitEqualityValue > RELATIVE_CERTAINTY_HIGH) {
-                    // Account for odd cases where the subject or the message don't
-                    // quite match, but the diff is still highly similar
-                    matches.put(currentCheckin, new Float(commitEqualityValue));
-//                } else if (commitEqualityValue > RELATIVE_CERTAINTY_NONE) {
-//                    logger.info("SSDEBUG isMerged: subject = " + subjectEquality + ", msg = " + msgEquality + ", commit = " + commitEqualityValue); 
+                    // Only format and compare the diffs if the list of modified
+                    // files is similar enough for the commit to be recorded
+                    List<DiffEntry> diffs = getDiffEntries(currentCommit);
+                    if (getMaxEquality(checkin, diffs) > minimum) {
+                        CMnCheckIn currentCheckin = convert(currentCommit, diffs);
+                        float commitEqualityValue = getEquality(checkin, currentCheckin, minimum);
+
+                        // Record a potential match based on the commit information 
+                        // and comparison of the file diff information
+                        if (subjectEquality && msgEquality && (commitEqualityValue > RELATIVE_CERTAINTY_NONE)) {
+                            matches.put(currentCheckin, Float.valueOf(commitEqualityValue));
+                        } else if (commitEqualityValue > RELATIVE_CERTAINTY_HIGH) {
+                            // Account for odd cases where the subject or the message don't
+                            // quite match, but the diff is still highly similar
+                            matches.put(currentCheckin, Float.valueOf(commitEqualityValue));
+                        }
+                    }
+                } catch (Exception ex) {
+                    logger.severe("Failed to evaluate commit: " + ex.toString());
                 }
-            } catch (Exception ex) {
-                logger.severe("Failed to evaluate commit: " + ex.toString());
-            }
 
-            currentCommit = revWalk.next();
+                currentCommit = revWalk.next();
+            }
+        } finally {
+            noteReader.release();
         }
 
 
@@ -1522,13 +1492,12 @@ public class CMnGitServer implements IMnServer {
 
 
     /**
-     * Construct a generic file object from the attributes of a git DiffEntry.
+     * Return the file operation which corresponds to the git change type.
      *
      * @param  diff    DiffEntry data object
-     * @return CMnFile data object
+     * @return File operation
      */
-    private CMnFile convert(DiffEntry diff) {
-        String filename = diff.getNewPath();
+    private static CMnFile.Operation getOperation(DiffEntry diff) {
         CMnFile.Operation op = null;
         DiffEntry.ChangeType changeType = diff.getChangeType();
         if (changeType == DiffEntry.ChangeType.ADD){
@@ -1540,7 +1509,61 @@ public class CMnGitServer implements IMnServer {
         } else {
             op = CMnFile.Operation.EDIT;
         }
-        CMnFile file = new CMnFile(filename, op);
+        return op;
+    }
+
+    /**
+     * Return the largest equality value that <code>getEquality</code> could
+     * return when comparing the check-in to the commit.  The value is
+     * determined from the list of modified files alone, so the commit diffs
+     * do not need to be formatted to rule out commits which modify different
+     * files.
+     *
+     * @param  checkin   Check-in to compare
+     * @param  diffs     List of files modified by the commit
+     * @return Upper bound of the equality of the check-in and commit
+     */
+    private float getMaxEquality(CMnCheckIn checkin, List<DiffEntry> diffs) {
+        if ((checkin.getFiles() == null) || (diffs == null)) {
+            return RELATIVE_CERTAINTY_NONE;
+        }
+
+        // If the number of differences don't match, the commits don't match
+        if (checkin.getFiles().size() != diffs.size()) {
+            return RELATIVE_CERTAINTY_NONE;
+        }
+
+        // Compare the operation and filename of each file, as getEquality does
+        HashSet<String> keys1 = new HashSet<String>();
+        for (CMnFile file : checkin.getFiles()) {
+            keys1.add(file.getOp().name() + " " + file.getFilename());
+        }
+        HashSet<String> keys2 = new HashSet<String>();
+        for (DiffEntry diff : diffs) {
+            keys2.add(getOperation(diff).name() + " " + diff.getNewPath());
+        }
+        if (keys1.size() == 0) {
+            return RELATIVE_CERTAINTY_NONE;
+        }
+
+        int sameFileCount = 0;
+        Iterator<String> keyIter = keys1.iterator();
+        while (keyIter.hasNext()) {
+            if (keys2.contains(keyIter.next())) {
+                sameFileCount++;
+            }
+        }
+        return (float) sameFileCount / (float) keys1.size();
+    }
+
+    /**
+     * Construct a generic file object from the attributes of a git DiffEntry.
+     *
+     * @param  diff    DiffEntry data object
+     * @return CMnFile data object
+     */
+    private CMnFile convert(DiffEntry diff) {
+        CMnFile file = new CMnFile(diff.getNewPath(), getOperation(diff));
 
         // Convert the file diff to a string
         try {
@@ -1591,20 +1614,7 @@ public class CMnGitServer implements IMnServer {
             // Compare the commit against the parent to get a list
             // of modified files
             try {
-                RevCommit parent = revWalk.parseCommit(commit.getParent(0).getId());
-                List<CMnFile> list = new ArrayList();
-
-                OutputStream out = new ByteArrayOutputStream();
-                DiffFormatter df = new DiffFormatter(out);
-                df.setRepository(repository.getRepository());
-                df.setDiffComparator(diffComparator);
-                df.setDetectRenames(true);
-                List<DiffEntry> diffs = df.scan(parent.getTree(), commit.getTree());
-                for (DiffEntry diff : diffs) {
-                    CMnFile file = convert(diff);
-                    list.add(file);
-                }
-                checkin.setFiles(list); 
+                setFiles(checkin, getDiffEntries(commit));
             } catch (Exception ex) {
                 ex.printStackTrace();
             }
@@ -1613,5 +1623,52 @@ public class CMnGitServer implements IMnServer {
         return checkin;
     }
 
+    /**
+     * Construct a generic check-in object from the attributes of a git RevCommit
+     * using a list of modified files which has already been obtained from git.
+     *
+     * @param  commit  RevCommit object data
+     * @param  diffs   List of files modified by the commit
+     * @return CMnCheckIn data object
+     */
+    private CMnCheckIn convert(RevCommit commit, List<DiffEntry> diffs) {
+        CMnCheckIn checkin = new CMnGitCheckIn();
+        checkin.setId(commit.getName());
+        checkin.setDate(new Date(commit.getCommitTime() * 1000L));
+        setFiles(checkin, diffs);
+        return checkin;
+    }
+
+    /**
+     * Convert the list of modified files and add them to the check-in.
+     *
+     * @param  checkin  Check-in data object
+     * @param  diffs    List of files modified by the commit
+     */
+    private void setFiles(CMnCheckIn checkin, List<DiffEntry> diffs) {
+        List<CMnFile> list = new ArrayList<CMnFile>();
+        for (DiffEntry diff : diffs) {
+            CMnFile file = convert(diff);
+            list.add(file);
+        }
+        checkin.setFiles(list); 
+    }
+
+    /**
+     * Compare the commit against its parent to obtain the list of
+     * modified files.  The file diffs are not formatted.
+     *
+     * @param  commit  RevCommit object data
+     * @return List of modified files
+     */
+    private List<DiffEntry> getDiffEntries(RevCommit commit) throws Exception {
+        RevCommit parent = revWalk.parseCommit(commit.getParent(0).getId());
+        DiffFormatter df = new DiffFormatter(DisabledOutputStream.INSTANCE);
+        df.setRepository(repository.getRepository());
+        df.setDiffComparator(diffComparator);
+        df.setDetectRenames(true);
+        return df.scan(parent.getTree(), commit.getTree());
+    }
+
 }
 
@@ -0,0 +1,468 @@
+package com.modeln.build.util;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+
+/**
+ * This class computes the differences between two lists of lines.
+ * The differences are calculated using the linear space variation of
+ * the Myers O(ND) difference algorithm, so the memory required is
+ * proportional to the number of lines rather than the product of the
+ * line counts.  Lines which appear in only one of the two lists can
+ * never be part of the longest common subsequence, so they are removed
+ * before the comparison begins.  This keeps the comparison fast even
+ * when the two lists are very different.
+ */
+public class DiffUtility {
+
+    /** Type of change made to a range of lines */
+    public static enum Operation {
+        UNCHANGED, ADDED, DELETED
+    }
+
+    /**
+     * A contiguous range of lines which have been added, deleted, or
+     * left unchanged.
+     */
+    public static class Delta {
+
+        /** Type of change */
+        private Operation op;
+
+        /** Index of the first line of the range in the old list */
+        private int oldIndex;
+
+        /** Index of the first line of the range in the new list */
+        private int newIndex;
+
+        /** Number of lines in the range */
+        private int length;
+
+        /**
+         * Construct a range of lines.
+         *
+         * @param   op         Type of change
+         * @param   oldIndex   Index of the first line in the old list
+         * @param   newIndex   Index of the first line in the new list
+         * @param   length     Number of lines
+         */
+        public Delta(Operation op, int oldIndex, int newIndex, int length) {
+            this.op = op;
+            this.oldIndex = oldIndex;
+            this.newIndex = newIndex;
+            this.length = length;
+        }
+
+        /**
+         * Return the type of change.
+         *
+         * @return  Type of change
+         */
+        public Operation getOp() {
+            return op;
+        }
+
+        /**
+         * Return the index of the first line in the old list.  For added
+         * lines this is the position where the lines were inserted.
+         *
+         * @return  Line index
+         */
+        public int getOldIndex() {
+            return oldIndex;
+        }
+
+        /**
+         * Return the index of the first line in the new list.  For deleted
+         * lines this is the position where the lines were removed.
+         *
+         * @return  Line index
+         */
+        public int getNewIndex() {
+            return newIndex;
+        }
+
+        /**
+         * Return the number of lines in the range.
+         *
+         * @return  Number of lines
+         */
+        public int getLength() {
+            return length;
+        }
+
+        /**
+         * Return a string representation of the range.
+         *
+         * @return  Range information
+         */
+        public String toString() {
+            return op + " old=" + oldIndex + " new=" + newIndex + " length=" + length;
+        }
+    }
+
+
+    /**
+     * Return the list of changes required to transform the old list of
+     * lines into the new list of lines.  The ranges are returned in
+     * order and together cover every line of both lists.  When lines are
+     * both deleted and added at the same position, the deleted range is
+     * listed first.
+     *
+     * @param   older   Old list of lines
+     * @param   newer   New list of lines
+     * @return  List of changes
+     */
+    public static Vector<Delta> getDeltas(List<String> older, List<String> newer) {
+        boolean[] keepOld = new boolean[older.size()];
+        boolean[] keepNew = new boolean[newer.size()];
+        findCommonLines(older, newer, keepOld, keepNew);
+
+        Vector<Delta> deltas = new Vector<Delta>();
+        int i = 0;
+        int j = 0;
+        while ((i < keepOld.length) || (j < keepNew.length)) {
+            int startOld = i;
+            int startNew = j;
+            Operation op = null;
+            if ((i < keepOld.length) && !keepOld[i]) {
+                op = Operation.DELETED;
+                while ((i < keepOld.length) && !keepOld[i]) i++;
+            } else if ((j < keepNew.length) && !keepNew[j]) {
+                op = Operation.ADDED;
+                while ((j < keepNew.length) && !keepNew[j]) j++;
+            } else {
+                op = Operation.UNCHANGED;
+                while ((i < keepOld.length) && (j < keepNew.length) && keepOld[i] && keepNew[j]) {
+                    i++;
+                    j++;
+                }
+            }
+            int length = Math.max(i - startOld, j - startNew);
+            deltas.add(new Delta(op, startOld, startNew, length));
+        }
+
+        return deltas;
+    }
+
+    /**
+     * Return the number of lines in the longest common subsequence of
+     * the two lists.
+     *
+     * @param   older   Old list of lines
+     * @param   newer   New list of lines
+     * @return  Number of lines common to both lists
+     */
+    public static int getCommonLength(List<String> older, List<String> newer) {
+        boolean[] keepOld = new boolean[older.size()];
+        boolean[] keepNew = new boolean[newer.size()];
+        findCommonLines(older, newer, keepOld, keepNew);
+
+        int count = 0;
+        for (int idx = 0; idx < keepOld.length; idx++) {
+            if (keepOld[idx]) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Return a measure of the similarity of the two lists.  The value
+     * is the number of unchanged lines divided by the total number of
+     * unchanged, added, and deleted lines.  A value of 1.0 indicates
+     * that the lists are identical.
+     *
+     * @param   older   Old list of lines
+     * @param   newer   New list of lines
+     * @return  Similarity between 0.0 and 1.0
+     */
+    public static float getSimilarity(List<String> older, List<String> newer) {
+        int samecount = getCommonLength(older, newer);
+        int deletedcount = older.size() - samecount;
+        int addedcount = newer.size() - samecount;
+        int total = addedcount + deletedcount + samecount;
+        return (float) samecount / (float) total;
+    }
+
+    /**
+     * Return an upper bound on the similarity of the two lists without
+     * computing the longest common subsequence.  The common subsequence
+     * can contain no more copies of a line than appear in either list,
+     * so the number of lines the lists have in common limits the result
+     * of <code>getSimilarity</code>.  The bound is computed in linear time.
+     *
+     * @param   older   Old list of lines
+     * @param   newer   New list of lines
+     * @return  Maximum similarity between 0.0 and 1.0
+     */
+    public static float getMaxSimilarity(List<String> older, List<String> newer) {
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+        for (String line : older) {
+            Integer count = counts.get(line);
+            counts.put(line, Integer.valueOf((count != null) ? count.intValue() + 1 : 1));
+        }
+
+        int samecount = 0;
+        for (String line : newer) {
+            Integer count = counts.get(line);
+            if ((count != null) && (count.intValue() > 0)) {
+                counts.put(line, Integer.valueOf(count.intValue() - 1));
+                samecount++;
+            }
+        }
+
+        int deletedcount = older.size() - samecount;
+        int addedcount = newer.size() - samecount;
+        int total = addedcount + deletedcount + samecount;
+        return (float) samecount / (float) total;
+    }
+
+
+    /**
+     * Determine which lines of each list belong to the longest common
+     * subsequence.  The n-th common line of the old list corresponds to
+     * the n-th common line of the new list.
+     *
+     * @param   older     Old list of lines
+     * @param   newer     New list of lines
+     * @param   keepOld   Set to true for each common line in the old list
+     * @param   keepNew   Set to true for each common line in the new list
+     */
+    private static void findCommonLines(List<String> older, List<String> newer, boolean[] keepOld, boolean[] keepNew) {
+        // Replace each line with an integer so lines can be compared quickly
+        Map<String, Integer> ids = new HashMap<String, Integer>();
+        int[] oldIds = getLineIds(older, ids);
+        int[] newIds = getLineIds(newer, ids);
+
+        // Determine which lines appear in both lists
+        boolean[] inOld = new boolean[ids.size()];
+        boolean[] inNew = new boolean[ids.size()];
+        for (int idx = 0; idx < oldIds.length; idx++) {
+            inOld[oldIds[idx]] = true;
+        }
+        for (int idx = 0; idx < newIds.length; idx++) {
+            inNew[newIds[idx]] = true;
+        }
+
+        // Discard the lines which cannot be part of the common subsequence
+        int[] oldIndex = getSharedLines(oldIds, inNew);
+        int[] newIndex = getSharedLines(newIds, inOld);
+        int[] a = new int[oldIndex.length];
+        int[] b = new int[newIndex.length];
+        for (int idx = 0; idx < a.length; idx++) {
+            a[idx] = oldIds[oldIndex[idx]];
+        }
+        for (int idx = 0; idx < b.length; idx++) {
+            b[idx] = newIds[newIndex[idx]];
+        }
+
+        boolean[] keepA = new boolean[a.length];
+        boolean[] keepB = new boolean[b.length];
+        compare(a, b, keepA, keepB);
+
+        // Map the results back to the original line numbers
+        for (int idx = 0; idx < keepA.length; idx++) {
+            if (keepA[idx]) keepOld[oldIndex[idx]] = true;
+        }
+        for (int idx = 0; idx < keepB.length; idx++) {
+            if (keepB[idx]) keepNew[newIndex[idx]] = true;
+        }
+    }
+
+    /**
+     * Convert the list of lines to a list of integer identifiers.
+     * Identical lines are assigned the same identifier.
+     *
+     * @param   lines   List of lines
+     * @param   ids     Identifiers assigned so far
+     * @return  Identifier of each line
+     */
+    private static int[] getLineIds(List<String> lines, Map<String, Integer> ids) {
+        int[] result = new int[lines.size()];
+        int idx = 0;
+        for (String line : lines) {
+            Integer id = ids.get(line);
+            if (id == null) {
+                id = Integer.valueOf(ids.size());
+                ids.put(line, id);
+            }
+            result[idx++] = id.intValue();
+        }
+        return result;
+    }
+
+    /**
+     * Return the index of each line which also appears in the other list.
+     *
+     * @param   lineIds   Identifier of each line
+     * @param   shared    Identifiers which appear in the other list
+     * @return  Index of each shared line
+     */
+    private static int[] getSharedLines(int[] lineIds, boolean[] shared) {
+        int count = 0;
+        for (int idx = 0; idx < lineIds.length; idx++) {
+            if (shared[lineIds[idx]]) count++;
+        }
+        int[] result = new int[count];
+        count = 0;
+        for (int idx = 0; idx < lineIds.length; idx++) {
+            if (shared[lineIds[idx]]) result[count++] = idx;
+        }
+        return result;
+    }
+
+    /**
+     * Mark the lines of the longest common subsequence.  The sequences are
+     * divided at the middle snake of the shortest edit path and each half
+     * is compared separately.  A work list is used rather than recursion
+     * so that very different inputs cannot exhaust the stack.
+     *
+     * @param   a       First sequence
+     * @param   b       Second sequence
+     * @param   keepA   Set to true for each common element in the first sequence
+     * @param   keepB   Set to true for each common element in the second sequence
+     */
+    private static void compare(int[] a, int[] b, boolean[] keepA, boolean[] keepB) {
+        Vector<int[]> work = new Vector<int[]>();
+        work.add(new int[] { 0, a.length, 0, b.length });
+        while (work.size() > 0) {
+            int[] range = work.remove(work.size() - 1);
+            int aLo = range[0];
+            int aHi = range[1];
+            int bLo = range[2];
+            int bHi = range[3];
+
+            // Mark the common prefix
+            while ((aLo < aHi) && (bLo < bHi) && (a[aLo] == b[bLo])) {
+                keepA[aLo++] = true;
+                keepB[bLo++] = true;
+            }
+
+            // Mark the common suffix
+            while ((aLo < aHi) && (bLo < bHi) && (a[aHi - 1] == b[bHi - 1])) {
+                keepA[--aHi] = true;
+                keepB[--bHi] = true;
+            }
+
+            // Anything remaining in only one sequence has been added or deleted
+            if ((aLo == aHi) || (bLo == bHi)) {
+                continue;
+            }
+
+            int[] split = bisect(a, aLo, aHi, b, bLo, bHi);
+            if (split != null) {
+                work.add(new int[] { aLo, split[0], bLo, split[1] });
+                work.add(new int[] { split[0], aHi, split[1], bHi });
+            }
+        }
+    }
+
+    /**
+     * Find the middle snake of the shortest edit path between the two
+     * ranges and return the point at which the ranges should be split.
+     * If the ranges have nothing in common, null is returned.
+     *
+     * @param   a     First sequence
+     * @param   aLo   Start of the range in the first sequence
+     * @param   aHi   End of the range in the first sequence
+     * @param   b     Second sequence
+     * @param   bLo   Start of the range in the second sequence
+     * @param   bHi   End of the range in the second sequence
+     * @return  Split point within the first and second sequences
+     */
+    private static int[] bisect(int[] a, int aLo, int aHi, int[] b, int bLo, int bHi) {
+        int n = aHi - aLo;
+        int m = bHi - bLo;
+        int maxD = (n + m + 1) / 2;
+        int offset = maxD;
+        int length = 2 * maxD + 2;
+        int[] v1 = new int[length];
+        int[] v2 = new int[length];
+        for (int idx = 0; idx < length; idx++) {
+            v1[idx] = -1;
+            v2[idx] = -1;
+        }
+        v1[offset + 1] = 0;
+        v2[offset + 1] = 0;
+
+        int delta = n - m;
+        // If the total number of elements is odd, the front path will collide with the reverse path
+        boolean front = (delta % 2 != 0);
+
+        // Offsets for the start and end of the k loop to avoid searching outside the ranges
+        int k1start = 0;
+        int k1end = 0;
+        int k2start = 0;
+        int k2end = 0;
+        for (int d = 0; d < maxD; d++) {
+            // Walk the front path one step
+            for (int k1 = -d + k1start; k1 <= d - k1end; k1 += 2) {
+                int k1Offset = offset + k1;
+                int x1 = 0;
+                if ((k1 == -d) || ((k1 != d) && (v1[k1Offset - 1] < v1[k1Offset + 1]))) {
+                    x1 = v1[k1Offset + 1];
+                } else {
+                    x1 = v1[k1Offset - 1] + 1;
+                }
+                int y1 = x1 - k1;
+                while ((x1 < n) && (y1 < m) && (a[aLo + x1] == b[bLo + y1])) {
+                    x1++;
+                    y1++;
+                }
+                v1[k1Offset] = x1;
+                if (x1 > n) {
+                    k1end += 2;
+                } else if (y1 > m) {
+                    k1start += 2;
+                } else if (front) {
+                    int k2Offset = offset + delta - k1;
+                    if ((k2Offset >= 0) && (k2Offset < length) && (v2[k2Offset] != -1)) {
+                        // Mirror x2 onto the top-left coordinate system
+                        int x2 = n - v2[k2Offset];
+                        if (x1 >= x2) {
+                            return new int[] { aLo + x1, bLo + y1 };
+                        }
+                    }
+                }
+            }
+
+            // Walk the reverse path one step
+            for (int k2 = -d + k2start; k2 <= d - k2end; k2 += 2) {
+                int k2Offset = offset + k2;
+                int x2 = 0;
+                if ((k2 == -d) || ((k2 != d) && (v2[k2Offset - 1] < v2[k2Offset + 1]))) {
+                    x2 = v2[k2Offset + 1];
+                } else {
+                    x2 = v2[k2Offset - 1] + 1;
+                }
+                int y2 = x2 - k2;
+                while ((x2 < n) && (y2 < m) && (a[aHi - x2 - 1] == b[bHi - y2 - 1])) {
+                    x2++;
+                    y2++;
+                }
+                v2[k2Offset] = x2;
+                if (x2 > n) {
+                    k2end += 2;
+                } else if (y2 > m) {
+                    k2start += 2;
+                } else if (!front) {
+                    int k1Offset = offset + delta - k2;
+                    if ((k1Offset >= 0) && (k1Offset < length) && (v1[k1Offset] != -1)) {
+                        int x1 = v1[k1Offset];
+                        int y1 = offset + x1 - k1Offset;
+                        // Mirror x2 onto the top-left coordinate system
+                        x2 = n - x2;
+                        if (x1 >= x2) {
+                            return new int[] { aLo + x1, bLo + y1 };
+                        }
+                    }
+                }
+            }
+        }
+
+        // No common elements were found
+        return null;
+    }
+
+}
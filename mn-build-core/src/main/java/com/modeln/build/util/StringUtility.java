@@ -484,95 +484,47 @@ public class StringUtility {
 
     /**
      * Analyze two strings to determine how much they differ.
+     * The strings are compared line by line using a linear space
+     * difference algorithm.
      *
      * @param  str1   First string to analyze
      * @param  str2   Second string to analyze
      * @return 1.0 if they are identical
      */
     public static float getEquality(String str1, String str2) {
-        String lineDelimiter = System.getProperty("line.separator");
-        StringTokenizer st1 = new StringTokenizer(str1, lineDelimiter);
-        StringTokenizer st2 = new StringTokenizer(str2, lineDelimiter);
-
-        // Keep track of the line statistics in order to calculate equality
-        int linecount1   = 0;  // Total number of lines in the first string
-        int linecount2   = 0;  // Total number of lines in the second string
-        int samecount    = 0;  // Total number of lines that match
-        int addedcount   = 0;  // Total number of lines added
-        int deletedcount = 0;  // Total number of lines deleted
-
-        // Count the number of lines in each string
-        linecount1 = st1.countTokens();
-        linecount2 = st2.countTokens();
-
-        // Define an array to contain the lines in each string
-        String[] x = new String[linecount1];   // lines in first string
-        String[] y = new String[linecount2];   // lines in second string
-
-
-        // Keep track of the current line in each string
-        int M = 0;     // number of lines of first string
-        int N = 0;     // number of lines of second string
-
-        // Break the strings up into an array of lines 
-        while (st1.hasMoreTokens()) {
-            x[M++] = st1.nextToken();
-        }
-        while (st2.hasMoreTokens()) {
-            y[N++] = st2.nextToken();
-        }
-
-        // opt[i][j] = length of LCS of x[i..M] and y[j..N]
-        int[][] opt = new int[M+1][N+1];
-
-        // compute length of LCS and all subproblems via dynamic programming
-        for (int i = M-1; i >= 0; i--) {
-            for (int j = N-1; j >= 0; j--) {
-                if (x[i].equals(y[j])) {
-                    opt[i][j] = opt[i+1][j+1] + 1;
-                } else { 
-                    opt[i][j] = Math.max(opt[i+1][j], opt[i][j+1]);
-                }
-            }
-        }
+        // Calculate a measure of equality using the diff metrics
+        return DiffUtility.getSimilarity(getLines(str1), getLines(str2));
+    }
 
-        // recover LCS itself and print out non-matching lines to standard output
-        int i = 0, j = 0;
-        while(i < M && j < N) {
-            // Determine if the current lines differ
-            if (x[i].equals(y[j])) {
-                // No change: x[i] and y[j]
-                samecount++;
-                i++;
-                j++;
-            } else if (opt[i+1][j] >= opt[i][j+1]) {
-                deletedcount++;
-                i++;
-                // Line deleted: x[i]
-            } else {
-                addedcount++; 
-                j++;
-                // Line added: y[j]
-            }
-        }
+    /**
+     * Return the largest value that <code>getEquality</code> could return
+     * for the two strings.  The value is computed in linear time from the
+     * lines the strings have in common, so it can be used to rule out
+     * strings which are not similar enough before performing the more
+     * expensive comparison.
+     *
+     * @param  str1   First string to analyze
+     * @param  str2   Second string to analyze
+     * @return Upper bound of the equality of the strings
+     */
+    public static float getMaxEquality(String str1, String str2) {
+        return DiffUtility.getMaxSimilarity(getLines(str1), getLines(str2));
+    }
 
-        // dump out one remainder of one string if the other is exhausted
-        while(i < M || j < N) {
-            if (i == M) {
-                addedcount++;
-                j++;
-                // Line added: y[j]
-            } else if (j == N) { 
-                deletedcount++;
-                i++;
-                // Line deleted: x[i]
-            }
+    /**
+     * Break the string up into a list of lines.  Empty lines are
+     * omitted from the list.
+     *
+     * @param  str    String to parse
+     * @return List of lines
+     */
+    private static Vector<String> getLines(String str) {
+        String lineDelimiter = System.getProperty("line.separator");
+        StringTokenizer st = new StringTokenizer(str, lineDelimiter);
+        Vector<String> lines = new Vector<String>(st.countTokens());
+        while (st.hasMoreTokens()) {
+            lines.add(st.nextToken());
         }
-
-        // Calculate a measure of equality using the diff metrics
-        int total = addedcount + deletedcount + samecount;
-        float equality = (float) samecount / (float) total; 
-
-        return equality; 
+        return lines;
     }
 }
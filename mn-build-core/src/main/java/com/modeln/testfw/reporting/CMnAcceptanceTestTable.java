@@ -67,8 +67,11 @@ public class CMnAcceptanceTestTable extends CMnTestTable {
 
 
 
-    /** Singleton instance of the table class */
-    private static CMnAcceptanceTestTable instance;
+    /** Holds the singleton instance until it is first requested */
+    private static class InstanceHolder {
+        /** Singleton instance of the table class */
+        private static final CMnAcceptanceTestTable instance = createInstance();
+    }
 
 
     /**
@@ -84,28 +87,32 @@ public class CMnAcceptanceTestTable extends CMnTestTable {
 
 
     /**
-     * Return the singleton instance of the class.
+     * Construct the singleton instance of the class.
      */
-    public static CMnAcceptanceTestTable getInstance() {
-        if (instance == null) {
-            instance = new CMnAcceptanceTestTable("act_suite", "act");
+    private static CMnAcceptanceTestTable createInstance() {
+        CMnAcceptanceTestTable instance = new CMnAcceptanceTestTable("act_suite", "act");
 
-            // Make sure the TEST_TABLE.TEST_GROUP_NAME column is used for ACT tests
-            instance.enableTestGroupName(true);
-
-            // Enable debbuging to a file
-            String logfile = "/var/tmp/CMnAcceptanceTestTable.txt";
-            try {
-                instance.setDebugOutput(new PrintStream(logfile));
-                instance.debugEnable(true);
-            } catch (FileNotFoundException nfex) {
-                System.out.println("Unable to enable debugging.  Failed to open log file: " + logfile);
-            }
+        // Make sure the TEST_TABLE.TEST_GROUP_NAME column is used for ACT tests
+        instance.enableTestGroupName(true);
 
+        // Enable debbuging to a file
+        String logfile = "/var/tmp/CMnAcceptanceTestTable.txt";
+        try {
+            instance.setDebugOutput(new PrintStream(logfile));
+            instance.debugEnable(true);
+        } catch (FileNotFoundException nfex) {
+            System.out.println("Unable to enable debugging.  Failed to open log file: " + logfile);
         }
         return instance;
     }
 
+    /**
+     * Return the singleton instance of the class.
+     */
+    public static CMnAcceptanceTestTable getInstance() {
+        return InstanceHolder.instance;
+    }
+
 
 
     /**
@@ -117,7 +124,7 @@ public class CMnAcceptanceTestTable extends CMnTestTable {
      *
      * @return  Auto-generated key that identifies the test
      */
-    public synchronized String addTest(
+    public String addTest(
             Connection conn,
             String suiteId,
             CMnDbAcceptanceTestData test)
@@ -209,6 +216,9 @@ public class CMnAcceptanceTestTable extends CMnTestTable {
             if (st != null) st.close();
         }
 
+        // Add the test to the suite summary counts
+        updateSummary(conn, testId, 1);
+
         return testId;
     }
 
@@ -221,13 +231,11 @@ public class CMnAcceptanceTestTable extends CMnTestTable {
      *
      * @return  TRUE if the test data was updated 
      */
-    public synchronized boolean updateTest(
+    public boolean updateTest(
             Connection conn,
             CMnDbAcceptanceTestData test)
         throws SQLException
     {
-        boolean result = false;
-
         StringBuffer sql = new StringBuffer();
         sql.append("UPDATE " + TEST_TABLE + " SET ");
         sql.append(SUITE_ID + "=\"" + test.getParentId() + "\"");
@@ -244,21 +252,8 @@ public class CMnAcceptanceTestTable extends CMnTestTable {
 
         sql.append(" WHERE " + TEST_ID + "=\"" + test.getId() + "\"");
 
-        Statement st = conn.createStatement();
-        ResultSet rs = null;
-        try {
-            execute(st, "updateTest", sql.toString());
-            result = true;
-        } catch (SQLException ex) {
-            System.err.println("Failed to update test: " + sql.toString());
-            ex.printStackTrace();
-        } finally {
-            if (rs != null) rs.close();
-            if (st != null) st.close();
-        }
-
-
-        return result;
+        // Move the test to the suite summary count of its new status
+        return updateTest(conn, Integer.toString(test.getId()), sql.toString());
     }
 
 
@@ -270,7 +265,7 @@ public class CMnAcceptanceTestTable extends CMnTestTable {
      * @param   testId  Foreign key that links the test to the story
      * @param   story   Story name 
      */
-    public synchronized void addStory(
+    public void addStory(
             Connection conn,
             String testId,
             String story)
@@ -310,7 +305,7 @@ public class CMnAcceptanceTestTable extends CMnTestTable {
      * @param   testId  Foreign key that links the test to the story
      * @param   testcase   Test case name 
      */
-    public synchronized void addTestCase(
+    public void addTestCase(
             Connection conn,
             String testId,
             String testcase)
@@ -351,7 +346,7 @@ public class CMnAcceptanceTestTable extends CMnTestTable {
      *
      * @return  List of ACT test information objects
      */
-    public synchronized Vector getTestsBySuite(
+    public Vector getTestsBySuite(
             Connection conn,
             String suiteId)
         throws SQLException
@@ -397,7 +392,7 @@ public class CMnAcceptanceTestTable extends CMnTestTable {
      *
      * @return  List of unittest information objects
      */
-    public synchronized Vector getTestsBySuiteGroup(
+    public Vector getTestsBySuiteGroup(
             Connection conn,
             String groupId)
         throws SQLException
@@ -451,7 +446,7 @@ public class CMnAcceptanceTestTable extends CMnTestTable {
      *
      * @return  List of unittest information objects
      */
-    public synchronized Vector getTestsByGroupName(
+    public Vector getTestsByGroupName(
             Connection conn,
             String buildId,
             String groupName)
@@ -507,7 +502,7 @@ public class CMnAcceptanceTestTable extends CMnTestTable {
      *
      * @return  List of ACT test information objects
      */
-    public synchronized Vector getTestsByBuild(
+    public Vector getTestsByBuild(
             Connection conn,
             String buildId)
         throws SQLException
@@ -555,7 +550,7 @@ public class CMnAcceptanceTestTable extends CMnTestTable {
      *
      * @return  Test information
      */
-    public synchronized CMnDbAcceptanceTestData getTest(
+    public CMnDbAcceptanceTestData getTest(
             Connection conn,
             String testId)
         throws SQLException
@@ -599,7 +594,7 @@ public class CMnAcceptanceTestTable extends CMnTestTable {
      *
      * @return  Test information
      */
-    public synchronized Vector getTestCases(
+    public Vector getTestCases(
             Connection conn,
             String testId)
         throws SQLException
@@ -646,7 +641,7 @@ public class CMnAcceptanceTestTable extends CMnTestTable {
      *
      * @return  Test information
      */
-    public synchronized Vector getStories(
+    public Vector getStories(
             Connection conn,
             String testId)
         throws SQLException
@@ -694,7 +689,7 @@ public class CMnAcceptanceTestTable extends CMnTestTable {
      *
      * @return  results
      */
-    public synchronized String updateSuiteEndTime(
+    public String updateSuiteEndTime(
             Connection conn,
             String jdbcDriver,
             String suiteIdFromDB,
@@ -755,7 +750,7 @@ public class CMnAcceptanceTestTable extends CMnTestTable {
      *
      * @return  List of all similar tests 
      */
-    public synchronized Vector getTestHistory(
+    public Vector getTestHistory(
             Connection conn,
             CMnDbAcceptanceTestData test)
         throws SQLException
@@ -830,7 +825,7 @@ public class CMnAcceptanceTestTable extends CMnTestTable {
      *
      * @return  Most recent matching test that passed 
      */
-    public synchronized CMnDbAcceptanceTestData getLastPass(
+    public CMnDbAcceptanceTestData getLastPass(
             Connection conn,
             CMnDbAcceptanceTestData test)
         throws SQLException
@@ -902,7 +897,7 @@ public class CMnAcceptanceTestTable extends CMnTestTable {
      *
      * @return  Most recent matching test that failed 
      */
-    public synchronized CMnDbAcceptanceTestData getLastFailure(
+    public CMnDbAcceptanceTestData getLastFailure(
             Connection conn,
             CMnDbAcceptanceTestData test)
         throws SQLException
@@ -22,8 +22,11 @@ public class CMnBlackListAcceptanceTestTable extends CMnBlackListTable {
     /** Name of the column for the test file */
     public static final String TEST_FILE = "filename";
 
-    /** Singleton instance of the table class */
-    private static CMnBlackListAcceptanceTestTable instance;
+    /** Holds the singleton instance until it is first requested */
+    private static class InstanceHolder {
+        /** Singleton instance of the table class */
+        private static final CMnBlackListAcceptanceTestTable instance = createInstance();
+    }
 
 
     /**
@@ -34,27 +37,30 @@ public class CMnBlackListAcceptanceTestTable extends CMnBlackListTable {
     }
 
     /**
-     * Return the singleton instance of the class.
+     * Construct the singleton instance of the class.
      */
-    public static CMnBlackListAcceptanceTestTable getInstance() {
-        if (instance == null) {
-            // Construct a new singleton instance
-            instance = new CMnBlackListAcceptanceTestTable();
-
-            // Enable debbuging to a file
-            String logfile = "/var/tmp/CMnBlackListAcceptanceTestTable.txt";
-            try {
-                instance.setDebugOutput(new PrintStream(logfile));
-                instance.debugEnable(true);
-            } catch (FileNotFoundException nfex) {
-                System.out.println("Unable to enable debugging.  Failed to open log file: " + logfile);
-            }
+    private static CMnBlackListAcceptanceTestTable createInstance() {
+        // Construct a new singleton instance
+        CMnBlackListAcceptanceTestTable instance = new CMnBlackListAcceptanceTestTable();
 
+        // Enable debbuging to a file
+        String logfile = "/var/tmp/CMnBlackListAcceptanceTestTable.txt";
+        try {
+            instance.setDebugOutput(new PrintStream(logfile));
+            instance.debugEnable(true);
+        } catch (FileNotFoundException nfex) {
+            System.out.println("Unable to enable debugging.  Failed to open log file: " + logfile);
         }
-
         return instance;
     }
 
+    /**
+     * Return the singleton instance of the class.
+     */
+    public static CMnBlackListAcceptanceTestTable getInstance() {
+        return InstanceHolder.instance;
+    }
+
 
 
 
@@ -66,7 +72,7 @@ public class CMnBlackListAcceptanceTestTable extends CMnBlackListTable {
      *
      * @return  Auto-generated key that identifies the test
      */
-    public synchronized String addTest(
+    public String addTest(
             Connection conn,
             CMnDbBlackListAcceptanceTestData test)
             throws SQLException
@@ -118,7 +124,7 @@ public class CMnBlackListAcceptanceTestTable extends CMnBlackListTable {
      * @param   testFile  Primary key used to locate the test info
      * @param   testVersion  Source control branch 
      */
-    public synchronized void deleteTest(
+    public void deleteTest(
             Connection conn,
             String testFile,
             String testVersion)
@@ -155,7 +161,7 @@ public class CMnBlackListAcceptanceTestTable extends CMnBlackListTable {
      *
      * @return  Test count
      */
-    public synchronized int getTestCount(
+    public int getTestCount(
             Connection conn,
             String testFile,
             String testVersion)
@@ -204,7 +210,7 @@ public class CMnBlackListAcceptanceTestTable extends CMnBlackListTable {
      *
      * @return  Test information
      */
-    public synchronized CMnDbBlackListTestData getTest(
+    public CMnDbBlackListTestData getTest(
             Connection conn,
             String testFile,
             String testVersion)
@@ -39,8 +39,11 @@ public class CMnBlackListTable extends CMnTable {
     public static final String TEST_MESSAGE = "message";
 
 
-    /** Singleton instance of the table class */
-    private static CMnBlackListTable instance;
+    /** Holds the singleton instance until it is first requested */
+    private static class InstanceHolder {
+        /** Singleton instance of the table class */
+        private static final CMnBlackListTable instance = new CMnBlackListTable();
+    }
 
 
     /**
@@ -63,12 +66,7 @@ public class CMnBlackListTable extends CMnTable {
      * Return the singleton instance of the class.
      */
     public static CMnBlackListTable getInstance() {
-        if (instance == null) {
-            // Construct a new singleton instance
-            instance = new CMnBlackListTable();
-        }
-
-        return instance;
+        return InstanceHolder.instance;
     }
 
     /**
@@ -79,7 +77,7 @@ public class CMnBlackListTable extends CMnTable {
      *
      * @return  List of blacklisted tests 
      */
-    public synchronized Vector<CMnDbBlackListTestData> getAllTests(
+    public Vector<CMnDbBlackListTestData> getAllTests(
             Connection conn,
             String testVersion)
             throws SQLException
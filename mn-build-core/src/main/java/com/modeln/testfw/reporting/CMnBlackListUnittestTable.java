@@ -26,8 +26,11 @@ public class CMnBlackListUnittestTable extends CMnBlackListTable {
     public static final String TEST_METHOD = "method";
 
 
-    /** Singleton instance of the table class */
-    private static CMnBlackListUnittestTable instance;
+    /** Holds the singleton instance until it is first requested */
+    private static class InstanceHolder {
+        /** Singleton instance of the table class */
+        private static final CMnBlackListUnittestTable instance = createInstance();
+    }
 
     /**
      * Constructor to prevent the class from being constructed without table names.
@@ -37,27 +40,30 @@ public class CMnBlackListUnittestTable extends CMnBlackListTable {
     }
 
     /**
-     * Return the singleton instance of the class.
+     * Construct the singleton instance of the class.
      */
-    public static CMnBlackListUnittestTable getInstance() {
-        if (instance == null) {
-            // Construct a new singleton instance
-            instance = new CMnBlackListUnittestTable();
-
-            // Enable debbuging to a file
-            String logfile = "/var/tmp/CMnBlackListUnittestTable.txt";
-            try {
-                instance.setDebugOutput(new PrintStream(logfile));
-                instance.debugEnable(true);
-            } catch (FileNotFoundException nfex) {
-                System.out.println("Unable to enable debugging.  Failed to open log file: " + logfile);
-            }
+    private static CMnBlackListUnittestTable createInstance() {
+        // Construct a new singleton instance
+        CMnBlackListUnittestTable instance = new CMnBlackListUnittestTable();
 
+        // Enable debbuging to a file
+        String logfile = "/var/tmp/CMnBlackListUnittestTable.txt";
+        try {
+            instance.setDebugOutput(new PrintStream(logfile));
+            instance.debugEnable(true);
+        } catch (FileNotFoundException nfex) {
+            System.out.println("Unable to enable debugging.  Failed to open log file: " + logfile);
         }
-
         return instance;
     }
 
+    /**
+     * Return the singleton instance of the class.
+     */
+    public static CMnBlackListUnittestTable getInstance() {
+        return InstanceHolder.instance;
+    }
+
 
 
 
@@ -69,7 +75,7 @@ public class CMnBlackListUnittestTable extends CMnBlackListTable {
      *
      * @return  Auto-generated key that identifies the test
      */
-    public synchronized String addTest(
+    public String addTest(
             Connection conn,
             CMnDbBlackListUnitTestData test)
             throws SQLException
@@ -126,7 +132,7 @@ public class CMnBlackListUnittestTable extends CMnBlackListTable {
      * @param   testVersion  Source control branch 
      */
 
-    public synchronized void deleteTest(
+    public void deleteTest(
             Connection conn,
             String testClass,
             String testMethod,
@@ -165,7 +171,7 @@ public class CMnBlackListUnittestTable extends CMnBlackListTable {
      *
      * @return  Test count
      */
-    public synchronized int getTestCount(
+    public int getTestCount(
             Connection conn,
             String testClass,
             String testMethod,
@@ -218,7 +224,7 @@ public class CMnBlackListUnittestTable extends CMnBlackListTable {
      *
      * @return  Test information
      */
-    public synchronized CMnDbBlackListTestData getTest(
+    public CMnDbBlackListTestData getTest(
             Connection conn,
             String testClass,
             String testMethod,
@@ -18,6 +18,7 @@ import java.sql.Statement;
 import java.sql.SQLException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Hashtable;
 import java.util.Vector;
 import java.text.SimpleDateFormat;
 
@@ -78,30 +79,40 @@ public class CMnBuildTable extends CMnTable {
         "[0-5][0-9]" +    // Minute (0-59)
         "[0-5][0-9]" ;    // Second (0-59)
 
+    /** Maximum number of builds whose related information is queried at once */
+    private static final int DETAIL_BATCH_SIZE = 500;
 
-    /** Singleton instance of the table class */
-    private static CMnBuildTable instance;
+
+    /** Holds the singleton instance until it is first requested */
+    private static class InstanceHolder {
+        /** Singleton instance of the table class */
+        private static final CMnBuildTable instance = createInstance();
+    }
 
     /**
-     * Return the singleton instance of the class.
+     * Construct the singleton instance of the class.
      */
-    public static CMnBuildTable getInstance() {
-        if (instance == null) {
-            instance = new CMnBuildTable();
-
-            // Enable debbuging to a file
-            String logfile = "/var/tmp/CMnBuildTable.txt";
-            try {
-                instance.setDebugOutput(new PrintStream(logfile));
-                instance.debugEnable(true);
-            } catch (FileNotFoundException nfex) {
-                System.out.println("Unable to enable debugging.  Failed to open log file: " + logfile);
-            }
+    private static CMnBuildTable createInstance() {
+        CMnBuildTable instance = new CMnBuildTable();
 
+        // Enable debbuging to a file
+        String logfile = "/var/tmp/CMnBuildTable.txt";
+        try {
+            instance.setDebugOutput(new PrintStream(logfile));
+            instance.debugEnable(true);
+        } catch (FileNotFoundException nfex) {
+            System.out.println("Unable to enable debugging.  Failed to open log file: " + logfile);
         }
         return instance;
     }
 
+    /**
+     * Return the singleton instance of the class.
+     */
+    public static CMnBuildTable getInstance() {
+        return InstanceHolder.instance;
+    }
+
 
     /**
      * Store a test suite information in the database.
@@ -111,7 +122,7 @@ public class CMnBuildTable extends CMnTable {
      *
      * @return  Auto-generated key that identifies the build 
      */
-    public synchronized String addBuild(
+    public String addBuild(
             Connection conn,
             CMnDbBuildData build)
         throws SQLException
@@ -208,7 +219,7 @@ public class CMnBuildTable extends CMnTable {
      *
      * @return  Build information
      */
-    public synchronized static CMnDbBuildData getBuild(
+    public static CMnDbBuildData getBuild(
             Connection conn, 
             String buildId) 
         throws SQLException
@@ -230,13 +241,6 @@ public class CMnBuildTable extends CMnTable {
             if (rs != null) {
                 rs.first();
                 build = parseBuildData(rs);
-                getTestSummary(conn, build);
-                build.setStatus(CMnReleaseTable.getStatus(conn, build));
-                CMnMetricTable metricTable = CMnMetricTable.getInstance();
-                Vector metrics = metricTable.getMetrics(conn, build.getBuildVersion());
-                if ((metrics != null) && (metrics.size() > 0)) {
-                    build.setMetrics(metrics);
-                }
             } else {
                  System.err.println("Unable to obtain the build data.");
             }
@@ -248,94 +252,107 @@ public class CMnBuildTable extends CMnTable {
             if (st != null) st.close();
         }
 
+        // Populate the related build information
+        if (build != null) {
+            Vector list = new Vector(1);
+            list.add(build);
+            getBuildDetails(conn, list, true, true, true);
+        }
+
         return build;
     }
 
 
 
     /**
-     * Retrieve a summary of the test results for various groups of tests associated
-     * with the specified build.  Results will be added to the build data object. 
-     * This is a helper function and assumes that the database connection is already
-     * open and ready to be used.
-     * 
-     * @param   conn    Database connection
-     * @param   build   Build data 
+     * Populate the test summary, release status, and metrics of each build
+     * in the list.  Rather than querying the related tables once for every
+     * build, the builds are processed in batches and the information for
+     * each batch is obtained with a small number of grouped queries.
+     * This is a helper function and assumes that the database connection
+     * is already open and ready to be used.
+     *
+     * @param   conn      Database connection
+     * @param   builds    List of build data objects
+     * @param   tests     Populate the test summaries if TRUE
+     * @param   status    Populate the release status if TRUE
+     * @param   metrics   Populate the build metrics if TRUE
      */
-    private synchronized static void getTestSummary(
+    private static void getBuildDetails(
             Connection conn,
-            CMnDbBuildData build) 
+            Vector builds,
+            boolean tests,
+            boolean status,
+            boolean metrics)
         throws SQLException
     {
-        CMnUnittestTable utTable = CMnUnittestTable.getInstance();
-        CMnAcceptanceTestTable actTable = CMnAcceptanceTestTable.getInstance();
-        CMnUitTable uitTable = CMnUitTable.getInstance();
-        CMnFlexTestTable flexTable = CMnFlexTestTable.getInstance();
+        for (int start = 0; start < builds.size(); start += DETAIL_BATCH_SIZE) {
+            int end = Math.min(start + DETAIL_BATCH_SIZE, builds.size());
+            Vector<Integer> ids = new Vector<Integer>();
+            Vector<String> versions = new Vector<String>();
+            for (int idx = start; idx < end; idx++) {
+                CMnDbBuildData build = (CMnDbBuildData) builds.get(idx);
+                ids.add(Integer.valueOf(build.getId()));
+                if ((build.getBuildVersion() != null) && !versions.contains(build.getBuildVersion())) {
+                    versions.add(build.getBuildVersion());
+                }
+            }
 
-        // Obtain a summary of the Unit test results
-        CMnDbTestSummaryData unittests = new CMnDbTestSummaryData();
-        int utTotal = utTable.getTestCount(conn, build, false);
-        if (utTotal > 0) {
-            unittests.setPassingCount(utTable.getTestCount(conn, build, CMnTestTable.STATUS_PASS, false));
-            unittests.setFailingCount(utTable.getTestCount(conn, build, CMnTestTable.STATUS_FAIL, false));
-            unittests.setErrorCount(utTable.getTestCount(conn, build, CMnTestTable.STATUS_ERROR, false));
-            unittests.setKilledCount(utTable.getTestCount(conn, build, CMnTestTable.STATUS_KILL, false));
-            unittests.setSkippedCount(utTable.getTestCount(conn, build, CMnTestTable.STATUS_SKIP, false));
-            unittests.setBlacklistCount(utTable.getTestCount(conn, build, CMnTestTable.STATUS_BLACKLIST, false));
-            unittests.setPendingCount(utTable.getTestCount(conn, build, CMnTestTable.STATUS_PENDING, false));
-            unittests.setRunningCount(utTable.getTestCount(conn, build, CMnTestTable.STATUS_RUNNING, false));
-            unittests.setTotalCount(utTotal); 
-        }
-        build.setTestSummary("JUNIT", unittests);
-
-        // Obtain a summary of the UIT results
-        CMnDbTestSummaryData uits = new CMnDbTestSummaryData();
-        int uitTotal = uitTable.getTestCount(conn, build, false);
-        if (uitTotal > 0) {
-            uits.setPassingCount(uitTable.getTestCount(conn, build, CMnTestTable.STATUS_PASS, false));
-            uits.setFailingCount(uitTable.getTestCount(conn, build, CMnTestTable.STATUS_FAIL, false));
-            uits.setErrorCount(uitTable.getTestCount(conn, build, CMnTestTable.STATUS_ERROR, false));
-            uits.setKilledCount(uitTable.getTestCount(conn, build, CMnTestTable.STATUS_KILL, false));
-            uits.setSkippedCount(uitTable.getTestCount(conn, build, CMnTestTable.STATUS_SKIP, false));
-            uits.setBlacklistCount(uitTable.getTestCount(conn, build, CMnTestTable.STATUS_BLACKLIST, false));
-            uits.setPendingCount(uitTable.getTestCount(conn, build, CMnTestTable.STATUS_PENDING, false));
-            uits.setRunningCount(uitTable.getTestCount(conn, build, CMnTestTable.STATUS_RUNNING, false));
-            uits.setTotalCount(uitTotal); 
-        }
-        build.setTestSummary("UIT", uits);
-
-        // Obtain a summary of the ACT results
-        CMnDbTestSummaryData acts = new CMnDbTestSummaryData();
-        int actTotal = actTable.getTestCount(conn, build, false);
-        if (actTotal > 0) {
-            acts.setPassingCount(actTable.getTestCount(conn, build, CMnTestTable.STATUS_PASS, false));
-            acts.setFailingCount(actTable.getTestCount(conn, build, CMnTestTable.STATUS_FAIL, false));
-            acts.setErrorCount(actTable.getTestCount(conn, build, CMnTestTable.STATUS_ERROR, false));
-            acts.setKilledCount(actTable.getTestCount(conn, build, CMnTestTable.STATUS_KILL, false));
-            acts.setSkippedCount(actTable.getTestCount(conn, build, CMnTestTable.STATUS_SKIP, false));
-            acts.setBlacklistCount(actTable.getTestCount(conn, build, CMnTestTable.STATUS_BLACKLIST, false));
-            acts.setPendingCount(actTable.getTestCount(conn, build, CMnTestTable.STATUS_PENDING, false));
-            acts.setRunningCount(actTable.getTestCount(conn, build, CMnTestTable.STATUS_RUNNING, false));
-            acts.setTotalCount(actTotal); 
-        }
-        build.setTestSummary("ACT", acts);
-
-        // Obtain a summary of the Flex results
-        CMnDbTestSummaryData flex = new CMnDbTestSummaryData();
-        int flexTotal = flexTable.getTestCount(conn, build, false);
-        if (flexTotal > 0) {
-            flex.setPassingCount(flexTable.getTestCount(conn, build, CMnTestTable.STATUS_PASS, false));
-            flex.setFailingCount(flexTable.getTestCount(conn, build, CMnTestTable.STATUS_FAIL, false));
-            flex.setErrorCount(flexTable.getTestCount(conn, build, CMnTestTable.STATUS_ERROR, false));
-            flex.setKilledCount(flexTable.getTestCount(conn, build, CMnTestTable.STATUS_KILL, false));
-            flex.setSkippedCount(flexTable.getTestCount(conn, build, CMnTestTable.STATUS_SKIP, false));
-            flex.setBlacklistCount(flexTable.getTestCount(conn, build, CMnTestTable.STATUS_BLACKLIST, false));
-            flex.setPendingCount(flexTable.getTestCount(conn, build, CMnTestTable.STATUS_PENDING, false));
-            flex.setRunningCount(flexTable.getTestCount(conn, build, CMnTestTable.STATUS_RUNNING, false));
-            flex.setTotalCount(flexTotal); 
+            if (tests) {
+                Hashtable<Integer, CMnDbTestSummaryData> unittests = CMnUnittestTable.getInstance().getTestSummary(conn, ids);
+                Hashtable<Integer, CMnDbTestSummaryData> uits = CMnUitTable.getInstance().getTestSummary(conn, ids);
+                Hashtable<Integer, CMnDbTestSummaryData> acts = CMnAcceptanceTestTable.getInstance().getTestSummary(conn, ids);
+                Hashtable<Integer, CMnDbTestSummaryData> flex = CMnFlexTestTable.getInstance().getTestSummary(conn, ids);
+                for (int idx = start; idx < end; idx++) {
+                    CMnDbBuildData build = (CMnDbBuildData) builds.get(idx);
+                    Integer id = Integer.valueOf(build.getId());
+                    build.setTestSummary("JUNIT", getTestSummary(unittests, id));
+                    build.setTestSummary("UIT", getTestSummary(uits, id));
+                    build.setTestSummary("ACT", getTestSummary(acts, id));
+                    build.setTestSummary("FLEX", getTestSummary(flex, id));
+                }
+            }
+
+            if (status) {
+                Hashtable<Integer, CMnDbBuildStatusData> statusList = CMnReleaseTable.getStatus(conn, ids);
+                for (int idx = start; idx < end; idx++) {
+                    CMnDbBuildData build = (CMnDbBuildData) builds.get(idx);
+                    build.setStatus(statusList.get(Integer.valueOf(build.getId())));
+                }
+            }
+
+            if (metrics) {
+                Hashtable<String, Vector> metricList = CMnMetricTable.getInstance().getMetrics(conn, versions);
+                for (int idx = start; idx < end; idx++) {
+                    CMnDbBuildData build = (CMnDbBuildData) builds.get(idx);
+                    if (build.getBuildVersion() != null) {
+                        Vector list = metricList.get(build.getBuildVersion());
+                        if ((list != null) && (list.size() > 0)) {
+                            build.setMetrics(list);
+                        }
+                    }
+                }
+            }
         }
-        build.setTestSummary("FLEX", flex);
+    }
 
+    /**
+     * Return the test summary for the build, or an empty summary if
+     * the build does not have any tests.
+     *
+     * @param   summaries   Test summaries indexed by build ID
+     * @param   id          Build ID
+     * @return  Test summary
+     */
+    private static CMnDbTestSummaryData getTestSummary(
+            Hashtable<Integer, CMnDbTestSummaryData> summaries,
+            Integer id)
+    {
+        CMnDbTestSummaryData summary = summaries.get(id);
+        if (summary == null) {
+            summary = new CMnDbTestSummaryData();
+        }
+        return summary;
     }
 
     /**
@@ -349,7 +366,7 @@ public class CMnBuildTable extends CMnTable {
      *
      * @return  List of build information objects
      */
-    public synchronized static Vector getBuildsByVersion(
+    public static Vector getBuildsByVersion(
             Connection conn, 
             String version)
         throws SQLException
@@ -372,8 +389,6 @@ public class CMnBuildTable extends CMnTable {
                 CMnDbBuildData build = null;
                 while (rs.next()) {
                     build = parseBuildData(rs); 
-                    getTestSummary(conn, build);
-                    build.setStatus(CMnReleaseTable.getStatus(conn, build));
                     list.add(build);
                 }
             } else {
@@ -387,6 +402,9 @@ public class CMnBuildTable extends CMnTable {
             if (st != null) st.close();
         }
 
+        // Populate the related build information for the entire list
+        getBuildDetails(conn, list, true, true, false);
+
         return list;
     }
 
@@ -403,7 +421,7 @@ public class CMnBuildTable extends CMnTable {
      *
      * @return  List of build information objects
      */
-    public synchronized static Vector getBuildsByJob(
+    public static Vector getBuildsByJob(
             Connection conn,
             String jobUrl)
         throws SQLException
@@ -426,8 +444,6 @@ public class CMnBuildTable extends CMnTable {
                 CMnDbBuildData build = null;
                 while (rs.next()) {
                     build = parseBuildData(rs);
-                    getTestSummary(conn, build);
-                    build.setStatus(CMnReleaseTable.getStatus(conn, build));
                     list.add(build);
                 }
             } else {
@@ -441,6 +457,9 @@ public class CMnBuildTable extends CMnTable {
             if (st != null) st.close();
         }
 
+        // Populate the related build information for the entire list
+        getBuildDetails(conn, list, true, true, false);
+
         return list;
     }
 
@@ -454,7 +473,7 @@ public class CMnBuildTable extends CMnTable {
      *
      * @return  List of build information objects
      */
-    public synchronized static Vector getAllBuilds(Connection conn) 
+    public static Vector getAllBuilds(Connection conn) 
         throws SQLException
     {
         Vector list = new Vector();
@@ -471,13 +490,6 @@ public class CMnBuildTable extends CMnTable {
                 CMnDbBuildData build = null;
                 while (rs.next()) {
                     build = parseBuildData(rs);
-                    getTestSummary(conn, build);
-                    build.setStatus(CMnReleaseTable.getStatus(conn, build));
-                    CMnMetricTable metricTable = CMnMetricTable.getInstance();
-                    Vector metrics = metricTable.getMetrics(conn, build.getBuildVersion());
-                    if ((metrics != null) && (metrics.size() > 0)) {
-                        build.setMetrics(metrics);
-                    }
                     list.add(build);
                 }
             } else {
@@ -491,21 +503,24 @@ public class CMnBuildTable extends CMnTable {
             if (st != null) st.close();
         }
 
+        // Populate the related build information for the entire list
+        getBuildDetails(conn, list, true, true, true);
+
         return list;
     }
 
 
     /**
      * Retrieve a list of all builds from the database, limiting the result
-     * set to a specified date range.  This only populates the build data,
-     * not related information such as unit test results.
+     * set to a specified date range.  This only populates the build data
+     * and build metrics, not related information such as unit test results.
      *
      * @param   conn      Database connection
      * @param   start     Date range to search for running builds
      * @param   end       Date range to search for running builds 
      * @return  List of build information objects
      */
-    public synchronized static Vector getBuildsByDate(
+    public static Vector getBuildsByDate(
             Connection conn,
             Date start,
             Date end)
@@ -547,6 +562,9 @@ public class CMnBuildTable extends CMnTable {
             if (st != null) st.close();
         }
 
+        // Populate the related build information for the entire list
+        getBuildDetails(conn, list, false, false, true);
+
         return list;
     }
 
@@ -565,7 +583,7 @@ public class CMnBuildTable extends CMnTable {
      *                    after the specified build ID (forward or reverse search).
      * @return  List of build information objects
      */
-    public synchronized static Vector getAllBuilds(
+    public static Vector getAllBuilds(
             Connection conn, 
             CMnSearchGroup criteria, 
             int buildId, 
@@ -604,13 +622,6 @@ public class CMnBuildTable extends CMnTable {
                 CMnDbBuildData build = null;
                 while (rs.next()) {
                     build = parseBuildData(rs);
-                    getTestSummary(conn, build);
-                    build.setStatus(CMnReleaseTable.getStatus(conn, build));
-                    CMnMetricTable metricTable = CMnMetricTable.getInstance();
-                    Vector metrics = metricTable.getMetrics(conn, build.getBuildVersion());
-                    if ((metrics != null) && (metrics.size() > 0)) {
-                        build.setMetrics(metrics);
-                    }
                     list.add(build);
                 }
             } else {
@@ -624,6 +635,9 @@ public class CMnBuildTable extends CMnTable {
             if (st != null) st.close();
         }
 
+        // Populate the related build information for the entire list
+        getBuildDetails(conn, list, true, true, true);
+
         return list;
     }
 
@@ -638,7 +652,7 @@ public class CMnBuildTable extends CMnTable {
      *
      * @return Number of rows deleted 
      */
-    public synchronized static void deleteBuild(
+    public static void deleteBuild(
             Connection conn,
             String buildId)
         throws SQLException
@@ -50,18 +50,18 @@ public class CMnDualBootActionsTable extends CMnTable {
     /** Name of the column that identifies the action arguments */
     public static final String ACTION_ARGS = "action_args";
 
-    /** Singleton instance of the table class */
-    private static CMnHostTable instance;
+    /** Holds the singleton instance until it is first requested */
+    private static class InstanceHolder {
+        /** Singleton instance of the table class */
+        private static final CMnHostTable instance = new CMnHostTable();
+    }
 
 
     /**
      * Return the singleton instance of the class.
      */
     public static CMnHostTable getInstance() {
-        if (instance == null) {
-            instance = new CMnHostTable();
-        }
-        return instance;
+        return InstanceHolder.instance;
     }
 
     /**
@@ -72,7 +72,7 @@ public class CMnDualBootActionsTable extends CMnTable {
      *
      * @return  List of action information objects
      */
-    public synchronized static Vector getActions(Connection conn, String hostname) 
+    public static Vector getActions(Connection conn, String hostname) 
         throws SQLException
     {
         Vector list = new Vector();
@@ -37,18 +37,18 @@ public class CMnDualBootHostsTable extends CMnTable {
     /** Name of the column that identifies the host type to boot */
     public static final String HOST_TYPE = "boot_os";
 
-    /** Singleton instance of the table class */
-    private static CMnHostTable instance;
+    /** Holds the singleton instance until it is first requested */
+    private static class InstanceHolder {
+        /** Singleton instance of the table class */
+        private static final CMnHostTable instance = new CMnHostTable();
+    }
 
 
     /**
      * Return the singleton instance of the class.
      */
     public static CMnHostTable getInstance() {
-        if (instance == null) {
-            instance = new CMnHostTable();
-        }
-        return instance;
+        return InstanceHolder.instance;
     }
 
     /**
@@ -59,7 +59,7 @@ public class CMnDualBootHostsTable extends CMnTable {
      *
      * @return  Host information
      */
-    public synchronized static CMnDbHostActionData getHost(
+    public static CMnDbHostActionData getHost(
             Connection conn, 
             String hostname) 
         throws SQLException
@@ -102,7 +102,7 @@ public class CMnDualBootHostsTable extends CMnTable {
      *
      * @return  List of host information objects
      */
-    public synchronized static Vector getAllHosts(Connection conn) 
+    public static Vector getAllHosts(Connection conn) 
         throws SQLException
     {
         Vector list = new Vector();
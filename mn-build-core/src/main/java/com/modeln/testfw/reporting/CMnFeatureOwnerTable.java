@@ -57,30 +57,37 @@ public class CMnFeatureOwnerTable extends CMnTable {
 
 
 
-    /** Singleton instance of the table class */
-    private static CMnFeatureOwnerTable instance;
+    /** Holds the singleton instance until it is first requested */
+    private static class InstanceHolder {
+        /** Singleton instance of the table class */
+        private static final CMnFeatureOwnerTable instance = createInstance();
+    }
 
 
     /**
-     * Return the singleton instance of the class.
+     * Construct the singleton instance of the class.
      */
-    public static CMnFeatureOwnerTable getInstance() {
-        if (instance == null) {
-            instance = new CMnFeatureOwnerTable();
-
-            // Enable debbuging to a file
-            String logfile = "/var/tmp/CMnFeatureOwnerTable.txt";
-            try {
-                instance.setDebugOutput(new PrintStream(logfile));
-                instance.debugEnable(true);
-            } catch (FileNotFoundException nfex) {
-                System.out.println("Unable to enable debugging.  Failed to open log file: " + logfile);
-            }
+    private static CMnFeatureOwnerTable createInstance() {
+        CMnFeatureOwnerTable instance = new CMnFeatureOwnerTable();
 
+        // Enable debbuging to a file
+        String logfile = "/var/tmp/CMnFeatureOwnerTable.txt";
+        try {
+            instance.setDebugOutput(new PrintStream(logfile));
+            instance.debugEnable(true);
+        } catch (FileNotFoundException nfex) {
+            System.out.println("Unable to enable debugging.  Failed to open log file: " + logfile);
         }
         return instance;
     }
 
+    /**
+     * Return the singleton instance of the class.
+     */
+    public static CMnFeatureOwnerTable getInstance() {
+        return InstanceHolder.instance;
+    }
+
 
 
 
@@ -91,7 +98,7 @@ public class CMnFeatureOwnerTable extends CMnTable {
      *
      * @return  List of area information objects
      */
-    public synchronized static Vector<CMnDbFeatureOwnerData> getAllAreas(Connection conn)
+    public static Vector<CMnDbFeatureOwnerData> getAllAreas(Connection conn)
         throws SQLException
     {
         Vector<CMnDbFeatureOwnerData> list = new Vector<CMnDbFeatureOwnerData>();
@@ -141,7 +148,7 @@ public class CMnFeatureOwnerTable extends CMnTable {
      *
      * @return  List of area information objects
      */
-    public synchronized static CMnDbFeatureOwnerData getArea(Connection conn, String id)
+    public static CMnDbFeatureOwnerData getArea(Connection conn, String id)
         throws SQLException
     {
         CMnDbFeatureOwnerData data = null;
@@ -189,7 +196,7 @@ public class CMnFeatureOwnerTable extends CMnTable {
      *
      * @return  List of product areas
      */
-    public synchronized static Vector<String> getFeatures(
+    public static Vector<String> getFeatures(
             Connection conn,
             String areaId) 
         throws SQLException
@@ -40,8 +40,11 @@ public class CMnFlexTestTable extends CMnTestTable {
 
 
 
-    /** Singleton instance of the table class */
-    private static CMnFlexTestTable instance;
+    /** Holds the singleton instance until it is first requested */
+    private static class InstanceHolder {
+        /** Singleton instance of the table class */
+        private static final CMnFlexTestTable instance = createInstance();
+    }
 
 
     /**
@@ -57,27 +60,30 @@ public class CMnFlexTestTable extends CMnTestTable {
 
 
     /**
-     * Return the singleton instance of the class.
+     * Construct the singleton instance of the class.
      */
-    public static CMnFlexTestTable getInstance() {
-        if (instance == null) {
-            // Construct a new singleton instance
-            instance = new CMnFlexTestTable("flextest_suite", "flextest");
-
-            // Enable debbuging to a file
-            String logfile = "/var/tmp/CMnFlexTestTable.txt";
-            try {
-                instance.setDebugOutput(new PrintStream(logfile));
-                instance.debugEnable(true);
-            } catch (FileNotFoundException nfex) {
-                System.out.println("Unable to enable debugging.  Failed to open log file: " + logfile);
-            }
+    private static CMnFlexTestTable createInstance() {
+        // Construct a new singleton instance
+        CMnFlexTestTable instance = new CMnFlexTestTable("flextest_suite", "flextest");
 
+        // Enable debbuging to a file
+        String logfile = "/var/tmp/CMnFlexTestTable.txt";
+        try {
+            instance.setDebugOutput(new PrintStream(logfile));
+            instance.debugEnable(true);
+        } catch (FileNotFoundException nfex) {
+            System.out.println("Unable to enable debugging.  Failed to open log file: " + logfile);
         }
-
         return instance;
     }
 
+    /**
+     * Return the singleton instance of the class.
+     */
+    public static CMnFlexTestTable getInstance() {
+        return InstanceHolder.instance;
+    }
+
 
 
     /**
@@ -89,7 +95,7 @@ public class CMnFlexTestTable extends CMnTestTable {
      *
      * @return  Auto-generated key that identifies the test
      */
-    public synchronized String addTest(
+    public String addTest(
             Connection conn, 
             String suiteId, 
             CMnDbFlexTestData test) 
@@ -138,6 +144,9 @@ public class CMnFlexTestTable extends CMnTestTable {
             if (st != null) st.close();
         }
 
+        // Add the test to the suite summary counts
+        updateSummary(conn, testId, 1);
+
         return testId;
     }
 
@@ -151,7 +160,7 @@ public class CMnFlexTestTable extends CMnTestTable {
      *
      * @return  List of flex test information objects
      */
-    public synchronized Vector getTestsBySuite(
+    public Vector getTestsBySuite(
             Connection conn,
             String suiteId)
         throws SQLException
@@ -198,7 +207,7 @@ public class CMnFlexTestTable extends CMnTestTable {
      *
      * @return  List of flex test information objects
      */
-    public synchronized Vector getTestsByBuild(
+    public Vector getTestsByBuild(
             Connection conn,
             String buildId)
         throws SQLException
@@ -247,7 +256,7 @@ public class CMnFlexTestTable extends CMnTestTable {
      *
      * @return  Test information
      */
-    public synchronized CMnDbFlexTestData getTest(
+    public CMnDbFlexTestData getTest(
             Connection conn,
             String testId)
         throws SQLException
@@ -295,7 +304,7 @@ public class CMnFlexTestTable extends CMnTestTable {
      *
      * @return  List of all similar tests 
      */
-    public synchronized Vector getTestHistory(
+    public Vector getTestHistory(
             Connection conn,
             CMnDbFlexTestData test)
         throws SQLException
@@ -375,7 +384,7 @@ public class CMnFlexTestTable extends CMnTestTable {
      *
      * @return  Most recent matching test that passed 
      */
-    public synchronized CMnDbFlexTestData getLastPass(
+    public CMnDbFlexTestData getLastPass(
             Connection conn,
             CMnDbFlexTestData test)
         throws SQLException
@@ -449,7 +458,7 @@ public class CMnFlexTestTable extends CMnTestTable {
      *
      * @return  Most recent matching test that failed 
      */
-    public synchronized CMnDbFlexTestData getLastFailure(
+    public CMnDbFlexTestData getLastFailure(
             Connection conn,
             CMnDbFlexTestData test)
         throws SQLException
@@ -48,18 +48,18 @@ public class CMnHostTable extends CMnTable {
     /** Name of the column that identifies the Operating System version. */
     public static final String OS_VERSION = "os_version";
 
-    /** Singleton instance of the table class */
-    private static CMnHostTable instance;
+    /** Holds the singleton instance until it is first requested */
+    private static class InstanceHolder {
+        /** Singleton instance of the table class */
+        private static final CMnHostTable instance = new CMnHostTable();
+    }
 
 
     /**
      * Return the singleton instance of the class.
      */
     public static CMnHostTable getInstance() {
-        if (instance == null) {
-            instance = new CMnHostTable();
-        }
-        return instance;
+        return InstanceHolder.instance;
     }
 
 
@@ -49,17 +49,17 @@ public class CMnLogTable extends CMnTable {
     /** Name of the column that indicates the file format of the log text (html, text, etc) */
     public static final String LOG_TYPE = "log_type";
 
-    /** Singleton instance of the table class */
-    private static CMnLogTable instance;
+    /** Holds the singleton instance until it is first requested */
+    private static class InstanceHolder {
+        /** Singleton instance of the table class */
+        private static final CMnLogTable instance = new CMnLogTable();
+    }
 
     /**
      * Return the singleton instance of the class.
      */
     public static CMnLogTable getInstance() {
-        if (instance == null) {
-            instance = new CMnLogTable();
-        }
-        return instance;
+        return InstanceHolder.instance;
     }
 
 
@@ -73,7 +73,7 @@ public class CMnLogTable extends CMnTable {
      *
      * @return  Log entries 
      */
-    public synchronized static Vector getLogs(
+    public static Vector getLogs(
             Connection conn, 
             String buildId) 
         throws SQLException
@@ -121,7 +121,7 @@ public class CMnLogTable extends CMnTable {
      *
      * @return  Log entries
      */
-    public synchronized static CMnDbLogData getLog(
+    public static CMnDbLogData getLog(
             Connection conn,
             String logId)
         throws SQLException
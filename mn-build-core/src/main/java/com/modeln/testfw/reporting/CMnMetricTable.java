@@ -15,8 +15,11 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.Statement;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Iterator;
 import java.util.Vector;
 import java.text.SimpleDateFormat;
 
@@ -52,30 +55,37 @@ public class CMnMetricTable extends CMnTable {
 
 
 
-    /** Singleton instance of the table class */
-    private static CMnMetricTable instance;
+    /** Holds the singleton instance until it is first requested */
+    private static class InstanceHolder {
+        /** Singleton instance of the table class */
+        private static final CMnMetricTable instance = createInstance();
+    }
 
 
     /**
-     * Return the singleton instance of the class.
+     * Construct the singleton instance of the class.
      */
-    public static CMnMetricTable getInstance() {
-        if (instance == null) {
-            instance = new CMnMetricTable();
-
-            // Enable debbuging to a file
-            String logfile = "/var/tmp/CMnMetricTable.txt";
-            try {
-                instance.setDebugOutput(new PrintStream(logfile));
-                instance.debugEnable(true);
-            } catch (FileNotFoundException nfex) {
-                System.out.println("Unable to enable debugging.  Failed to open log file: " + logfile);
-            }
+    private static CMnMetricTable createInstance() {
+        CMnMetricTable instance = new CMnMetricTable();
 
+        // Enable debbuging to a file
+        String logfile = "/var/tmp/CMnMetricTable.txt";
+        try {
+            instance.setDebugOutput(new PrintStream(logfile));
+            instance.debugEnable(true);
+        } catch (FileNotFoundException nfex) {
+            System.out.println("Unable to enable debugging.  Failed to open log file: " + logfile);
         }
         return instance;
     }
 
+    /**
+     * Return the singleton instance of the class.
+     */
+    public static CMnMetricTable getInstance() {
+        return InstanceHolder.instance;
+    }
+
 
     /**
      * Retrieve a list of metrics from the build metric table.
@@ -117,6 +127,66 @@ public class CMnMetricTable extends CMnTable {
     }
 
 
+    /**
+     * Retrieve the list of metrics for each of the build versions.  The
+     * metrics for all versions are obtained with a single query.  Versions
+     * which do not have any metrics will not be included in the results.
+     *
+     * @param   conn      Database connection
+     * @param   versions  List of build versions
+     * 
+     * @return List of metrics for each version, indexed by build version
+     */
+    public Hashtable<String, Vector> getMetrics(Connection conn, Collection<String> versions) throws SQLException {
+        Hashtable<String, Vector> lists = new Hashtable<String, Vector>();
+        if (versions.size() == 0) {
+            return lists;
+        }
+
+        StringBuffer versionList = new StringBuffer();
+        Iterator<String> versionIter = versions.iterator();
+        while (versionIter.hasNext()) {
+            versionList.append("'" + versionIter.next() + "'");
+            if (versionIter.hasNext()) {
+                versionList.append(", ");
+            }
+        }
+
+        // Construct the query to obtain the metrics of every version
+        String sql = "SELECT * FROM " + METRIC_TABLE + 
+                     " WHERE " + BUILD_VERSION + " IN (" + versionList + ")" +
+                     " ORDER BY " + METRIC_START_DATE + " DESC";
+
+        Statement st = conn.createStatement();
+        ResultSet rs = null;
+        try {
+            // Execute the query
+            getInstance().debugWrite(sql);
+            rs = st.executeQuery(sql);
+            if (rs != null) {
+                while (rs.next()) {
+                    String version = rs.getString(BUILD_VERSION);
+                    Vector list = lists.get(version);
+                    if (list == null) {
+                        list = new Vector();
+                        lists.put(version, list);
+                    }
+                    list.add(parseMetricData(rs));
+                }
+            } else {
+                 System.err.println("Unable to obtain a list of metrics.");
+            }
+
+        } finally {
+            if (rs != null) rs.close();
+            if (st != null) st.close();
+        }
+
+        return lists;
+
+    }
+
+
     /**
      * Parse the result set to obtain event metric information.
      * 
@@ -9,94 +9,229 @@
 */
 package com.modeln.testfw.reporting;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
 
 /**
  * This class represents a performance metric used to measure the
- * performance characteristics of a particular query. 
+ * performance characteristics of a particular query.  All counters
+ * are updated atomically so that multiple request threads can record
+ * query executions without locking.  Execution times are also recorded
+ * in a histogram of exponentially sized buckets so that percentile
+ * values can be estimated.
  *
  * @author  Shawn Stafford
  */
 public class CMnQueryPerformance {
 
+    /**
+     * Upper bound (in milliseconds) of each histogram bucket.  Any query
+     * exceeding the last bound is recorded in an overflow bucket.
+     */
+    public static final long[] BUCKET_LIMITS = {
+        1, 2, 5, 10, 20, 50, 100, 200, 500,
+        1000, 2000, 5000, 10000, 30000, 60000, 300000
+    };
+
+    /** Name of the query being measured */
+    private String queryName;
+
     /** Record the total time spent executing the named queries */
-    private long totalTime = 0;
+    private AtomicLong totalTime = new AtomicLong(0);
 
     /** Record the query with the shortest execution time */
-    private CMnQueryData minTime = null;
+    private AtomicReference<CMnQueryData> minTime = new AtomicReference<CMnQueryData>();
 
     /** Record the query with the longest execution time */
-    private CMnQueryData maxTime = null;
-
-    /** Record the average query exection time (in milliseconds) */
-    private long avgTime = 0;
+    private AtomicReference<CMnQueryData> maxTime = new AtomicReference<CMnQueryData>();
 
     /** Number of times the query has been executed */
-    private int queryCount = 0;
+    private AtomicInteger queryCount = new AtomicInteger(0);
+
+    /** Number of queries recorded in each bucket of the histogram */
+    private AtomicLongArray histogram = new AtomicLongArray(BUCKET_LIMITS.length + 1);
+
+
+    /**
+     * Construct a performance metric for an unnamed query.
+     */
+    public CMnQueryPerformance() {
+    }
+
+    /**
+     * Construct a performance metric for the named query.
+     *
+     * @param   name    Query name
+     */
+    public CMnQueryPerformance(String name) {
+        queryName = name;
+    }
+
+    /**
+     * Return the name of the query being measured.
+     *
+     * @return  Query name
+     */
+    public String getName() {
+        return queryName;
+    }
 
     /**
      * Set the execution time of the latest query.  This will increment
-     * the query count and update the min, max, and average time values.
+     * the query count and update the min, max, and histogram values.
      *
-     * @param   time    Query execution time
+     * @param   query   Query execution data
+     * @return  Number of times the query has been executed, including this one
      */
-    public void add(CMnQueryData query) {
-        if (query != null) {
+    public int add(CMnQueryData query) {
+        if (query == null) {
+            return queryCount.get();
+        }
 
-            // Check to see if the current query exceeds the previous maximum
-            if ((maxTime == null) || (query.getTime() > maxTime.getTime())) {
-                maxTime = query;
-            }
+        long time = query.getTime();
 
-            // Check to see if the current query is less than the previous minimum
-            if ((minTime == null) || (query.getTime() < minTime.getTime())) {
-                minTime = query;
-            }
+        // Check to see if the current query exceeds the previous maximum
+        CMnQueryData current = maxTime.get();
+        while (((current == null) || (time > current.getTime())) && !maxTime.compareAndSet(current, query)) {
+            current = maxTime.get();
+        }
 
-            // Calculate the total time spent executing queries
-            totalTime = totalTime + query.getTime();
+        // Check to see if the current query is less than the previous minimum
+        current = minTime.get();
+        while (((current == null) || (time < current.getTime())) && !minTime.compareAndSet(current, query)) {
+            current = minTime.get();
+        }
 
-            // Calculate the average query execution time
-            avgTime = (avgTime + query.getTime()) / 2; 
+        // Calculate the total time spent executing queries
+        totalTime.addAndGet(time);
+        histogram.incrementAndGet(getBucket(time));
 
-            // Increase the query count
-            queryCount++;
+        // Increase the query count
+        return queryCount.incrementAndGet();
+    }
 
+    /**
+     * Return the index of the histogram bucket which contains the given time.
+     *
+     * @param   time    Query execution time
+     * @return  Histogram bucket index
+     */
+    private static int getBucket(long time) {
+        int idx = 0;
+        while ((idx < BUCKET_LIMITS.length) && (time > BUCKET_LIMITS[idx])) {
+            idx++;
         }
+        return idx;
     }
 
     /**
      * Return the minimum query time.
      */
     public CMnQueryData getMinTime() {
-        return minTime;
+        return minTime.get();
     }
 
     /**
      * Return the maximum query time.
      */
     public CMnQueryData getMaxTime() {
-        return maxTime;
+        return maxTime.get();
     }
 
     /**
      * Return the total time spent executing queries.
      */
     public long getTotalTime() {
-        return totalTime;
+        return totalTime.get();
     }
 
     /**
      * Return the average query time.
      */
     public long getAvgTime() {
-        return avgTime;
+        int count = queryCount.get();
+        if (count > 0) {
+            return totalTime.get() / count;
+        } else {
+            return 0;
+        }
     }
 
     /**
      * Return the number of times the query has executed.
      */
     public int getQueryCount() {
-        return queryCount;
+        return queryCount.get();
+    }
+
+    /**
+     * Return the number of queries recorded in each histogram bucket.
+     * The bucket at index <code>i</code> contains the queries which took
+     * no longer than <code>BUCKET_LIMITS[i]</code> milliseconds and
+     * the last bucket contains every query which exceeded the largest limit.
+     *
+     * @return  Query count for each bucket
+     */
+    public long[] getHistogram() {
+        long[] counts = new long[histogram.length()];
+        for (int idx = 0; idx < counts.length; idx++) {
+            counts[idx] = histogram.get(idx);
+        }
+        return counts;
+    }
+
+    /**
+     * Return an estimate of the query time (in milliseconds) below which
+     * the given percentage of queries fall.  The value returned is the
+     * upper bound of the histogram bucket that contains the percentile,
+     * limited by the maximum observed query time.
+     *
+     * @param   percent   Percentile (between 0 and 100)
+     * @return  Query time at the given percentile
+     */
+    public long getPercentile(double percent) {
+        long[] counts = getHistogram();
+        long total = 0;
+        for (int idx = 0; idx < counts.length; idx++) {
+            total = total + counts[idx];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        CMnQueryData max = maxTime.get();
+        long maxValue = (max != null) ? max.getTime() : 0;
+
+        long threshold = (long) Math.ceil(total * percent / 100.0);
+        long running = 0;
+        for (int idx = 0; idx < counts.length; idx++) {
+            running = running + counts[idx];
+            if ((running >= threshold) && (idx < BUCKET_LIMITS.length)) {
+                return Math.min(BUCKET_LIMITS[idx], maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    /**
+     * Return a copy of the current performance data.  The copy will not
+     * be affected by any queries recorded after the snapshot is taken.
+     *
+     * @return  Performance data snapshot
+     */
+    public CMnQueryPerformance getSnapshot() {
+        CMnQueryPerformance snapshot = new CMnQueryPerformance(queryName);
+        snapshot.minTime.set(minTime.get());
+        snapshot.maxTime.set(maxTime.get());
+        snapshot.totalTime.set(totalTime.get());
+        snapshot.queryCount.set(queryCount.get());
+        for (int idx = 0; idx < histogram.length(); idx++) {
+            snapshot.histogram.set(idx, histogram.get(idx));
+        }
+        return snapshot;
     }
 
     /**
@@ -105,13 +240,21 @@ public class CMnQueryPerformance {
      * @return   Performance information
      */
     public String toString() {
-        return "min=" + minTime.getTime() + "ms (ID#" + minTime.getId() + "), " +
-               "\tmax=" + maxTime.getTime() + "ms (ID#" + maxTime.getId() + "), " +
-               "\tavg=" + avgTime + " ms, " + 
-               "\ttotal=" + totalTime + " ms, " +
-               "\tcount=" + queryCount;
+        CMnQueryData min = minTime.get();
+        CMnQueryData max = maxTime.get();
+        if ((min == null) || (max == null)) {
+            return "count=0";
+        }
+
+        return "min=" + min.getTime() + "ms (ID#" + min.getId() + "), " +
+               "\tmax=" + max.getTime() + "ms (ID#" + max.getId() + "), " +
+               "\tavg=" + getAvgTime() + " ms, " +
+               "\tp50=" + getPercentile(50) + " ms, " +
+               "\tp90=" + getPercentile(90) + " ms, " +
+               "\tp99=" + getPercentile(99) + " ms, " +
+               "\ttotal=" + totalTime.get() + " ms, " +
+               "\tcount=" + queryCount.get();
     }
 
 
 }
-
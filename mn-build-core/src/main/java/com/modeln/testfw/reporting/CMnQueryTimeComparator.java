@@ -0,0 +1,31 @@
+package com.modeln.testfw.reporting;
+
+import java.util.Comparator;
+
+
+/**
+ * Comparator for ordering query performance data by the total time
+ * spent executing each query.  Queries which consumed the most time
+ * are sorted first.
+ */
+public class CMnQueryTimeComparator implements Comparator<CMnQueryPerformance> {
+
+    /**
+     * Compare the total execution time of two queries.
+     * Returns a negative integer if the first query consumed more time than the second.
+     * Returns a positive integer if the first query consumed less time than the second.
+     * Returns 0 if both queries consumed the same amount of time.
+     */
+    public int compare(CMnQueryPerformance query1, CMnQueryPerformance query2) {
+        long time1 = query1.getTotalTime();
+        long time2 = query2.getTotalTime();
+        if (time1 > time2) {
+            return -1;
+        } else if (time1 < time2) {
+            return 1;
+        } else {
+            return 0;
+        }
+    }
+
+}
@@ -73,17 +73,17 @@ public class CMnReleaseSummaryTable extends CMnTable {
     private static final String LINKS_TABLE = "release_links";
 
 
-    /** Singleton instance of the table class */
-    private static CMnReleaseSummaryTable instance;
+    /** Holds the singleton instance until it is first requested */
+    private static class InstanceHolder {
+        /** Singleton instance of the table class */
+        private static final CMnReleaseSummaryTable instance = new CMnReleaseSummaryTable();
+    }
 
     /**
      * Return the singleton instance of the class.
      */
     public static CMnReleaseSummaryTable getInstance() {
-        if (instance == null) {
-            instance = new CMnReleaseSummaryTable();
-        }
-        return instance;
+        return InstanceHolder.instance;
     }
 
 
@@ -14,6 +14,9 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Collection;
+import java.util.Hashtable;
+import java.util.Iterator;
 import java.util.StringTokenizer;
 import java.util.Vector;
 
@@ -89,17 +92,17 @@ public class CMnReleaseTable extends CMnTable {
     private static final String NOTE_ATTACHMENT = "attachment";
  
 
-    /** Singleton instance of the table class */
-    private static CMnReleaseTable instance;
+    /** Holds the singleton instance until it is first requested */
+    private static class InstanceHolder {
+        /** Singleton instance of the table class */
+        private static final CMnReleaseTable instance = new CMnReleaseTable();
+    }
 
     /**
      * Return the singleton instance of the class.
      */
     public static CMnReleaseTable getInstance() {
-        if (instance == null) {
-            instance = new CMnReleaseTable();
-        }
-        return instance;
+        return InstanceHolder.instance;
     }
 
 
@@ -149,6 +152,8 @@ public class CMnReleaseTable extends CMnTable {
     /**
      * Store build status information in the database.  The updateStatus method
      * ensures that the status already exists and creates a new entry if neccessary. 
+     * The method remains synchronized so that concurrent updates cannot both
+     * attempt to create the same status entry.
      *
      * @param   conn    Database connection
      * @param  build    Build information
@@ -175,7 +180,7 @@ public class CMnReleaseTable extends CMnTable {
      * @param   conn    Database connection
      * @param   status  Status information
      */
-    public synchronized static void updateStatus(
+    public static void updateStatus(
             Connection conn,
             CMnDbBuildStatusData status)
         throws SQLException
@@ -227,7 +232,7 @@ public class CMnReleaseTable extends CMnTable {
      * @param   conn    Database connection
      * @param   status  Status information
      */
-    public synchronized static void addStatus(
+    public static void addStatus(
             Connection conn,
             CMnDbBuildStatusData status)
         throws SQLException
@@ -303,7 +308,7 @@ public class CMnReleaseTable extends CMnTable {
      * @param   buildId Build ID
      * @param   note    Note information
      */
-    public synchronized static void updateStatusNote(
+    public static void updateStatusNote(
             Connection conn,
             int buildId,
             CMnDbBuildStatusNote note)
@@ -358,7 +363,7 @@ public class CMnReleaseTable extends CMnTable {
      * @param  buildId  Build ID 
      * @param   note    Note information
      */
-    public synchronized static void addStatusNote(
+    public static void addStatusNote(
             Connection conn,
             int buildId,
             CMnDbBuildStatusNote note)
@@ -498,6 +503,127 @@ public class CMnReleaseTable extends CMnTable {
     }
 
 
+    /**
+     * Retrieve the build status associated with each build in the list.  The
+     * status and status notes of all builds are obtained with one query each.
+     * Builds which do not have any status information will not be included
+     * in the results.
+     *
+     * @param  conn      Database connection
+     * @param  buildIds  List of build IDs to query
+     * @return Status of each build, indexed by build ID
+     */
+    public static Hashtable<Integer, CMnDbBuildStatusData> getStatus(
+            Connection conn,
+            Collection<Integer> buildIds)
+        throws SQLException
+    {
+        Hashtable<Integer, CMnDbBuildStatusData> list = new Hashtable<Integer, CMnDbBuildStatusData>();
+        if (buildIds.size() == 0) {
+            return list;
+        }
+
+        StringBuffer idList = new StringBuffer();
+        Iterator<Integer> idIter = buildIds.iterator();
+        while (idIter.hasNext()) {
+            idList.append(idIter.next());
+            if (idIter.hasNext()) {
+                idList.append(", ");
+            }
+        }
+
+        // Construct the query to obtain the status information
+        StringBuffer sql = new StringBuffer();
+        sql.append(
+            "SELECT * FROM " + STATUS_TABLE +
+            " WHERE " + STATUS_TABLE + "." + BUILD_ID + " IN (" + idList + ")"
+        );
+
+        Statement st = conn.createStatement();
+        ResultSet rs = null;
+        try {
+            getInstance().debugWrite("Attempting to execute query: " + sql.toString());
+            rs = st.executeQuery(sql.toString());
+            if (rs != null) {
+                while (rs.next()) {
+                    CMnDbBuildStatusData status = parseStatus(rs);
+                    Integer buildId = Integer.valueOf(rs.getInt(BUILD_ID));
+                    if ((status != null) && !list.containsKey(buildId)) {
+                        list.put(buildId, status);
+                    }
+                }
+            }
+        } catch (SQLException ex) {
+            System.err.println("Failed to obtain status data: " + sql.toString());
+            ex.printStackTrace();
+        } finally {
+            if (rs != null) rs.close();
+            if (st != null) st.close();
+        }
+
+        if (list.size() > 0) {
+            getStatusNotes(conn, list);
+        }
+
+        return list;
+    }
+
+
+    /**
+     * Retrieve the status notes associated with each build in the list.
+     * Any notes found will be added to the corresponding status object.
+     *
+     * @param  conn     Database connection
+     * @param  list     Build status information, indexed by build ID
+     */
+    private static void getStatusNotes(
+            Connection conn,
+            Hashtable<Integer, CMnDbBuildStatusData> list)
+        throws SQLException
+    {
+        StringBuffer idList = new StringBuffer();
+        Iterator<Integer> idIter = list.keySet().iterator();
+        while (idIter.hasNext()) {
+            idList.append(idIter.next());
+            if (idIter.hasNext()) {
+                idList.append(", ");
+            }
+        }
+
+        Statement st = conn.createStatement();
+        ResultSet rs = null;
+
+        try {
+            // Construct the query to obtain the status information
+            StringBuffer sql = new StringBuffer();
+            sql.append(
+                "SELECT * FROM " + STATUS_NOTE_TABLE +
+                " WHERE " + BUILD_ID + " IN (" + idList + ")" +
+                " ORDER BY " + NOTE_ID
+            );
+
+            // Execute the query
+            getInstance().debugWrite(sql.toString());
+            rs = st.executeQuery(sql.toString());
+            if (rs != null) {
+                // Add each note to the status of the corresponding build
+                while (rs.next()) {
+                    CMnDbBuildStatusData status = list.get(Integer.valueOf(rs.getInt(BUILD_ID)));
+                    if (status != null) {
+                        String buildStatus = rs.getString(BUILD_STATUS);
+                        status.addStatusNote(getBuildStatus(buildStatus), parseStatusNote(rs));
+                    }
+                }
+            }
+
+        } finally {
+            if (rs != null) rs.close();
+            if (st != null) st.close();
+        }
+
+    }
+
+
 
     /**
      * Retrieve a list of builds that were released to customers.
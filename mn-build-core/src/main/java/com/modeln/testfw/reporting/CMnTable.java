@@ -13,12 +13,17 @@ import java.io.PrintStream;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.text.FieldPosition;
 import java.text.Normalizer;
 import java.text.Normalizer.Form;
+import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
-import java.util.Enumeration;
-import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 
 /**
@@ -35,20 +40,31 @@ public class CMnTable {
     /** Format used to represent a date */
     protected static final String DATETIME_FORMAT = "yyyy-MM-dd HH:mm:ss";
 
-    /** Timestamp used to prefix every test message line */
-    protected static final SimpleDateFormat DATETIME = new SimpleDateFormat(DATETIME_FORMAT);
+    /**
+     * Timestamp used to prefix every test message line.  The table methods are
+     * not synchronized, so access to the shared formatter must be serialized.
+     */
+    protected static final SimpleDateFormat DATETIME = new SimpleDateFormat(DATETIME_FORMAT) {
+        public synchronized StringBuffer format(Date date, StringBuffer buffer, FieldPosition pos) {
+            return super.format(date, buffer, pos);
+        }
+
+        public synchronized Date parse(String text, ParsePosition pos) {
+            return super.parse(text, pos);
+        }
+    };
 
     /** Create a null timestamp that can be used when the date is unavailable or cannot be formatted */
     protected static final String NULL_DATETIME = "0000-00-00 00:00:00";
 
     /** Enables or disables output to the debug print stream */
-    private boolean debugEnabled = false;
+    private volatile boolean debugEnabled = false;
 
     /** Output stream used to write debug messages to. */
-    private PrintStream debug = null;
+    private volatile PrintStream debug = null;
 
     /** Counts the number of times a named query has been executed */
-    private Hashtable<String, CMnQueryPerformance> queryPerformance = new Hashtable<String, CMnQueryPerformance>();
+    private final ConcurrentMap<String, CMnQueryPerformance> queryPerformance = new ConcurrentHashMap<String, CMnQueryPerformance>();
 
 
     /**
@@ -58,7 +74,7 @@ public class CMnTable {
      * @return  Query execution count
      */
     public int getQueryCount(String name) {
-        CMnQueryPerformance perf = (CMnQueryPerformance) queryPerformance.get(name);
+        CMnQueryPerformance perf = queryPerformance.get(name);
         if (perf != null) {
             return perf.getQueryCount();
         } else {
@@ -71,40 +87,77 @@ public class CMnTable {
      *
      * @param  name   Query name
      * @param  query  Query execution data
+     * @return Number of times the named query has been executed
      */
-    public void trackQueryPerformance(String name, CMnQueryData query) {
-        CMnQueryPerformance perf = (CMnQueryPerformance) queryPerformance.get(name);
-        if (perf != null) {
-            perf.add(query);
-        } else {
-            perf = new CMnQueryPerformance();
-            perf.add(query);
-            queryPerformance.put(name, perf);
+    public int trackQueryPerformance(String name, CMnQueryData query) {
+        CMnQueryPerformance perf = queryPerformance.get(name);
+        if (perf == null) {
+            CMnQueryPerformance newPerf = new CMnQueryPerformance(name);
+            perf = queryPerformance.putIfAbsent(name, newPerf);
+            if (perf == null) {
+                perf = newPerf;
+            }
         }
+        return perf.add(query);
     }
 
     /**
      * Reset the query count to zero for all named queries.
      */
     public void resetQueryPerformance() {
-        queryPerformance = new Hashtable<String, CMnQueryPerformance>();
+        queryPerformance.clear();
+    }
+
+    /**
+     * Return a snapshot of the performance data for all named queries.
+     * The list is sorted so that the queries which consumed the most
+     * total execution time appear first.
+     *
+     * @return  List of query performance data
+     */
+    public Vector<CMnQueryPerformance> getQueryPerformance() {
+        Vector<CMnQueryPerformance> list = new Vector<CMnQueryPerformance>(queryPerformance.size());
+        Iterator<CMnQueryPerformance> iter = queryPerformance.values().iterator();
+        while (iter.hasNext()) {
+            list.add(iter.next().getSnapshot());
+        }
+        Collections.sort(list, new CMnQueryTimeComparator());
+        return list;
     }
 
     /**
      * Print a summary of the named query execution count.
      *
-     * @param    msg    Message to display just prior to printing the query data
+     * @param    stream    Output stream to write the query data to
      */
     public void debugQueryPerformance(PrintStream stream) {
-        Enumeration keys = queryPerformance.keys();
-        while (keys.hasMoreElements()) {
-            String name = (String) keys.nextElement();
-            CMnQueryPerformance perf = (CMnQueryPerformance) queryPerformance.get(name);
-            stream.println(name + ": \t" + perf.toString());
+        Iterator<CMnQueryPerformance> iter = getQueryPerformance().iterator();
+        while (iter.hasNext()) {
+            CMnQueryPerformance perf = iter.next();
+            stream.println(perf.getName() + ": \t" + perf.toString());
             stream.flush();
         }
     }
 
+    /**
+     * Record the execution time of the named query and return the
+     * query data that was recorded.
+     *
+     * @param   name     Query name
+     * @param   elapsed  Query execution time (in milliseconds)
+     * @return  Query data
+     */
+    private CMnQueryData recordQuery(String name, long elapsed) {
+        CMnQueryData queryData = new CMnQueryData();
+        queryData.setTime(elapsed);
+
+        // Use the query count as the query ID
+        int count = trackQueryPerformance(name, queryData);
+        queryData.setId(Integer.toString(count));
+
+        return queryData;
+    }
+
     /**
      * Convenience wrapper for collecting and debugging query execution time information.
      *
@@ -112,7 +165,7 @@ public class CMnTable {
      * @param   name  Unique name for the query
      * @param   sql   SQL query to execute
      */
-    public synchronized void execute(Statement st, String name, String sql) throws SQLException {
+    public void execute(Statement st, String name, String sql) throws SQLException {
         // Execute the query and write debugging messages if debugging is enabled
         try {
             // Execute the query and track the execution time
@@ -122,15 +175,9 @@ public class CMnTable {
             long elapsed = end.getTime() - start.getTime();
 
             // Record the query data so we can analyze the results later
-            CMnQueryData queryData = new CMnQueryData();
-            queryData.setTime(elapsed);
-            trackQueryPerformance(name, queryData);
-
-            // Use the query count as the query ID
-            int count = getQueryCount(name);
-            queryData.setId(Integer.toString(count));
+            CMnQueryData queryData = recordQuery(name, elapsed);
 
-            debugWrite("Executed query " + name + ":" + count + " in " + elapsed + " ms: " + sql);
+            debugWrite("Executed query " + name + ":" + queryData.getId() + " in " + elapsed + " ms: " + sql);
         } catch (SQLException ex) {
             debugWrite("Failed to execute query " + name + ": " + sql);
             debugWrite("Exception found for query " + name + ": " + ex.toString() );
@@ -152,7 +199,7 @@ public class CMnTable {
      *
      * @return  Auto-generated value 
      */
-    public synchronized String executeInsert(Statement st, String name, String sql) throws SQLException {
+    public String executeInsert(Statement st, String name, String sql) throws SQLException {
         String result = null;
 
         // Execute the query and write debugging messages if debugging is enabled
@@ -172,15 +219,9 @@ public class CMnTable {
             long elapsed = end.getTime() - start.getTime();
 
             // Record the query data so we can analyze the results later
-            CMnQueryData queryData = new CMnQueryData();
-            queryData.setTime(elapsed);
-            trackQueryPerformance(name, queryData);
+            CMnQueryData queryData = recordQuery(name, elapsed);
 
-            // Use the query count as the query ID
-            int count = getQueryCount(name);
-            queryData.setId(Integer.toString(count));
-
-            debugWrite("Executed query " + name + ":" + count + " in " + elapsed + " ms: " + sql);
+            debugWrite("Executed query " + name + ":" + queryData.getId() + " in " + elapsed + " ms: " + sql);
             if (result != null) {
                 debugWrite("Returned generated key: " + hasResultSet + ", " + result);
             }
@@ -204,7 +245,7 @@ public class CMnTable {
      *
      * @return  Query results
      */
-    public synchronized ResultSet executeQuery(Statement st, String name, String sql) throws SQLException {
+    public ResultSet executeQuery(Statement st, String name, String sql) throws SQLException {
         ResultSet rs = null;
 
         // Execute the query and write debugging messages if debugging is enabled
@@ -215,16 +256,10 @@ public class CMnTable {
             Date end = new Date();
             long elapsed = end.getTime() - start.getTime();
 
-            // Record the query data so we can analyze the results later 
-            CMnQueryData queryData = new CMnQueryData();
-            queryData.setTime(elapsed); 
-            trackQueryPerformance(name, queryData);
-
-            // Use the query count as the query ID
-            int count = getQueryCount(name);
-            queryData.setId(Integer.toString(count));
+            // Record the query data so we can analyze the results later
+            CMnQueryData queryData = recordQuery(name, elapsed);
 
-            debugWrite("Executed query " + name + ":" + count + " in " + elapsed + " ms: " + sql); 
+            debugWrite("Executed query " + name + ":" + queryData.getId() + " in " + elapsed + " ms: " + sql);
         } catch (SQLException ex) {
             debugWrite("Exception encountered while executing query: " + ex);
             debugWrite("Failed to execute query: " + sql);
@@ -242,7 +277,7 @@ public class CMnTable {
      *
      * @param  stream   Debugging output stream
      */
-    public synchronized void setDebugOutput(PrintStream stream) {
+    public void setDebugOutput(PrintStream stream) {
         debug = stream;
     }
 
@@ -252,7 +287,7 @@ public class CMnTable {
      *
      * @param  enable   TRUE to enable debug output 
      */
-    public synchronized void debugEnable(boolean enable) {
+    public void debugEnable(boolean enable) {
         debugEnabled = enable;
     }
 
@@ -270,10 +305,11 @@ public class CMnTable {
      *
      * @param  str   Debugging output string
      */
-    public synchronized void debugWrite(String str) {
-        if (debugActive()) {
-            debug.println(str);
-            debug.flush();
+    public void debugWrite(String str) {
+        PrintStream out = debug;
+        if (debugEnabled && (out != null)) {
+            out.println(str);
+            out.flush();
         } 
     }
 
@@ -282,12 +318,16 @@ public class CMnTable {
      *
      * @param  ex   Exception
      */
-    public synchronized void debugWrite(Exception ex) {
-        if (debugActive()) {
-            StackTraceElement[] lines = ex.getStackTrace();
-            for (int idx = 0; idx < lines.length; idx++) {
-                debug.println(lines[idx]);
-                debug.flush();
+    public void debugWrite(Exception ex) {
+        PrintStream out = debug;
+        if (debugEnabled && (out != null)) {
+            // Keep the stack trace lines together when multiple threads are writing
+            synchronized (out) {
+                StackTraceElement[] lines = ex.getStackTrace();
+                for (int idx = 0; idx < lines.length; idx++) {
+                    out.println(lines[idx]);
+                }
+                out.flush();
             }
         }
     }
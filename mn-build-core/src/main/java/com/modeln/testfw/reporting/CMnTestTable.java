@@ -103,6 +103,28 @@ public abstract class CMnTestTable extends CMnTable {
     public static final String TEST_MESSAGE = "message";
 
 
+    /* ============================ SUITE SUMMARY TABLE ======================== */
+
+    /** Suffix appended to the suite table name to form the summary table name */
+    public static final String SUMMARY_TABLE_SUFFIX = "_summary";
+
+    /** Name of the column for the number of tests with the status */
+    public static final String SUMMARY_TEST_COUNT = "total_count";
+
+    /** Name of the column for the number of tests which exceeded the time limit */
+    public static final String SUMMARY_LONG_COUNT = "long_count";
+
+    /** Name of the column for the elapsed time of the tests (in seconds) */
+    public static final String SUMMARY_ELAPSED_TIME = "elapsed_time";
+
+    /** 
+     * Status of the row which indicates that the summary table contains the
+     * complete test counts for the suite.  Tests without a status are also
+     * counted in this row.
+     */
+    private static final String SUMMARY_MARKER = "";
+
+
     /* ================================ CONSTANTS ============================== */
 
     /** Amount of time if test exceeds marked as failure */
@@ -111,6 +133,9 @@ public abstract class CMnTestTable extends CMnTable {
     /** Determine whether the elapsed time should be calculated in the database or in the Java code */
     private static final boolean calcTimeInDatabase = true;
 
+    /** Maximum number of suites to include in a single summary query */
+    private static final int SUMMARY_BATCH_SIZE = 500;
+
 
     /* =============================== ENUMERATIONS ============================ */
 
@@ -127,6 +152,9 @@ public abstract class CMnTestTable extends CMnTable {
 
     private boolean useTestGroupName = false;
 
+    /** Indicates whether the summary table is available, or null if it has not been checked */
+    private Boolean summaryAvailable = null;
+
 
     /**
      * Constructor to prevent the class from being constructed without table names.
@@ -166,6 +194,15 @@ public abstract class CMnTestTable extends CMnTable {
         return TEST_TABLE;
     }
 
+    /**
+     * Returns the name of the table containing the test counts for each suite.
+     *
+     * @return  Summary table name
+     */
+    public String getSummaryTable() {
+        return SUITE_TABLE + SUMMARY_TABLE_SUFFIX;
+    }
+
     /**
      * Enable the use of the TEST_TABLE.TEST_GROUP_NAME column in query results.
      * This column may or may not make sense depending on the suite and test
@@ -200,7 +237,7 @@ public abstract class CMnTestTable extends CMnTable {
      *
      * @return  Auto-generated key that identifies the test suite
      */
-    public synchronized String addSuite(
+    public String addSuite(
             Connection conn,
             String buildId,
             CMnDbTestSuite suite)
@@ -285,6 +322,11 @@ public abstract class CMnTestTable extends CMnTable {
             if (st != null) st.close();
         }
 
+        // Start maintaining the test counts of the suite in the summary table
+        if (suiteId != null) {
+            rebuildSummary(conn, suiteId);
+        }
+
         return suiteId;
     }
 
@@ -297,7 +339,7 @@ public abstract class CMnTestTable extends CMnTable {
      *
      * @return  suite information
      */
-    public synchronized CMnDbTestSuite getSuite(
+    public CMnDbTestSuite getSuite(
             Connection conn,
             String suiteId)
         throws SQLException
@@ -342,7 +384,7 @@ public abstract class CMnTestTable extends CMnTable {
      * 
      * @return  List of suite information objects
      */
-    public synchronized Vector<CMnDbTestData> getTestFailures(
+    public Vector<CMnDbTestData> getTestFailures(
             Connection conn,
             CMnSearchGroup criteria)
         throws SQLException
@@ -388,7 +430,7 @@ public abstract class CMnTestTable extends CMnTable {
      *
      * @return  List of suite information objects
      */
-    public synchronized Vector getSuitesByBuild(
+    public Vector getSuitesByBuild(
             Connection conn,
             String buildId)
         throws SQLException
@@ -406,7 +448,7 @@ public abstract class CMnTestTable extends CMnTable {
      * 
      * @return  List of suite information objects
      */
-    public synchronized Vector<CMnDbTestSuite> getSuitesByBuild(
+    public Vector<CMnDbTestSuite> getSuitesByBuild(
             Connection conn,
             String buildId,
             CMnSearchGroup criteria)
@@ -436,9 +478,11 @@ public abstract class CMnTestTable extends CMnTable {
                 CMnDbTestSuite suite = null;
                 while (rs.next()) {
                     suite = parseSuiteData(rs);
-                    updateTestSummary(conn, suite);
                     list.add(suite);
                 }
+
+                // Populate the test counts for all suites at once
+                updateTestSummary(conn, list);
             } else {
                  System.err.println("Unable to obtain the suite data.");
             }
@@ -465,7 +509,7 @@ public abstract class CMnTestTable extends CMnTable {
      *
      * @return  Total number of tests with the given status
      */
-    public synchronized int getTestCount(
+    public int getTestCount(
             Connection conn,
             CMnDbTestSuite suite,
             String status)
@@ -512,7 +556,7 @@ public abstract class CMnTestTable extends CMnTable {
      *
      * @return  Total number of tests 
      */
-    public synchronized int getTestCount(
+    public int getTestCount(
             Connection conn,
             CMnDbTestSuite suite)
         throws SQLException
@@ -558,7 +602,7 @@ public abstract class CMnTestTable extends CMnTable {
      *
      * @return  Total number of tests
      */
-    public synchronized int getTestCount(
+    public int getTestCount(
             Connection conn,
             CMnDbBuildData build,
             boolean nobug)
@@ -614,7 +658,7 @@ public abstract class CMnTestTable extends CMnTable {
      *
      * @return  Total number of tests
      */
-    public synchronized int getTestCount(
+    public int getTestCount(
             Connection conn,
             CMnDbBuildData build,
             String status,
@@ -665,6 +709,196 @@ public abstract class CMnTestTable extends CMnTable {
     }
 
 
+    /**
+     * Retrieve a summary of the test results for each build in the list.  The
+     * counts are read from the suite summary table for builds whose suites have
+     * all been summarized.  The counts for any remaining builds are obtained
+     * with a single query of the test table grouped by build ID and test status.
+     * Builds which do not have any tests will not be included in the results.
+     *
+     * @param   conn      Database connection
+     * @param   buildIds  List of build IDs to query
+     *
+     * @return  Test summary for each build, indexed by build ID
+     */
+    public Hashtable<Integer, CMnDbTestSummaryData> getTestSummary(
+            Connection conn,
+            Collection<Integer> buildIds)
+        throws SQLException
+    {
+        Hashtable<Integer, CMnDbTestSummaryData> summaries = new Hashtable<Integer, CMnDbTestSummaryData>();
+        if (buildIds.size() == 0) {
+            return summaries;
+        }
+
+        // Builds with suites that have not been summarized must be counted from the test table
+        Vector<Integer> scanIds = getUnsummarizedBuilds(conn, buildIds);
+        Vector<Integer> summaryIds = new Vector<Integer>(buildIds);
+        summaryIds.removeAll(scanIds);
+
+        if (summaryIds.size() > 0) {
+            queryBuildSummaryTable(conn, summaryIds, summaries);
+        }
+        if (scanIds.size() > 0) {
+            queryBuildSummary(conn, scanIds, summaries);
+        }
+
+        return summaries;
+    }
+
+
+    /**
+     * Return the list of builds which contain at least one suite that does
+     * not have an entry in the summary table.  If the summary table cannot
+     * be queried, all of the builds will be returned.
+     *
+     * @param   conn      Database connection
+     * @param   buildIds  List of build IDs to query
+     *
+     * @return  List of build IDs
+     */
+    private Vector<Integer> getUnsummarizedBuilds(
+            Connection conn,
+            Collection<Integer> buildIds)
+        throws SQLException
+    {
+        Vector<Integer> list = new Vector<Integer>();
+        if (!hasSummaryTable(conn)) {
+            list.addAll(buildIds);
+            return list;
+        }
+        String summaryTable = getSummaryTable();
+
+        StringBuffer sql = new StringBuffer();
+        sql.append(
+            "SELECT DISTINCT " + SUITE_TABLE + "." + CMnBuildTable.BUILD_ID +
+            "  FROM " + SUITE_TABLE + " LEFT JOIN " + summaryTable +
+            "    ON " + summaryTable + "." + SUITE_ID + " = " + SUITE_TABLE + "." + SUITE_ID +
+            "   AND " + summaryTable + "." + TEST_STATUS + " = '" + SUMMARY_MARKER + "'" +
+            " WHERE " + SUITE_TABLE + "." + CMnBuildTable.BUILD_ID + " IN (" + getIdList(buildIds) + ")" +
+            "   AND " + summaryTable + "." + SUITE_ID + " IS NULL");
+
+        Statement st = conn.createStatement();
+        ResultSet rs = null;
+        try {
+            rs = executeQuery(st, "getUnsummarizedBuilds", sql.toString());
+            if (rs != null) {
+                while (rs.next()) {
+                    list.add(Integer.valueOf(rs.getInt(1)));
+                }
+            }
+        } catch (SQLException ex) {
+            System.err.println("Failed to query the summary table: " + summaryTable);
+            ex.printStackTrace();
+            list = new Vector<Integer>(buildIds);
+        } finally {
+            if (rs != null) rs.close();
+            if (st != null) st.close();
+        }
+
+        return list;
+    }
+
+
+    /**
+     * Add the test counts from the summary table to the summary of each build.
+     *
+     * @param   conn       Database connection
+     * @param   buildIds   List of build IDs to query
+     * @param   summaries  Test summary for each build, indexed by build ID
+     */
+    private void queryBuildSummaryTable(
+            Connection conn,
+            Collection<Integer> buildIds,
+            Hashtable<Integer, CMnDbTestSummaryData> summaries)
+        throws SQLException
+    {
+        String summaryTable = getSummaryTable();
+
+        StringBuffer sql = new StringBuffer();
+        sql.append(
+            "SELECT " + CMnBuildTable.BUILD_ID + ", " + TEST_STATUS + ", SUM(" + SUMMARY_TEST_COUNT + ")" +
+            "  FROM " + summaryTable +
+            " WHERE " + CMnBuildTable.BUILD_ID + " IN (" + getIdList(buildIds) + ")" +
+            " GROUP BY " + CMnBuildTable.BUILD_ID + ", " + TEST_STATUS);
+
+        Statement st = conn.createStatement();
+        ResultSet rs = null;
+        try {
+            rs = executeQuery(st, "getTestSummary(summary)", sql.toString());
+            if (rs != null) {
+                while (rs.next()) {
+                    Integer buildId = Integer.valueOf(rs.getInt(1));
+                    CMnDbTestSummaryData summary = summaries.get(buildId);
+                    if (summary == null) {
+                        summary = new CMnDbTestSummaryData();
+                        summaries.put(buildId, summary);
+                    }
+                    addTestSummary(summary, rs.getString(2), rs.getInt(3));
+                }
+            }
+        } catch (SQLException ex) {
+            System.err.println("Failed to obtain the test summary from " + summaryTable);
+            ex.printStackTrace();
+        } finally {
+            if (rs != null) rs.close();
+            if (st != null) st.close();
+        }
+    }
+
+
+    /**
+     * Count the tests in each build and add the counts to the summary of
+     * each build.  The counts for all of the builds are obtained with a
+     * single query grouped by build ID and test status.
+     *
+     * @param   conn       Database connection
+     * @param   buildIds   List of build IDs to query
+     * @param   summaries  Test summary for each build, indexed by build ID
+     */
+    private void queryBuildSummary(
+            Connection conn,
+            Collection<Integer> buildIds,
+            Hashtable<Integer, CMnDbTestSummaryData> summaries)
+        throws SQLException
+    {
+        String idList = getIdList(buildIds);
+
+        StringBuffer sql = new StringBuffer();
+        sql.append(
+            "SELECT " + SUITE_TABLE + "." + CMnBuildTable.BUILD_ID + ", " + TEST_TABLE + "." + TEST_STATUS + ", COUNT(*)" +
+            "  FROM " + TEST_TABLE + ", " + SUITE_TABLE +
+            " WHERE " + SUITE_TABLE + "." + CMnBuildTable.BUILD_ID + " IN (" + idList + ")" +
+            "   AND " + SUITE_TABLE + "." + SUITE_ID + " = " + TEST_TABLE + "." + SUITE_ID +
+            " GROUP BY " + SUITE_TABLE + "." + CMnBuildTable.BUILD_ID + ", " + TEST_TABLE + "." + TEST_STATUS);
+
+        Statement st = conn.createStatement();
+        ResultSet rs = null;
+        try {
+            rs = executeQuery(st, "getTestSummary(builds)", sql.toString());
+            if (rs != null) {
+                while (rs.next()) {
+                    Integer buildId = Integer.valueOf(rs.getInt(1));
+                    CMnDbTestSummaryData summary = summaries.get(buildId);
+                    if (summary == null) {
+                        summary = new CMnDbTestSummaryData();
+                        summaries.put(buildId, summary);
+                    }
+                    addTestSummary(summary, rs.getString(2), rs.getInt(3));
+                }
+            } else {
+                 System.err.println("Unable to obtain the test summary for " + CMnBuildTable.BUILD_ID + " IN (" + idList + ")");
+            }
+        } catch (SQLException ex) {
+            System.err.println("Failed to obtain the test summary for builds.");
+            ex.printStackTrace();
+        } finally {
+            if (rs != null) rs.close();
+            if (st != null) st.close();
+        }
+    }
+
+
     /**
      * Retrieve a count of all tests in a build which correspond to 
      * the given group and status value.
@@ -676,7 +910,7 @@ public abstract class CMnTestTable extends CMnTable {
      *
      * @return  Total number of tests with the given status and group name
      */
-    public synchronized int getTestCount(
+    public int getTestCount(
             Connection conn,
             String buildId,
             String group,
@@ -732,7 +966,7 @@ public abstract class CMnTestTable extends CMnTable {
      *
      * @return  Total number of tests with the given status
      */
-    public synchronized int getLongCount(
+    public int getLongCount(
             Connection conn,
             CMnDbTestSuite suite)
         throws SQLException
@@ -779,7 +1013,7 @@ public abstract class CMnTestTable extends CMnTable {
      *
      * @return  Total number of tests with the given status
      */
-    public synchronized int getLongCount(
+    public int getLongCount(
             Connection conn,
             String buildId,
             String group)
@@ -831,7 +1065,7 @@ public abstract class CMnTestTable extends CMnTable {
      *
      * @return  Total amount of elapsed time (in milliseconds)
      */
-    public synchronized long getElapsedTime(
+    public long getElapsedTime(
             Connection conn,
             CMnDbTestSuite suite)
         throws SQLException
@@ -889,7 +1123,7 @@ public abstract class CMnTestTable extends CMnTable {
      *
      * @return  Total amount of elapsed time (in milliseconds)
      */
-    public synchronized long getElapsedTime(
+    public long getElapsedTime(
             Connection conn,
             String buildId,
             String group)
@@ -966,7 +1200,7 @@ public abstract class CMnTestTable extends CMnTable {
      *
      * @return  Build information
      */
-    public synchronized CMnDbBuildData getBuild(
+    public CMnDbBuildData getBuild(
             Connection conn,
             String buildId)
         throws SQLException
@@ -1014,7 +1248,7 @@ public abstract class CMnTestTable extends CMnTable {
      *
      * @return  TRUE if the date was updated, false otherwise 
      */
-    public synchronized boolean setSuiteEndDate(
+    public boolean setSuiteEndDate(
             Connection conn,
             String suiteId,
             Date enddate)
@@ -1043,6 +1277,11 @@ public abstract class CMnTestTable extends CMnTable {
 
             }
 
+            // Reconcile the summary counts once the suite has completed
+            if (result) {
+                rebuildSummary(conn, suiteId);
+            }
+
         }
 
         return result;
@@ -1060,7 +1299,7 @@ public abstract class CMnTestTable extends CMnTable {
      *
      * @return  TRUE if the date was updated, false otherwise 
      */
-    public synchronized boolean setTestCount(
+    public boolean setTestCount(
             Connection conn,
             String suiteId,
             int count)
@@ -1100,7 +1339,7 @@ public abstract class CMnTestTable extends CMnTable {
      *
      * @return  List of group names
      */
-    public synchronized Collection getGroupNames(
+    public Collection getGroupNames(
             Connection conn,
             String buildId)
         throws SQLException
@@ -1174,7 +1413,7 @@ public abstract class CMnTestTable extends CMnTable {
      *
      * @return  Deleted suite information
      */
-    public synchronized CMnDbTestSuite deleteSuite(
+    public CMnDbTestSuite deleteSuite(
             Connection conn,
             String suiteId)
         throws SQLException
@@ -1196,6 +1435,13 @@ public abstract class CMnTestTable extends CMnTable {
             " WHERE " + SUITE_ID + "=" + suiteId
         );
 
+        // SQL for deleting the suite summary
+        StringBuffer sqlSummary = new StringBuffer();
+        sqlSummary.append(
+            "DELETE FROM " + getSummaryTable() +
+            " WHERE " + SUITE_ID + "=" + suiteId
+        );
+
         Statement st = conn.createStatement();
         ResultSet rs = null;
         try {
@@ -1204,6 +1450,15 @@ public abstract class CMnTestTable extends CMnTable {
         } catch (SQLException ex) {
             suite = null;
             ex.printStackTrace();
+        }
+
+        try {
+            if (hasSummaryTable(conn)) {
+                execute(st, "deleteSuite", sqlSummary.toString());
+            }
+        } catch (SQLException ex) {
+            System.err.println("Failed to delete the suite summary: " + sqlSummary.toString());
+            ex.printStackTrace();
         } finally {
             if (rs != null) rs.close();
             if (st != null) st.close();
@@ -1220,7 +1475,7 @@ public abstract class CMnTestTable extends CMnTable {
      * @param   conn    Database connection
      * @param   buildId Primary key used to locate the suite info
      */
-    public synchronized void deleteAllSuites(
+    public void deleteAllSuites(
             Connection conn,
             String buildId)
         throws SQLException
@@ -1233,10 +1488,20 @@ public abstract class CMnTestTable extends CMnTable {
             "  AND  " + SUITE_TABLE + "." + SUITE_ID + " = " + TEST_TABLE + "." + SUITE_ID 
         );
 
+        // SQL for deleting the suite summaries
+        StringBuffer sqlSummary = new StringBuffer();
+        sqlSummary.append(
+            "DELETE FROM " + getSummaryTable() +
+            " WHERE " + CMnBuildTable.BUILD_ID + " = " + buildId
+        );
+
         Statement st = conn.createStatement();
         ResultSet rs = null;
         try {
             execute(st, "deleteAllSuites", sql.toString());
+            if (hasSummaryTable(conn)) {
+                execute(st, "deleteAllSuites", sqlSummary.toString());
+            }
         } catch (SQLException ex) {
             ex.printStackTrace();
         } finally {
@@ -1425,24 +1690,771 @@ public abstract class CMnTestTable extends CMnTable {
      * @param  suite  Test suite
      */
     public void updateTestSummary(Connection conn, CMnDbTestSuite suite) throws SQLException {
-        suite.setPassingCount(getTestCount(conn, suite, STATUS_PASS));
-        suite.setFailingCount(getTestCount(conn, suite, STATUS_FAIL));
-        suite.setErrorCount(getTestCount(conn, suite, STATUS_ERROR));
-        suite.setKilledCount(getTestCount(conn, suite, STATUS_KILL));
-        suite.setSkipCount(getTestCount(conn, suite, STATUS_SKIP));
-        suite.setPendingCount(getTestCount(conn, suite, STATUS_PENDING));
-        suite.setRunningCount(getTestCount(conn, suite, STATUS_RUNNING));
-        suite.setBlacklistCount(getTestCount(conn, suite, STATUS_BLACKLIST));
-        suite.setExecutedCount(getTestCount(conn, suite, null));
-        suite.setLongCount(getLongCount(conn, suite));
-        suite.setElapsedTime(getElapsedTime(conn, suite));
+        Vector<CMnDbTestSuite> suites = new Vector<CMnDbTestSuite>(1);
+        suites.add(suite);
+        updateTestSummary(conn, suites);
+    }
+
+
+    /**
+     * Query the database and populate the test summary information for
+     * a list of suites.  The status counts, long test counts, and elapsed
+     * time of each suite are read from the summary table.  Any suites which
+     * have not been summarized are counted using a single grouped query of
+     * the test table rather than issuing a separate query for each value.
+     * Large lists of suites are queried in batches of
+     * <code>SUMMARY_BATCH_SIZE</code> suites.
+     *
+     * @param  conn    Database connection
+     * @param  suites  List of test suites
+     */
+    public void updateTestSummary(Connection conn, Collection<CMnDbTestSuite> suites) throws SQLException {
+        if ((suites == null) || (suites.size() == 0)) {
+            return;
+        }
+
+        // Clear any existing counts before accumulating the query results
+        HashMap<Integer, CMnDbTestSuite> suiteMap = new HashMap<Integer, CMnDbTestSuite>();
+        Iterator<CMnDbTestSuite> suiteIter = suites.iterator();
+        while (suiteIter.hasNext()) {
+            CMnDbTestSuite suite = suiteIter.next();
+            resetTestSummary(suite);
+            suiteMap.put(Integer.valueOf(suite.getId()), suite);
+        }
+
+        // Query the summary data for each batch of suites
+        Vector<Integer> batch = new Vector<Integer>(SUMMARY_BATCH_SIZE);
+        Iterator<Integer> idIter = suiteMap.keySet().iterator();
+        while (idIter.hasNext()) {
+            batch.add(idIter.next());
+            if ((batch.size() >= SUMMARY_BATCH_SIZE) || !idIter.hasNext()) {
+                // Count the tests of any suites which have not been summarized
+                Vector<Integer> missing = querySummaryTable(conn, batch, suiteMap);
+                if (missing.size() > 0) {
+                    queryTestSummary(conn, missing, suiteMap);
+                }
+                batch.clear();
+            }
+        }
 
         // Compensate for older builds which don't have a
         // test count associated with a suite
-        if (suite.getTestCount() == 0) {
-            suite.setTestCount(suite.getExecutedCount());
+        suiteIter = suites.iterator();
+        while (suiteIter.hasNext()) {
+            CMnDbTestSuite suite = suiteIter.next();
+            if (suite.getElapsedTime() < 0) {
+                debugWrite("SSDEBUG: Query returned a negative value for the elapsed time: " + suite.getElapsedTime());
+                suite.setElapsedTime(0);
+            }
+            if (suite.getTestCount() == 0) {
+                suite.setTestCount(suite.getExecutedCount());
+            }
+        }
+    }
+
+
+    /**
+     * Execute a single grouped query to obtain the test counts for a batch
+     * of suites and add the results to the corresponding suite objects.
+     * The elapsed time excludes tests from bug suites, consistent with
+     * the single suite query.
+     *
+     * @param  conn      Database connection
+     * @param  suiteIds  List of suite IDs to query
+     * @param  suiteMap  Suite objects indexed by suite ID
+     */
+    private void queryTestSummary(
+            Connection conn,
+            Collection<Integer> suiteIds,
+            Map<Integer, CMnDbTestSuite> suiteMap)
+        throws SQLException
+    {
+        StringBuffer idList = new StringBuffer();
+        Iterator<Integer> idIter = suiteIds.iterator();
+        while (idIter.hasNext()) {
+            idList.append(idIter.next());
+            if (idIter.hasNext()) {
+                idList.append(", ");
+            }
+        }
+
+        StringBuffer sql = new StringBuffer();
+        sql.append(
+            "SELECT " + TEST_TABLE + "." + SUITE_ID + ", " + TEST_TABLE + "." + TEST_STATUS + ", " +
+            "COUNT(*) AS test_total, " +
+            "SUM(" + getLongTestSql() + ") AS long_total, " +
+            "SUM(" + getElapsedTimeSql() + ") AS elapsed_total" +
+            "  FROM " + SUITE_TABLE + ", " + TEST_TABLE +
+            " WHERE " + TEST_TABLE + "." + SUITE_ID + " IN (" + idList + ")" +
+            "   AND " + SUITE_TABLE + "." + SUITE_ID + " = " + TEST_TABLE + "." + SUITE_ID +
+            " GROUP BY " + TEST_TABLE + "." + SUITE_ID + ", " + TEST_TABLE + "." + TEST_STATUS);
+
+        Statement st = conn.createStatement();
+        ResultSet rs = null;
+        try {
+            rs = executeQuery(st, "updateTestSummary(suites)", sql.toString());
+            if (rs != null) {
+                while (rs.next()) {
+                    CMnDbTestSuite suite = suiteMap.get(Integer.valueOf(rs.getInt(1)));
+                    if (suite != null) {
+                        addTestSummary(suite, rs.getString(2), rs.getInt(3), rs.getInt(4), rs.getLong(5) * 1000);
+                    }
+                }
+            } else {
+                 System.err.println("Unable to obtain the test summary for " + SUITE_ID + " IN (" + idList + ")");
+            }
+        } catch (SQLException ex) {
+            System.err.println("Failed to obtain the test summary for suites.");
+            ex.printStackTrace();
+        } finally {
+            if (rs != null) rs.close();
+            if (st != null) st.close();
         }
+    }
 
+
+    /**
+     * Create the summary table if it does not already exist.  The summary
+     * table contains one row for each combination of suite and test status,
+     * along with a marker row for each suite whose test counts are complete.
+     *
+     * @param  conn   Database connection
+     */
+    public void createSummaryTable(Connection conn) throws SQLException {
+        StringBuffer sql = new StringBuffer();
+        sql.append(
+            "CREATE TABLE IF NOT EXISTS " + getSummaryTable() + " (" +
+            SUITE_ID + " INT NOT NULL, " +
+            CMnBuildTable.BUILD_ID + " INT NOT NULL, " +
+            TEST_STATUS + " VARCHAR(32) NOT NULL DEFAULT '', " +
+            SUMMARY_TEST_COUNT + " INT NOT NULL DEFAULT 0, " +
+            SUMMARY_LONG_COUNT + " INT NOT NULL DEFAULT 0, " +
+            SUMMARY_ELAPSED_TIME + " BIGINT NOT NULL DEFAULT 0, " +
+            "PRIMARY KEY (" + SUITE_ID + ", " + TEST_STATUS + "), " +
+            "INDEX (" + CMnBuildTable.BUILD_ID + "))");
+
+        Statement st = conn.createStatement();
+        try {
+            execute(st, "createSummaryTable", sql.toString());
+        } finally {
+            if (st != null) st.close();
+        }
+    }
+
+
+    /**
+     * Create the summary table the first time it is needed.  The table is
+     * only checked once.  If the table does not exist and cannot be created,
+     * the summary counts are not maintained and the test counts are obtained
+     * from the test table.
+     *
+     * @param  conn   Database connection
+     * @return TRUE if the summary table is available
+     */
+    protected synchronized boolean hasSummaryTable(Connection conn) {
+        if (summaryAvailable == null) {
+            try {
+                createSummaryTable(conn);
+                summaryAvailable = Boolean.TRUE;
+            } catch (SQLException ex) {
+                // The table may exist even if the user cannot create tables
+                summaryAvailable = Boolean.valueOf(isSummaryTable(conn));
+                if (!summaryAvailable.booleanValue()) {
+                    System.err.println("Test counts will not be summarized.  Unable to create " + getSummaryTable() + ": " + ex.getMessage());
+                }
+            }
+        }
+        return summaryAvailable.booleanValue();
+    }
+
+
+    /**
+     * Determine whether the summary table exists by querying it.
+     *
+     * @param  conn   Database connection
+     * @return TRUE if the summary table can be queried
+     */
+    private boolean isSummaryTable(Connection conn) {
+        boolean exists = false;
+        Statement st = null;
+        ResultSet rs = null;
+        try {
+            st = conn.createStatement();
+            rs = st.executeQuery("SELECT " + SUITE_ID + " FROM " + getSummaryTable() + " WHERE 1 = 0");
+            exists = true;
+        } catch (SQLException ex) {
+            exists = false;
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (st != null) st.close();
+            } catch (SQLException ex) {
+                // Nothing else to clean up
+            }
+        }
+        return exists;
+    }
+
+
+    /**
+     * Add the contribution of a single test to the summary table, or remove
+     * it by specifying a negative count.  The test status, duration, and suite
+     * options are read from the database so the summary is updated with the
+     * same values that a query of the test table would return.  This method
+     * is called before and after a test is updated to move the test from the
+     * count of its old status to the count of its new status.
+     *
+     * @param  conn    Database connection
+     * @param  testId  Primary key that identifies the test
+     * @param  count   Amount to add to the summary (1 to add or -1 to remove the test)
+     */
+    protected void updateSummary(Connection conn, String testId, int count) throws SQLException {
+        if ((testId == null) || !hasSummaryTable(conn)) {
+            return;
+        }
+
+        Statement st = conn.createStatement();
+        try {
+            updateSummary(st, testId, count);
+        } catch (SQLException ex) {
+            System.err.println("Failed to update the test summary for test: " + testId);
+            ex.printStackTrace();
+        } finally {
+            if (st != null) st.close();
+        }
+    }
+
+
+    /**
+     * Add or remove the contribution of a single test to the summary table
+     * using the statement provided.
+     *
+     * @param  st      Database statement
+     * @param  testId  Primary key that identifies the test
+     * @param  count   Amount to add to the summary (1 to add or -1 to remove the test)
+     */
+    private void updateSummary(Statement st, String testId, int count) throws SQLException {
+
+        String summaryTable = getSummaryTable();
+        StringBuffer sql = new StringBuffer();
+        sql.append(
+            "INSERT INTO " + summaryTable + " (" + getSummaryColumns() + ")" +
+            " SELECT " + TEST_TABLE + "." + SUITE_ID + ", " + SUITE_TABLE + "." + CMnBuildTable.BUILD_ID + ", " +
+                         "COALESCE(" + TEST_TABLE + "." + TEST_STATUS + ", '" + SUMMARY_MARKER + "'), " +
+                         count + ", " +
+                         count + " * " + getLongTestSql() + ", " +
+                         count + " * COALESCE(" + getElapsedTimeSql() + ", 0)" +
+            "   FROM " + SUITE_TABLE + ", " + TEST_TABLE +
+            "  WHERE " + TEST_TABLE + "." + TEST_ID + " = " + testId +
+            "    AND " + SUITE_TABLE + "." + SUITE_ID + " = " + TEST_TABLE + "." + SUITE_ID +
+            " ON DUPLICATE KEY UPDATE " +
+                summaryTable + "." + SUMMARY_TEST_COUNT + " = " + summaryTable + "." + SUMMARY_TEST_COUNT + " + VALUES(" + SUMMARY_TEST_COUNT + "), " +
+                summaryTable + "." + SUMMARY_LONG_COUNT + " = " + summaryTable + "." + SUMMARY_LONG_COUNT + " + VALUES(" + SUMMARY_LONG_COUNT + "), " +
+                summaryTable + "." + SUMMARY_ELAPSED_TIME + " = " + summaryTable + "." + SUMMARY_ELAPSED_TIME + " + VALUES(" + SUMMARY_ELAPSED_TIME + ")");
+
+        execute(st, "updateSummary", sql.toString());
+    }
+
+
+    /**
+     * Update a test and move it from the summary count of its old status to
+     * the count of its new status in a single transaction.  If any of the
+     * statements fail, none of the changes are saved.
+     *
+     * @param  conn    Database connection
+     * @param  testId  Primary key that identifies the test
+     * @param  sql     SQL statement which updates the test
+     *
+     * @return TRUE if the test was updated
+     */
+    protected boolean updateTest(Connection conn, String testId, String sql) throws SQLException {
+        boolean result = false;
+        boolean summarize = hasSummaryTable(conn);
+        boolean autoCommit = conn.getAutoCommit();
+        Statement st = conn.createStatement();
+        try {
+            conn.setAutoCommit(false);
+            if (summarize) updateSummary(st, testId, -1);
+            execute(st, "updateTest", sql);
+            if (summarize) updateSummary(st, testId, 1);
+            conn.commit();
+            result = true;
+        } catch (SQLException ex) {
+            conn.rollback();
+            System.err.println("Failed to update test: " + sql);
+            ex.printStackTrace();
+        } finally {
+            if (st != null) st.close();
+            conn.setAutoCommit(autoCommit);
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Replace the summary table entries for the suite with the current test
+     * counts from the test table.  Once the suite has been summarized, any
+     * tests that are added or updated will be reflected in the summary table.
+     *
+     * @param  conn     Database connection
+     * @param  suiteId  Primary key that identifies the test suite
+     *
+     * @return TRUE if the summary was updated, false otherwise
+     */
+    public boolean rebuildSummary(Connection conn, String suiteId) throws SQLException {
+        boolean result = false;
+        if (!hasSummaryTable(conn)) {
+            return result;
+        }
+        String summaryTable = getSummaryTable();
+
+        // SQL for removing the existing counts
+        StringBuffer sqlDelete = new StringBuffer();
+        sqlDelete.append(
+            "DELETE FROM " + summaryTable +
+            " WHERE " + SUITE_ID + " = " + suiteId);
+
+        // SQL for counting the tests in the suite
+        String status = "COALESCE(" + TEST_TABLE + "." + TEST_STATUS + ", '" + SUMMARY_MARKER + "')";
+        StringBuffer sqlCount = new StringBuffer();
+        sqlCount.append(
+            "INSERT INTO " + summaryTable + " (" + getSummaryColumns() + ")" +
+            " SELECT " + SUITE_TABLE + "." + SUITE_ID + ", " + SUITE_TABLE + "." + CMnBuildTable.BUILD_ID + ", " + status + ", " +
+                         "COUNT(*), SUM(" + getLongTestSql() + "), COALESCE(SUM(" + getElapsedTimeSql() + "), 0)" +
+            "   FROM " + SUITE_TABLE + ", " + TEST_TABLE +
+            "  WHERE " + SUITE_TABLE + "." + SUITE_ID + " = " + suiteId +
+            "    AND " + SUITE_TABLE + "." + SUITE_ID + " = " + TEST_TABLE + "." + SUITE_ID +
+            "  GROUP BY " + SUITE_TABLE + "." + SUITE_ID + ", " + SUITE_TABLE + "." + CMnBuildTable.BUILD_ID + ", " + status +
+            " ON DUPLICATE KEY UPDATE " +
+                summaryTable + "." + SUMMARY_TEST_COUNT + " = VALUES(" + SUMMARY_TEST_COUNT + "), " +
+                summaryTable + "." + SUMMARY_LONG_COUNT + " = VALUES(" + SUMMARY_LONG_COUNT + "), " +
+                summaryTable + "." + SUMMARY_ELAPSED_TIME + " = VALUES(" + SUMMARY_ELAPSED_TIME + ")");
+
+        // SQL for marking the suite as summarized
+        StringBuffer sqlMarker = new StringBuffer();
+        sqlMarker.append(
+            "INSERT IGNORE INTO " + summaryTable + " (" + getSummaryColumns() + ")" +
+            " SELECT " + SUITE_ID + ", " + CMnBuildTable.BUILD_ID + ", '" + SUMMARY_MARKER + "', 0, 0, 0" +
+            "   FROM " + SUITE_TABLE +
+            "  WHERE " + SUITE_ID + " = " + suiteId);
+
+        Statement st = conn.createStatement();
+        try {
+            execute(st, "rebuildSummary", sqlDelete.toString());
+            execute(st, "rebuildSummary", sqlCount.toString());
+            execute(st, "rebuildSummary", sqlMarker.toString());
+            result = true;
+        } catch (SQLException ex) {
+            System.err.println("Failed to rebuild the test summary for suite: " + suiteId);
+            ex.printStackTrace();
+        } finally {
+            if (st != null) st.close();
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Rebuild the summary table entries for every suite in the build, or
+     * every suite in the suite table if no build is specified.  This is
+     * used to populate the summary table for historical test data.
+     *
+     * @param  conn     Database connection
+     * @param  buildId  Build ID used as the foreign key, or null for all builds
+     * @param  missing  Only rebuild the suites which have not been summarized if TRUE
+     *
+     * @return Number of suites which were summarized
+     */
+    public int rebuildSummaries(Connection conn, String buildId, boolean missing) throws SQLException {
+        int count = 0;
+        if (!hasSummaryTable(conn)) {
+            return count;
+        }
+        String summaryTable = getSummaryTable();
+
+        StringBuffer sql = new StringBuffer();
+        sql.append("SELECT " + SUITE_TABLE + "." + SUITE_ID + " FROM " + SUITE_TABLE);
+        if (missing) {
+            sql.append(
+                " LEFT JOIN " + summaryTable +
+                "   ON " + summaryTable + "." + SUITE_ID + " = " + SUITE_TABLE + "." + SUITE_ID +
+                "  AND " + summaryTable + "." + TEST_STATUS + " = '" + SUMMARY_MARKER + "'" +
+                " WHERE " + summaryTable + "." + SUITE_ID + " IS NULL");
+        } else {
+            sql.append(" WHERE 1 = 1");
+        }
+        if (buildId != null) {
+            sql.append(" AND " + SUITE_TABLE + "." + CMnBuildTable.BUILD_ID + " = " + buildId);
+        }
+        sql.append(" ORDER BY " + SUITE_TABLE + "." + SUITE_ID);
+
+        // Collect the suite IDs before updating the summary table
+        Vector<String> suiteIds = new Vector<String>();
+        Statement st = conn.createStatement();
+        ResultSet rs = null;
+        try {
+            rs = executeQuery(st, "rebuildSummaries", sql.toString());
+            if (rs != null) {
+                while (rs.next()) {
+                    suiteIds.add(rs.getString(1));
+                }
+            }
+        } finally {
+            if (rs != null) rs.close();
+            if (st != null) st.close();
+        }
+
+        for (int idx = 0; idx < suiteIds.size(); idx++) {
+            if (rebuildSummary(conn, suiteIds.get(idx))) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+
+    /**
+     * Compare the summary table entries with the test counts from the test
+     * table and return the list of suites whose summary is not consistent.
+     * Only suites which have been summarized are checked.
+     *
+     * @param  conn     Database connection
+     * @param  buildId  Build ID used as the foreign key, or null for all builds
+     *
+     * @return List of suite IDs with inconsistent summary entries
+     */
+    public Vector<String> checkSummaries(Connection conn, String buildId) throws SQLException {
+        Vector<String> list = new Vector<String>();
+        if (!hasSummaryTable(conn)) {
+            return list;
+        }
+
+        StringBuffer sql = new StringBuffer();
+        sql.append(
+            "SELECT " + SUITE_ID + " FROM " + getSummaryTable() +
+            " WHERE " + TEST_STATUS + " = '" + SUMMARY_MARKER + "'");
+        if (buildId != null) {
+            sql.append(" AND " + CMnBuildTable.BUILD_ID + " = " + buildId);
+        }
+        sql.append(" ORDER BY " + SUITE_ID);
+
+        Vector<Integer> suiteIds = new Vector<Integer>();
+        Statement st = conn.createStatement();
+        ResultSet rs = null;
+        try {
+            rs = executeQuery(st, "checkSummaries", sql.toString());
+            if (rs != null) {
+                while (rs.next()) {
+                    suiteIds.add(Integer.valueOf(rs.getInt(1)));
+                }
+            }
+        } finally {
+            if (rs != null) rs.close();
+            if (st != null) st.close();
+        }
+
+        // Compare the summary and test table counts for each batch of suites
+        for (int start = 0; start < suiteIds.size(); start += SUMMARY_BATCH_SIZE) {
+            int end = Math.min(start + SUMMARY_BATCH_SIZE, suiteIds.size());
+            Vector<Integer> batch = new Vector<Integer>(suiteIds.subList(start, end));
+
+            // The suite objects are only used to hold the test counts
+            HashMap<Integer, CMnDbTestSuite> summaryMap = new HashMap<Integer, CMnDbTestSuite>();
+            HashMap<Integer, CMnDbTestSuite> testMap = new HashMap<Integer, CMnDbTestSuite>();
+            for (int idx = 0; idx < batch.size(); idx++) {
+                CMnDbTestSuite summarySuite = new CMnDbTestSuite(CMnDbTestSuite.SuiteType.JUNIT);
+                resetTestSummary(summarySuite);
+                summaryMap.put(batch.get(idx), summarySuite);
+
+                CMnDbTestSuite testSuite = new CMnDbTestSuite(CMnDbTestSuite.SuiteType.JUNIT);
+                resetTestSummary(testSuite);
+                testMap.put(batch.get(idx), testSuite);
+            }
+            querySummaryTable(conn, batch, summaryMap);
+            queryTestSummary(conn, batch, testMap);
+
+            for (int idx = 0; idx < batch.size(); idx++) {
+                Integer suiteId = batch.get(idx);
+                if (!isSameSummary(summaryMap.get(suiteId), testMap.get(suiteId))) {
+                    list.add(suiteId.toString());
+                }
+            }
+        }
+
+        return list;
+    }
+
+
+    /**
+     * Query the summary table and add the results to the corresponding
+     * suite objects.  Only the suites with a complete summary are updated.
+     * If the summary table cannot be queried, none of the suites will be
+     * updated.
+     *
+     * @param  conn      Database connection
+     * @param  suiteIds  List of suite IDs to query
+     * @param  suiteMap  Suite objects indexed by suite ID
+     *
+     * @return List of suite IDs which were not found in the summary table
+     */
+    private Vector<Integer> querySummaryTable(
+            Connection conn,
+            Collection<Integer> suiteIds,
+            Map<Integer, CMnDbTestSuite> suiteMap)
+        throws SQLException
+    {
+        if (!hasSummaryTable(conn)) {
+            return new Vector<Integer>(suiteIds);
+        }
+        String summaryTable = getSummaryTable();
+        String idList = getIdList(suiteIds);
+
+        StringBuffer sql = new StringBuffer();
+        sql.append(
+            "SELECT " + SUITE_ID + ", " + TEST_STATUS + ", " +
+                SUMMARY_TEST_COUNT + ", " + SUMMARY_LONG_COUNT + ", " + SUMMARY_ELAPSED_TIME +
+            "  FROM " + summaryTable +
+            " WHERE " + SUITE_ID + " IN (" + idList + ")");
+
+        // Collect the rows so that incomplete summaries can be ignored
+        HashSet<Integer> complete = new HashSet<Integer>();
+        Vector<Object[]> rows = new Vector<Object[]>();
+        Statement st = conn.createStatement();
+        ResultSet rs = null;
+        try {
+            rs = executeQuery(st, "updateTestSummary(summary)", sql.toString());
+            if (rs != null) {
+                while (rs.next()) {
+                    Integer suiteId = Integer.valueOf(rs.getInt(1));
+                    String status = rs.getString(2);
+                    if (SUMMARY_MARKER.equals(status)) {
+                        complete.add(suiteId);
+                    }
+                    rows.add(new Object[] {
+                        suiteId, status, Integer.valueOf(rs.getInt(3)), Integer.valueOf(rs.getInt(4)), Long.valueOf(rs.getLong(5))
+                    });
+                }
+            }
+        } catch (SQLException ex) {
+            System.err.println("Failed to obtain the test summary from " + summaryTable);
+            ex.printStackTrace();
+            complete.clear();
+            rows.clear();
+        } finally {
+            if (rs != null) rs.close();
+            if (st != null) st.close();
+        }
+
+        for (int idx = 0; idx < rows.size(); idx++) {
+            Object[] row = rows.get(idx);
+            CMnDbTestSuite suite = suiteMap.get(row[0]);
+            if ((suite != null) && complete.contains(row[0])) {
+                int count = ((Integer) row[2]).intValue();
+                int longCount = ((Integer) row[3]).intValue();
+                long elapsed = ((Long) row[4]).longValue() * 1000;
+                addTestSummary(suite, (String) row[1], count, longCount, elapsed);
+            }
+        }
+
+        Vector<Integer> missing = new Vector<Integer>();
+        Iterator<Integer> idIter = suiteIds.iterator();
+        while (idIter.hasNext()) {
+            Integer suiteId = idIter.next();
+            if (!complete.contains(suiteId)) {
+                missing.add(suiteId);
+            }
+        }
+        return missing;
+    }
+
+
+    /**
+     * Determine whether the two suites have the same test counts.
+     *
+     * @param  a   Test suite
+     * @param  b   Test suite
+     * @return TRUE if the counts are identical
+     */
+    private static boolean isSameSummary(CMnDbTestSuite a, CMnDbTestSuite b) {
+        return (a.getPassingCount() == b.getPassingCount()) &&
+               (a.getFailingCount() == b.getFailingCount()) &&
+               (a.getErrorCount() == b.getErrorCount()) &&
+               (a.getKilledCount() == b.getKilledCount()) &&
+               (a.getSkipCount() == b.getSkipCount()) &&
+               (a.getPendingCount() == b.getPendingCount()) &&
+               (a.getRunningCount() == b.getRunningCount()) &&
+               (a.getBlacklistCount() == b.getBlacklistCount()) &&
+               (a.getExecutedCount() == b.getExecutedCount()) &&
+               (a.getLongCount() == b.getLongCount()) &&
+               (a.getElapsedTime() == b.getElapsedTime());
+    }
+
+
+    /**
+     * Returns the list of columns in the summary table.
+     *
+     * @return Comma separated list of column names
+     */
+    private static String getSummaryColumns() {
+        return SUITE_ID + ", " + CMnBuildTable.BUILD_ID + ", " + TEST_STATUS + ", " +
+               SUMMARY_TEST_COUNT + ", " + SUMMARY_LONG_COUNT + ", " + SUMMARY_ELAPSED_TIME;
+    }
+
+
+    /**
+     * Returns a SQL expression which evaluates to 1 if the test exceeded
+     * the time limit, or 0 otherwise.
+     *
+     * @return SQL expression
+     */
+    private String getLongTestSql() {
+        String testDuration = 
+            "(UNIX_TIMESTAMP(" + TEST_TABLE + "." + TEST_END_DATE + ") - UNIX_TIMESTAMP(" + TEST_TABLE + "." + TEST_START_DATE + "))";
+        return "(CASE WHEN " + testDuration + " > " + TIME_EXCEED + " THEN 1 ELSE 0 END)";
+    }
+
+
+    /**
+     * Returns a SQL expression for the elapsed time of the test in seconds.
+     * Tests which belong to a bug suite are excluded from the elapsed time.
+     *
+     * @return SQL expression
+     */
+    private String getElapsedTimeSql() {
+        String nobug =
+            "((" + SUITE_TABLE + "." + SUITE_OPTIONS + " NOT LIKE '%bug=true%') OR (" + SUITE_TABLE + "." + SUITE_OPTIONS + " IS NULL))";
+        return "(CASE WHEN " + nobug + " THEN TIMESTAMPDIFF(SECOND, " + TEST_TABLE + "." + TEST_START_DATE + ", " + TEST_TABLE + "." + TEST_END_DATE + ") ELSE 0 END)";
+    }
+
+
+    /**
+     * Returns the list of IDs as a comma separated list which can be
+     * used in a SQL IN clause.
+     *
+     * @param  ids   List of IDs
+     * @return Comma separated list of IDs
+     */
+    private static String getIdList(Collection<Integer> ids) {
+        StringBuffer idList = new StringBuffer();
+        Iterator<Integer> idIter = ids.iterator();
+        while (idIter.hasNext()) {
+            idList.append(idIter.next());
+            if (idIter.hasNext()) {
+                idList.append(", ");
+            }
+        }
+        return idList.toString();
+    }
+
+
+    /**
+     * Set all of the test summary counts of the suite to zero.
+     *
+     * @param  suite  Test suite
+     */
+    private static void resetTestSummary(CMnDbTestSuite suite) {
+        suite.setPassingCount(0);
+        suite.setFailingCount(0);
+        suite.setErrorCount(0);
+        suite.setKilledCount(0);
+        suite.setSkipCount(0);
+        suite.setPendingCount(0);
+        suite.setRunningCount(0);
+        suite.setBlacklistCount(0);
+        suite.setExecutedCount(0);
+        suite.setLongCount(0);
+        suite.setElapsedTime(0);
+    }
+
+
+    /**
+     * Add the summary values for a single test status to the suite.
+     *
+     * @param  suite    Test suite
+     * @param  status   Test status
+     * @param  count    Number of tests with the given status
+     * @param  longCount  Number of tests which exceeded the time limit
+     * @param  elapsed  Elapsed time of the tests (in milliseconds)
+     */
+    private static void addTestSummary(CMnDbTestSuite suite, String status, int count, int longCount, long elapsed) {
+        suite.setExecutedCount(suite.getExecutedCount() + count);
+        suite.setLongCount(suite.getLongCount() + longCount);
+        suite.setElapsedTime(suite.getElapsedTime() + elapsed);
+
+        if (status == null) {
+            return;
+        }
+        switch (getTestStatus(status)) {
+            case CMnDbTestData.PASS:
+                suite.setPassingCount(suite.getPassingCount() + count);
+                break;
+            case CMnDbTestData.FAIL:
+                suite.setFailingCount(suite.getFailingCount() + count);
+                break;
+            case CMnDbTestData.ERROR:
+                suite.setErrorCount(suite.getErrorCount() + count);
+                break;
+            case CMnDbTestData.KILL:
+                suite.setKilledCount(suite.getKilledCount() + count);
+                break;
+            case CMnDbTestData.SKIP:
+                suite.setSkipCount(suite.getSkipCount() + count);
+                break;
+            case CMnDbTestData.PENDING:
+                suite.setPendingCount(suite.getPendingCount() + count);
+                break;
+            case CMnDbTestData.RUNNING:
+                suite.setRunningCount(suite.getRunningCount() + count);
+                break;
+            case CMnDbTestData.BLACKLIST:
+                suite.setBlacklistCount(suite.getBlacklistCount() + count);
+                break;
+        }
+    }
+
+
+    /**
+     * Add the number of tests with the given status to the build summary counts.
+     *
+     * @param  summary  Test summary for the build
+     * @param  status   Test status
+     * @param  count    Number of tests with the status
+     */
+    private static void addTestSummary(CMnDbTestSummaryData summary, String status, int count) {
+        summary.setTotalCount(summary.getTotalCount() + count);
+
+        if (status == null) {
+            return;
+        }
+        switch (getTestStatus(status)) {
+            case CMnDbTestData.PASS:
+                summary.setPassingCount(summary.getPassingCount() + count);
+                break;
+            case CMnDbTestData.FAIL:
+                summary.setFailingCount(summary.getFailingCount() + count);
+                break;
+            case CMnDbTestData.ERROR:
+                summary.setErrorCount(summary.getErrorCount() + count);
+                break;
+            case CMnDbTestData.KILL:
+                summary.setKilledCount(summary.getKilledCount() + count);
+                break;
+            case CMnDbTestData.SKIP:
+                summary.setSkippedCount(summary.getSkippedCount() + count);
+                break;
+            case CMnDbTestData.PENDING:
+                summary.setPendingCount(summary.getPendingCount() + count);
+                break;
+            case CMnDbTestData.RUNNING:
+                summary.setRunningCount(summary.getRunningCount() + count);
+                break;
+            case CMnDbTestData.BLACKLIST:
+                summary.setBlacklistCount(summary.getBlacklistCount() + count);
+                break;
+        }
     }
 
 
@@ -88,8 +88,11 @@ public class CMnUitTable extends CMnTestTable {
     public static final String STEP_STATUS_FAIL = "FAIL";
 
 
-    /** Singleton instance of the table class */
-    private static CMnUitTable instance;
+    /** Holds the singleton instance until it is first requested */
+    private static class InstanceHolder {
+        /** Singleton instance of the table class */
+        private static final CMnUitTable instance = createInstance();
+    }
 
 
     /**
@@ -105,28 +108,31 @@ public class CMnUitTable extends CMnTestTable {
 
 
     /**
-     * Return the singleton instance of the class.
+     * Construct the singleton instance of the class.
      */
-    public static CMnUitTable getInstance() {
-        if (instance == null) {
-            // Construct a new singleton instance
-            instance = new CMnUitTable("uit_suite", "uit");
+    private static CMnUitTable createInstance() {
+        // Construct a new singleton instance
+        CMnUitTable instance = new CMnUitTable("uit_suite", "uit");
 
 /*
-            // Enable debbuging to a file
-            String logfile = "/var/tmp/CMnUitTable.txt";
-            try {
-                instance.debugEnable(new PrintStream(logfile));
-            } catch (FileNotFoundException nfex) {
-                System.out.println("Unable to enable debugging.  Failed to open log file: " + logfile);
-            }
-*/
-
+        // Enable debbuging to a file
+        String logfile = "/var/tmp/CMnUitTable.txt";
+        try {
+            instance.debugEnable(new PrintStream(logfile));
+        } catch (FileNotFoundException nfex) {
+            System.out.println("Unable to enable debugging.  Failed to open log file: " + logfile);
         }
-
+*/
         return instance;
     }
 
+    /**
+     * Return the singleton instance of the class.
+     */
+    public static CMnUitTable getInstance() {
+        return InstanceHolder.instance;
+    }
+
 
 
     /**
@@ -138,7 +144,7 @@ public class CMnUitTable extends CMnTestTable {
      *
      * @return  Auto-generated key that identifies the test
      */
-    public synchronized String addTest(
+    public String addTest(
             Connection conn,
             String jdbcDriver,
             String suiteId,
@@ -209,6 +215,9 @@ public class CMnUitTable extends CMnTestTable {
             if (st != null) st.close();
         }
 
+        // Add the test to the suite summary counts
+        updateSummary(conn, testId, 1);
+
         return testId;
     }
 
@@ -221,7 +230,7 @@ public class CMnUitTable extends CMnTestTable {
      *
      * @return  List of UIT information objects
      */
-    public synchronized Vector getTestsBySuite(
+    public Vector getTestsBySuite(
             Connection conn,
             String suiteId)
         throws SQLException
@@ -269,7 +278,7 @@ public class CMnUitTable extends CMnTestTable {
      *
      * @return  List of UIT information objects
      */
-    public synchronized Vector getTestsByBuild(
+    public Vector getTestsByBuild(
             Connection conn,
             String buildId)
         throws SQLException
@@ -317,7 +326,7 @@ public class CMnUitTable extends CMnTestTable {
      *
      * @return  Test information
      */
-    public synchronized CMnDbUit getTest(
+    public CMnDbUit getTest(
             Connection conn,
             String testId)
         throws SQLException
@@ -362,7 +371,7 @@ public class CMnUitTable extends CMnTestTable {
      *
      * @return  Test information
      */
-    public synchronized Vector getTestSteps(
+    public Vector getTestSteps(
             Connection conn,
             String testId)
         throws SQLException
@@ -415,7 +424,7 @@ public class CMnUitTable extends CMnTestTable {
      *
      * @return  List of all similar tests 
      */
-    public synchronized Vector getTestHistory(
+    public Vector getTestHistory(
             Connection conn,
             CMnDbUit test)
         throws SQLException
@@ -488,7 +497,7 @@ public class CMnUitTable extends CMnTestTable {
      *
      * @return  Most recent matching test that passed 
      */
-    public synchronized CMnDbUit getLastPass(
+    public CMnDbUit getLastPass(
             Connection conn,
             CMnDbUit test)
         throws SQLException
@@ -561,7 +570,7 @@ public class CMnUitTable extends CMnTestTable {
      *
      * @return  Most recent matching test that passed 
      */
-    public synchronized CMnDbUit getLastFailure(
+    public CMnDbUit getLastFailure(
             Connection conn,
             CMnDbUit test)
         throws SQLException
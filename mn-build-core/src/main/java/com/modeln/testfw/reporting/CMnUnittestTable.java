@@ -43,8 +43,11 @@ public class CMnUnittestTable extends CMnTestTable {
     public static final String TEST_METHOD = "method";
 
 
-    /** Singleton instance of the table class */
-    private static CMnUnittestTable instance;
+    /** Holds the singleton instance until it is first requested */
+    private static class InstanceHolder {
+        /** Singleton instance of the table class */
+        private static final CMnUnittestTable instance = createInstance();
+    }
 
 
     /**
@@ -60,30 +63,33 @@ public class CMnUnittestTable extends CMnTestTable {
 
 
     /**
-     * Return the singleton instance of the class.
+     * Construct the singleton instance of the class.
      */
-    public static CMnUnittestTable getInstance() {
-        if (instance == null) {
-            // Construct a new singleton instance
-            instance = new CMnUnittestTable("unittest_suite", "unittest");
-
-            // Make sure the TEST_TABLE.TEST_GROUP_NAME column is used for unit tests
-            instance.enableTestGroupName(true);
-
-            // Enable debbuging to a file
-            String logfile = "/var/tmp/CMnUnittestTable.txt";
-            try {
-                instance.setDebugOutput(new PrintStream(logfile));
-                instance.debugEnable(true);
-            } catch (FileNotFoundException nfex) {
-                System.out.println("Unable to enable debugging.  Failed to open log file: " + logfile);
-            }
+    private static CMnUnittestTable createInstance() {
+        // Construct a new singleton instance
+        CMnUnittestTable instance = new CMnUnittestTable("unittest_suite", "unittest");
 
-        }
+        // Make sure the TEST_TABLE.TEST_GROUP_NAME column is used for unit tests
+        instance.enableTestGroupName(true);
 
+        // Enable debbuging to a file
+        String logfile = "/var/tmp/CMnUnittestTable.txt";
+        try {
+            instance.setDebugOutput(new PrintStream(logfile));
+            instance.debugEnable(true);
+        } catch (FileNotFoundException nfex) {
+            System.out.println("Unable to enable debugging.  Failed to open log file: " + logfile);
+        }
         return instance;
     }
 
+    /**
+     * Return the singleton instance of the class.
+     */
+    public static CMnUnittestTable getInstance() {
+        return InstanceHolder.instance;
+    }
+
 
 
 
@@ -96,7 +102,7 @@ public class CMnUnittestTable extends CMnTestTable {
      *
      * @return  Auto-generated key that identifies the test
      */
-    public synchronized String addTest(
+    public String addTest(
             Connection conn, 
             String suiteId, 
             CMnDbUnitTestData test) 
@@ -151,6 +157,9 @@ public class CMnUnittestTable extends CMnTestTable {
             if (st != null) st.close();
         }
 
+        // Add the test to the suite summary counts
+        updateSummary(conn, testId, 1);
+
         return testId;
     }
 
@@ -163,13 +172,11 @@ public class CMnUnittestTable extends CMnTestTable {
      *
      * @return  TRUE if the test data was updated 
      */
-    public synchronized boolean updateTest(
+    public boolean updateTest(
             Connection conn, 
             CMnDbUnitTestData test)
         throws SQLException
     {
-        boolean result = false;
-
         StringBuffer sql = new StringBuffer();
         sql.append("UPDATE " + TEST_TABLE + " SET ");
         sql.append(SUITE_ID + "=\"" + test.getParentId() + "\"");
@@ -185,21 +192,8 @@ public class CMnUnittestTable extends CMnTestTable {
 
         sql.append(" WHERE " + TEST_ID + "=\"" + test.getId() + "\"");
 
-        Statement st = conn.createStatement();
-        ResultSet rs = null;
-        try {
-            execute(st, "updateTest", sql.toString());
-            result = true;
-        } catch (SQLException ex) {
-            System.err.println("Failed to update test: " + sql.toString());
-            ex.printStackTrace();
-        } finally {
-            if (rs != null) rs.close();
-            if (st != null) st.close();
-        }
-
-
-        return result;
+        // Move the test to the suite summary count of its new status
+        return updateTest(conn, Integer.toString(test.getId()), sql.toString());
     }
 
 
@@ -213,7 +207,7 @@ public class CMnUnittestTable extends CMnTestTable {
      *
      * @return  List of suite information objects
      */
-    public synchronized Vector organizeTestsByGroup(
+    public Vector organizeTestsByGroup(
             Connection conn,
             String buildId,
             Vector suites)
@@ -316,7 +310,7 @@ public class CMnUnittestTable extends CMnTestTable {
      *
      * @return  List of unittest information objects
      */
-    public synchronized Vector getTestsBySuite(
+    public Vector getTestsBySuite(
             Connection conn,
             String suiteId)
         throws SQLException
@@ -364,7 +358,7 @@ public class CMnUnittestTable extends CMnTestTable {
      *
      * @return  List of unittest information objects
      */
-    public synchronized Vector getTestsBySuiteGroup(
+    public Vector getTestsBySuiteGroup(
             Connection conn,
             String groupId)
         throws SQLException
@@ -419,7 +413,7 @@ public class CMnUnittestTable extends CMnTestTable {
      *
      * @return  List of unittest information objects
      */
-    public synchronized Vector getTestsByGroupName(
+    public Vector getTestsByGroupName(
             Connection conn,
             String buildId,
             String groupName)
@@ -490,7 +484,7 @@ public class CMnUnittestTable extends CMnTestTable {
      *
      * @return  List of unittest information objects
      */
-    public synchronized Vector getTestsByBuild(
+    public Vector getTestsByBuild(
             Connection conn,
             String buildId)
         throws SQLException
@@ -538,7 +532,7 @@ public class CMnUnittestTable extends CMnTestTable {
      *
      * @return  Test information
      */
-    public synchronized CMnDbUnitTestData getTest(
+    public CMnDbUnitTestData getTest(
             Connection conn,
             String testId)
         throws SQLException
@@ -586,7 +580,7 @@ public class CMnUnittestTable extends CMnTestTable {
      *
      * @return  Test suite with the longest time 
      */
-    public synchronized CMnDbTestSuite getLongestSuite(
+    public CMnDbTestSuite getLongestSuite(
             Connection conn,
             String buildId,
             String group)
@@ -647,7 +641,7 @@ public class CMnUnittestTable extends CMnTestTable {
      *
      * @return  List of all similar tests 
      */
-    public synchronized Vector getTestHistory(
+    public Vector getTestHistory(
             Connection conn,
             CMnDbUnitTestData test)
         throws SQLException
@@ -719,7 +713,7 @@ public class CMnUnittestTable extends CMnTestTable {
      *
      * @return  Most recent matching test that passed 
      */
-    public synchronized CMnDbUnitTestData getLastPass(
+    public CMnDbUnitTestData getLastPass(
             Connection conn,
             CMnDbUnitTestData test)
         throws SQLException
@@ -792,7 +786,7 @@ public class CMnUnittestTable extends CMnTestTable {
      *
      * @return  Most recent matching test that failed 
      */
-    public synchronized CMnDbUnitTestData getLastFailure(
+    public CMnDbUnitTestData getLastFailure(
             Connection conn,
             CMnDbUnitTestData test)
         throws SQLException
@@ -0,0 +1,438 @@
+package com.modeln.build.common.mail;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Properties;
+import java.util.Vector;
+
+import javax.mail.internet.InternetAddress;
+
+import junit.framework.TestCase;
+
+/**
+ * Test methods for verifying delivery of queued mail messages using an
+ * SMTP server which runs within the test.
+ */
+public class CMnMailQueueTest extends TestCase {
+
+    /** Minimal SMTP server which records the messages it receives */
+    private static class SmtpStub extends Thread {
+        private final ServerSocket server;
+
+        /** Number of connections to reject before accepting messages */
+        private int rejectCount = 0;
+
+        /** Number of connections accepted */
+        private int connectionCount = 0;
+
+        /** Recipient which is temporarily unable to accept messages */
+        private String busyRecipient = null;
+
+        /** Recipients of each message received */
+        private final Vector<String> recipients = new Vector<String>();
+
+        /** Data of each message received */
+        private final Vector<String> messages = new Vector<String>();
+
+        SmtpStub() throws IOException {
+            server = new ServerSocket(0, 10, InetAddress.getByName("127.0.0.1"));
+            setDaemon(true);
+        }
+
+        int getPort() {
+            return server.getLocalPort();
+        }
+
+        synchronized void setRejectCount(int count) {
+            rejectCount = count;
+        }
+
+        synchronized void setBusyRecipient(String recipient) {
+            busyRecipient = recipient;
+        }
+
+        synchronized boolean isBusy(String recipient) {
+            return recipient.equals(busyRecipient);
+        }
+
+        synchronized int getConnectionCount() {
+            return connectionCount;
+        }
+
+        synchronized Vector<String> getRecipients() {
+            return new Vector<String>(recipients);
+        }
+
+        synchronized Vector<String> getMessages() {
+            return new Vector<String>(messages);
+        }
+
+        void close() throws IOException {
+            server.close();
+        }
+
+        public void run() {
+            try {
+                while (true) {
+                    final Socket socket = server.accept();
+                    boolean reject = false;
+                    synchronized (this) {
+                        connectionCount++;
+                        if (rejectCount > 0) {
+                            rejectCount--;
+                            reject = true;
+                        }
+                    }
+                    if (reject) {
+                        OutputStream out = socket.getOutputStream();
+                        out.write("421 Service not available\r\n".getBytes("US-ASCII"));
+                        out.flush();
+                        socket.close();
+                    } else {
+                        Thread session = new Thread() {
+                            public void run() {
+                                handle(socket);
+                            }
+                        };
+                        session.setDaemon(true);
+                        session.start();
+                    }
+                }
+            } catch (IOException ioex) {
+                // Server socket has been closed
+            }
+        }
+
+        private void handle(Socket socket) {
+            try {
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "US-ASCII"));
+                OutputStream out = socket.getOutputStream();
+                reply(out, "220 localhost SMTP stub");
+                StringBuffer rcpt = new StringBuffer();
+                String line = in.readLine();
+                while (line != null) {
+                    String cmd = line.toUpperCase();
+                    if (cmd.startsWith("EHLO") || cmd.startsWith("HELO")) {
+                        reply(out, "250 localhost");
+                    } else if (cmd.startsWith("MAIL")) {
+                        rcpt.setLength(0);
+                        reply(out, "250 OK");
+                    } else if (cmd.startsWith("RCPT")) {
+                        int start = line.indexOf('<');
+                        int end = line.indexOf('>');
+                        String address = line.substring(start + 1, end);
+                        if (isBusy(address)) {
+                            reply(out, "450 Mailbox busy");
+                        } else {
+                            if (rcpt.length() > 0) {
+                                rcpt.append(",");
+                            }
+                            rcpt.append(address);
+                            reply(out, "250 OK");
+                        }
+                    } else if (cmd.startsWith("DATA")) {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        StringBuffer data = new StringBuffer();
+                        String dataLine = in.readLine();
+                        while ((dataLine != null) && !dataLine.equals(".")) {
+                            data.append(dataLine);
+                            data.append("\n");
+                            dataLine = in.readLine();
+                        }
+                        synchronized (this) {
+                            recipients.add(rcpt.toString());
+                            messages.add(data.toString());
+                        }
+                        reply(out, "250 OK");
+                    } else if (cmd.startsWith("QUIT")) {
+                        reply(out, "221 Bye");
+                        break;
+                    } else {
+                        reply(out, "250 OK");
+                    }
+                    line = in.readLine();
+                }
+                socket.close();
+            } catch (IOException ioex) {
+                // Client disconnected
+            }
+        }
+
+        private static void reply(OutputStream out, String text) throws IOException {
+            out.write((text + "\r\n").getBytes("US-ASCII"));
+            out.flush();
+        }
+    }
+
+
+    private SmtpStub smtp;
+    private File spoolDir;
+
+    protected void setUp() throws Exception {
+        smtp = new SmtpStub();
+        smtp.start();
+        spoolDir = File.createTempFile("mailqueue", "");
+        spoolDir.delete();
+        spoolDir.mkdirs();
+    }
+
+    protected void tearDown() throws Exception {
+        smtp.close();
+        delete(spoolDir);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (int idx = 0; idx < children.length; idx++) {
+                delete(children[idx]);
+            }
+        }
+        file.delete();
+    }
+
+    private Properties getProperties(int port) {
+        Properties props = new Properties();
+        props.put("mail.smtp.host", "127.0.0.1");
+        props.put("mail.smtp.port", Integer.toString(port));
+        return props;
+    }
+
+    private CMnMailQueue createQueue(int capacity, int workers) {
+        CMnMailQueue queue = new CMnMailQueue(getProperties(smtp.getPort()), spoolDir, capacity, workers);
+        queue.setRetryPolicy(3, 100);
+        return queue;
+    }
+
+    private static InternetAddress[] addresses(String list) throws Exception {
+        return InternetAddress.parse(list);
+    }
+
+    private static InternetAddress sender() throws Exception {
+        return new InternetAddress("build@example.com");
+    }
+
+    private int countSpoolFiles() {
+        int count = 0;
+        File[] files = spoolDir.listFiles();
+        for (int idx = 0; idx < files.length; idx++) {
+            if (files[idx].isFile()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void testDelivery() throws Exception {
+        CMnMailQueue queue = createQueue(10, 1);
+        queue.start();
+        assertTrue(queue.send(sender(), addresses("dev@example.com"), addresses("qa@example.com"),
+                              "Build complete", "The build is complete.", "plain"));
+        assertTrue(queue.flush(10000));
+        queue.shutdown(1000);
+
+        assertEquals(1, queue.getSentCount());
+        assertEquals(1, smtp.getMessages().size());
+        assertEquals("dev@example.com,qa@example.com", smtp.getRecipients().get(0));
+        assertTrue(smtp.getMessages().get(0).indexOf("The build is complete.") >= 0);
+        assertEquals(0, countSpoolFiles());
+    }
+
+    public void testConnectionReuse() throws Exception {
+        CMnMailQueue queue = createQueue(10, 1);
+        for (int idx = 0; idx < 5; idx++) {
+            queue.send(sender(), addresses("dev" + idx + "@example.com"), null,
+                       "Build " + idx, "Build " + idx + " is complete.", "plain");
+        }
+        queue.start();
+        assertTrue(queue.flush(10000));
+        queue.shutdown(1000);
+
+        assertEquals(5, smtp.getMessages().size());
+        assertEquals(1, smtp.getConnectionCount());
+    }
+
+    public void testRetry() throws Exception {
+        smtp.setRejectCount(2);
+        CMnMailQueue queue = createQueue(10, 1);
+        queue.start();
+        queue.send(sender(), addresses("dev@example.com"), null, "Retry", "Delivered on retry.", "plain");
+        assertTrue(queue.flush(10000));
+        queue.shutdown(1000);
+
+        assertEquals(1, queue.getSentCount());
+        assertEquals(0, queue.getFailedCount());
+        assertEquals(3, smtp.getConnectionCount());
+        assertEquals(1, smtp.getMessages().size());
+    }
+
+    public void testAbandon() throws Exception {
+        smtp.setRejectCount(3);
+        CMnMailQueue queue = createQueue(10, 1);
+        queue.start();
+        queue.send(sender(), addresses("dev@example.com"), null, "Abandon", "Never delivered.", "plain");
+        assertTrue(queue.flush(10000));
+        queue.shutdown(1000);
+
+        assertEquals(0, queue.getSentCount());
+        assertEquals(1, queue.getFailedCount());
+        assertEquals(0, countSpoolFiles());
+        assertEquals(1, new File(spoolDir, "failed").listFiles().length);
+    }
+
+    public void testCoalesce() throws Exception {
+        CMnMailQueue queue = createQueue(10, 1);
+        assertTrue(queue.send(sender(), addresses("dev@example.com,qa@example.com"), null,
+                              "Build failed", "The build failed.", "plain"));
+        assertTrue(queue.send(sender(), addresses("dev@example.com"), addresses("mgr@example.com"),
+                              "Build failed", "The build failed.", "plain"));
+        assertTrue(queue.send(sender(), addresses("qa@example.com"), null,
+                              "Build failed", "The build failed.", "plain"));
+        assertEquals(2, queue.size());
+
+        queue.start();
+        assertTrue(queue.flush(10000));
+        queue.shutdown(1000);
+
+        Vector<String> recipients = smtp.getRecipients();
+        assertEquals(2, recipients.size());
+        assertEquals("dev@example.com,qa@example.com", recipients.get(0));
+        assertEquals("mgr@example.com", recipients.get(1));
+    }
+
+    public void testCapacity() throws Exception {
+        CMnMailQueue queue = createQueue(2, 1);
+        assertTrue(queue.send(sender(), addresses("a@example.com"), null, "One", "One", "plain"));
+        assertTrue(queue.send(sender(), addresses("b@example.com"), null, "Two", "Two", "plain"));
+        assertFalse(queue.send(sender(), addresses("c@example.com"), null, "Three", "Three", "plain"));
+        assertEquals(2, queue.size());
+    }
+
+    public void testConcurrentSend() throws Exception {
+        final CMnMailQueue queue = createQueue(5, 1);
+        final Vector<Boolean> results = new Vector<Boolean>();
+        Thread[] threads = new Thread[20];
+        for (int idx = 0; idx < threads.length; idx++) {
+            final int id = idx;
+            threads[idx] = new Thread() {
+                public void run() {
+                    try {
+                        // Half of the threads send the same message to the same recipient
+                        String subject = ((id % 2) == 0) ? "Build failed" : "Build " + id;
+                        results.add(Boolean.valueOf(queue.send(sender(), addresses("dev@example.com"), null,
+                                                               subject, subject, "plain")));
+                    } catch (Exception ex) {
+                        results.add(null);
+                    }
+                }
+            };
+        }
+        for (int idx = 0; idx < threads.length; idx++) {
+            threads[idx].start();
+        }
+        for (int idx = 0; idx < threads.length; idx++) {
+            threads[idx].join();
+        }
+
+        // The queue never holds more messages than its capacity and the
+        // identical messages are spooled only once
+        assertFalse(results.contains(null));
+        assertTrue(queue.size() <= 5);
+        assertEquals(queue.size(), countSpoolFiles());
+
+        queue.start();
+        assertTrue(queue.flush(10000));
+        queue.shutdown(1000);
+
+        int copies = 0;
+        Vector<String> messages = smtp.getMessages();
+        for (int idx = 0; idx < messages.size(); idx++) {
+            if (messages.get(idx).indexOf("Build failed") >= 0) {
+                copies++;
+            }
+        }
+        assertTrue(copies <= 1);
+    }
+
+    private String readSpoolFile() throws IOException {
+        File[] files = spoolDir.listFiles();
+        for (int idx = 0; idx < files.length; idx++) {
+            if (files[idx].isFile() && !files[idx].getName().endsWith(".tmp")) {
+                BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(files[idx]), "US-ASCII"));
+                try {
+                    StringBuffer data = new StringBuffer();
+                    String line = in.readLine();
+                    while (line != null) {
+                        data.append(line);
+                        data.append("\n");
+                        line = in.readLine();
+                    }
+                    return data.toString();
+                } finally {
+                    in.close();
+                }
+            }
+        }
+        return null;
+    }
+
+    public void testPartialDeliverySpooled() throws Exception {
+        smtp.setBusyRecipient("qa@example.com");
+        Properties props = getProperties(smtp.getPort());
+        props.put("mail.smtp.sendpartial", "true");
+        CMnMailQueue queue = new CMnMailQueue(props, spoolDir, 10, 1);
+        queue.setRetryPolicy(3, 60000);
+        queue.start();
+        queue.send(sender(), addresses("dev@example.com"), addresses("qa@example.com"), "Partial", "Partial delivery.", "plain");
+
+        // Wait for the spooled message to be updated with the remaining recipient
+        String data = readSpoolFile();
+        for (int idx = 0; (idx < 100) && ((data == null) || (data.indexOf("dev@example.com") >= 0)); idx++) {
+            Thread.sleep(50);
+            data = readSpoolFile();
+        }
+        queue.shutdown(1000);
+        assertEquals(1, smtp.getMessages().size());
+        assertEquals("dev@example.com", smtp.getRecipients().get(0));
+        assertNotNull(data);
+        assertTrue(data, data.indexOf("qa@example.com") >= 0);
+        assertTrue(data, data.indexOf("dev@example.com") < 0);
+
+        // A restarted queue only sends the message to the remaining recipient
+        smtp.setBusyRecipient(null);
+        CMnMailQueue restarted = createQueue(10, 1);
+        restarted.start();
+        assertTrue(restarted.flush(10000));
+        restarted.shutdown(1000);
+        assertEquals(2, smtp.getMessages().size());
+        assertEquals("qa@example.com", smtp.getRecipients().get(1));
+        assertEquals(0, countSpoolFiles());
+    }
+
+    public void testSpool() throws Exception {
+        CMnMailQueue queue = createQueue(10, 1);
+        queue.send(sender(), addresses("dev@example.com"), null, "Spooled", "<b>Spooled</b> message", "html");
+        assertEquals(1, countSpoolFiles());
+
+        // A new queue sends the messages left by the previous one
+        CMnMailQueue restarted = createQueue(10, 1);
+        restarted.start();
+        assertTrue(restarted.flush(10000));
+        restarted.shutdown(1000);
+
+        assertEquals(1, smtp.getMessages().size());
+        String data = smtp.getMessages().get(0);
+        assertTrue(data.indexOf("text/html") >= 0);
+        assertTrue(data.indexOf("<b>Spooled</b> message") >= 0);
+        assertTrue(data.indexOf("Subject: Spooled") >= 0);
+        assertEquals(0, countSpoolFiles());
+    }
+
+}
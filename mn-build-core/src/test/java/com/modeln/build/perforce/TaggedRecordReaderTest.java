@@ -0,0 +1,112 @@
+package com.modeln.build.perforce;
+
+import java.io.StringReader;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.Vector;
+
+import junit.framework.TestCase;
+
+/**
+ * Test methods for verifying the parsing of tagged Perforce output.
+ */
+public class TaggedRecordReaderTest extends TestCase {
+
+    /** Output of p4 -ztag changes -l containing two changes */
+    private static final String CHANGES =
+        "... change 98692\n" +
+        "... time 1065002819\n" +
+        "... user sstafford\n" +
+        "... client sstafford_build\n" +
+        "... status submitted\n" +
+        "... desc Fixed the build.\n" +
+        "\n" +
+        "Second paragraph of the description.\n" +
+        "\n" +
+        "... change 98691\n" +
+        "... time 1065002000\n" +
+        "... user kan\n" +
+        "... client kan_main\n" +
+        "... status submitted\n" +
+        "... desc Updated the patch tool\n" +
+        "\n";
+
+    private static Vector<TaggedRecord> readAll(String text) throws Exception {
+        final Vector<TaggedRecord> records = new Vector<TaggedRecord>();
+        TaggedRecordReader reader = new TaggedRecordReader(new StringReader(text));
+        reader.readAll(new RecordHandler<TaggedRecord>() {
+            public void handleRecord(TaggedRecord record) {
+                records.add(record);
+            }
+        });
+        reader.close();
+        return records;
+    }
+
+    public void testRecords() throws Exception {
+        Vector<TaggedRecord> records = readAll(CHANGES);
+        assertEquals(2, records.size());
+        assertEquals(98692, records.get(0).getIntField("change", 0));
+        assertEquals(new Date(1065002819000L), records.get(0).getDateField("time"));
+        assertEquals("sstafford", records.get(0).getField("user"));
+        assertEquals("Fixed the build.\n\nSecond paragraph of the description.",
+                     records.get(0).getField("desc"));
+        assertEquals("kan_main", records.get(1).getField("client"));
+        assertEquals("Updated the patch tool", records.get(1).getField("desc"));
+    }
+
+    public void testChangelist() throws Exception {
+        Vector<TaggedRecord> records = readAll(CHANGES);
+        Changelist change = Changelist.parseTaggedFormat(records.get(1));
+        assertEquals(98691, change.getNumber());
+        assertEquals("kan", change.getUser());
+        assertEquals("submitted", change.getStatus());
+        assertEquals(new Date(1065002000000L), change.getDate());
+    }
+
+    public void testFixRecord() throws Exception {
+        Vector<TaggedRecord> records = readAll(
+            "... Job pdbug12345\n" +
+            "... Change 175204\n" +
+            "... Date 1065002819\n" +
+            "... Client kan_main\n" +
+            "... User kan\n" +
+            "... Status closed\n" +
+            "\n");
+        assertEquals(1, records.size());
+        FixRecord fix = FixRecord.parseTaggedFormat(records.get(0), TimeZone.getTimeZone("GMT-7:00"));
+        assertEquals("pdbug12345", fix.getJob());
+        assertEquals("175204", fix.getChangelist());
+        assertEquals("kan@kan_main", fix.getAuthor());
+        assertEquals("2003/10/01", fix.getDate());
+
+        // The date is represented in the time zone of the server rather than the client
+        fix = FixRecord.parseTaggedFormat(records.get(0), TimeZone.getTimeZone("GMT-11:00"));
+        assertEquals("2003/09/30", fix.getDate());
+    }
+
+    public void testServerTimeZone() throws Exception {
+        assertEquals(-7 * 60 * 60 * 1000, Common.getTimeZone("-25200").getRawOffset());
+        assertEquals(5 * 60 * 60 * 1000 + 30 * 60 * 1000, Common.getTimeZone("19800").getRawOffset());
+        assertEquals(TimeZone.getDefault(), Common.getTimeZone("invalid"));
+        assertEquals(TimeZone.getDefault(), Common.getTimeZone(null));
+    }
+
+    public void testNestedFields() throws Exception {
+        Vector<TaggedRecord> records = readAll(
+            "... depotFile //depot/main/build.xml\n" +
+            "... ... rev0 3\n" +
+            "... ... action0 edit\n" +
+            "... ... desc0 \n");
+        assertEquals(1, records.size());
+        assertEquals("3", records.get(0).getField("rev0"));
+        assertEquals("edit", records.get(0).getField("action0"));
+        assertEquals("", records.get(0).getField("desc0"));
+    }
+
+    public void testEmptyOutput() throws Exception {
+        assertEquals(0, readAll("").size());
+        assertEquals(0, readAll("\n\n").size());
+    }
+
+}
@@ -0,0 +1,255 @@
+package com.modeln.build.scheduler;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Vector;
+
+import junit.framework.TestCase;
+
+/**
+ * Test methods for verifying the order in which the task managers
+ * execute tasks.
+ */
+public class TaskManagerTest extends TestCase {
+
+    /** Task which records the order of execution and can be held until released */
+    private static class RecordingTask extends ScheduledTask {
+        private final Vector<String> order;
+        private final Object gate;
+        private boolean released = true;
+
+        RecordingTask(String name, Vector<String> order) {
+            this(name, order, null);
+        }
+
+        RecordingTask(String name, Vector<String> order, Object gate) {
+            super(name);
+            this.order = order;
+            this.gate = gate;
+            if (gate != null) {
+                released = false;
+            }
+        }
+
+        public void run() {
+            order.add(getName());
+            if (gate != null) {
+                synchronized (gate) {
+                    while (!released && !isCancelled()) {
+                        try {
+                            gate.wait();
+                        } catch (InterruptedException ex) {
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+
+        void release() {
+            synchronized (gate) {
+                released = true;
+                gate.notifyAll();
+            }
+        }
+    }
+
+    private static RecordingTask createTask(String name, int priority, long age, Vector<String> order) {
+        RecordingTask task = new RecordingTask(name, order);
+        task.setTaskPriority(priority);
+        task.setSchedule(new Date(System.currentTimeMillis() - age));
+        return task;
+    }
+
+    private static void waitFor(Vector<String> order, int count) throws InterruptedException {
+        long end = System.currentTimeMillis() + 10000;
+        while ((order.size() < count) && (System.currentTimeMillis() < end)) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, order.size());
+    }
+
+    private static void stop(TaskManager mgr) throws InterruptedException {
+        mgr.shutdown();
+        mgr.join(10000);
+        assertFalse(mgr.isAlive());
+    }
+
+    public void testPriorityOrder() throws Exception {
+        Vector<String> order = new Vector<String>();
+        ScheduledTaskManager mgr = new ScheduledTaskManager("priority");
+        mgr.setMaxThreads(1);
+        mgr.setAgingInterval(0);
+        mgr.add(createTask("low", Task.LOW_PRIORITY, 0, order));
+        mgr.add(createTask("background", Task.BACKGROUND_PRIORITY, 0, order));
+        mgr.add(createTask("critical", Task.CRITICAL_PRIORITY, 0, order));
+        RecordingTask normal = createTask("normal", Task.NORMAL_PRIORITY, 0, order);
+        normal.setTaskPriority(TaskPriority.MEDIUM);
+        mgr.add(normal);
+        mgr.start();
+
+        waitFor(order, 4);
+        stop(mgr);
+        assertEquals("critical", order.get(0));
+        assertEquals("normal", order.get(1));
+        assertEquals("low", order.get(2));
+        assertEquals("background", order.get(3));
+    }
+
+    public void testAging() throws Exception {
+        Vector<String> order = new Vector<String>();
+        ScheduledTaskManager mgr = new ScheduledTaskManager("aging");
+        mgr.setMaxThreads(1);
+        mgr.setAgingInterval(1000);
+
+        // A background task waiting for five aging intervals has overtaken a new critical task
+        mgr.add(createTask("critical", Task.CRITICAL_PRIORITY, 0, order));
+        RecordingTask starved = createTask("starved", Task.BACKGROUND_PRIORITY, 5000, order);
+        mgr.add(starved);
+        assertSame(starved, mgr.peekNext());
+        assertTrue(mgr.getWeightedPriority(starved) > 0.99);
+        mgr.start();
+
+        waitFor(order, 2);
+        stop(mgr);
+        assertEquals("starved", order.get(0));
+        assertEquals("critical", order.get(1));
+    }
+
+    public void testDelayedTask() throws Exception {
+        Vector<String> order = new Vector<String>();
+        ScheduledTaskManager mgr = new ScheduledTaskManager("delay");
+        mgr.start();
+
+        RecordingTask delayed = new RecordingTask("delayed", order);
+        delayed.setDelay(300);
+        mgr.add(delayed);
+        mgr.add(new RecordingTask("immediate", order));
+        assertTrue(mgr.getTimeToNext() <= 0);
+
+        waitFor(order, 2);
+        stop(mgr);
+        assertEquals("immediate", order.get(0));
+        assertEquals("delayed", order.get(1));
+        assertTrue(mgr.getMetrics("delayed").getLastStart().getTime() >= delayed.getSchedule().getTime());
+    }
+
+    public void testLongTaskDoesNotBlock() throws Exception {
+        Vector<String> order = new Vector<String>();
+        ScheduledTaskManager mgr = new ScheduledTaskManager("blocking");
+        mgr.setMaxThreads(2);
+        mgr.start();
+
+        RecordingTask slow = new RecordingTask("slow", order, new Object());
+        mgr.add(slow);
+        waitFor(order, 1);
+        mgr.add(new RecordingTask("fast", order));
+        waitFor(order, 2);
+        long end = System.currentTimeMillis() + 10000;
+        while ((mgr.getActiveCount() > 1) && (System.currentTimeMillis() < end)) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, mgr.getActiveCount());
+
+        slow.release();
+        stop(mgr);
+        assertEquals("fast", order.get(1));
+        assertEquals(1, mgr.getMetrics("slow").getRunCount());
+    }
+
+    public void testCancel() throws Exception {
+        Vector<String> order = new Vector<String>();
+        ScheduledTaskManager mgr = new ScheduledTaskManager("cancel");
+        RecordingTask task = new RecordingTask("cancelled", order);
+        task.setDelay(200);
+        mgr.add(task);
+        try {
+            mgr.add(new RecordingTask("cancelled", order));
+            fail("Duplicate task name was accepted");
+        } catch (IllegalStateException ex) {
+        }
+        assertTrue(mgr.cancel("cancelled"));
+        assertFalse(mgr.cancel("cancelled"));
+        assertFalse(mgr.hasTasks());
+        assertTrue(task.isCancelled());
+
+        mgr.add(new RecordingTask("kept", order));
+        mgr.start();
+        waitFor(order, 1);
+        Thread.sleep(300);
+        stop(mgr);
+        assertEquals(1, order.size());
+        assertEquals("kept", order.get(0));
+    }
+
+    public void testMetrics() throws Exception {
+        ScheduledTaskManager mgr = new ScheduledTaskManager("metrics");
+        mgr.add(new ScheduledTask("failure") {
+            public void run() {
+                throw new IllegalStateException("Task failed");
+            }
+        });
+        mgr.start();
+        long end = System.currentTimeMillis() + 10000;
+        while ((mgr.getMetrics("failure") == null) && (System.currentTimeMillis() < end)) {
+            Thread.sleep(10);
+        }
+        stop(mgr);
+
+        TaskMetrics metrics = mgr.getMetrics("failure");
+        assertEquals(1, metrics.getRunCount());
+        assertEquals(1, metrics.getFailureCount());
+        assertTrue(metrics.getLastError() instanceof IllegalStateException);
+        assertEquals(1, mgr.getMetrics().size());
+    }
+
+    public void testCronSchedule() throws Exception {
+        RecurringTask task = new RecurringTask("nightly");
+        task.setSchedule("30 2 * * 1-5");
+
+        // Friday, January 4, 2002 at 3:00 rolls to Monday at 2:30
+        GregorianCalendar from = new GregorianCalendar(2002, Calendar.JANUARY, 4, 3, 0);
+        Date next = task.getNextOccurrence(from.getTime()).getSchedule();
+        assertEquals(new GregorianCalendar(2002, Calendar.JANUARY, 7, 2, 30).getTime(), next);
+
+        // The minute that has already started is skipped
+        from = new GregorianCalendar(2002, Calendar.JANUARY, 7, 2, 30);
+        next = task.getNextOccurrence(from.getTime()).getSchedule();
+        assertEquals(new GregorianCalendar(2002, Calendar.JANUARY, 8, 2, 30).getTime(), next);
+
+        task.setSchedule("*/15 * 31 12 *");
+        from = new GregorianCalendar(2002, Calendar.MARCH, 1, 12, 7);
+        next = task.getNextOccurrence(from.getTime()).getSchedule();
+        assertEquals(new GregorianCalendar(2002, Calendar.DECEMBER, 31, 0, 0).getTime(), next);
+
+        // February 30 never occurs
+        task.setSchedule("0 0 30 2 *");
+        assertNull(task.getNextOccurrence(from.getTime()));
+
+        try {
+            task.setSchedule("61 * * * *");
+            fail("Invalid minute was accepted");
+        } catch (IllegalArgumentException ex) {
+        }
+    }
+
+    public void testRecurringTask() throws Exception {
+        RecurringTask task = new RecurringTask("recurring");
+        RecurringTaskManager mgr = new RecurringTaskManager("recurring");
+        mgr.add(task);
+        assertTrue(mgr.hasTasks());
+        assertTrue(mgr.getTimeToNext() <= 60 * 1000);
+        assertTrue(mgr.peekNext() instanceof RecurringTask.Occurrence);
+        assertEquals("recurring", mgr.peekNext().getName());
+
+        // The first occurrence is not due until the start of the next minute
+        assertNull(mgr.removeNext());
+
+        assertTrue(mgr.cancel("recurring"));
+        assertFalse(mgr.hasTasks());
+        assertTrue(task.isCancelled());
+        assertTrue(task.getNextOccurrence(new Date()).isCancelled());
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.modeln.build.sdtracker;
+
+import junit.framework.TestCase;
+
+/**
+ * Test methods for verifying the expiration and eviction of cache entries.
+ */
+public class CMnTimedCacheTest extends TestCase {
+
+    public void testHitsAndMisses() throws Exception {
+        CMnTimedCache<Integer, String> cache = new CMnTimedCache<Integer, String>(10, 60000);
+        assertFalse(cache.containsKey(Integer.valueOf(1)));
+        cache.put(Integer.valueOf(1), "build");
+        cache.put(Integer.valueOf(2), null);
+
+        assertTrue(cache.containsKey(Integer.valueOf(1)));
+        assertEquals("build", cache.get(Integer.valueOf(1)));
+
+        // A null value is cached as a valid entry
+        assertTrue(cache.containsKey(Integer.valueOf(2)));
+        assertNull(cache.get(Integer.valueOf(2)));
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        cache.resetCounts();
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    public void testExpiration() throws Exception {
+        CMnTimedCache<Integer, String> cache = new CMnTimedCache<Integer, String>(10, 100);
+        cache.put(Integer.valueOf(1), "build");
+        assertTrue(cache.containsKey(Integer.valueOf(1)));
+
+        Thread.sleep(250);
+
+        // Expired entries remain in the cache until they are looked up
+        assertEquals(1, cache.size());
+        assertNull(cache.get(Integer.valueOf(1)));
+        assertEquals(1, cache.size());
+        assertFalse(cache.containsKey(Integer.valueOf(1)));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        // Replacing an entry resets the expiration time
+        cache.put(Integer.valueOf(1), "release");
+        assertTrue(cache.containsKey(Integer.valueOf(1)));
+        assertEquals("release", cache.get(Integer.valueOf(1)));
+    }
+
+    public void testEviction() throws Exception {
+        CMnTimedCache<Integer, String> cache = new CMnTimedCache<Integer, String>(3, 60000);
+        cache.put(Integer.valueOf(1), "one");
+        cache.put(Integer.valueOf(2), "two");
+        cache.put(Integer.valueOf(3), "three");
+
+        // Using the first entry makes the second entry the least recently used
+        assertTrue(cache.containsKey(Integer.valueOf(1)));
+        cache.put(Integer.valueOf(4), "four");
+
+        assertEquals(3, cache.size());
+        assertFalse(cache.containsKey(Integer.valueOf(2)));
+        assertTrue(cache.containsKey(Integer.valueOf(1)));
+        assertTrue(cache.containsKey(Integer.valueOf(3)));
+        assertTrue(cache.containsKey(Integer.valueOf(4)));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    public void testDisabled() throws Exception {
+        CMnTimedCache<Integer, String> cache = new CMnTimedCache<Integer, String>(0, 60000);
+        cache.put(Integer.valueOf(1), "build");
+        assertEquals(0, cache.size());
+        assertFalse(cache.containsKey(Integer.valueOf(1)));
+    }
+
+}
@@ -0,0 +1,328 @@
+package com.modeln.build.sourcecontrol;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.TreeFormatter;
+
+import junit.framework.TestCase;
+
+/**
+ * Test methods for verifying the git notes index against a temporary
+ * repository.  The notes commits are written directly so that the tests
+ * control whether each note is stored at a flat or a fan-out path.
+ */
+public class CMnGitNoteIndexTest extends TestCase {
+
+    /** Notes namespace used by the tests */
+    private static final String NOTES_REF = "refs/notes/defect";
+
+    /** Temporary repository directory */
+    private File root;
+
+    /** Index file */
+    private File indexFile;
+
+    /** Repository */
+    private Git git;
+
+    /** Number of commits made to the repository */
+    private int commitCount = 0;
+
+    protected void setUp() throws Exception {
+        root = File.createTempFile("notes", "");
+        root.delete();
+        git = Git.init().setDirectory(root).call();
+        indexFile = new File(root, "notes.idx");
+    }
+
+    protected void tearDown() throws Exception {
+        git.getRepository().close();
+        delete(root);
+    }
+
+    /**
+     * Delete a file or directory and all of its contents.
+     */
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (int idx = 0; idx < children.length; idx++) {
+                delete(children[idx]);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * Commit a change to a file on the current branch.
+     *
+     * @return Commit SHA
+     */
+    private String commit() throws Exception {
+        commitCount++;
+        FileOutputStream out = new FileOutputStream(new File(root, "file.txt"));
+        try {
+            out.write(("change " + commitCount + "\n").getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        git.add().addFilepattern("file.txt").call();
+        return git.commit().setMessage("Change " + commitCount).setAuthor("build", "build@modeln.com").call().getName();
+    }
+
+    /**
+     * Return the path of a note stored with a 2 character fan-out directory.
+     */
+    private static String fanOut(String commit) {
+        return commit.substring(0, 2) + "/" + commit.substring(2);
+    }
+
+    /**
+     * Write a tree containing the notes, creating sub-trees for any
+     * fan-out directories.
+     *
+     * @param  inserter  Object inserter
+     * @param  notes     Note content indexed by path
+     * @return Tree ID
+     */
+    private static ObjectId writeTree(ObjectInserter inserter, Map<String, String> notes) throws IOException {
+        TreeMap<String, Object> entries = new TreeMap<String, Object>();
+        TreeMap<String, Map<String, String>> dirs = new TreeMap<String, Map<String, String>>();
+        Iterator<String> iter = notes.keySet().iterator();
+        while (iter.hasNext()) {
+            String path = iter.next();
+            int split = path.indexOf('/');
+            if (split > 0) {
+                String dir = path.substring(0, split);
+                Map<String, String> children = dirs.get(dir);
+                if (children == null) {
+                    children = new TreeMap<String, String>();
+                    dirs.put(dir, children);
+                }
+                children.put(path.substring(split + 1), notes.get(path));
+            } else {
+                entries.put(path, inserter.insert(Constants.OBJ_BLOB, notes.get(path).getBytes("UTF-8")));
+            }
+        }
+        Iterator<String> dirIter = dirs.keySet().iterator();
+        while (dirIter.hasNext()) {
+            String dir = dirIter.next();
+            entries.put(dir, writeTree(inserter, dirs.get(dir)));
+        }
+
+        TreeFormatter tree = new TreeFormatter();
+        Iterator<String> entryIter = entries.keySet().iterator();
+        while (entryIter.hasNext()) {
+            String name = entryIter.next();
+            FileMode mode = dirs.containsKey(name) ? FileMode.TREE : FileMode.REGULAR_FILE;
+            tree.append(name, mode, (ObjectId) entries.get(name));
+        }
+        return inserter.insert(tree);
+    }
+
+    /**
+     * Replace the notes with a new notes commit.
+     *
+     * @param  notes     Note content indexed by path
+     */
+    private void writeNotes(Map<String, String> notes) throws Exception {
+        Repository repository = git.getRepository();
+        ObjectInserter inserter = repository.newObjectInserter();
+        try {
+            CommitBuilder commit = new CommitBuilder();
+            commit.setTreeId(writeTree(inserter, notes));
+            ObjectId parent = repository.resolve(NOTES_REF);
+            if (parent != null) {
+                commit.setParentId(parent);
+            }
+            PersonIdent ident = new PersonIdent("build", "build@modeln.com");
+            commit.setAuthor(ident);
+            commit.setCommitter(ident);
+            commit.setMessage("Notes added by 'git notes add'");
+            ObjectId commitId = inserter.insert(commit);
+            inserter.flush();
+
+            RefUpdate update = repository.updateRef(NOTES_REF);
+            update.setNewObjectId(commitId);
+            update.setForceUpdate(true);
+            update.update();
+        } finally {
+            inserter.release();
+        }
+    }
+
+    private CMnGitNoteIndex createIndex() {
+        return new CMnGitNoteIndex(git.getRepository(), NOTES_REF, indexFile);
+    }
+
+    public void testIncrementalRefresh() throws Exception {
+        String c1 = commit();
+        String c2 = commit();
+        String c3 = commit();
+        String c4 = commit();
+
+        TreeMap<String, String> notes = new TreeMap<String, String>();
+        notes.put(c1, "100 200\n");
+        notes.put(c2, "200\n");
+        notes.put(c4, "400\n");
+        writeNotes(notes);
+
+        CMnGitNoteIndex index = createIndex();
+        index.refresh();
+        assertEquals(Arrays.asList(new String[] { "100", "200" }), index.getBugIds(c1));
+        assertEquals(2, index.getCheckIns("200").size());
+        assertNull(index.getBugIds(c3));
+
+        // Remove, modify, and add notes, keeping one note unchanged
+        notes.remove(c1);
+        notes.put(c2, "300\n");
+        notes.put(c3, "BUG-500\n");
+        writeNotes(notes);
+        index.refresh();
+        assertNull(index.getBugIds(c1));
+        assertNull(index.getCheckIns("100"));
+        assertNull(index.getCheckIns("200"));
+        assertEquals(Arrays.asList(new String[] { c2 }), index.getCheckIns("300"));
+        assertEquals(Arrays.asList(new String[] { c3 }), index.getCheckIns("bug-500"));
+        assertEquals(Arrays.asList(new String[] { "400" }), index.getBugIds(c4));
+    }
+
+    public void testFanOutPaths() throws Exception {
+        String c1 = commit();
+        String c2 = commit();
+        String c3 = commit();
+
+        // Git moves the notes to fan-out directories as the notes grow
+        TreeMap<String, String> notes = new TreeMap<String, String>();
+        notes.put(c1, "100\n");
+        notes.put(c2, "200\n");
+        writeNotes(notes);
+
+        CMnGitNoteIndex index = createIndex();
+        index.refresh();
+
+        notes.clear();
+        notes.put(fanOut(c1), "100\n");
+        notes.put(fanOut(c2), "200 201\n");
+        notes.put(fanOut(c3), "300\n");
+        writeNotes(notes);
+        index.refresh();
+        assertEquals(Arrays.asList(new String[] { "100" }), index.getBugIds(c1));
+        assertEquals(Arrays.asList(new String[] { "200", "201" }), index.getBugIds(c2));
+        assertEquals(Arrays.asList(new String[] { c3 }), index.getCheckIns("300"));
+        assertEquals(Arrays.asList(new String[] { "100" }), index.getBugIds(c1.toUpperCase()));
+
+        // A fresh index reads the fan-out paths in full
+        indexFile.delete();
+        CMnGitNoteIndex fresh = createIndex();
+        fresh.refresh();
+        assertEquals(Arrays.asList(new String[] { "200", "201" }), fresh.getBugIds(c2));
+        assertEquals(Arrays.asList(new String[] { c1 }), fresh.getCheckIns("100"));
+    }
+
+    public void testSaveAndLoad() throws Exception {
+        String c1 = commit();
+        String c2 = commit();
+        String c3 = commit();
+
+        TreeMap<String, String> notes = new TreeMap<String, String>();
+        notes.put(c1, "100\n");
+        notes.put(fanOut(c3), "300 301\n");
+        writeNotes(notes);
+
+        CMnGitNoteIndex index = createIndex();
+        index.refresh();
+        List<String> commits = index.getBranchCommits("master", c1);
+        assertTrue(indexFile.exists());
+        assertFalse(new File(indexFile.getPath() + ".tmp").exists());
+
+        // Saving again replaces the existing index file
+        notes.put(c2, "200\n");
+        writeNotes(notes);
+        index.refresh();
+        assertTrue(indexFile.exists());
+        assertFalse(new File(indexFile.getPath() + ".tmp").exists());
+
+        // The notes are up to date, so a refresh only loads the file
+        CMnGitNoteIndex loaded = createIndex();
+        loaded.refresh();
+        assertEquals(Arrays.asList(new String[] { "100" }), loaded.getBugIds(c1));
+        assertEquals(Arrays.asList(new String[] { "200" }), loaded.getBugIds(c2));
+        assertEquals(Arrays.asList(new String[] { "300", "301" }), loaded.getBugIds(c3));
+        assertEquals(Arrays.asList(new String[] { c3 }), loaded.getCheckIns("301"));
+        assertEquals(commits, loaded.getBranchCommits("master", c1));
+
+        // An unreadable index is rebuilt from the notes
+        FileOutputStream out = new FileOutputStream(indexFile);
+        try {
+            out.write("corrupt\n".getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        CMnGitNoteIndex rebuilt = createIndex();
+        rebuilt.refresh();
+        assertEquals(Arrays.asList(new String[] { "300", "301" }), rebuilt.getBugIds(c3));
+    }
+
+    public void testBranchDelta() throws Exception {
+        String start = commit();
+        git.branchCreate().setName("dev").call();
+        git.checkout().setName("dev").call();
+        String d1 = commit();
+        String d2 = commit();
+
+        CMnGitNoteIndex index = createIndex();
+        assertEquals(Arrays.asList(new String[] { d2, d1, start }), index.getBranchCommits("dev", start));
+
+        // Only the new commits are walked when the branch moves forward
+        String d3 = commit();
+        assertEquals(Arrays.asList(new String[] { d3, d2, d1, start }), index.getBranchCommits("dev", start));
+
+        // The delta is also applied to a branch loaded from the index file
+        String d4 = commit();
+        CMnGitNoteIndex loaded = createIndex();
+        assertEquals(Arrays.asList(new String[] { d4, d3, d2, d1, start }), loaded.getBranchCommits("dev", start));
+
+        // The branch is walked in full when the previous head is no longer on the branch
+        git.reset().setMode(ResetCommand.ResetType.HARD).setRef(d1).call();
+        String d5 = commit();
+        assertEquals(Arrays.asList(new String[] { d5, d1, start }), loaded.getBranchCommits("dev", start));
+    }
+
+    public void testReturnsCopies() throws Exception {
+        String c1 = commit();
+        TreeMap<String, String> notes = new TreeMap<String, String>();
+        notes.put(c1, "100\n");
+        writeNotes(notes);
+
+        CMnGitNoteIndex index = createIndex();
+        index.refresh();
+        index.getBugIds(c1).add("999");
+        index.getCheckIns("100").clear();
+        List<String> commits = index.getBranchCommits("master", c1);
+        commits.add("extra");
+
+        assertEquals(Arrays.asList(new String[] { "100" }), index.getBugIds(c1));
+        assertEquals(Arrays.asList(new String[] { c1 }), index.getCheckIns("100"));
+        assertEquals(new ArrayList<String>(Arrays.asList(new String[] { c1 })), index.getBranchCommits("master", c1));
+    }
+
+}
@@ -0,0 +1,266 @@
+package com.modeln.build.sourcecontrol;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.eclipse.jgit.api.AddCommand;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+/**
+ * Measures the time taken to determine whether a commit has been merged
+ * to another branch.  The benchmark generates a synthetic repository in
+ * which the destination branch contains many unrelated commits and a few
+ * near copies of the base commit, which is the case that requires the
+ * commit diffs to be compared.  The benchmark is not run as part of the
+ * unit tests.  Run it from the command line with the test classpath:
+ * <pre>
+ *   java com.modeln.build.sourcecontrol.CMnGitServerBenchmark [commits] [files] [iterations]
+ * </pre>
+ * The defaults create 600 commits on the destination branch which modify
+ * 60 files of 400 lines each.  The repository is created in a temporary
+ * directory and deleted when the benchmark completes.
+ */
+public class CMnGitServerBenchmark {
+
+    /** Number of lines in each generated file */
+    private static final int LINES = 400;
+
+    /** Words used to generate the file content */
+    private static final String[] WORDS = {
+        "alpha", "beta", "gamma", "delta", "epsilon", "zeta", "eta", "theta", "iota", "kappa"
+    };
+
+    /** Random number generator used to generate the content */
+    private static Random rnd = new Random(7);
+
+    /**
+     * Generate a random line of text.  The small vocabulary produces
+     * lines which are repeated within and across files.
+     *
+     * @return  Line of text
+     */
+    private static String getLine() {
+        StringBuffer line = new StringBuffer();
+        for (int idx = 0; idx < 6; idx++) {
+            if (idx > 0) line.append(' ');
+            line.append(WORDS[rnd.nextInt(WORDS.length)]);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Write the lines to a file in the repository.
+     *
+     * @param   root    Repository directory
+     * @param   name    File name relative to the repository
+     * @param   lines   File content
+     */
+    private static void write(File root, String name, String[] lines) throws IOException {
+        File file = new File(root, name);
+        file.getParentFile().mkdirs();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            for (int idx = 0; idx < lines.length; idx++) {
+                writer.write(lines[idx]);
+                writer.write('\n');
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Replace the given number of randomly selected lines in each file.
+     *
+     * @param   root     Repository directory
+     * @param   content  Content of each file, indexed by file name
+     * @param   names    Files to modify
+     * @param   count    Number of lines to replace in each file
+     */
+    private static void modify(File root, Map<String, String[]> content, List<String> names, int count) throws IOException {
+        for (int idx = 0; idx < names.size(); idx++) {
+            String[] lines = content.get(names.get(idx));
+            for (int line = 0; line < count; line++) {
+                lines[rnd.nextInt(LINES)] = getLine();
+            }
+            write(root, names.get(idx), lines);
+        }
+    }
+
+    /**
+     * Commit the modified files.
+     *
+     * @param   git      Repository
+     * @param   names    Files to commit
+     * @param   message  Commit message
+     * @return  Commit
+     */
+    private static RevCommit commit(Git git, List<String> names, String message) throws Exception {
+        AddCommand add = git.add();
+        for (int idx = 0; idx < names.size(); idx++) {
+            add.addFilepattern(names.get(idx));
+        }
+        add.call();
+        return git.commit().setMessage(message).setAuthor("build", "build@modeln.com").call();
+    }
+
+    /**
+     * Generate the synthetic repository.  The base commit is made on the
+     * master branch and the destination branch contains the unrelated
+     * commits and the copies of the base commit.
+     *
+     * @param   root     Repository directory
+     * @param   commits  Number of commits on the destination branch
+     * @param   files    Number of files in the repository
+     * @return  ID of the base commit
+     */
+    private static String createRepository(File root, int commits, int files) throws Exception {
+        Git git = Git.init().setDirectory(root).call();
+        try {
+            List<String> names = new ArrayList<String>();
+            Map<String, String[]> content = new HashMap<String, String[]>();
+            for (int idx = 0; idx < files; idx++) {
+                String name = "src/File" + idx + ".java";
+                String[] lines = new String[LINES];
+                for (int line = 0; line < LINES; line++) {
+                    lines[line] = getLine();
+                }
+                names.add(name);
+                content.put(name, lines);
+                write(root, name, lines);
+            }
+            commit(git, names, "Initial version");
+            git.branchCreate().setName("dest").call();
+
+            // The base commit modifies the first two files
+            List<String> baseFiles = names.subList(0, 2);
+            Map<String, String[]> baseContent = new HashMap<String, String[]>();
+            modify(root, content, baseFiles, 60);
+            for (int idx = 0; idx < baseFiles.size(); idx++) {
+                baseContent.put(baseFiles.get(idx), content.get(baseFiles.get(idx)).clone());
+            }
+            String base = commit(git, baseFiles, "Fix the widget").getName();
+
+            git.checkout().setName("dest").call();
+            for (int idx = 0; idx < files; idx++) {
+                content.put(names.get(idx), read(root, names.get(idx)));
+            }
+            for (int idx = 0; idx < commits; idx++) {
+                if ((idx % 97) == 5) {
+                    // Apply the base change with a few additional edits
+                    for (Iterator<String> iter = baseContent.keySet().iterator(); iter.hasNext(); ) {
+                        String name = iter.next();
+                        content.put(name, baseContent.get(name).clone());
+                    }
+                    modify(root, content, baseFiles, idx % 5);
+                    commit(git, baseFiles, ((idx % 2) == 1) ? "Fix the widget" : "Port widget fix");
+                } else if ((idx % 31) == 3) {
+                    // Unrelated change to the same files as the base commit
+                    modify(root, content, baseFiles, 20 + rnd.nextInt(60));
+                    commit(git, baseFiles, "Change " + idx);
+                } else {
+                    List<String> selected = new ArrayList<String>();
+                    int count = 1 + rnd.nextInt(3);
+                    while (selected.size() < count) {
+                        String name = names.get(rnd.nextInt(names.size()));
+                        if (!selected.contains(name)) selected.add(name);
+                    }
+                    modify(root, content, selected, 20 + rnd.nextInt(60));
+                    commit(git, selected, "Change " + idx);
+                }
+            }
+            return base;
+        } finally {
+            git.getRepository().close();
+        }
+    }
+
+    /**
+     * Read the lines of a file in the repository.
+     *
+     * @param   root    Repository directory
+     * @param   name    File name relative to the repository
+     * @return  File content
+     */
+    private static String[] read(File root, String name) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+            new FileInputStream(new File(root, name)), "UTF-8"));
+        try {
+            List<String> lines = new ArrayList<String>();
+            String line = reader.readLine();
+            while (line != null) {
+                lines.add(line);
+                line = reader.readLine();
+            }
+            return lines.toArray(new String[lines.size()]);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Delete a file or directory and all of its contents.
+     *
+     * @param   file    File or directory
+     */
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (int idx = 0; idx < children.length; idx++) {
+                delete(children[idx]);
+            }
+        }
+        file.delete();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int commits = (args.length > 0) ? Integer.parseInt(args[0]) : 600;
+        int files = (args.length > 1) ? Integer.parseInt(args[1]) : 60;
+        int iterations = (args.length > 2) ? Integer.parseInt(args[2]) : 3;
+
+        File root = File.createTempFile("gitbench", "");
+        root.delete();
+        try {
+            long start = System.currentTimeMillis();
+            String base = createRepository(root, commits, files);
+            System.out.println("Repository:         " + commits + " commits, " + files + " files ("
+                + (System.currentTimeMillis() - start) + " ms)");
+
+            CMnGitServer server = new CMnGitServer("build", "build", root.toURI().toString());
+            server.init(root);
+            for (int idx = 0; idx < iterations; idx++) {
+                start = System.currentTimeMillis();
+                HashMap<CMnCheckIn, Float> matches = server.isMerged("master", "dest", base);
+                long elapsed = System.currentTimeMillis() - start;
+
+                // Sort the matches so that the results can be compared between runs
+                TreeMap<String, Float> sorted = new TreeMap<String, Float>();
+                for (Iterator<CMnCheckIn> iter = matches.keySet().iterator(); iter.hasNext(); ) {
+                    CMnCheckIn checkin = iter.next();
+                    sorted.put(checkin.getId(), matches.get(checkin));
+                }
+                System.out.println("isMerged:           " + elapsed + " ms, " + sorted.size() + " matches");
+                if (idx == 0) {
+                    System.out.println("Matches:            " + sorted);
+                }
+            }
+        } finally {
+            delete(root);
+        }
+    }
+
+}
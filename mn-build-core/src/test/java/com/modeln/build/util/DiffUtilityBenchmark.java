@@ -0,0 +1,179 @@
+package com.modeln.build.util;
+
+import java.util.Random;
+import java.util.Vector;
+
+/**
+ * Measures the time and memory used by the difference calculations on a
+ * pair of generated files, and compares them with the dynamic programming
+ * table that StringUtility.getEquality used before DiffUtility was added.
+ * The benchmark is not run as part of the unit tests.  Run it from the
+ * command line with the test classpath:
+ * <pre>
+ *   java com.modeln.build.util.DiffUtilityBenchmark [lines] [changed%] [iterations]
+ * </pre>
+ * The defaults compare two 4000 line files where 10 percent of the lines
+ * have been changed.  Both implementations are timed on the same input.
+ * The table requires (lines + 1)^2 integers, so it is skipped when the
+ * table would not fit in half of the maximum heap.
+ */
+public class DiffUtilityBenchmark {
+
+    /** Number of iterations used to warm up the JIT compiler */
+    private static final int WARMUP = 5;
+
+    /**
+     * Generate the original file.  Each line is unique, as is typical of
+     * source code where most lines differ from their neighbors.
+     *
+     * @param   count   Number of lines
+     * @return  List of lines
+     */
+    private static Vector<String> getOriginal(int count) {
+        Vector<String> lines = new Vector<String>(count);
+        for (int idx = 0; idx < count; idx++) {
+            lines.add("line " + idx);
+        }
+        return lines;
+    }
+
+    /**
+     * Generate a modified copy of the file by replacing, deleting or
+     * inserting lines at random.
+     *
+     * @param   original  Original lines
+     * @param   percent   Percentage of lines to modify
+     * @param   rnd       Random number generator
+     * @return  List of lines
+     */
+    private static Vector<String> getModified(Vector<String> original, int percent, Random rnd) {
+        Vector<String> lines = new Vector<String>(original.size());
+        for (int idx = 0; idx < original.size(); idx++) {
+            if (rnd.nextInt(100) < percent) {
+                int choice = rnd.nextInt(3);
+                if (choice == 0) {
+                    lines.add("changed " + idx);
+                } else if (choice == 1) {
+                    lines.add(original.get(idx));
+                    lines.add("inserted " + idx);
+                }
+                // Otherwise the line is deleted
+            } else {
+                lines.add(original.get(idx));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Calculate the number of common lines using the dynamic programming
+     * table from the original StringUtility.getEquality implementation.
+     * The table is filled in and then walked to count the unchanged lines.
+     *
+     * @param   x       Lines of the first file
+     * @param   y       Lines of the second file
+     * @return  Number of unchanged lines
+     */
+    private static int getTableLength(Vector<String> x, Vector<String> y) {
+        int M = x.size();
+        int N = y.size();
+
+        // opt[i][j] = length of LCS of x[i..M] and y[j..N]
+        int[][] opt = new int[M+1][N+1];
+        for (int i = M-1; i >= 0; i--) {
+            for (int j = N-1; j >= 0; j--) {
+                if (x.get(i).equals(y.get(j))) {
+                    opt[i][j] = opt[i+1][j+1] + 1;
+                } else {
+                    opt[i][j] = Math.max(opt[i+1][j], opt[i][j+1]);
+                }
+            }
+        }
+
+        // Recover the LCS to count the unchanged lines
+        int samecount = 0;
+        int i = 0, j = 0;
+        while (i < M && j < N) {
+            if (x.get(i).equals(y.get(j))) {
+                samecount++;
+                i++;
+                j++;
+            } else if (opt[i+1][j] >= opt[i][j+1]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return samecount;
+    }
+
+    private static long getUsedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int idx = 0; idx < 3; idx++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    public static void main(String[] args) {
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 4000;
+        int percent = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+        int iterations = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+
+        Random rnd = new Random(42);
+        Vector<String> older = getOriginal(count);
+        Vector<String> newer = getModified(older, percent, rnd);
+        long table = (long) (older.size() + 1) * (newer.size() + 1) * 4;
+        boolean runTable = (table < Runtime.getRuntime().maxMemory() / 2);
+
+        int common = 0;
+        int tableCommon = 0;
+        for (int idx = 0; idx < WARMUP; idx++) {
+            common = DiffUtility.getCommonLength(older, newer);
+            if (runTable) {
+                tableCommon = getTableLength(older, newer);
+            }
+        }
+
+        long baseline = getUsedHeap();
+        long start = System.nanoTime();
+        for (int idx = 0; idx < iterations; idx++) {
+            DiffUtility.getDeltas(older, newer);
+        }
+        long deltaTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int idx = 0; idx < iterations; idx++) {
+            common = DiffUtility.getCommonLength(older, newer);
+        }
+        long lengthTime = System.nanoTime() - start;
+        long heap = Math.max(0, getUsedHeap() - baseline);
+
+        long tableTime = 0;
+        if (runTable) {
+            start = System.nanoTime();
+            for (int idx = 0; idx < iterations; idx++) {
+                tableCommon = getTableLength(older, newer);
+            }
+            tableTime = System.nanoTime() - start;
+        }
+
+        System.out.println("Lines:              " + older.size() + " / " + newer.size());
+        System.out.println("Common lines:       " + common);
+        System.out.println("Similarity:         " + DiffUtility.getSimilarity(older, newer));
+        System.out.println("getDeltas:          " + (deltaTime / iterations / 1000000.0) + " ms");
+        System.out.println("getCommonLength:    " + (lengthTime / iterations / 1000000.0) + " ms");
+        System.out.println("Retained heap:      " + (heap / 1024) + " KB");
+        if (runTable) {
+            System.out.println("Table common lines: " + tableCommon);
+            System.out.println("Table:              " + (tableTime / iterations / 1000000.0) + " ms");
+            System.out.println("Table size:         " + (table / 1024) + " KB");
+            if (tableCommon != common) {
+                System.out.println("ERROR: The implementations found a different number of common lines");
+            }
+        } else {
+            System.out.println("Table:              skipped, requires " + (table / (1024 * 1024)) + " MB");
+        }
+    }
+
+}
@@ -0,0 +1,170 @@
+package com.modeln.build.util;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Vector;
+
+import junit.framework.TestCase;
+
+/**
+ * Test methods for verifying the difference calculations.
+ */
+public class DiffUtilityTest extends TestCase {
+
+    /**
+     * Calculate the length of the longest common subsequence using the
+     * dynamic programming table.
+     */
+    private static int getTableLength(List<String> x, List<String> y) {
+        int[][] opt = new int[x.size() + 1][y.size() + 1];
+        for (int i = x.size() - 1; i >= 0; i--) {
+            for (int j = y.size() - 1; j >= 0; j--) {
+                if (x.get(i).equals(y.get(j))) {
+                    opt[i][j] = opt[i+1][j+1] + 1;
+                } else {
+                    opt[i][j] = Math.max(opt[i+1][j], opt[i][j+1]);
+                }
+            }
+        }
+        return opt[0][0];
+    }
+
+    private static Vector<String> getRandomLines(Random rnd, int count, int range) {
+        Vector<String> lines = new Vector<String>();
+        for (int idx = 0; idx < count; idx++) {
+            lines.add("line " + rnd.nextInt(range));
+        }
+        return lines;
+    }
+
+    public void testDeltas() throws Exception {
+        List<String> older = Arrays.asList("a", "b", "c", "d", "e");
+        List<String> newer = Arrays.asList("a", "c", "d", "x", "e", "f");
+
+        Vector<DiffUtility.Delta> deltas = DiffUtility.getDeltas(older, newer);
+        assertEquals(6, deltas.size());
+        assertEquals(DiffUtility.Operation.UNCHANGED, deltas.get(0).getOp());
+        assertEquals(DiffUtility.Operation.DELETED, deltas.get(1).getOp());
+        assertEquals(1, deltas.get(1).getOldIndex());
+        assertEquals(DiffUtility.Operation.UNCHANGED, deltas.get(2).getOp());
+        assertEquals(2, deltas.get(2).getLength());
+        assertEquals(DiffUtility.Operation.ADDED, deltas.get(3).getOp());
+        assertEquals(3, deltas.get(3).getNewIndex());
+        assertEquals(DiffUtility.Operation.UNCHANGED, deltas.get(4).getOp());
+        assertEquals(DiffUtility.Operation.ADDED, deltas.get(5).getOp());
+    }
+
+    public void testCommonLength() throws Exception {
+        Random rnd = new Random(42);
+        for (int idx = 0; idx < 500; idx++) {
+            Vector<String> x = getRandomLines(rnd, rnd.nextInt(60), 1 + rnd.nextInt(8));
+            Vector<String> y = getRandomLines(rnd, rnd.nextInt(60), 1 + rnd.nextInt(8));
+            assertEquals(getTableLength(x, y), DiffUtility.getCommonLength(x, y));
+        }
+    }
+
+    public void testDeltasCoverAllLines() throws Exception {
+        Random rnd = new Random(7);
+        for (int count = 0; count < 200; count++) {
+            Vector<String> x = getRandomLines(rnd, rnd.nextInt(40), 5);
+            Vector<String> y = getRandomLines(rnd, rnd.nextInt(40), 5);
+
+            // Rebuild both lists from the deltas
+            Vector<String> oldLines = new Vector<String>();
+            Vector<String> newLines = new Vector<String>();
+            for (DiffUtility.Delta delta : DiffUtility.getDeltas(x, y)) {
+                for (int idx = 0; idx < delta.getLength(); idx++) {
+                    if (delta.getOp() != DiffUtility.Operation.ADDED) {
+                        oldLines.add(x.get(delta.getOldIndex() + idx));
+                    }
+                    if (delta.getOp() != DiffUtility.Operation.DELETED) {
+                        newLines.add(y.get(delta.getNewIndex() + idx));
+                    }
+                    if (delta.getOp() == DiffUtility.Operation.UNCHANGED) {
+                        assertEquals(x.get(delta.getOldIndex() + idx), y.get(delta.getNewIndex() + idx));
+                    }
+                }
+            }
+            assertEquals(x, oldLines);
+            assertEquals(y, newLines);
+        }
+    }
+
+    public void testSimilarity() throws Exception {
+        List<String> older = Arrays.asList("a", "b", "c");
+        assertEquals(1.0f, DiffUtility.getSimilarity(older, older), 0.0001f);
+        assertEquals(0.0f, DiffUtility.getSimilarity(older, Arrays.asList("x", "y")), 0.0001f);
+
+        // 2 unchanged, 1 deleted, 1 added
+        assertEquals(0.5f, DiffUtility.getSimilarity(older, Arrays.asList("a", "c", "d")), 0.0001f);
+    }
+
+    /**
+     * Verify that the bound is never less than the similarity, treating
+     * two empty lists as having the same undefined similarity.
+     */
+    private static void assertBound(float bound, float similarity) {
+        if (Float.isNaN(similarity)) {
+            assertTrue(Float.isNaN(bound));
+        } else {
+            assertTrue("bound=" + bound + ", similarity=" + similarity, bound >= similarity);
+            assertTrue(bound <= 1.0f);
+        }
+    }
+
+    private static String getText(List<String> lines) {
+        String lineDelimiter = System.getProperty("line.separator");
+        StringBuffer text = new StringBuffer();
+        for (String line : lines) {
+            text.append(line);
+            text.append(lineDelimiter);
+        }
+        return text.toString();
+    }
+
+    public void testMaxSimilarity() throws Exception {
+        Random rnd = new Random(11);
+        for (int idx = 0; idx < 1000; idx++) {
+            // A small range of values produces many duplicate lines
+            Vector<String> x = getRandomLines(rnd, rnd.nextInt(50), 1 + rnd.nextInt(10));
+            Vector<String> y = getRandomLines(rnd, rnd.nextInt(50), 1 + rnd.nextInt(10));
+            assertBound(DiffUtility.getMaxSimilarity(x, y), DiffUtility.getSimilarity(x, y));
+            assertBound(StringUtility.getMaxEquality(getText(x), getText(y)),
+                        StringUtility.getEquality(getText(x), getText(y)));
+        }
+
+        // Reordered lines have the same multiset but a shorter common subsequence
+        List<String> older = Arrays.asList("a", "b", "c", "a");
+        List<String> newer = Arrays.asList("c", "a", "b", "b");
+        assertEquals(0.6f, DiffUtility.getMaxSimilarity(older, newer), 0.0001f);
+        assertBound(DiffUtility.getMaxSimilarity(older, newer), DiffUtility.getSimilarity(older, newer));
+
+        // Identical lists, including duplicate lines
+        List<String> same = Arrays.asList("x", "x", "y", "x");
+        assertEquals(1.0f, DiffUtility.getMaxSimilarity(same, same), 0.0001f);
+
+        // Empty lists and files
+        List<String> empty = new Vector<String>();
+        assertEquals(0.0f, DiffUtility.getMaxSimilarity(empty, same), 0.0001f);
+        assertEquals(0.0f, DiffUtility.getMaxSimilarity(same, empty), 0.0001f);
+        assertBound(DiffUtility.getMaxSimilarity(empty, empty), DiffUtility.getSimilarity(empty, empty));
+        assertBound(StringUtility.getMaxEquality("", getText(same)), StringUtility.getEquality("", getText(same)));
+        assertBound(StringUtility.getMaxEquality("", ""), StringUtility.getEquality("", ""));
+    }
+
+    public void testLargeFile() throws Exception {
+        Vector<String> x = new Vector<String>();
+        Vector<String> y = new Vector<String>();
+        for (int idx = 0; idx < 20000; idx++) {
+            x.add("line " + idx);
+            if (idx % 10 != 0) {
+                y.add("line " + idx);
+            } else {
+                y.add("changed " + idx);
+            }
+        }
+        assertEquals(18000, DiffUtility.getCommonLength(x, y));
+    }
+
+}
@@ -9,6 +9,7 @@ package com.modeln.build.common.branding;
 import java.io.*;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The BestFileMatch class contains methods for obtaining the most
@@ -56,6 +57,22 @@ public class BestFileMatch {
     /** TRUE if debugging statements should be displayed */
     private static final boolean debug = false;
 
+    /** Number of milliseconds to trust a cached file list before checking the file system */
+    private static long checkInterval = 5000;
+
+    /** Cached file lists, indexed by the root, target, prefix, and path */
+    private static Hashtable<String, CachedFileList> fileCache = new Hashtable<String, CachedFileList>();
+
+    /**
+     * Directories modified within this many milliseconds of being checked
+     * might be modified again without a change to the modification time,
+     * so they are checked again once the check interval expires
+     */
+    private static final long modifiedResolution = 2000;
+
+    /** Number of times the file system has been queried for file information */
+    private static final AtomicLong statCount = new AtomicLong(0);
+
     /**
      * A convenience method which can be used when a prefix does not have to
      * be appended.
@@ -240,6 +257,7 @@ public class BestFileMatch {
         Vector resources = new Vector();
 
         if (file.isAbsolute()) {
+             countStat();
              if (file.exists()) resources.add(file);
         } else {
 
@@ -262,4 +280,218 @@ public class BestFileMatch {
 
         return files;
     }
+
+
+    /**
+     * Returns the same list of files as the getRealFileList method, but
+     * caches the result so that repeated requests for the same resource do
+     * not query the file system for every possible match.  A cached list is
+     * trusted for the duration of the check interval.  Once the interval
+     * has expired, the modification time of each directory in the search
+     * path is compared to the time recorded when the list was cached.
+     * Since adding or removing a file changes the modification time of the
+     * directory that contains it, the list is only rebuilt when one of the
+     * directories has changed.
+     *
+     * @param   root    root directory for the search path
+     * @param   target  Target name
+     * @param   prefix  Ordered list of target prefixes
+     * @param   path    Ordered list of resources where a target can be found
+     *
+     * @return  File[] list containing available files
+     * @throws  IOException if the classloader fails to access the resource
+     */
+    public static File[] getCachedFileList(String root, String target, String[] prefix, String[] path)
+        throws IOException
+    {
+        String key = getCacheKey(root, target, prefix, path);
+        long now = System.currentTimeMillis();
+
+        CachedFileList entry = fileCache.get(key);
+        if ((entry != null) && entry.isCurrent(now)) {
+            return entry.getFiles();
+        }
+
+        // Record the directory modification times before searching for files
+        // so that any change made during the search will be detected later
+        entry = new CachedFileList(getFileList(root, target, prefix, path), now);
+        entry.setFiles(getRealFileList(root, target, prefix, path));
+        fileCache.put(key, entry);
+
+        return entry.getFiles();
+    }
+
+
+    /**
+     * Set the number of milliseconds that a cached file list will be used
+     * before the file system is checked for changes.  A value of zero will
+     * cause the file system to be checked every time the list is requested.
+     *
+     * @param   millis  Number of milliseconds between checks
+     */
+    public static void setCheckInterval(long millis) {
+        checkInterval = millis;
+    }
+
+    /**
+     * Return the number of milliseconds that a cached file list will be used
+     * before the file system is checked for changes.
+     *
+     * @return  Number of milliseconds between checks
+     */
+    public static long getCheckInterval() {
+        return checkInterval;
+    }
+
+    /**
+     * Discard all cached file lists.
+     */
+    public static void clearCache() {
+        fileCache.clear();
+    }
+
+    /**
+     * Return the number of times the file system has been queried for
+     * information about a file or directory.
+     *
+     * @return  Number of file system queries
+     */
+    public static long getStatCount() {
+        return statCount.get();
+    }
+
+    /**
+     * Increment the number of file system queries.
+     */
+    private static void countStat() {
+        statCount.incrementAndGet();
+    }
+
+
+    /**
+     * Construct a key which identifies the search criteria in the cache.
+     *
+     * @param   root    root directory for the search path
+     * @param   target  Target name
+     * @param   prefix  Ordered list of target prefixes
+     * @param   path    Ordered list of resources where a target can be found
+     *
+     * @return  Cache key
+     */
+    private static String getCacheKey(String root, String target, String[] prefix, String[] path) {
+        StringBuffer key = new StringBuffer();
+        key.append(root + "|" + target + "|");
+        for (int idx = 0; idx < prefix.length; idx++) {
+            key.append(prefix[idx] + targetDelimiter);
+        }
+        key.append("|");
+        for (int idx = 0; idx < path.length; idx++) {
+            key.append(path[idx] + pathDelimiter);
+        }
+        return key.toString();
+    }
+
+
+    /**
+     * List of files located by the getRealFileList method along with the
+     * information needed to determine whether the list is still valid.
+     */
+    private static class CachedFileList {
+
+        /** Files which were found */
+        private File[] files;
+
+        /** Directories searched for the files */
+        private File[] dirs;
+
+        /** Modification time of each directory */
+        private long[] modified;
+
+        /** TRUE if a search location must be resolved by the class loader */
+        private boolean relative = false;
+
+        /** Time when the directories were last checked */
+        private long checked;
+
+        /** TRUE if a directory was modified too recently to rely on its modification time */
+        private boolean racy = false;
+
+        /**
+         * Record the modification time of the directories which contain
+         * the candidate files.
+         *
+         * @param   candidates   List of possible files
+         * @param   now          Current time
+         */
+        public CachedFileList(File[] candidates, long now) {
+            Vector<File> list = new Vector<File>();
+            for (int idx = 0; idx < candidates.length; idx++) {
+                if (candidates[idx].isAbsolute()) {
+                    File dir = candidates[idx].getParentFile();
+                    if ((dir != null) && !list.contains(dir)) {
+                        list.add(dir);
+                    }
+                } else {
+                    relative = true;
+                }
+            }
+
+            dirs = new File[list.size()];
+            modified = new long[list.size()];
+            for (int idx = 0; idx < dirs.length; idx++) {
+                dirs[idx] = list.get(idx);
+                countStat();
+                modified[idx] = dirs[idx].lastModified();
+                if ((now - modified[idx]) < modifiedResolution) {
+                    racy = true;
+                }
+            }
+            checked = now;
+        }
+
+        /**
+         * Set the list of files which were found.
+         *
+         * @param   list   Files which were found
+         */
+        public void setFiles(File[] list) {
+            files = list;
+        }
+
+        /**
+         * Return a copy of the list of files which were found.
+         *
+         * @return  Files which were found
+         */
+        public File[] getFiles() {
+            File[] list = new File[files.length];
+            System.arraycopy(files, 0, list, 0, files.length);
+            return list;
+        }
+
+        /**
+         * Determine whether the list of files is still valid.  The
+         * directories are only checked if the check interval has expired.
+         *
+         * @param   now     Current time
+         * @return  TRUE if the list of files is still valid
+         */
+        public synchronized boolean isCurrent(long now) {
+            if ((now - checked) < checkInterval) {
+                return true;
+            } else if (relative || racy) {
+                // Resources located by the class loader cannot be checked
+                return false;
+            }
+
+            for (int idx = 0; idx < dirs.length; idx++) {
+                countStat();
+                if (dirs[idx].lastModified() != modified[idx]) {
+                    return false;
+                }
+            }
+            checked = now;
+            return true;
+        }
+    }
 }
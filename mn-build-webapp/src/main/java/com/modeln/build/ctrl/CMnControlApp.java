@@ -9,8 +9,11 @@ import java.sql.Connection;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 
+import com.modeln.build.ctrl.database.CMnPatchTable;
+import com.modeln.build.ctrl.database.CMnPatchTableListener;
 import com.modeln.build.web.errors.ApplicationException;
 import com.modeln.build.common.logging.SecureLog;
+import com.modeln.build.web.application.ChartCache;
 import com.modeln.build.web.application.WebApplication;
 import com.modeln.build.web.database.RepositoryConnection;
 
@@ -33,6 +36,13 @@ public class CMnControlApp extends WebApplication {
     /** Bug repository name */
     protected String bugRepository;
 
+    /** Invalidates the cached patch charts when the patch data is modified */
+    private final CMnPatchTableListener patchListener = new CMnPatchTableListener() {
+        public void patchDataChanged(String pid) {
+            ChartCache.getInstance().invalidate(ChartCache.PATCH_CHARTS);
+        }
+    };
+
 
     /*
      * Initialization routine called by the host Servlet engine.
@@ -52,6 +62,17 @@ public class CMnControlApp extends WebApplication {
         bugRepository = appSettings.getProperty("bug.repository");
         commonLog.logEntry(this, SecureLog.INFO, "Adding bug repository: " + bugRepository);
         addRepository(bugRepository);
+
+        // Discard any cached charts which include the patch data when it changes
+        CMnPatchTable.getInstance().addListener(patchListener);
+    }
+
+    /*
+     * Unregister the listeners when the Servlet engine removes the application.
+     */
+    public void destroy() {
+        CMnPatchTable.getInstance().removeListener(patchListener);
+        super.destroy();
     }
 
     /**
@@ -11,11 +11,11 @@ import java.util.GregorianCalendar;
 import java.util.Hashtable;
 import java.util.Vector;
 
-import org.jfree.chart.ChartUtilities;
 import org.jfree.chart.JFreeChart;
 
 import com.modeln.build.web.errors.ApplicationError;
 import com.modeln.build.web.errors.ApplicationException;
+import com.modeln.build.web.application.ChartCache;
 import com.modeln.build.web.application.ChartCommand;
 import com.modeln.build.web.application.CommandResult;
 import com.modeln.build.web.application.WebApplication;
@@ -56,7 +56,7 @@ public class CMnShowAreaFixChart extends ChartCommand {
         CommandResult result = super.execute(app, req, res);
 
         // Execute the actions for the command
-        if (!result.containsError()) {
+        if (!result.containsError() && !sendCachedChart(req, res)) {
             ApplicationException exApp = null;
             ApplicationError error = null;
 
@@ -87,11 +87,14 @@ public class CMnShowAreaFixChart extends ChartCommand {
                 app.debug("CMnShowFixCountChart rendering chart from " + start + " to " + end);
                 Vector<Integer> fixes = reportTable.getFixes(patchConn.getConnection(), start, end); 
 
+                // Look up the approval group of every SDR at once
+                Hashtable<Integer, String> groups = bugTable.getApprovalGroups(bugConn.getConnection(), fixes, true);
+
                 // Count the number of SDRs in each area
                 Enumeration fixList = fixes.elements();
                 while (fixList.hasMoreElements()) {
                     Integer bugId = (Integer) fixList.nextElement();
-                    String name = bugTable.getApprovalGroup(bugConn.getConnection(), bugId.toString());
+                    String name = groups.get(bugId);
                     if (name != null) {
                         if (data.containsKey(name)) {
                             Integer total = (Integer) data.get(name);
@@ -105,14 +108,13 @@ public class CMnShowAreaFixChart extends ChartCommand {
                 }
 
                 if ((format != null) && format.equalsIgnoreCase(CMnChartForm.FORMAT_CSV)) {
-                    app.streamAsSpreadsheet(req, res, data);
+                    sendSpreadsheet(app, req, res, ChartCache.PATCH_CHARTS, data);
                 } else {
                     JFreeChart chart = CMnPatchCountChart.getBarChart(data, "SDRs by Area", "Area", "SDRs");
 
                     // Display the chart to the user
                     if (chart != null) {
-                        ChartUtilities.writeChartAsPNG(res.getOutputStream(), chart, chartWidth, chartHeight);
-                        res.setContentType("image/png");
+                        sendChart(req, res, ChartCache.PATCH_CHARTS, chart, chartWidth, chartHeight);
                     } else {
                         exApp = new ApplicationException(
                             ErrorMap.APPLICATION_DISPLAY_FAILURE,
@@ -13,11 +13,11 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Vector;
 
-import org.jfree.chart.ChartUtilities;
 import org.jfree.chart.JFreeChart;
 
 import com.modeln.build.web.errors.ApplicationError;
 import com.modeln.build.web.errors.ApplicationException;
+import com.modeln.build.web.application.ChartCache;
 import com.modeln.build.web.application.ChartCommand;
 import com.modeln.build.web.application.CommandResult;
 import com.modeln.build.web.application.WebApplication;
@@ -56,7 +56,7 @@ public class CMnShowBuildChart extends ChartCommand {
         CommandResult result = super.execute(app, req, res);
 
         // Execute the actions for the command
-        if (!result.containsError()) {
+        if (!result.containsError() && !sendCachedChart(req, res)) {
             ApplicationException exApp = null;
             ApplicationError error = null;
             RepositoryConnection rc = null;
@@ -87,8 +87,7 @@ public class CMnShowBuildChart extends ChartCommand {
 
                 // Display the chart to the user
                 if (chart != null) {
-                    ChartUtilities.writeChartAsPNG(res.getOutputStream(), chart, chartWidth, chartHeight);
-                    res.setContentType("image/png");
+                    sendChart(req, res, ChartCache.BUILD_CHARTS, chart, chartWidth, chartHeight);
                 } else {
                     exApp = new ApplicationException(
                         ErrorMap.APPLICATION_DISPLAY_FAILURE,
@@ -13,11 +13,11 @@ import java.util.Hashtable;
 import java.util.List;
 import java.util.Vector;
 
-import org.jfree.chart.ChartUtilities;
 import org.jfree.chart.JFreeChart;
 
 import com.modeln.build.web.errors.ApplicationError;
 import com.modeln.build.web.errors.ApplicationException;
+import com.modeln.build.web.application.ChartCache;
 import com.modeln.build.web.application.ChartCommand;
 import com.modeln.build.web.application.CommandResult;
 import com.modeln.build.web.application.WebApplication;
@@ -56,7 +56,7 @@ public class CMnShowPatchCountChart extends ChartCommand {
         CommandResult result = super.execute(app, req, res);
 
         // Execute the actions for the command
-        if (!result.containsError()) {
+        if (!result.containsError() && !sendCachedChart(req, res)) {
             ApplicationException exApp = null;
             ApplicationError error = null;
             RepositoryConnection rc = null;
@@ -86,8 +86,7 @@ public class CMnShowPatchCountChart extends ChartCommand {
                     JFreeChart chart = CMnPatchCountChart.getPatchesByCustomerChart(customers, "Patch Requests");
                     // Display the chart to the user
                     if (chart != null) {
-                        ChartUtilities.writeChartAsPNG(res.getOutputStream(), chart, chartWidth, chartHeight);
-                        res.setContentType("image/png");
+                        sendChart(req, res, ChartCache.PATCH_CHARTS, chart, chartWidth, chartHeight);
                     } else {
                         exApp = new ApplicationException(
                             ErrorMap.APPLICATION_DISPLAY_FAILURE,
@@ -159,7 +158,7 @@ public class CMnShowPatchCountChart extends ChartCommand {
 
         // Stream the spreadsheet content to the user
         try {
-            app.streamAsSpreadsheet(req, res, content);
+            sendSpreadsheet(app, req, res, ChartCache.PATCH_CHARTS, content);
         } catch (Exception ex) {
             throw new ApplicationException(
                 ErrorMap.APPLICATION_DISPLAY_FAILURE,
@@ -13,11 +13,11 @@ import java.util.Hashtable;
 import java.util.List;
 import java.util.Vector;
 
-import org.jfree.chart.ChartUtilities;
 import org.jfree.chart.JFreeChart;
 
 import com.modeln.build.web.errors.ApplicationError;
 import com.modeln.build.web.errors.ApplicationException;
+import com.modeln.build.web.application.ChartCache;
 import com.modeln.build.web.application.ChartCommand;
 import com.modeln.build.web.application.CommandResult;
 import com.modeln.build.web.application.WebApplication;
@@ -57,7 +57,7 @@ public class CMnShowPatchReleaseChart extends ChartCommand {
         CommandResult result = super.execute(app, req, res);
 
         // Execute the actions for the command
-        if (!result.containsError()) {
+        if (!result.containsError() && !sendCachedChart(req, res)) {
             ApplicationException exApp = null;
             ApplicationError error = null;
             RepositoryConnection rc = null;
@@ -114,14 +114,13 @@ public class CMnShowPatchReleaseChart extends ChartCommand {
                 }
 
                 if ((format != null) && format.equalsIgnoreCase(CMnChartForm.FORMAT_CSV)) {
-                    app.streamAsSpreadsheet(req, res, patchCount);
+                    sendSpreadsheet(app, req, res, ChartCache.PATCH_CHARTS, patchCount);
                 } else {
                     JFreeChart chart = CMnPatchCountChart.getBarChart(patchCount, "Patch Requests by Release", "Release", "Patches");
 
                     // Display the chart to the user
                     if (chart != null) {
-                        ChartUtilities.writeChartAsPNG(res.getOutputStream(), chart, chartWidth, chartHeight);
-                        res.setContentType("image/png");
+                        sendChart(req, res, ChartCache.PATCH_CHARTS, chart, chartWidth, chartHeight);
                     } else {
                         exApp = new ApplicationException(
                             ErrorMap.APPLICATION_DISPLAY_FAILURE,
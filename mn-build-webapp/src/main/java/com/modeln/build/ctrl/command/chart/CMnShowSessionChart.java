@@ -14,11 +14,11 @@ import java.sql.SQLException;
 import java.util.Vector;
 
 import org.jfree.chart.ChartRenderingInfo;
-import org.jfree.chart.ChartUtilities;
 import org.jfree.chart.JFreeChart;
 
 import com.modeln.build.web.errors.ApplicationError;
 import com.modeln.build.web.errors.ApplicationException;
+import com.modeln.build.web.application.ChartCache;
 import com.modeln.build.web.application.ChartCommand;
 import com.modeln.build.web.application.CommandResult;
 import com.modeln.build.web.application.WebApplication;
@@ -56,7 +56,7 @@ public class CMnShowSessionChart extends ChartCommand {
         CommandResult result = super.execute(app, req, res);
 
         // Execute the actions for the command
-        if (!result.containsError()) {
+        if (!result.containsError() && !sendCachedChart(req, res, getSessionCacheKey(req))) {
             ApplicationException exApp = null;
             ApplicationError error = null;
             try {
@@ -72,8 +72,7 @@ public class CMnShowSessionChart extends ChartCommand {
                 JFreeChart chart = (JFreeChart) session.getAttribute(chartName); 
                 ChartRenderingInfo info = (ChartRenderingInfo) session.getAttribute(chartName + "Info");
                 if (chart != null) {
-                    ChartUtilities.writeChartAsPNG(res.getOutputStream(), chart, chartWidth, chartHeight, info);
-                    res.setContentType("image/png");
+                    sendChart(req, res, ChartCache.getSessionGroup(session), getSessionCacheKey(req), chart, chartWidth, chartHeight, info);
                 } else {
                     exApp = new ApplicationException(
                         ErrorMap.APPLICATION_DISPLAY_FAILURE,
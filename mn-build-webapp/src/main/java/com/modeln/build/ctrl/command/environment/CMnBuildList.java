@@ -68,20 +68,10 @@ public class CMnBuildList extends TrustedHostCommand {
                 CMnBuildHostForm form = new CMnBuildHostForm(new URL("http://localhost/CMnBuildList"), new URL("http://localhost/images"), new Vector());
                 form.setValues(req); 
 
-                // Perform the query
+                // Perform the query (the build metrics are included in the results)
                 rc = app.getRepositoryConnection();
                 Vector list = CMnBuildTable.getBuildsByDate(rc.getConnection(), form.getWindowStart(), form.getWindowEnd());
 
-                // Loop through the list of builds and collect build metrics
-                CMnDbBuildData currentBuild = null;
-                Enumeration buildlist = list.elements();
-                while (buildlist.hasMoreElements()) {
-                    currentBuild = (CMnDbBuildData) buildlist.nextElement(); 
-                    CMnMetricTable metricTable = CMnMetricTable.getInstance();
-                    Vector metrics = metricTable.getMetrics(rc.getConnection(), currentBuild.getBuildVersion()); 
-                    currentBuild.setMetrics(metrics);
-                }
-
                 req.setAttribute("BUILD_LIST", list);
                 result.setDestination("environment/build_list.jsp");
             } catch (ApplicationException aex) {
@@ -15,11 +15,14 @@ import java.io.*;
 import javax.servlet.*;
 import javax.servlet.http.*;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.StringTokenizer;
 import java.util.Vector;
 
@@ -79,24 +82,22 @@ public class CMnExportFixes extends CMnBasePatchFixes {
                     exportFormat = (String) req.getAttribute(IMnPatchForm.EXPORT_FORMAT_LABEL);
                 }
 
+                // The spreadsheet export streams the fixes from the database
+                // rather than loading them with the patch
+                boolean exportCsv = IMnPatchForm.EXPORT_CSV.equalsIgnoreCase(exportFormat);
+
                 // Obtain information about the patch
                 CMnPatch patch = null;
                 if ((patchId != null) && (patchId.length() > 0)) {
-                    patch = patchTable.getRequest(rc.getConnection(), patchId, true);
+                    patch = patchTable.getRequest(rc.getConnection(), patchId, !exportCsv);
                     app.debug("CMnPatchRequest: obtained data for patch ID " + patchId);
                 }
 
                 // Continue with the request if all parameters have been provided
                 if ((patch != null) && (inputErrors.size() == 0)) {
                     // Determine how to present the data to the user
-                    if (IMnPatchForm.EXPORT_CSV.equalsIgnoreCase(exportFormat)) {
-                        // Obtain detailed information about each fix 
-                        Vector fixes = patchTable.getFixes(rc.getConnection(), patchId, true);
-                        if ((fixes != null) && (fixes.size() > 0)) {
-                            getSDTrackerFixes(app, fixes);
-                        }
-                        patch.setFixes(fixes);
-                        streamAsSpreadsheet(app, req, res, patch);
+                    if (exportCsv) {
+                        streamAsSpreadsheet(app, req, res, rc.getConnection(), patchId);
 
                         // Keep the user on the current page after they download the spreadsheet
                         req.setAttribute(IMnPatchForm.PATCH_DATA, patch);
@@ -133,61 +134,143 @@ public class CMnExportFixes extends CMnBasePatchFixes {
 
 
     /**
-     * Export the results as a spreadsheet. 
+     * Export the fixes as a spreadsheet.  The fixes are read from a
+     * streaming query and each fix is written to the response as soon
+     * as its SDTracker data has been obtained.
+     *
+     * @param   app     Application which called the command
+     * @param   req     HttpServletRequest object
+     * @param   res     HttpServletResponse object
+     * @param   conn    Database connection
+     * @param   patchId Service patch ID
      */
-    protected static void streamAsSpreadsheet(WebApplication app, HttpServletRequest req, HttpServletResponse res, CMnPatch patch)
+    protected void streamAsSpreadsheet(WebApplication app, HttpServletRequest req, HttpServletResponse res, Connection conn, String patchId)
         throws ApplicationException
     {
-        Vector<CMnPatchFix> fixes = patch.getFixes();
-        if ((fixes != null) && (fixes.size() > 0)) {
-            // spreadsheet content
-            List<List<String>> content = new ArrayList<List<String>>(fixes.size());
-
-            // Represent each SDR as a row in the spreadsheet
-            // SDR,origin,release,status
-            Iterator fixIter = fixes.iterator();
-            while (fixIter.hasNext()) {
-                CMnPatchFix currentFix = (CMnPatchFix) fixIter.next();
-                if (currentFix != null) {
-                    ArrayList<String> row = new ArrayList(2);
-
-                    String sdr = null; 
-                    if (currentFix.getBugId() > 0) {
-                        sdr = Integer.toString(currentFix.getBugId());
-                    }
-                    row.add(sdr);
+        PreparedStatement st = null;
+        ResultSet rs = null;
+        try {
+            st = CMnPatchTable.getInstance().prepareFixExport(conn, patchId);
+            rs = st.executeQuery();
+            app.streamAsSpreadsheet(req, res, new FixRowIterator(app, rs));
+        } catch (Exception ex) {
+            ApplicationException exApp = new ApplicationException(
+                ErrorMap.APPLICATION_DISPLAY_FAILURE,
+                "Failed to create spreadsheet content.");
+            exApp.setStackTrace(ex);
+            throw exApp;
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (st != null) st.close();
+            } catch (SQLException ex) {
+                app.debug("CMnExportFixes: failed to close the fix query: " + ex);
+            }
+        }
+    }
 
-                    String origin = null;
-                    if (currentFix.getOrigin() != null) {
-                        origin = currentFix.getOrigin().getName();
-                    }
-                    row.add(origin);
+    /**
+     * Represent each SDR as a row in the spreadsheet:
+     * SDR,origin,status,release,severity,type,subtype,area,notes
+     *
+     * The fixes are read from the result set in batches so that the
+     * SDTracker data can be obtained for a batch at a time.
+     */
+    private class FixRowIterator implements Iterator<List<String>> {
 
-                    row.add(currentFix.getStatus());
-                    row.add(currentFix.getRelease());
-                    if (currentFix.getSeverity() != null) {
-                        row.add(currentFix.getSeverity().toString());
-                    } else {
-                        row.add("");
-                    }
-                    row.add(currentFix.getType());
-                    row.add(currentFix.getSubType());
-                    row.add(currentFix.getProductArea());
-                    if (currentFix.getNotes() != null) {
-                        row.add("\"" + currentFix.getNotes() + "\"");
-                    }
+        /** Number of fixes read from the result set before querying SDTracker */
+        private static final int BATCH_SIZE = 100;
 
-                    content.add(row);
+        /** Web application reference */
+        private WebApplication app;
+
+        /** Fix query results */
+        private ResultSet rs;
+
+        /** Fixes which have been read but not yet converted to rows */
+        private Vector<CMnPatchFix> batch = new Vector<CMnPatchFix>(BATCH_SIZE);
+
+        /** Position of the next fix in the current batch */
+        private int batchIdx = 0;
+
+        FixRowIterator(WebApplication app, ResultSet rs) {
+            this.app = app;
+            this.rs = rs;
+        }
+
+        public boolean hasNext() {
+            if (batchIdx >= batch.size()) {
+                try {
+                    readBatch();
+                } catch (Exception ex) {
+                    throw new IllegalStateException("Failed to obtain the fix data.", ex);
                 }
             }
+            return (batchIdx < batch.size());
+        }
 
-            // Stream the spreadsheet content to the user
-            try {
-                app.streamAsSpreadsheet(req, res, content);
-            } catch (Exception ex) {
-                throw new ApplicationException(
-                    ErrorMap.APPLICATION_DISPLAY_FAILURE,
-                    "Failed to create spreadsheet content.");
+        public List<String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            CMnPatchFix currentFix = batch.get(batchIdx++);
+
+            ArrayList<String> row = new ArrayList<String>(9);
+
+            String sdr = null; 
+            if (currentFix.getBugId() > 0) {
+                sdr = Integer.toString(currentFix.getBugId());
+            }
+            row.add(sdr);
+
+            String origin = null;
+            if (currentFix.getOrigin() != null) {
+                origin = currentFix.getOrigin().getName();
+            }
+            row.add(origin);
+
+            row.add(currentFix.getStatus());
+            row.add(currentFix.getRelease());
+            if (currentFix.getSeverity() != null) {
+                row.add(currentFix.getSeverity().toString());
+            } else {
+                row.add("");
+            }
+            row.add(currentFix.getType());
+            row.add(currentFix.getSubType());
+            row.add(currentFix.getProductArea());
+            if (currentFix.getNotes() != null) {
+                row.add("\"" + currentFix.getNotes() + "\"");
+            }
+
+            return row;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Read the next batch of fixes from the result set and augment
+         * them with the SDTracker data.
+         */
+        private void readBatch() throws SQLException, ApplicationException {
+            batch.clear();
+            batchIdx = 0;
+            while ((batch.size() < BATCH_SIZE) && rs.next()) {
+                CMnPatchFix fix = new CMnPatchFix();
+                fix.setBugId(rs.getInt(CMnPatchTable.FIX_BUG_ID));
+                String name = rs.getString(CMnPatchTable.PATCH_NAME);
+                if (name != null) {
+                    CMnPatch origin = new CMnPatch();
+                    origin.setName(name);
+                    fix.setOrigin(origin);
+                }
+                fix.setNotes(rs.getString(CMnPatchTable.FIX_NOTES));
+                batch.add(fix);
+            }
+            if (batch.size() > 0) {
+                getSDTrackerFixes(app, batch);
             }
         }
     }
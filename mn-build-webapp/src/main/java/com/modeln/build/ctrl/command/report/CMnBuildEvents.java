@@ -6,6 +6,7 @@
  */
 package com.modeln.build.ctrl.command.report; 
 
+import com.modeln.build.ant.report.ReportParseEvent;
 import com.modeln.build.ctrl.forms.CMnBuildDataForm;
 import com.modeln.build.ctrl.forms.CMnBuildEventForm;
 import com.modeln.build.ctrl.forms.CMnBuildListForm;
@@ -86,8 +87,19 @@ public class CMnBuildEvents extends TrustedHostCommand {
                     build = CMnBuildTable.getBuild(rc.getConnection(), buildId);
                     req.setAttribute(CMnBuildEventForm.BUILD_OBJECT_LABEL, build);
 
-                    // Look up the events
-                    Vector eventList = reportTable.getEventList(rc.getConnection(), build.getBuildVersion());
+                    // Look up a page of events, starting after the last event of the previous page
+                    int startId = 0;
+                    String startEvent = req.getParameter(CMnBuildEventForm.EVENT_START_LABEL);
+                    if (startEvent != null) {
+                        startId = Integer.parseInt(startEvent);
+                    }
+                    int pageSize = CMnBuildEventForm.PAGE_SIZE;
+                    Vector eventList = reportTable.getEventList(rc.getConnection(), build.getBuildVersion(), startId, pageSize + 1);
+                    if ((eventList != null) && (eventList.size() > pageSize)) {
+                        eventList.setSize(pageSize);
+                        ReportParseEvent lastEvent = (ReportParseEvent) eventList.lastElement();
+                        req.setAttribute(CMnBuildEventForm.EVENT_NEXT_LABEL, Integer.toString(lastEvent.getId()));
+                    }
                     req.setAttribute(CMnBuildEventForm.EVENT_LIST_LABEL, eventList);
 
                     result.setDestination("reports/event_list.jsp");
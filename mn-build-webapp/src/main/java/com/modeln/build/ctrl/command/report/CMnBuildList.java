@@ -20,6 +20,7 @@ import java.sql.SQLException;
 
 import com.modeln.build.web.errors.ApplicationError;
 import com.modeln.build.web.errors.ApplicationException;
+import com.modeln.build.web.application.ChartCache;
 import com.modeln.build.web.application.CommandResult;
 import com.modeln.build.web.application.TrustedHostCommand;
 import com.modeln.build.web.application.WebApplication;
@@ -144,6 +145,10 @@ public class CMnBuildList extends TrustedHostCommand {
 
         // Save the charts in the session for later use
         HttpSession session = req.getSession(true);
+
+        // Discard any charts rendered from the charts previously saved in the session
+        ChartCache.getInstance().invalidate(ChartCache.getSessionGroup(session));
+
         session.setAttribute("blm", CMnBuildListChart.getMetricChart(list));
         app.debug("CMnBuildList: obtained the metric chart");
         session.setAttribute("testCount", CMnBuildListChart.getTestCountChart(list));
@@ -15,6 +15,7 @@ import java.util.Vector;
 
 import com.modeln.build.web.errors.ApplicationError;
 import com.modeln.build.web.errors.ApplicationException;
+import com.modeln.build.web.application.ChartCache;
 import com.modeln.build.web.application.CommandResult;
 import com.modeln.build.web.application.AdminCommand;
 import com.modeln.build.web.application.WebApplication;
@@ -60,6 +61,9 @@ public class CMnDeleteBuild extends AdminCommand {
                 rc = app.getRepositoryConnection();
                 CMnBuildTable.deleteBuild(rc.getConnection(), buildId);
 
+                // Discard any cached charts which include the build data
+                ChartCache.getInstance().invalidate(ChartCache.BUILD_CHARTS);
+
                 // Refresh the list of builds
                 //Vector list = CMnBuildTable.getAllBuilds(rc.getConnection());
                 Vector list = new Vector();
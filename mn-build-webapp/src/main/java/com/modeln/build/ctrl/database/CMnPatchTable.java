@@ -21,6 +21,7 @@ import com.modeln.testfw.reporting.search.CMnSearchCriteria;
 import com.modeln.testfw.reporting.search.CMnSearchGroup;
 import com.modeln.build.common.data.account.GroupData;
 import com.modeln.build.common.data.account.UserData;
+import com.modeln.build.web.application.SpreadsheetWriter;
 
 import javax.mail.internet.AddressException;
 import javax.mail.internet.InternetAddress;
@@ -29,6 +30,7 @@ import java.io.PrintStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -256,27 +258,73 @@ public class CMnPatchTable extends CMnTable {
 
 
 
-    /** Singleton instance of the table class */
-    private static CMnPatchTable instance;
+    /** Maximum number of patches loaded by a single related data query */
+    private static final int GRAPH_BATCH_SIZE = 500;
+
+
+    /** Holds the singleton instance until it is first requested */
+    private static class InstanceHolder {
+        /** Singleton instance of the table class */
+        private static final CMnPatchTable instance = createInstance();
+    }
+
+    /** Listeners which are notified when the service patch data is modified */
+    private Vector<CMnPatchTableListener> listeners = new Vector<CMnPatchTableListener>();
+
+    /**
+     * Construct the singleton instance of the class.
+     */
+    private static CMnPatchTable createInstance() {
+        CMnPatchTable instance = new CMnPatchTable();
+
+        // Enable debbuging to a file
+        String logfile = "/var/tmp/CMnPatchTable.txt";
+        try {
+            instance.setDebugOutput(new PrintStream(logfile));
+            instance.debugEnable(true);
+        } catch (FileNotFoundException nfex) {
+            System.out.println("Unable to enable debugging.  Failed to open log file: " + logfile);
+        }
+        return instance;
+    }
 
     /**
      * Return the singleton instance of the class.
      */
     public static CMnPatchTable getInstance() {
-        if (instance == null) {
-            instance = new CMnPatchTable();
+        return InstanceHolder.instance;
+    }
 
-            // Enable debbuging to a file
-            String logfile = "/var/tmp/CMnPatchTable.txt";
-            try {
-                instance.setDebugOutput(new PrintStream(logfile));
-                instance.debugEnable(true);
-            } catch (FileNotFoundException nfex) {
-                System.out.println("Unable to enable debugging.  Failed to open log file: " + logfile);
-            }
+    /**
+     * Register a listener to be notified when the service patch data is
+     * modified.
+     *
+     * @param   listener   Listener to be notified
+     */
+    public void addListener(CMnPatchTableListener listener) {
+        listeners.add(listener);
+    }
 
+    /**
+     * Remove a listener so it is no longer notified of changes.
+     *
+     * @param   listener   Listener to be removed
+     */
+    public void removeListener(CMnPatchTableListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Notify each registered listener that the service patch data has
+     * been modified.
+     *
+     * @param   pid     Service patch ID, or null if the patch is not known
+     */
+    protected void notifyListeners(String pid) {
+        Object[] list = listeners.toArray();
+        for (int idx = 0; idx < list.length; idx++) {
+            ((CMnPatchTableListener) list[idx]).patchDataChanged(pid);
         }
-        return instance;
     }
 
 
@@ -290,7 +338,7 @@ public class CMnPatchTable extends CMnTable {
      *
      * @return  Service patch information 
      */
-    public synchronized CMnPatch getRequest(Connection conn, String patchId, boolean deep)
+    public CMnPatch getRequest(Connection conn, String patchId, boolean deep)
         throws SQLException
     {
         CMnPatch patch = null; 
@@ -326,14 +374,10 @@ public class CMnPatchTable extends CMnTable {
                     Vector<CMnPatchNotification> notifications = getNotifications(conn, patch);
                     patch.setNotifications(notifications);
 
-                    // Load the list of fixes for the current patch
-                    Vector<CMnPatchFix> fixes = getFixes(conn, patchId, true);
-                    patch.setFixes(fixes);
-
-                    // Load the list of comments
-                    Vector<CMnPatchComment> comments = getComments(conn, patchId);
-                    getInstance().debugWrite("Setting comment list for patch ID " + patchId);
-                    patch.setCommentList(comments);
+                    // Load the fixes, approvals, and comments for the current patch
+                    Vector<CMnPatch> patches = new Vector<CMnPatch>(1);
+                    patches.add(patch);
+                    getPatchDetails(conn, patches, true);
                 }
             } else {
                  getInstance().debugWrite("Unable to obtain the service patch data.");
@@ -359,7 +403,7 @@ public class CMnPatchTable extends CMnTable {
      *
      * @return  List of patch request objects
      */
-    public synchronized Vector<CMnPatch> getAllRequests(Connection conn, boolean deep)
+    public Vector<CMnPatch> getAllRequests(Connection conn, boolean deep)
         throws SQLException
     {
         Vector<CMnPatch> list = new Vector<CMnPatch>();
@@ -382,13 +426,13 @@ public class CMnPatchTable extends CMnTable {
                 CMnPatch patch = null;
                 while (rs.next()) {
                     patch = parseRequestData(rs);
-                    if (deep && (patch != null)) {
-                        // Load the list of fixes for the current patch
-                        Vector<CMnPatchFix> fixes = getFixes(conn, patch.getId().toString(), false);
-                        patch.setFixes(fixes);
-                    }
                     list.add(patch);
                 }
+
+                // Load the list of fixes for all of the patches
+                if (deep) {
+                    getPatchDetails(conn, list, false);
+                }
             } else {
                  getInstance().debugWrite("Unable to obtain the service patch data.");
             }
@@ -417,7 +461,7 @@ public class CMnPatchTable extends CMnTable {
      * @param   deep      Determines whether to perform querries to fill in related data
      * @return  List of patch information objects
      */
-    public synchronized Vector<CMnPatch> getAllRequests(
+    public Vector<CMnPatch> getAllRequests(
             Connection conn,
             CMnSearchGroup criteria,
             int count,
@@ -456,13 +500,13 @@ public class CMnPatchTable extends CMnTable {
                 CMnPatch patch = null;
                 while (rs.next()) {
                     patch = parseRequestData(rs);
-                    if (deep && (patch != null)) {
-                        // Load the list of fixes for the current patch
-                        Vector<CMnPatchFix> fixes = getFixes(conn, patch.getId().toString(), false);
-                        patch.setFixes(fixes);
-                    }
                     list.add(patch);
                 }
+
+                // Load the list of fixes for all of the patches
+                if (deep) {
+                    getPatchDetails(conn, list, false);
+                }
             } else {
                  getInstance().debugWrite("Unable to obtain the service patch data.");
             }
@@ -491,7 +535,7 @@ public class CMnPatchTable extends CMnTable {
      * @param   deep      Determines whether to perform querries to fill in related data
      * @return  List of patch information objects
      */
-    public synchronized Vector<CMnPatch> getAllRequestsByFix(
+    public Vector<CMnPatch> getAllRequestsByFix(
             Connection conn,
             Collection<CMnPatchFix> fixes,
             CMnSearchGroup criteria,
@@ -552,13 +596,13 @@ public class CMnPatchTable extends CMnTable {
                 CMnPatch patch = null;
                 while (rs.next()) {
                     patch = parseRequestData(rs);
-                    if (deep && (patch != null)) {
-                        // Load the list of fixes for the current patch
-                        Vector<CMnPatchFix> fxs = getFixes(conn, patch.getId().toString(), false);
-                        patch.setFixes(fxs);
-                    }
                     list.add(patch);
                 }
+
+                // Load the list of fixes for all of the patches
+                if (deep) {
+                    getPatchDetails(conn, list, false);
+                }
             } else {
                  getInstance().debugWrite("Unable to obtain the service patch data.");
             }
@@ -582,7 +626,7 @@ public class CMnPatchTable extends CMnTable {
      * @param   cust    Customer ID
      * @param   deep      Determines whether to perform querries to fill in related data
      */
-    public synchronized Vector<CMnPatch> getRelatedRequests(Connection conn, String build, String cust, boolean deep)
+    public Vector<CMnPatch> getRelatedRequests(Connection conn, String build, String cust, boolean deep)
         throws SQLException
     {
         Vector<CMnPatch> list = new Vector<CMnPatch>();
@@ -610,11 +654,15 @@ public class CMnPatchTable extends CMnTable {
                 while (rs.next()) {
                     patch = parseRequestData(rs);
                     if (deep && (patch != null)) {
-                        patch.setFixes(getFixes(conn, patch.getId().toString(), deep));
                         list.add(patch);
                     }
                     getInstance().debugWrite("Added patch " + patch.getId() + " to the list of results.");
                 }
+
+                // Load the fixes and related data for all of the patches
+                if (deep) {
+                    getPatchDetails(conn, list, true);
+                }
                 getInstance().debugWrite("Finished processing service patch results.");
             } else {
                  getInstance().debugWrite("Unable to obtain the related service patch requests.");
@@ -638,7 +686,7 @@ public class CMnPatchTable extends CMnTable {
      * @param   pid     Service patch ID 
      * @param   deep    Determines whether to perform querries to fill in related data
      */
-    public synchronized Vector<CMnPatchFix> getFixes(Connection conn, String pid, boolean deep)
+    public Vector<CMnPatchFix> getFixes(Connection conn, String pid, boolean deep)
         throws SQLException
     {
         Vector<CMnPatchFix> list = new Vector<CMnPatchFix>();
@@ -713,6 +761,439 @@ public class CMnPatchTable extends CMnTable {
     }
 
 
+    /**
+     * Prepare a query which returns the fixes associated with the service
+     * patch ID for export.  Each row contains the bug ID, the name of the
+     * patch where the fix originated, and the fix notes.  The results are
+     * streamed from the database as the cursor advances, so the result set
+     * must be closed before the connection is used for another query.
+     *
+     * @param   conn    Database connection
+     * @param   pid     Service patch ID
+     * @return  Prepared statement which must be closed by the caller
+     */
+    public PreparedStatement prepareFixExport(Connection conn, String pid)
+        throws SQLException
+    {
+        StringBuffer sql = new StringBuffer();
+        sql.append("SELECT " + FIX_TABLE + "." + FIX_BUG_ID);
+        sql.append(", " + REQUEST_TABLE + "." + PATCH_NAME);
+        sql.append(", " + FIX_TABLE + "." + FIX_NOTES);
+        sql.append(" FROM " + FIX_TABLE + " LEFT JOIN " + REQUEST_TABLE);
+        sql.append(" ON " + FIX_TABLE + "." + FIX_ORIGIN + " = " + REQUEST_TABLE + "." + REQUEST_ID);
+        sql.append(" WHERE " + FIX_TABLE + "." + REQUEST_ID + " = ?");
+        sql.append(" ORDER BY " + FIX_TABLE + "." + FIX_ORIGIN + ", " + FIX_TABLE + "." + FIX_BUG_ID);
+
+        getInstance().debugWrite("Preparing fix export query: " + sql.toString());
+        PreparedStatement st = SpreadsheetWriter.prepareStreamingStatement(conn, sql.toString());
+        st.setString(1, pid);
+        return st;
+    }
+
+
+    /**
+     * Retrieve the service patch information for a list of patch IDs.
+     * The patches are returned in descending order by request date.
+     *
+     * @param   conn      Database connection
+     * @param   patchIds  List of service patch IDs
+     * @param   deep      Determines whether to perform querries to fill in related data
+     *
+     * @return  List of patch information objects
+     */
+    public Vector<CMnPatch> getRequests(Connection conn, Collection<Integer> patchIds, boolean deep)
+        throws SQLException
+    {
+        Vector<CMnPatch> list = new Vector<CMnPatch>();
+        Vector<Integer> ids = new Vector<Integer>(patchIds);
+
+        for (int start = 0; start < ids.size(); start += GRAPH_BATCH_SIZE) {
+            int end = Math.min(start + GRAPH_BATCH_SIZE, ids.size());
+            String idList = getIdList(ids.subList(start, end));
+
+            StringBuffer sql = new StringBuffer();
+            sql.append("SELECT * FROM " + REQUEST_TABLE + ", " +
+                                          CMnBuildTable.BUILD_TABLE + ", " +
+                                          CMnCustomerTable.ACCOUNT_TABLE + ", " +
+                                          CMnCustomerTable.ENV_TABLE +
+                               " WHERE " + REQUEST_TABLE + "." + ACCOUNT_ID + " = " + CMnCustomerTable.ACCOUNT_TABLE + "." + CMnCustomerTable.ACCOUNT_ID +
+                                 " AND " + REQUEST_TABLE + "." + ENVIRONMENT_ID + " = " + CMnCustomerTable.ENV_TABLE + "." + CMnCustomerTable.ENV_ID +
+                                 " AND " + REQUEST_TABLE + "." + BUILD_ID + " = " + CMnBuildTable.BUILD_TABLE + "." + CMnBuildTable.BUILD_ID +
+                                 " AND " + REQUEST_TABLE + "." + REQUEST_ID + " IN (" + idList + ")" +
+                               " ORDER BY " + REQUEST_TABLE + "." + REQUEST_DATE + " DESC");
+
+            Statement st = conn.createStatement();
+            ResultSet rs = null;
+            try {
+                getInstance().debugWrite("Attempting to execute: " + sql.toString());
+                rs = executeQuery(st, "getRequests", sql.toString());
+                if (rs != null) {
+                    while (rs.next()) {
+                        CMnPatch patch = parseRequestData(rs);
+                        if (patch != null) {
+                            list.add(patch);
+                        }
+                    }
+                } else {
+                     getInstance().debugWrite("Unable to obtain the service patch data.");
+                }
+            } catch (SQLException ex) {
+                getInstance().debugWrite("Failed to obtain service patch data: " + ex.toString());
+                getInstance().debugWrite(ex);
+            } finally {
+                if (rs != null) rs.close();
+                if (st != null) st.close();
+            }
+        }
+
+        if (deep) {
+            getPatchDetails(conn, list, true);
+        }
+
+        return list;
+    }
+
+
+    /**
+     * Load the fixes associated with each service patch in the list.  The
+     * related data is loaded for all of the patches using a fixed number
+     * of queries per batch of patches rather than querying each patch
+     * individually.  When deep is false, only the list of fixes is loaded
+     * and the fix origins contain only the origin patch ID, which matches
+     * the results of calling getFixes with deep set to false.  When deep
+     * is true, the fix dependencies, fix origins, approvals, and comments
+     * are loaded as well.
+     *
+     * @param   conn      Database connection
+     * @param   patches   List of service patches to be updated
+     * @param   deep      Determines whether to perform querries to fill in related data
+     */
+    public void getPatchDetails(Connection conn, Collection<CMnPatch> patches, boolean deep)
+        throws SQLException
+    {
+        // Origin patches are shared by all patches which contain fixes from that origin
+        Hashtable<Integer, CMnPatch> origins = new Hashtable<Integer, CMnPatch>();
+
+        Vector<Integer> ids = new Vector<Integer>();
+        Hashtable<Integer, CMnPatch> patchMap = new Hashtable<Integer, CMnPatch>();
+        Iterator<CMnPatch> patchIter = patches.iterator();
+        while (patchIter.hasNext()) {
+            CMnPatch patch = patchIter.next();
+            if ((patch != null) && (patch.getId() != null) && !patchMap.containsKey(patch.getId())) {
+                patchMap.put(patch.getId(), patch);
+                ids.add(patch.getId());
+            }
+        }
+
+        for (int start = 0; start < ids.size(); start += GRAPH_BATCH_SIZE) {
+            int end = Math.min(start + GRAPH_BATCH_SIZE, ids.size());
+            List<Integer> batch = ids.subList(start, end);
+            String idList = getIdList(batch);
+
+            Hashtable<Integer, Vector<CMnPatchFix>> fixes = queryFixes(conn, idList);
+            Hashtable<String, Vector<CMnBaseFixDependency>> dependencies = null;
+            Hashtable<Integer, Vector<CMnPatchComment>> comments = null;
+            Hashtable<Integer, Vector<CMnPatchApproval>> approvals = null;
+            if (deep) {
+                dependencies = queryDependencies(conn, idList);
+                comments = queryComments(conn, idList);
+                approvals = queryApprovals(conn, idList);
+                loadOrigins(conn, fixes, origins);
+            }
+
+            for (int idx = 0; idx < batch.size(); idx++) {
+                Integer pid = batch.get(idx);
+                CMnPatch patch = patchMap.get(pid);
+
+                Vector<CMnPatchFix> fixList = fixes.get(pid);
+                if (fixList == null) {
+                    fixList = new Vector<CMnPatchFix>();
+                }
+                for (int fixIdx = 0; fixIdx < fixList.size(); fixIdx++) {
+                    CMnPatchFix fix = fixList.get(fixIdx);
+                    if (deep) {
+                        Vector<CMnBaseFixDependency> depList = dependencies.get(pid + ":" + fix.getBugId());
+                        if (depList == null) {
+                            depList = new Vector<CMnBaseFixDependency>();
+                        }
+                        fix.setDependencies(depList);
+                    }
+
+                    if (fix.getOrigin() != null) {
+                        Integer oid = fix.getOrigin().getId();
+                        CMnPatch origin = origins.get(oid);
+                        if (origin == null) {
+                            origin = fix.getOrigin();
+                            origins.put(oid, origin);
+                        }
+                        fix.setOrigin(origin);
+                    }
+                }
+                patch.setFixes(fixList);
+
+                if (deep) {
+                    Vector<CMnPatchComment> commentList = comments.get(pid);
+                    if (commentList == null) {
+                        commentList = new Vector<CMnPatchComment>();
+                    }
+                    patch.setCommentList(commentList);
+
+                    Vector<CMnPatchApproval> approvalList = approvals.get(pid);
+                    if (approvalList == null) {
+                        approvalList = new Vector<CMnPatchApproval>();
+                    }
+                    patch.setApprovals(approvalList);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Retrieve the fixes for a list of service patches.  The fixes for each
+     * patch are ordered by origin and bug ID.
+     *
+     * @param   conn     Database connection
+     * @param   idList   Comma-separated list of service patch IDs
+     * @return  Lists of fixes, keyed by service patch ID
+     */
+    private Hashtable<Integer, Vector<CMnPatchFix>> queryFixes(Connection conn, String idList)
+        throws SQLException
+    {
+        Hashtable<Integer, Vector<CMnPatchFix>> fixes = new Hashtable<Integer, Vector<CMnPatchFix>>();
+
+        StringBuffer sql = new StringBuffer();
+        sql.append("SELECT * FROM " + FIX_TABLE +
+                   " WHERE " + REQUEST_ID + " IN (" + idList + ")" +
+                   " ORDER BY " + REQUEST_ID + ", " + FIX_ORIGIN + ", " + FIX_BUG_ID);
+
+        Statement st = conn.createStatement();
+        ResultSet rs = null;
+        try {
+            getInstance().debugWrite("Attempting to execute: " + sql.toString());
+            rs = executeQuery(st, "getPatchFixes", sql.toString());
+            if (rs != null) {
+                while (rs.next()) {
+                    Integer pid = Integer.valueOf(rs.getInt(FIX_TABLE + "." + REQUEST_ID));
+                    CMnPatchFix fix = parseFixData(rs);
+                    if (fix != null) {
+                        Vector<CMnPatchFix> list = fixes.get(pid);
+                        if (list == null) {
+                            list = new Vector<CMnPatchFix>();
+                            fixes.put(pid, list);
+                        }
+                        list.add(fix);
+                    } else {
+                        getInstance().debugWrite("Failed to parse fix data for patch " + pid);
+                    }
+                }
+            } else {
+                 getInstance().debugWrite("Unable to obtain the fix data.");
+            }
+        } catch (SQLException ex) {
+            getInstance().debugWrite("Encountered exception while parsing fix data: " + ex.toString());
+            getInstance().debugWrite(ex);
+        } finally {
+            if (rs != null) rs.close();
+            if (st != null) st.close();
+        }
+
+        return fixes;
+    }
+
+
+    /**
+     * Retrieve the fix dependencies for a list of service patches.
+     *
+     * @param   conn     Database connection
+     * @param   idList   Comma-separated list of service patch IDs
+     * @return  Lists of dependencies, keyed by service patch ID and bug ID (patch:bug)
+     */
+    private Hashtable<String, Vector<CMnBaseFixDependency>> queryDependencies(Connection conn, String idList)
+        throws SQLException
+    {
+        Hashtable<String, Vector<CMnBaseFixDependency>> dependencies = new Hashtable<String, Vector<CMnBaseFixDependency>>();
+
+        StringBuffer sql = new StringBuffer();
+        sql.append("SELECT * FROM " + DEPENDENCY_TABLE +
+                   " WHERE " + REQUEST_ID + " IN (" + idList + ")");
+
+        Statement st = conn.createStatement();
+        ResultSet rs = null;
+        try {
+            getInstance().debugWrite("Attempting to execute: " + sql.toString());
+            rs = executeQuery(st, "getPatchDependencies", sql.toString());
+            if (rs != null) {
+                while (rs.next()) {
+                    String key = rs.getInt(REQUEST_ID) + ":" + rs.getInt(FIX_BUG_ID);
+                    Vector<CMnBaseFixDependency> list = dependencies.get(key);
+                    if (list == null) {
+                        list = new Vector<CMnBaseFixDependency>();
+                        dependencies.put(key, list);
+                    }
+                    list.add(parseDependencyData(rs));
+                }
+            } else {
+                getInstance().debugWrite("Unable to obtain the service patch dependencies.");
+            }
+        } catch (SQLException ex) {
+            getInstance().debugWrite("Failed to obtain service patch dependencies: " + sql.toString());
+            ex.printStackTrace();
+        } finally {
+            if (rs != null) rs.close();
+            if (st != null) st.close();
+        }
+
+        return dependencies;
+    }
+
+
+    /**
+     * Retrieve the comments for a list of service patches.
+     *
+     * @param   conn     Database connection
+     * @param   idList   Comma-separated list of service patch IDs
+     * @return  Lists of comments, keyed by service patch ID
+     */
+    private Hashtable<Integer, Vector<CMnPatchComment>> queryComments(Connection conn, String idList)
+        throws SQLException
+    {
+        Hashtable<Integer, Vector<CMnPatchComment>> comments = new Hashtable<Integer, Vector<CMnPatchComment>>();
+
+        StringBuffer sql = new StringBuffer();
+        sql.append("SELECT * FROM " + COMMENT_TABLE +
+                   " WHERE " + REQUEST_ID + " IN (" + idList + ")");
+
+        Statement st = conn.createStatement();
+        ResultSet rs = null;
+        try {
+            getInstance().debugWrite("Attempting to execute: " + sql.toString());
+            rs = executeQuery(st, "getPatchComments", sql.toString());
+            if (rs != null) {
+                while (rs.next()) {
+                    Integer pid = Integer.valueOf(rs.getInt(REQUEST_ID));
+                    Vector<CMnPatchComment> list = comments.get(pid);
+                    if (list == null) {
+                        list = new Vector<CMnPatchComment>();
+                        comments.put(pid, list);
+                    }
+                    list.add(parseCommentData(rs));
+                }
+            } else {
+                getInstance().debugWrite("Unable to obtain the service patch comments.");
+            }
+        } catch (SQLException ex) {
+            getInstance().debugWrite("Failed to obtain service patch comments: " + sql.toString());
+            ex.printStackTrace();
+        } finally {
+            if (rs != null) rs.close();
+            if (st != null) st.close();
+        }
+
+        return comments;
+    }
+
+
+    /**
+     * Retrieve the approvals for a list of service patches.  Approvals
+     * for every patch status are returned.
+     *
+     * @param   conn     Database connection
+     * @param   idList   Comma-separated list of service patch IDs
+     * @return  Lists of approvals, keyed by service patch ID
+     */
+    private Hashtable<Integer, Vector<CMnPatchApproval>> queryApprovals(Connection conn, String idList)
+        throws SQLException
+    {
+        Hashtable<Integer, Vector<CMnPatchApproval>> approvals = new Hashtable<Integer, Vector<CMnPatchApproval>>();
+
+        StringBuffer sql = new StringBuffer();
+        sql.append("SELECT * FROM " + APPROVAL_TABLE +
+                   " WHERE " + APPROVAL_TABLE + "." + REQUEST_ID + " IN (" + idList + ")");
+
+        Statement st = conn.createStatement();
+        ResultSet rs = null;
+        try {
+            getInstance().debugWrite("Attempting to execute: " + sql.toString());
+            rs = executeQuery(st, "getPatchApprovals", sql.toString());
+            if (rs != null) {
+                while (rs.next()) {
+                    Integer pid = Integer.valueOf(rs.getInt(APPROVAL_TABLE + "." + REQUEST_ID));
+                    Vector<CMnPatchApproval> list = approvals.get(pid);
+                    if (list == null) {
+                        list = new Vector<CMnPatchApproval>();
+                        approvals.put(pid, list);
+                    }
+                    list.add(parseApprovalData(rs));
+                }
+            } else {
+                 getInstance().debugWrite("Unable to obtain the approval data.");
+            }
+        } catch (SQLException ex) {
+            getInstance().debugWrite("Encountered exception while parsing approval data: " + ex.toString());
+            getInstance().debugWrite(ex);
+        } finally {
+            if (rs != null) rs.close();
+            if (st != null) st.close();
+        }
+
+        return approvals;
+    }
+
+
+    /**
+     * Load the origin patch information for each fix origin which has not
+     * already been loaded.  The origin patches are loaded without any of
+     * their related data.  Origins which cannot be found in the database
+     * are represented by the patch ID parsed from the fix data.
+     *
+     * @param   conn      Database connection
+     * @param   fixes     Lists of fixes, keyed by service patch ID
+     * @param   origins   Origin patches which have already been loaded, keyed by patch ID
+     */
+    private void loadOrigins(Connection conn, Hashtable<Integer, Vector<CMnPatchFix>> fixes, Hashtable<Integer, CMnPatch> origins)
+        throws SQLException
+    {
+        HashSet<Integer> ids = new HashSet<Integer>();
+        Enumeration<Vector<CMnPatchFix>> lists = fixes.elements();
+        while (lists.hasMoreElements()) {
+            Vector<CMnPatchFix> list = lists.nextElement();
+            for (int idx = 0; idx < list.size(); idx++) {
+                CMnPatch origin = list.get(idx).getOrigin();
+                if ((origin != null) && !origins.containsKey(origin.getId())) {
+                    ids.add(origin.getId());
+                }
+            }
+        }
+
+        if (ids.size() > 0) {
+            Vector<CMnPatch> patches = getRequests(conn, ids, false);
+            for (int idx = 0; idx < patches.size(); idx++) {
+                CMnPatch origin = patches.get(idx);
+                origins.put(origin.getId(), origin);
+            }
+        }
+    }
+
+
+    /**
+     * Construct a comma-separated list of IDs for use in an IN clause.
+     *
+     * @param   ids     List of IDs
+     * @return  Comma-separated list of IDs
+     */
+    private static String getIdList(List<Integer> ids) {
+        StringBuffer list = new StringBuffer();
+        for (int idx = 0; idx < ids.size(); idx++) {
+            if (idx > 0) {
+                list.append(", ");
+            }
+            list.append(ids.get(idx));
+        }
+        return list.toString();
+    }
+
+
     /**
      * Delete the service patch request and all associated fixes.
      *
@@ -743,6 +1224,9 @@ public class CMnPatchTable extends CMnTable {
             if (st != null) st.close();
         }
 
+        // Notify any listeners that the patch data has changed
+        notifyListeners(pid);
+
         return success;
     }
 
@@ -781,6 +1265,9 @@ public class CMnPatchTable extends CMnTable {
             if (st != null) st.close();
         }
 
+        // Notify any listeners that the patch data has changed
+        notifyListeners(pid);
+
         return count;
     }
 
@@ -851,6 +1338,9 @@ public class CMnPatchTable extends CMnTable {
             if (st != null) st.close();
         }
 
+        // Notify any listeners that the patch data has changed
+        notifyListeners(patchId);
+
         return success;
     }
 
@@ -922,7 +1412,7 @@ public class CMnPatchTable extends CMnTable {
      *
      * @return  Service patch information 
      */
-    public synchronized Vector<CMnPatchComment> getComments(Connection conn, String patchId)
+    public Vector<CMnPatchComment> getComments(Connection conn, String patchId)
         throws SQLException
     {
         Vector<CMnPatchComment> comments = null;
@@ -970,7 +1460,7 @@ public class CMnPatchTable extends CMnTable {
      *
      * @return  List of bugs on which this one depends 
      */
-    public synchronized Vector<CMnBaseFixDependency> getDependencies(Connection conn, String patchId, String bugId)
+    public Vector<CMnBaseFixDependency> getDependencies(Connection conn, String patchId, String bugId)
         throws SQLException
     {
         Vector<CMnBaseFixDependency> dependencies = null;
@@ -1174,6 +1664,9 @@ public class CMnPatchTable extends CMnTable {
             if (st != null) st.close();
         }
 
+        // Notify any listeners that the patch data has changed
+        notifyListeners(patchId);
+
         return patchId;
     }
 
@@ -1268,6 +1761,9 @@ public class CMnPatchTable extends CMnTable {
             if (st != null) st.close();
         }
 
+        // Notify any listeners that the patch data has changed
+        notifyListeners((patch.getId() != null) ? patch.getId().toString() : null);
+
         return success;
     }
 
@@ -1325,7 +1821,7 @@ public class CMnPatchTable extends CMnTable {
      *
      * @return  Service patch status 
      */
-    public synchronized CMnServicePatch.RequestStatus getRequestStatus(Connection conn, String patchId)
+    public CMnServicePatch.RequestStatus getRequestStatus(Connection conn, String patchId)
         throws SQLException
     {
         CMnServicePatch.RequestStatus status = null;
@@ -1398,6 +1894,9 @@ public class CMnPatchTable extends CMnTable {
             if (st != null) st.close();
         }
 
+        // Notify any listeners that the patch data has changed
+        notifyListeners(pid);
+
         return success;
     }
 
@@ -1439,6 +1938,9 @@ public class CMnPatchTable extends CMnTable {
             if (st != null) st.close();
         }
 
+        // Notify any listeners that the patch data has changed
+        notifyListeners(pid);
+
         return success;
     }
 
@@ -1494,11 +1996,14 @@ public class CMnPatchTable extends CMnTable {
      * @param  uid   User ID
      * @return List of patches waiting for approval
      */
-    public synchronized Vector<CMnPatch> getPatchesForApproval(Connection conn, String uid)
+    public Vector<CMnPatch> getPatchesForApproval(Connection conn, String uid)
         throws SQLException
     {
         Vector<CMnPatch> list = new Vector<CMnPatch>();
 
+        // Patches matching the releases that this user has approval rights for
+        Vector<CMnPatch> candidates = new Vector<CMnPatch>();
+
         // Obtain a list of product releases that this user has approval rights for
         StringBuffer sql = new StringBuffer();
         sql.append("SELECT * FROM " + APPROVERS_TABLE + 
@@ -1530,35 +2035,54 @@ public class CMnPatchTable extends CMnTable {
                     CMnSearchGroup searchGroup = new CMnSearchGroup(CMnSearchGroup.AND);
                     searchGroup.add(statusCriteria); 
                     searchGroup.add(verCriteria);
-                    Vector<CMnPatch> patches = getAllRequests(conn, searchGroup, 0, false);
-
-                    // Add each patch to the list
-                    int userUid = Integer.parseInt(uid);
-                    CMnPatch patch = null;
-                    Enumeration patchList = patches.elements();
-                    while (patchList.hasMoreElements()) {
-                        boolean addPatch = true;
-                        patch = (CMnPatch) patchList.nextElement();
-
-                        // Query the patch to determine if it has already been approved
-                        Vector<CMnPatchApproval> approvals = getApprovals(conn, patch.getId().toString(), patch.getStatus());
-                        if (approvals != null) {
-                            CMnPatchApproval approval = null;
-                            Enumeration approvalList = approvals.elements();
-                            while (approvalList.hasMoreElements()) {
-                                approval = (CMnPatchApproval) approvalList.nextElement(); 
-                                // Don't include patches that the user has already approved 
-                                int approvalUid = Integer.parseInt(approval.getUser().getUid());
-                                if (approvalUid == userUid) {
-                                    addPatch = false;
-                                } 
+                    candidates.addAll(getAllRequests(conn, searchGroup, 0, false));
+                }
+
+                // Query the approvals for all of the patches at once
+                Vector<Integer> ids = new Vector<Integer>();
+                Enumeration<CMnPatch> patchList = candidates.elements();
+                while (patchList.hasMoreElements()) {
+                    CMnPatch patch = patchList.nextElement();
+                    if ((patch != null) && (patch.getId() != null) && !ids.contains(patch.getId())) {
+                        ids.add(patch.getId());
+                    }
+                }
+                Hashtable<Integer, Vector<CMnPatchApproval>> approvalMap = new Hashtable<Integer, Vector<CMnPatchApproval>>();
+                for (int start = 0; start < ids.size(); start += GRAPH_BATCH_SIZE) {
+                    int end = Math.min(start + GRAPH_BATCH_SIZE, ids.size());
+                    approvalMap.putAll(queryApprovals(conn, getIdList(ids.subList(start, end))));
+                }
+
+                // Add each patch to the list
+                int userUid = Integer.parseInt(uid);
+                patchList = candidates.elements();
+                while (patchList.hasMoreElements()) {
+                    boolean addPatch = true;
+                    CMnPatch patch = patchList.nextElement();
+
+                    // Determine if the user has already approved the current patch status
+                    Vector<CMnPatchApproval> approvals = approvalMap.get(patch.getId());
+                    if (approvals != null) {
+                        CMnPatchApproval approval = null;
+                        Enumeration approvalList = approvals.elements();
+                        while (approvalList.hasMoreElements()) {
+                            approval = (CMnPatchApproval) approvalList.nextElement(); 
+                            // Approvals are only valid for a specific patch status
+                            if ((patch.getStatus() != null) && (approval.getPatchStatus() != patch.getStatus())) {
+                                continue;
                             }
-                        }
 
-                        if (addPatch) {
-                            list.add(patch);
+                            // Don't include patches that the user has already approved 
+                            int approvalUid = Integer.parseInt(approval.getUser().getUid());
+                            if (approvalUid == userUid) {
+                                addPatch = false;
+                            } 
                         }
                     }
+
+                    if (addPatch) {
+                        list.add(patch);
+                    }
                 }
                 getInstance().debugWrite("Finished processing patch results.");
             } else {
@@ -1583,7 +2107,7 @@ public class CMnPatchTable extends CMnTable {
      * @param  pid      Patch ID
      * @return List of approvals
      */
-    public synchronized Vector<CMnPatchApproval> getApprovals(Connection conn, String pid)
+    public Vector<CMnPatchApproval> getApprovals(Connection conn, String pid)
         throws SQLException
     {
         return getApprovals(conn, pid, null);
@@ -1601,7 +2125,7 @@ public class CMnPatchTable extends CMnTable {
      * @param  status   Patch status
      * @return List of approvals
      */
-    public synchronized Vector<CMnPatchApproval> getApprovals(Connection conn, String pid, CMnServicePatch.RequestStatus status)
+    public Vector<CMnPatchApproval> getApprovals(Connection conn, String pid, CMnServicePatch.RequestStatus status)
         throws SQLException
     {
         Vector<CMnPatchApproval> list = new Vector<CMnPatchApproval>();
@@ -1692,7 +2216,7 @@ public class CMnPatchTable extends CMnTable {
      * @param  pid          Patch ID
      * @return TRUE if all approvals have been granted 
      */
-    public synchronized boolean isApproved(
+    public boolean isApproved(
             Connection conn, 
             Vector<CMnPatchApproval> approvals, 
             Vector<CMnPatchApproverGroup> groups, 
@@ -1757,7 +2281,7 @@ public class CMnPatchTable extends CMnTable {
      * @param  conn     Database connection
      * @return List of notifications
      */
-    public synchronized Vector<CMnPatchNotification> getNotifications(Connection conn)
+    public Vector<CMnPatchNotification> getNotifications(Connection conn)
         throws SQLException
     {
         Vector<CMnPatchNotification> list = new Vector<CMnPatchNotification>();
@@ -1802,7 +2326,7 @@ public class CMnPatchTable extends CMnTable {
      * @param  status   Patch status
      * @return List of notifications
      */
-    public synchronized Vector<CMnPatchNotification> getNotifications(Connection conn, CMnServicePatch.RequestStatus status)
+    public Vector<CMnPatchNotification> getNotifications(Connection conn, CMnServicePatch.RequestStatus status)
         throws SQLException
     {
         Vector<CMnPatchNotification> list = new Vector<CMnPatchNotification>();
@@ -2219,7 +2743,7 @@ public class CMnPatchTable extends CMnTable {
      * @param   conn    Database connection
      * @param   gid     Service patch group ID 
      */
-    public synchronized Vector<CMnBaseFix> getGroupFixes(Connection conn, String gid)
+    public Vector<CMnBaseFix> getGroupFixes(Connection conn, String gid)
         throws SQLException
     {
         Vector<CMnBaseFix> list = new Vector<CMnBaseFix>();
@@ -2653,7 +3177,7 @@ public class CMnPatchTable extends CMnTable {
      *
      * @return  Service patch assignment information 
      */
-    public synchronized CMnPatchOwner getPatchOwner(Connection conn, String patchId)
+    public CMnPatchOwner getPatchOwner(Connection conn, String patchId)
         throws SQLException
     {
         CMnPatchOwner owner = null;
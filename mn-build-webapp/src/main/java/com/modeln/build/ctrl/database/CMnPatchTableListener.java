@@ -0,0 +1,17 @@
+package com.modeln.build.ctrl.database;
+
+/**
+ * This interface defines the methods which should be made available by any
+ * class which will be registered to receive notification when the service
+ * patch data is modified.
+ */
+public interface CMnPatchTableListener {
+
+    /**
+     * Called after the service patch requests, fixes, or status
+     * information have been modified in the database.
+     *
+     * @param   pid     Service patch ID, or null if the patch is not known
+     */
+    public void patchDataChanged(String pid);
+}
@@ -46,6 +46,15 @@ public class CMnBuildEventForm extends CMnBaseForm implements IMnBuildForm {
     /** Name of the request attribute containing a specific event ID */
     public static final String EVENT_ID_LABEL = "eventId";
 
+    /** Name of the request parameter containing the event ID that precedes the current page */
+    public static final String EVENT_START_LABEL = "start";
+
+    /** Name of the request attribute containing the event ID that precedes the next page */
+    public static final String EVENT_NEXT_LABEL = "nextEvent";
+
+    /** Maximum number of events displayed on a single page */
+    public static final int PAGE_SIZE = 1000;
+
     /** Default title used for the titled border */
     private static final String DEFAULT_TITLE = "Build Events";
 
@@ -55,6 +64,15 @@ public class CMnBuildEventForm extends CMnBaseForm implements IMnBuildForm {
     /** List of build events */
     private Vector buildEvents = new Vector();
 
+    /** Build ID used to link to the other pages of events */
+    private String buildId = null;
+
+    /** Event ID that precedes the current page of events */
+    private String startEvent = null;
+
+    /** Event ID that precedes the next page of events */
+    private String nextEvent = null;
+
 
     /**
      * Construct a build form.
@@ -97,6 +115,26 @@ public class CMnBuildEventForm extends CMnBaseForm implements IMnBuildForm {
                 addEvent((ReportParseEvent) list.get(idx));
             }
         }
+
+        // Get the page information used to link to the other pages of events
+        String buildParam = req.getParameter(BUILD_ID_LABEL);
+        if (buildParam == null) {
+            buildParam = (String) req.getAttribute(BUILD_ID_LABEL);
+        }
+
+        // Only a numeric build ID is rendered in the page links
+        buildId = null;
+        if (buildParam != null) {
+            try {
+                buildId = Integer.toString(Integer.parseInt(buildParam.trim()));
+            } catch (NumberFormatException nfe) {
+            }
+        }
+        startEvent = req.getParameter(EVENT_START_LABEL);
+        Object next = req.getAttribute(EVENT_NEXT_LABEL);
+        if (next != null) {
+            nextEvent = next.toString();
+        }
     }
 
 
@@ -298,6 +336,23 @@ public class CMnBuildEventForm extends CMnBaseForm implements IMnBuildForm {
             }
         } 
         html.append("</table>\n");
+
+        // Display links to the other pages of events
+        if ((buildId != null) && ((startEvent != null) || (nextEvent != null))) {
+            String pageUrl = getFormUrl() + "?" + BUILD_ID_LABEL + "=" + buildId;
+            html.append("<p>");
+            if (startEvent != null) {
+                html.append("<a href=\"" + pageUrl + "\">First page</a>");
+            }
+            if (nextEvent != null) {
+                if (startEvent != null) {
+                    html.append(" | ");
+                }
+                html.append("<a href=\"" + pageUrl + "&" + EVENT_START_LABEL + "=" + nextEvent + "\">Next page</a>");
+            }
+            html.append("</p>\n");
+        }
+
         return html.toString();
     }
 
@@ -0,0 +1,293 @@
+package com.modeln.build.web.application;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.zip.CRC32;
+import javax.servlet.http.HttpSession;
+
+/**
+ * The ChartCache holds the encoded content of rendered charts so that
+ * repeated requests for the same chart do not require the chart data
+ * to be queried and rendered again.  The cache is limited by the total
+ * number of bytes of content and discards the least recently used
+ * charts when the limit is reached.  Each chart belongs to a group so
+ * that the charts can be discarded when the underlying data changes.
+ * Charts also expire after a fixed amount of time so that changes made
+ * outside of the web application are eventually displayed.
+ */
+public class ChartCache {
+
+    /** Group containing the charts of build data */
+    public static final String BUILD_CHARTS = "build";
+
+    /** Group containing the charts of service patch data */
+    public static final String PATCH_CHARTS = "patch";
+
+    /** Group containing the charts stored in the user session */
+    public static final String SESSION_CHARTS = "session";
+
+    /** Default limit on the total size of the cached content (16 MB) */
+    public static final long DEFAULT_MAX_SIZE = 16 * 1024 * 1024;
+
+    /** Default number of milliseconds that a chart remains valid (15 minutes) */
+    public static final long DEFAULT_TTL = 15 * 60 * 1000;
+
+
+    /** Singleton instance of the cache */
+    private static ChartCache instance;
+
+    /** Maximum number of bytes of content held by the cache */
+    private final long maxSize;
+
+    /** Number of milliseconds that a chart remains valid */
+    private final long ttl;
+
+    /** Cached charts in least recently used order */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    /** Total number of bytes of content held by the cache */
+    private long size = 0;
+
+    /** Number of lookups which found a valid chart */
+    private long hitCount = 0;
+
+    /** Number of lookups which did not find a valid chart */
+    private long missCount = 0;
+
+
+    /**
+     * Return the singleton instance of the cache.
+     *
+     * @return  Chart cache
+     */
+    public static synchronized ChartCache getInstance() {
+        if (instance == null) {
+            instance = new ChartCache(DEFAULT_MAX_SIZE, DEFAULT_TTL);
+        }
+        return instance;
+    }
+
+    /**
+     * Return the name of the group containing the charts stored in the 
+     * user session.  The group should be invalidated whenever the charts
+     * in the session are replaced.
+     *
+     * @param   session   User session
+     * @return  Group name
+     */
+    public static String getSessionGroup(HttpSession session) {
+        return SESSION_CHARTS + ":" + session.getId();
+    }
+
+    /**
+     * Construct a cache which holds the specified number of bytes of content.
+     *
+     * @param   maxSize   Maximum number of bytes of content
+     * @param   ttl       Number of milliseconds that a chart remains valid
+     */
+    public ChartCache(long maxSize, long ttl) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Return the cached chart, or null if the chart has not been cached
+     * or has expired.
+     *
+     * @param   key     Chart key
+     * @return  Cached chart
+     */
+    public synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if ((entry != null) && (entry.getLastModified() + ttl < System.currentTimeMillis())) {
+            remove(key);
+            entry = null;
+        }
+
+        if (entry != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return entry;
+    }
+
+    /**
+     * Add the chart content to the cache, replacing any existing chart
+     * with the same key.  The least recently used charts are discarded
+     * if the cache exceeds the size limit.  Content which is larger than
+     * the size limit is not cached.
+     *
+     * @param   group   Group to which the chart belongs
+     * @param   key     Chart key
+     * @param   data    Encoded chart content
+     * @param   type    Content type of the chart content
+     * @return  Chart entry
+     */
+    public synchronized Entry put(String group, String key, byte[] data, String type) {
+        Entry entry = new Entry(group, data, type);
+        remove(key);
+        if (data.length <= maxSize) {
+            entries.put(key, entry);
+            size += data.length;
+
+            Iterator<Entry> iter = entries.values().iterator();
+            while ((size > maxSize) && iter.hasNext()) {
+                size -= iter.next().getData().length;
+                iter.remove();
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Discard all of the charts which belong to the group.
+     *
+     * @param   group   Group to be discarded
+     */
+    public synchronized void invalidate(String group) {
+        Iterator<Entry> iter = entries.values().iterator();
+        while (iter.hasNext()) {
+            Entry entry = iter.next();
+            if (entry.getGroup().equals(group)) {
+                size -= entry.getData().length;
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Discard all of the charts in the cache.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * Return the total number of bytes of content held by the cache.
+     *
+     * @return  Number of bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Return the number of lookups which found a valid chart.
+     *
+     * @return  Number of cache hits
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Return the number of lookups which did not find a valid chart.
+     *
+     * @return  Number of cache misses
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Remove the chart from the cache.
+     *
+     * @param   key     Chart key
+     */
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            size -= entry.getData().length;
+        }
+    }
+
+
+    /**
+     * Encoded content of a rendered chart.
+     */
+    public static class Entry {
+
+        /** Group to which the chart belongs */
+        private final String group;
+
+        /** Encoded chart content */
+        private final byte[] data;
+
+        /** Content type of the chart content */
+        private final String type;
+
+        /** Entity tag which identifies the chart content */
+        private final String etag;
+
+        /** Time when the chart was rendered, truncated to the second */
+        private final long lastModified;
+
+        /**
+         * Construct a chart entry.
+         *
+         * @param   group   Group to which the chart belongs
+         * @param   data    Encoded chart content
+         * @param   type    Content type of the chart content
+         */
+        public Entry(String group, byte[] data, String type) {
+            this.group = group;
+            this.data = data;
+            this.type = type;
+
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            this.etag = "\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(data.length) + "\"";
+
+            // HTTP dates do not include milliseconds
+            this.lastModified = (System.currentTimeMillis() / 1000) * 1000;
+        }
+
+        /**
+         * Return the group to which the chart belongs.
+         *
+         * @return  Chart group
+         */
+        public String getGroup() {
+            return group;
+        }
+
+        /**
+         * Return the encoded chart content.
+         *
+         * @return  Chart content
+         */
+        public byte[] getData() {
+            return data;
+        }
+
+        /**
+         * Return the content type of the chart content.
+         *
+         * @return  Content type
+         */
+        public String getContentType() {
+            return type;
+        }
+
+        /**
+         * Return the entity tag which identifies the chart content.
+         *
+         * @return  Entity tag
+         */
+        public String getETag() {
+            return etag;
+        }
+
+        /**
+         * Return the time when the chart was rendered.
+         *
+         * @return  Time in milliseconds
+         */
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+
+}
@@ -7,9 +7,15 @@
 package com.modeln.build.web.application;
 
 import java.io.*;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import javax.servlet.*;
 import javax.servlet.http.*;
 
+import org.jfree.chart.ChartRenderingInfo;
 import org.jfree.chart.ChartUtilities;
 import org.jfree.chart.JFreeChart;
 
@@ -23,13 +29,23 @@ import com.modeln.build.web.util.*;
 /**
  * The ChartCommand provides command methods which allow the
  * WebApplication to display JFreeChart objects found in the
- * user session. 
+ * user session.  Rendered charts are stored in the ChartCache
+ * so that repeated requests for the same chart can be answered
+ * without querying and rendering the chart data again.  Chart 
+ * responses include ETag and Last-Modified headers which allow
+ * the browser to revalidate a chart it has already downloaded.
  * 
  * @version            $Revision: 1.1.1.1 $  
  * @author             Shawn Stafford
  */
 public class ChartCommand extends BaseCommand implements Command {
 
+    /** Content type of a chart rendered as an image */
+    public static final String PNG_CONTENT_TYPE = "image/png";
+
+    /** Content type of chart data rendered as a spreadsheet */
+    public static final String CSV_CONTENT_TYPE = "text/csv";
+
 
     /**
      * Perform any actions which must be performed before the command
@@ -114,17 +130,257 @@ public class ChartCommand extends BaseCommand implements Command {
         if (cmdInfo.containsError()) {
             throw new ApplicationException(cmdInfo.getError().getErrorCode(), cmdInfo.getError().getErrorMsg());
         } else {
+            HttpSession session = req.getSession();
+            String key = getSessionCacheKey(req);
+            if (!sendCachedChart(req, res, key)) {
+                JFreeChart chart = (JFreeChart) session.getAttribute(chartName);
+                if (chart == null) {
+                    throw new ApplicationException(ErrorMap.APPLICATION_DISPLAY_FAILURE,
+                        "Failed to render chart: " + chartName);
+                }
+                sendChart(req, res, ChartCache.getSessionGroup(session), key, chart, chartWidth, chartHeight, null);
+            }
+        }
+
+    }
+
+
+    /**
+     * Construct a key which identifies the chart requested by the user.
+     * The key consists of the command path followed by the request 
+     * parameters sorted by name, so requests for the same chart type,
+     * date range, criteria, size, and format share the same key 
+     * regardless of the order of the parameters in the URL.
+     *
+     * @param   req     HttpServletRequest object
+     * @return  Chart key
+     */
+    protected static String getCacheKey(HttpServletRequest req) {
+        StringBuffer key = new StringBuffer(req.getRequestURI());
+
+        TreeMap<String, String[]> params = new TreeMap<String, String[]>((Map<String, String[]>) req.getParameterMap());
+        Iterator<String> names = params.keySet().iterator();
+        char separator = '?';
+        while (names.hasNext()) {
+            String name = names.next();
+            String[] values = params.get(name);
+            for (int idx = 0; idx < values.length; idx++) {
+                key.append(separator + name + "=" + values[idx].trim());
+                separator = '&';
+            }
+        }
+
+        return key.toString();
+    }
+
+    /**
+     * Construct a key which identifies a chart stored in the user session.
+     * Since each session contains its own charts, the key includes the
+     * session ID.
+     *
+     * @param   req     HttpServletRequest object
+     * @return  Chart key
+     */
+    protected static String getSessionCacheKey(HttpServletRequest req) {
+        return req.getSession().getId() + ":" + getCacheKey(req);
+    }
+
+    /**
+     * Send the cached chart to the user if the requested chart has 
+     * already been rendered.
+     *
+     * @param   req     HttpServletRequest object
+     * @param   res     HttpServletResponse object
+     * @return  TRUE if the cached chart was sent to the user
+     */
+    protected static boolean sendCachedChart(HttpServletRequest req, HttpServletResponse res) 
+        throws ApplicationException
+    {
+        return sendCachedChart(req, res, getCacheKey(req));
+    }
+
+    /**
+     * Send the cached chart to the user if the chart has already been
+     * rendered.
+     *
+     * @param   req     HttpServletRequest object
+     * @param   res     HttpServletResponse object
+     * @param   key     Chart key
+     * @return  TRUE if the cached chart was sent to the user
+     */
+    protected static boolean sendCachedChart(HttpServletRequest req, HttpServletResponse res, String key) 
+        throws ApplicationException
+    {
+        ChartCache.Entry entry = ChartCache.getInstance().get(key);
+        if (entry != null) {
+            send(req, res, entry);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Render the chart as an image, store it in the cache, and send it 
+     * to the user.
+     *
+     * @param   req     HttpServletRequest object
+     * @param   res     HttpServletResponse object
+     * @param   group   Cache group to which the chart belongs
+     * @param   chart   Chart to be rendered
+     * @param   width   Image width
+     * @param   height  Image height
+     */
+    protected static void sendChart(
+            HttpServletRequest req, 
+            HttpServletResponse res, 
+            String group, 
+            JFreeChart chart, 
+            int width, 
+            int height)
+        throws ApplicationException
+    {
+        sendChart(req, res, group, getCacheKey(req), chart, width, height, null);
+    }
+
+    /**
+     * Render the chart as an image, store it in the cache, and send it 
+     * to the user.
+     *
+     * @param   req     HttpServletRequest object
+     * @param   res     HttpServletResponse object
+     * @param   group   Cache group to which the chart belongs
+     * @param   key     Chart key
+     * @param   chart   Chart to be rendered
+     * @param   width   Image width
+     * @param   height  Image height
+     * @param   info    Chart rendering information, or null if not required
+     */
+    protected static void sendChart(
+            HttpServletRequest req, 
+            HttpServletResponse res, 
+            String group, 
+            String key,
+            JFreeChart chart, 
+            int width, 
+            int height,
+            ChartRenderingInfo info)
+        throws ApplicationException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ChartUtilities.writeChartAsPNG(out, chart, width, height, info);
+        } catch (IOException ioex) {
+            throw new ApplicationException(ErrorMap.APPLICATION_DISPLAY_FAILURE,
+                "Failed to render chart: " + key);
+        }
+        send(req, res, ChartCache.getInstance().put(group, key, out.toByteArray(), PNG_CONTENT_TYPE));
+    }
+
+    /**
+     * Render the chart data as a spreadsheet, store it in the cache, and
+     * send it to the user.
+     *
+     * @param   app     Application which called the command
+     * @param   req     HttpServletRequest object
+     * @param   res     HttpServletResponse object
+     * @param   group   Cache group to which the chart belongs
+     * @param   data    Hashtable of objects rendered using the object toString method 
+     */
+    protected static void sendSpreadsheet(
+            WebApplication app,
+            HttpServletRequest req, 
+            HttpServletResponse res, 
+            String group, 
+            Hashtable data)
+        throws ApplicationException
+    {
+        sendSpreadsheet(app, req, res, group, app.getSpreadsheetContent(data));
+    }
+
+    /**
+     * Render the chart data as a spreadsheet, store it in the cache, and
+     * send it to the user.
+     *
+     * @param   app     Application which called the command
+     * @param   req     HttpServletRequest object
+     * @param   res     HttpServletResponse object
+     * @param   group   Cache group to which the chart belongs
+     * @param   content Multi-dimensional list of objects to render as CSV 
+     */
+    protected static void sendSpreadsheet(
+            WebApplication app,
+            HttpServletRequest req, 
+            HttpServletResponse res, 
+            String group, 
+            List<List<String>> content)
+        throws ApplicationException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            app.writeSpreadsheet(out, content);
+        } catch (IOException ioex) {
+            throw new ApplicationException(ErrorMap.APPLICATION_DISPLAY_FAILURE,
+                "Failed to create spreadsheet content.");
+        }
+        String key = getCacheKey(req);
+        send(req, res, ChartCache.getInstance().put(group, key, out.toByteArray(), CSV_CONTENT_TYPE));
+    }
+
+    /**
+     * Send the chart content to the user.  If the browser already has 
+     * the current version of the chart, only the response headers are
+     * sent.
+     *
+     * @param   req     HttpServletRequest object
+     * @param   res     HttpServletResponse object
+     * @param   entry   Chart content
+     */
+    private static void send(HttpServletRequest req, HttpServletResponse res, ChartCache.Entry entry) 
+        throws ApplicationException
+    {
+        // Require the browser to revalidate the chart before using it
+        res.setHeader("ETag", entry.getETag());
+        res.setDateHeader("Last-Modified", entry.getLastModified());
+        res.setHeader("Cache-Control", "no-cache");
+
+        if (isNotModified(req, entry)) {
+            res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        } else {
+            res.setContentType(entry.getContentType());
+            if (CSV_CONTENT_TYPE.equals(entry.getContentType())) {
+                res.setHeader("content-disposition", "attachment;filename=\"spreadsheet.csv\"");
+            }
+            res.setContentLength(entry.getData().length);
             try {
-                JFreeChart chart = (JFreeChart) req.getSession().getAttribute(chartName);
-                ChartUtilities.writeChartAsPNG(res.getOutputStream(), chart, chartHeight, chartWidth);
-                res.setContentType("image/png");
+                res.getOutputStream().write(entry.getData());
             } catch (IOException ioex) {
                 throw new ApplicationException(ErrorMap.APPLICATION_DISPLAY_FAILURE,
-                    "Failed to render chart: " + chartName);
+                    "Failed to send chart content.");
             }
+        }
+    }
 
+    /**
+     * Determine whether the browser already has the current version of
+     * the chart, based on the conditional request headers.
+     *
+     * @param   req     HttpServletRequest object
+     * @param   entry   Chart content
+     * @return  TRUE if the chart has not been modified
+     */
+    private static boolean isNotModified(HttpServletRequest req, ChartCache.Entry entry) {
+        String match = req.getHeader("If-None-Match");
+        if (match != null) {
+            return match.trim().equals("*") || (match.indexOf(entry.getETag()) >= 0);
         }
 
+        try {
+            long since = req.getDateHeader("If-Modified-Since");
+            return (since >= entry.getLastModified());
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
     }
 
 
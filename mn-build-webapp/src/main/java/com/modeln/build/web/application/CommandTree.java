@@ -8,6 +8,9 @@ package com.modeln.build.web.application;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.swing.tree.*;
 
 
@@ -18,6 +21,12 @@ import javax.swing.tree.*;
  * only upon demand, populating the tree nodes as commands are requested.
  * Methods are provided to retrieve a specific command from a node
  * <p>
+ * The result of each search is cached using the search path and command
+ * name as the key, so that repeated requests for the same command are
+ * resolved with a single map lookup.  Searches which fail to locate a
+ * command are cached as well to avoid repeated class loading attempts.
+ * The tree may be shared by multiple request threads.
+ * <p>
  * @version            $Revision: 1.1.1.1 $
  * @author             Shawn Stafford
  *
@@ -30,6 +39,18 @@ public class CommandTree {
     /** Root package where the command search begins. */
     private String rootPackage;
 
+    /** Maximum number of failed searches which will be cached */
+    private static final int MAX_MISSES = 1000;
+
+    /** Cache entry used to indicate that a search did not locate a command */
+    private static final Object NOT_FOUND = new Object();
+
+    /** Results of previous searches, keyed by search path and command name */
+    private ConcurrentMap<String, Object> commandCache = new ConcurrentHashMap<String, Object>();
+
+    /** Number of failed searches currently held in the cache */
+    private AtomicInteger missCount = new AtomicInteger(0);
+
     /**
      * Constructs a tree under which all of the commands will be loaded.
      * The tree is initially empty when constructed.  The tree will be
@@ -57,7 +78,9 @@ public class CommandTree {
      * the best match for the requested command by beginning its search
      * at the leaf of the specified path and then traversing back up the
      * tree until a match can be found.  If no match is found, a null
-     * will be returned.
+     * will be returned.  The result of the search is cached so that
+     * subsequent requests for the same command and path do not need to
+     * search the tree again.
      * 
      * @param   name    command name
      * @param   path    path along the tree
@@ -65,6 +88,45 @@ public class CommandTree {
      * @return MemberServicesCommand located by the search
      */
     public Command getCommand(String name, String[] path) {
+        String key = getCacheKey(name, path);
+        Object cached = commandCache.get(key);
+        if (cached == null) {
+            Command command = findCommand(name, path);
+            if (command != null) {
+                cached = command;
+            } else if (missCount.get() < MAX_MISSES) {
+                cached = NOT_FOUND;
+            } else {
+                // Avoid growing the cache without bound for invalid requests
+                return null;
+            }
+
+            Object previous = commandCache.putIfAbsent(key, cached);
+            if (previous != null) {
+                cached = previous;
+            } else if (cached == NOT_FOUND) {
+                missCount.incrementAndGet();
+            }
+        }
+
+        if (cached != NOT_FOUND) {
+            return (Command) cached;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Search the tree for the requested command, beginning at the leaf
+     * of the specified path and traversing back up the tree until a
+     * match can be found.
+     * 
+     * @param   name    command name
+     * @param   path    path along the tree
+     * 
+     * @return Command located by the search, or null if none was found
+     */
+    private Command findCommand(String name, String[] path) {
         Command command = null;
 
         // Search each node in the path, beginning at the leaf
@@ -86,6 +148,52 @@ public class CommandTree {
         return null;
     }
 
+    /**
+     * Load the list of commands into the cache so that the commands are
+     * available before the first request is received.
+     *
+     * @param   names   list of command names
+     * @param   path    path along the tree
+     * @return  Number of commands which were located
+     */
+    public int preload(String[] names, String[] path) {
+        int count = 0;
+        for (int idx = 0; idx < names.length; idx++) {
+            if (getCommand(names[idx], path) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Discard the results of all previous searches.  Commands which have
+     * already been loaded into the tree nodes will not be reloaded, but
+     * commands which could not be located previously will be searched
+     * for again.
+     */
+    public void clearCache() {
+        commandCache.clear();
+        missCount.set(0);
+    }
+
+    /**
+     * Return the key used to cache the results of a search.
+     *
+     * @param   name    command name
+     * @param   path    path along the tree
+     * @return  Cache key
+     */
+    private static String getCacheKey(String name, String[] path) {
+        StringBuffer key = new StringBuffer();
+        for (int idx = 0; idx < path.length; idx++) {
+            key.append(path[idx]);
+            key.append("/");
+        }
+        key.append(name);
+        return key.toString();
+    }
+
     
     /**
      * Returns the list of nodes found along the given path.  This assumes
@@ -108,13 +216,14 @@ public class CommandTree {
 
     /**
      * Returns the child node with the given name.  If the child node
-     * does not already exist, it will be created and returned.
+     * does not already exist, it will be created and returned.  Access
+     * is synchronized since the tree may be modified by multiple threads.
      *
      * @param   parent  Parent node
      * @param   name    Name of child node
      * @return  child node
      */
-    public CommandTreeNode getChild(CommandTreeNode parent, String name) {
+    public synchronized CommandTreeNode getChild(CommandTreeNode parent, String name) {
         CommandTreeNode childNode = null;
 
         // Attempt to locate an existing node
@@ -28,7 +28,7 @@ public class CommandTreeNode extends DefaultMutableTreeNode {
     private String nodeName;
 
     /** Debugging statements will print out when debugging is on. */
-    private boolean debug = true;
+    private boolean debug = false;
 
     /** 
      * Name of the package with which the commands are associated.  This will
@@ -84,6 +84,26 @@ public class CommandTreeNode extends DefaultMutableTreeNode {
         commandList.put(name, command);
     }
     
+    /**
+     * Adds a command to the list for this node using the given name as
+     * the key.
+     *
+     * @param   name        Command name
+     * @param   command     Web application command
+     */
+    public void addCommand(String name, Command command) {
+        commandList.put(name, command);
+    }
+
+    /**
+     * Enable or disable debugging output.
+     *
+     * @param   enable   TRUE to enable debugging output
+     */
+    public void setDebug(boolean enable) {
+        debug = enable;
+    }
+
     /**
      * Returns the requested command from the node if it exists.
      *
@@ -116,22 +136,27 @@ public class CommandTreeNode extends DefaultMutableTreeNode {
 
 
     /**
-     * Attempt to load the command class from the file system.
+     * Attempt to load the command class from the file system.  If the
+     * command is loaded successfully it will be added to the list of
+     * commands for this node so that it does not need to be loaded again.
      *
      * @param   name    command name
      * @param   path    path along the tree
      * 
      * @return Command located by the search
      */
-    public Command loadCommand(String name) {
+    public synchronized Command loadCommand(String name) {
         String className = nodePackage + "." + name;
-        Command command = null;
+        Command command = getCommand(name);
+        if (command != null) {
+            return command;
+        }
 
-System.err.println("********************* CommandTreeNode ***********************");
         try {
             Class commandObj = Class.forName(className);
             if (debug) System.err.println("Class loaded: " + commandObj.getName());
             command = (Command)(commandObj.newInstance());
+            addCommand(name, command);
         } catch (ClassNotFoundException nfe) {
             if (debug) {
                 System.err.println("Could not locate class: " + className);
@@ -0,0 +1,195 @@
+package com.modeln.build.web.application;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The SpreadsheetWriter renders rows of data as CSV.  Each row is written
+ * to the output stream as soon as it is provided, so the rows can be
+ * read one at a time from an iterator or a database cursor without
+ * holding the entire spreadsheet in memory.
+ */
+public class SpreadsheetWriter {
+
+    /** Number of rows requested from the database in each round trip */
+    public static final int FETCH_SIZE = 1000;
+
+    /** Separator placed between the fields of a row */
+    private static final String SEPARATOR = ",";
+
+    /** Size of the buffer used when writing to the output stream */
+    private static final int BUFFER_SIZE = 32 * 1024;
+
+    /** Output destination */
+    private BufferedWriter writer;
+
+    /** Number of rows written */
+    private int rowCount = 0;
+
+
+    /**
+     * Construct a writer which renders CSV content to the output stream
+     * using UTF-8 encoding.
+     *
+     * @param   out     Output stream
+     */
+    public SpreadsheetWriter(OutputStream out) throws IOException {
+        writer = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"), BUFFER_SIZE);
+    }
+
+    /**
+     * Write a single row of the spreadsheet.
+     *
+     * @param   row     List of field values
+     */
+    public void writeRow(List<String> row) throws IOException {
+        for (Iterator<String> iter = row.iterator(); iter.hasNext();) {
+            writeField(iter.next());
+            if (iter.hasNext()) {
+                writer.append(SEPARATOR);
+            }
+        }
+        writer.newLine();
+        rowCount++;
+    }
+
+    /**
+     * Write a single row of the spreadsheet.
+     *
+     * @param   row     List of field values
+     */
+    public void writeRow(String[] row) throws IOException {
+        for (int idx = 0; idx < row.length; idx++) {
+            if (idx > 0) {
+                writer.append(SEPARATOR);
+            }
+            writeField(row[idx]);
+        }
+        writer.newLine();
+        rowCount++;
+    }
+
+    /**
+     * Write each row returned by the iterator.  Rows are requested from
+     * the iterator only as they are written.
+     *
+     * @param   rows    Spreadsheet rows
+     * @return  Number of rows written
+     */
+    public int writeRows(Iterator<List<String>> rows) throws IOException {
+        int count = 0;
+        while (rows.hasNext()) {
+            writeRow(rows.next());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Write each row of the result set as the cursor advances.  The
+     * fetch size of the result set is set so that the rows are obtained
+     * from the database in batches rather than all at once.  The result
+     * set is not closed by this method.  SQL NULL values are written
+     * as empty fields.
+     *
+     * @param   rs      Query results
+     * @param   header  TRUE if the column labels should be written as the first row
+     * @return  Number of data rows written
+     */
+    public int writeRows(ResultSet rs, boolean header) throws IOException, SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        String[] row = new String[meta.getColumnCount()];
+
+        if (header) {
+            for (int idx = 0; idx < row.length; idx++) {
+                row[idx] = meta.getColumnLabel(idx + 1);
+            }
+            writeRow(row);
+        }
+
+        try {
+            if (rs.getFetchSize() == 0) {
+                rs.setFetchSize(FETCH_SIZE);
+            }
+        } catch (SQLException ex) {
+            // The fetch size is only a hint and may be ignored by the driver
+        }
+
+        int count = 0;
+        while (rs.next()) {
+            for (int idx = 0; idx < row.length; idx++) {
+                // Leave the field empty when the column value is SQL NULL
+                String value = rs.getString(idx + 1);
+                row[idx] = (value != null) ? value : "";
+            }
+            writeRow(row);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Return the number of rows written, including any header row.
+     *
+     * @return  Number of rows
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Flush any buffered content to the output stream.
+     */
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Write a field value, quoting the value if it contains a separator
+     * or quote character.
+     *
+     * @param   value   Field value
+     */
+    private void writeField(String value) throws IOException {
+        String field = String.valueOf(value).replace("\"", "\"\"");
+        if (field.indexOf(SEPARATOR) > -1 || field.indexOf('"') > -1) {
+            writer.append('"');
+            writer.append(field);
+            writer.append('"');
+        } else {
+            writer.append(field);
+        }
+    }
+
+    /**
+     * Prepare a forward-only, read-only query whose results will be
+     * streamed from the database rather than loaded into memory when the
+     * query is executed.  The MySQL driver only streams results when the
+     * fetch size is Integer.MIN_VALUE; other drivers are given a fetch
+     * size hint of FETCH_SIZE rows.
+     *
+     * @param   conn    Database connection
+     * @param   sql     Query
+     * @return  Prepared statement
+     */
+    public static PreparedStatement prepareStreamingStatement(Connection conn, String sql) throws SQLException {
+        PreparedStatement st = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        String driver = conn.getMetaData().getDriverName();
+        if ((driver != null) && (driver.toLowerCase().indexOf("mysql") >= 0)) {
+            st.setFetchSize(Integer.MIN_VALUE);
+        } else {
+            st.setFetchSize(FETCH_SIZE);
+        }
+        return st;
+    }
+
+}
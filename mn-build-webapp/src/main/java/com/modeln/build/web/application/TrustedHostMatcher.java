@@ -0,0 +1,527 @@
+package com.modeln.build.web.application;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.StringTokenizer;
+import java.util.Vector;
+
+import com.modeln.build.common.logging.SecureLog;
+
+/**
+ * The TrustedHostMatcher determines whether a network address belongs
+ * to the list of trusted hosts.  Each entry in the list may be an IP
+ * address, a CIDR address range such as <code>10.1.0.0/16</code>, or
+ * a hostname.  The list is compiled when the matcher is constructed so
+ * that checking an address only requires a few table lookups.
+ * <p>
+ * Hostnames are resolved to addresses when the matcher is constructed
+ * and resolved again in the background once the resolved addresses
+ * expire.  Addresses are never resolved to hostnames, and the resolver
+ * is never called by the thread which checks an address, so a slow or
+ * unavailable name server cannot delay a request.
+ */
+public class TrustedHostMatcher {
+
+    /** Default number of milliseconds that resolved hostnames remain valid (1 hour) */
+    public static final long DEFAULT_TTL = 60 * 60 * 1000;
+
+    /**
+     * The Resolver obtains the addresses of a hostname.
+     */
+    public interface Resolver {
+        /**
+         * Return all of the addresses of the host.
+         *
+         * @param   host   Hostname
+         * @return  List of addresses
+         * @throws  UnknownHostException if the host cannot be resolved
+         */
+        public InetAddress[] resolve(String host) throws UnknownHostException;
+    }
+
+    /** Resolver which uses the name service configured for the JVM */
+    public static final Resolver DNS_RESOLVER = new Resolver() {
+        public InetAddress[] resolve(String host) throws UnknownHostException {
+            return InetAddress.getAllByName(host);
+        }
+    };
+
+
+    /** Resolver used to obtain the addresses of the trusted hostnames */
+    private final Resolver resolver;
+
+    /** Log used to report hostnames which cannot be resolved, or null if none */
+    private final SecureLog log;
+
+    /** Number of milliseconds that resolved hostnames remain valid */
+    private final long ttl;
+
+    /** TRUE if no trusted hosts are defined and all hosts are trusted */
+    private final boolean trustAll;
+
+    /** Trusted addresses and networks, indexed by the prefix length of the network */
+    private final Hashtable<Integer, HashSet<String>> networks = new Hashtable<Integer, HashSet<String>>();
+
+    /** Prefix lengths of the trusted networks, longest first */
+    private final int[] prefixLengths;
+
+    /** Trusted hostnames (in lower case) which must be resolved to addresses */
+    private final String[] hostnames;
+
+    /** Addresses obtained by resolving the trusted hostnames */
+    private volatile HashSet<String> hostAddresses = new HashSet<String>();
+
+    /** Time when the resolved hostnames expire */
+    private volatile long expires = 0;
+
+    /** TRUE if the hostnames are being resolved in the background */
+    private boolean refreshing = false;
+
+
+    /**
+     * Construct a matcher for the list of trusted hosts using the
+     * default name service and time to live.
+     *
+     * @param   hosts   List of addresses, networks, or hostnames
+     */
+    public TrustedHostMatcher(String[] hosts) {
+        this(hosts, DNS_RESOLVER, DEFAULT_TTL);
+    }
+
+    /**
+     * Construct a matcher for the list of trusted hosts.  Any hostnames
+     * in the list are resolved before the constructor returns.
+     *
+     * @param   hosts      List of addresses, networks, or hostnames
+     * @param   resolver   Resolver used to obtain the addresses of hostnames
+     * @param   ttl        Number of milliseconds that resolved hostnames remain valid
+     */
+    public TrustedHostMatcher(String[] hosts, Resolver resolver, long ttl) {
+        this(hosts, resolver, ttl, null);
+    }
+
+    /**
+     * Construct a matcher for the list of trusted hosts.  Any hostnames
+     * in the list are resolved before the constructor returns.
+     *
+     * @param   hosts      List of addresses, networks, or hostnames
+     * @param   resolver   Resolver used to obtain the addresses of hostnames
+     * @param   ttl        Number of milliseconds that resolved hostnames remain valid
+     * @param   log        Log used to report hostnames which cannot be resolved
+     */
+    public TrustedHostMatcher(String[] hosts, Resolver resolver, long ttl, SecureLog log) {
+        this.resolver = resolver;
+        this.ttl = ttl;
+        this.log = log;
+
+        Vector<String> names = new Vector<String>();
+        HashSet<Integer> lengths = new HashSet<Integer>();
+        if (hosts != null) {
+            for (int idx = 0; idx < hosts.length; idx++) {
+                String host = hosts[idx];
+                if ((host != null) && (host.trim().length() > 0)) {
+                    host = host.trim().toLowerCase();
+                    if (!addNetwork(host, lengths)) {
+                        names.add(host);
+                    }
+                }
+            }
+        }
+        trustAll = (names.size() == 0) && (lengths.size() == 0);
+
+        hostnames = new String[names.size()];
+        names.copyInto(hostnames);
+
+        // Check the most specific networks first
+        prefixLengths = new int[lengths.size()];
+        int count = 0;
+        for (int length = 128; length >= 0; length--) {
+            if (lengths.contains(Integer.valueOf(length))) {
+                prefixLengths[count++] = length;
+            }
+        }
+
+        resolve();
+    }
+
+
+    /**
+     * Determine whether all hosts are trusted because the list of
+     * trusted hosts is empty.
+     *
+     * @return  TRUE if all hosts are trusted
+     */
+    public boolean isTrustAll() {
+        return trustAll;
+    }
+
+    /**
+     * Determine whether the address belongs to a trusted host.  The address
+     * must be an IP address, such as the value of
+     * <code>ServletRequest.getRemoteAddr()</code>.  Any other value is
+     * compared to the trusted hostnames without being resolved.
+     *
+     * @param   host    IP address or hostname
+     * @return  TRUE if the host is trusted
+     */
+    public boolean isTrusted(String host) {
+        if (trustAll) {
+            return true;
+        } else if ((host == null) || (host.trim().length() == 0)) {
+            return false;
+        }
+        host = host.trim().toLowerCase();
+
+        byte[] address = parseAddress(host);
+        if (address == null) {
+            return isTrustedName(host);
+        }
+
+        // Compare the address to each of the trusted networks
+        for (int idx = 0; idx < prefixLengths.length; idx++) {
+            int length = prefixLengths[idx];
+            if (length <= address.length * 8) {
+                HashSet<String> set = networks.get(Integer.valueOf(length));
+                if (set.contains(getNetworkKey(address, length))) {
+                    return true;
+                }
+            }
+        }
+
+        // Compare the address to the addresses of the trusted hostnames
+        if (hostnames.length > 0) {
+            if (System.currentTimeMillis() > expires) {
+                refresh();
+            }
+            return hostAddresses.contains(getNetworkKey(address, address.length * 8));
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Determine whether the name matches a trusted hostname.  A hostname
+     * which is not fully qualified matches a fully qualified hostname
+     * with the same host portion.
+     *
+     * @param   name    Hostname in lower case
+     * @return  TRUE if the name matches a trusted hostname
+     */
+    private boolean isTrustedName(String name) {
+        int dotIdx = name.indexOf('.');
+        for (int idx = 0; idx < hostnames.length; idx++) {
+            String trusted = hostnames[idx];
+            int trustedDotIdx = trusted.indexOf('.');
+            if (dotIdx == trustedDotIdx) {
+                if (name.equals(trusted)) {
+                    return true;
+                }
+            } else if (dotIdx > 0) {
+                // The name is fully qualified, the trusted hostname is not
+                if ((trustedDotIdx < 0) && trusted.equals(name.substring(0, dotIdx))) {
+                    return true;
+                }
+            } else if (trustedDotIdx > 0) {
+                // The trusted hostname is fully qualified, the name is not
+                if (name.equals(trusted.substring(0, trustedDotIdx))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Add the address or CIDR network to the list of trusted networks.
+     *
+     * @param   host      Address, network, or hostname
+     * @param   lengths   Prefix lengths of the trusted networks
+     * @return  TRUE if the host is an address or network, FALSE if it is a hostname
+     */
+    private boolean addNetwork(String host, HashSet<Integer> lengths) {
+        String addr = host;
+        int length = -1;
+        int slashIdx = host.indexOf('/');
+        if (slashIdx > 0) {
+            addr = host.substring(0, slashIdx);
+            try {
+                length = Integer.parseInt(host.substring(slashIdx + 1));
+            } catch (NumberFormatException nfe) {
+                return false;
+            }
+        }
+
+        byte[] address = parseAddress(addr);
+        if (address == null) {
+            return false;
+        }
+        int maxLength = address.length * 8;
+        if ((length < 0) || (length > maxLength)) {
+            length = maxLength;
+        }
+
+        Integer key = Integer.valueOf(length);
+        HashSet<String> set = networks.get(key);
+        if (set == null) {
+            set = new HashSet<String>();
+            networks.put(key, set);
+        }
+        set.add(getNetworkKey(address, length));
+        lengths.add(key);
+        return true;
+    }
+
+    /**
+     * Resolve the addresses of the trusted hostnames.  A hostname which
+     * cannot be resolved is ignored until the next time the hostnames
+     * are resolved.
+     */
+    private void resolve() {
+        HashSet<String> addresses = new HashSet<String>();
+        for (int idx = 0; idx < hostnames.length; idx++) {
+            try {
+                InetAddress[] list = resolver.resolve(hostnames[idx]);
+                for (int addrIdx = 0; addrIdx < list.length; addrIdx++) {
+                    byte[] address = list[addrIdx].getAddress();
+                    addresses.add(getNetworkKey(address, address.length * 8));
+                }
+            } catch (UnknownHostException uhe) {
+                if (log != null) {
+                    log.logEntry(this, SecureLog.ERROR, "Unable to resolve trusted host: " + hostnames[idx]);
+                }
+            } catch (RuntimeException ex) {
+                if (log != null) {
+                    log.logException(this, SecureLog.ERROR, ex, "Unable to resolve trusted host: " + hostnames[idx]);
+                }
+            }
+        }
+        hostAddresses = addresses;
+        expires = System.currentTimeMillis() + ttl;
+    }
+
+    /**
+     * Resolve the trusted hostnames in a background thread.  The addresses
+     * resolved previously continue to be used until the thread completes.
+     */
+    private void refresh() {
+        synchronized (this) {
+            if (refreshing) {
+                return;
+            }
+            refreshing = true;
+        }
+
+        Thread thread = new Thread("TrustedHostMatcher") {
+            public void run() {
+                try {
+                    resolve();
+                } finally {
+                    synchronized (TrustedHostMatcher.this) {
+                        refreshing = false;
+                    }
+                }
+            }
+        };
+        thread.setDaemon(true);
+        boolean started = false;
+        try {
+            thread.start();
+            started = true;
+        } finally {
+            if (!started) {
+                synchronized (this) {
+                    refreshing = false;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Parse an IPv4 or IPv6 address without consulting the name service.
+     *
+     * @param   host    Address string
+     * @return  Address bytes, or null if the string is not an address
+     */
+    static byte[] parseAddress(String host) {
+        if (host.indexOf(':') >= 0) {
+            return parseIPv6(host);
+        }
+
+        StringTokenizer st = new StringTokenizer(host, ".", true);
+        byte[] address = new byte[4];
+        int count = 0;
+        boolean expectDigits = true;
+        while (st.hasMoreTokens()) {
+            String token = st.nextToken();
+            if (expectDigits) {
+                if ((count >= 4) || (token.length() == 0) || (token.length() > 3) || !isDigits(token)) {
+                    return null;
+                }
+                int value = Integer.parseInt(token);
+                if (value > 255) {
+                    return null;
+                }
+                address[count++] = (byte) value;
+            } else if (!token.equals(".")) {
+                return null;
+            }
+            expectDigits = !expectDigits;
+        }
+
+        if ((count == 4) && !expectDigits) {
+            return address;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Parse an IPv6 address, including the compressed form and an
+     * embedded IPv4 address.  Any zone identifier is ignored.
+     *
+     * @param   host    Address string
+     * @return  Address bytes, or null if the string is not an address
+     */
+    private static byte[] parseIPv6(String host) {
+        if (host.startsWith("[") && host.endsWith("]")) {
+            host = host.substring(1, host.length() - 1);
+        }
+        int zoneIdx = host.indexOf('%');
+        if (zoneIdx >= 0) {
+            host = host.substring(0, zoneIdx);
+        }
+
+        // Split the address on the compressed group of zeros
+        int gapIdx = host.indexOf("::");
+        if ((gapIdx >= 0) && (host.indexOf("::", gapIdx + 1) >= 0)) {
+            return null;
+        }
+        String head = host;
+        String tail = "";
+        if (gapIdx >= 0) {
+            head = host.substring(0, gapIdx);
+            tail = host.substring(gapIdx + 2);
+        }
+
+        Vector<Integer> headGroups = parseGroups(head);
+        Vector<Integer> tailGroups = parseGroups(tail);
+        if ((headGroups == null) || (tailGroups == null)) {
+            return null;
+        }
+        int groupCount = headGroups.size() + tailGroups.size();
+        if ((groupCount > 8) || ((gapIdx < 0) && (groupCount != 8)) || ((gapIdx >= 0) && (groupCount == 8))) {
+            return null;
+        }
+
+        byte[] address = new byte[16];
+        int pos = 0;
+        for (int idx = 0; idx < headGroups.size(); idx++) {
+            int value = headGroups.get(idx).intValue();
+            address[pos++] = (byte) (value >> 8);
+            address[pos++] = (byte) value;
+        }
+        pos = 16 - (tailGroups.size() * 2);
+        for (int idx = 0; idx < tailGroups.size(); idx++) {
+            int value = tailGroups.get(idx).intValue();
+            address[pos++] = (byte) (value >> 8);
+            address[pos++] = (byte) value;
+        }
+
+        // Treat IPv4-mapped addresses as IPv4 addresses
+        boolean mapped = (address[10] == (byte) 0xff) && (address[11] == (byte) 0xff);
+        for (int idx = 0; mapped && (idx < 10); idx++) {
+            mapped = (address[idx] == 0);
+        }
+        if (mapped) {
+            byte[] ipv4 = new byte[4];
+            System.arraycopy(address, 12, ipv4, 0, 4);
+            return ipv4;
+        }
+
+        return address;
+    }
+
+    /**
+     * Parse the colon delimited groups of an IPv6 address.  The last
+     * group may be an IPv4 address, which is returned as two groups.
+     *
+     * @param   str     Colon delimited groups
+     * @return  List of 16-bit group values, or null if the groups are invalid
+     */
+    private static Vector<Integer> parseGroups(String str) {
+        Vector<Integer> groups = new Vector<Integer>();
+        if (str.length() == 0) {
+            return groups;
+        }
+
+        String[] tokens = str.split(":", -1);
+        for (int idx = 0; idx < tokens.length; idx++) {
+            String token = tokens[idx];
+            if ((idx == tokens.length - 1) && (token.indexOf('.') >= 0)) {
+                byte[] ipv4 = parseAddress(token);
+                if (ipv4 == null) {
+                    return null;
+                }
+                groups.add(Integer.valueOf(((ipv4[0] & 0xff) << 8) | (ipv4[1] & 0xff)));
+                groups.add(Integer.valueOf(((ipv4[2] & 0xff) << 8) | (ipv4[3] & 0xff)));
+            } else if ((token.length() > 0) && (token.length() <= 4)) {
+                try {
+                    groups.add(Integer.valueOf(Integer.parseInt(token, 16)));
+                } catch (NumberFormatException nfe) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Determine whether the string contains only decimal digits.
+     *
+     * @param   str     String to check
+     * @return  TRUE if every character is a digit
+     */
+    private static boolean isDigits(String str) {
+        for (int idx = 0; idx < str.length(); idx++) {
+            char ch = str.charAt(idx);
+            if ((ch < '0') || (ch > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Construct a key which identifies the network containing the address.
+     * The bits of the address beyond the prefix length are cleared.
+     *
+     * @param   address   Address bytes
+     * @param   length    Prefix length of the network
+     * @return  Network key
+     */
+    private static String getNetworkKey(byte[] address, int length) {
+        StringBuffer key = new StringBuffer(address.length * 3);
+        for (int idx = 0; idx < address.length; idx++) {
+            int bits = length - (idx * 8);
+            int value = address[idx] & 0xff;
+            if (bits <= 0) {
+                value = 0;
+            } else if (bits < 8) {
+                value = value & (0xff << (8 - bits));
+            }
+            if (idx > 0) {
+                key.append('.');
+            }
+            key.append(value);
+        }
+        return key.toString();
+    }
+
+}
@@ -20,6 +20,7 @@ import java.util.Locale;
 import java.util.Properties;
 import java.util.StringTokenizer;
 import java.util.Vector;
+import java.util.zip.GZIPOutputStream;
 import java.security.GeneralSecurityException;
 import javax.mail.Address;
 import javax.mail.Message;
@@ -41,6 +42,7 @@ import com.modeln.build.common.branding.*;
 import com.modeln.build.common.data.account.*;
 import com.modeln.build.common.database.*;
 import com.modeln.build.common.logging.*;
+import com.modeln.build.common.mail.CMnMailQueue;
 import com.modeln.build.web.errors.*;
 import com.modeln.build.web.data.*;
 import com.modeln.build.web.database.*;
@@ -63,13 +65,6 @@ import org.xml.sax.SAXException;
  */
 public class WebApplication extends HttpServlet {
 
-    /** Regular expression for matching IPv4 strings */
-    private static final String REGEX_IPv4 = "[0-9]{1,3}+\\.[0-9]{1,3}+\\.[0-9]{1,3}+\\.[0-9]{1,3}+";
-
-    /** Regular expression for matching IPv6 strings */
-    private static final String REGEX_IPv6 = "[0-9a-fA-F]{4}+\\.[0-9a-fA-F]{4}+\\.[0-9a-fA-F]{4}+\\.[0-9a-fA-F]{4}+\\.[0-9a-fA-F]{4}+\\.[0-9a-fA-F]{4}+\\.[0-9a-fA-F]{4}+\\.[0-9a-fA-F]{4}+";
-
-
     /** The error prefix is prepended to error string entries in the brand file. */
     private static final String ERROR_PREFIX = "ERROR_";
 
@@ -128,6 +123,9 @@ public class WebApplication extends HttpServlet {
     /** Obtain a reference to the Java runtime */
     private static final Runtime runtime = Runtime.getRuntime();
 
+    /** Parsed XML configuration files, indexed by file path */
+    private Hashtable<String, CachedDocument> xmlConfigCache = new Hashtable<String, CachedDocument>();
+
 
     /** 
      * Location of the root directory where files are located. 
@@ -187,9 +185,15 @@ public class WebApplication extends HttpServlet {
     /** List of trusted hosts configured for this instance */
     protected String[] trustedHosts = null;
 
+    /** Compiled list of trusted hosts used to check each request */
+    protected TrustedHostMatcher trustedHostMatcher = null;
+
     /** Repository manager which controls access to the database connections */
     protected RepositoryManager repositoryMgr = new RepositoryManager();
 
+    /** Queue used to send e-mail messages in the background */
+    protected CMnMailQueue mailQueue = null;
+
     /**
      * Initialization routine called by the host Servlet engine.
      * 
@@ -250,6 +254,22 @@ public class WebApplication extends HttpServlet {
             }
             appCommands = new CommandTree(cmdPackage);
 
+            // Load the commonly used commands before the first request
+            String preload = appSettings.getProperty("command-preload");
+            if ((preload != null) && (preload.length() > 0)) {
+                StringTokenizer st = new StringTokenizer(preload);
+                String[] cmdNames = new String[st.countTokens()];
+                int idx = 0;
+                while (st.hasMoreTokens()) {
+                    cmdNames[idx] = st.nextToken().replace('/', '.');
+                    idx++;
+                }
+                String[] defaultPath = { defaultGui, defaultLocale.getCountry(), defaultLocale.getLanguage() };
+                int loaded = appCommands.preload(cmdNames, defaultPath);
+                commonLog.logEntry(this, SecureLog.INFO,
+                    "Preloaded " + loaded + " of " + cmdNames.length + " commands");
+            }
+
             // Set the session timeout length
             String timeout = appSettings.getProperty("session-timeout");
             if ((timeout != null) && (timeout.length() > 0)) {
@@ -279,6 +299,22 @@ public class WebApplication extends HttpServlet {
                 }
             }
 
+            // Resolve the trusted hostnames once rather than on each request
+            long hostTtl = TrustedHostMatcher.DEFAULT_TTL;
+            String ttl = appSettings.getProperty("trusted-hosts-ttl");
+            if ((ttl != null) && (ttl.length() > 0)) {
+                try {
+                    hostTtl = Long.parseLong(ttl) * 60 * 1000;
+                } catch (NumberFormatException nfe) {
+                    commonLog.logEntry(this, SecureLog.ERROR, 
+                        "Invalid trusted host TTL: " + ttl);
+                }
+            }
+            trustedHostMatcher = new TrustedHostMatcher(trustedHosts, TrustedHostMatcher.DNS_RESOLVER, hostTtl, commonLog);
+
+            // Send e-mail in the background so commands do not wait on the mail server
+            mailQueue = createMailQueue();
+
             // Load the list of external URLs
             String urls = appSettings.getProperty("urls");
             if ((urls != null) && (urls.length() > 0)) {
@@ -331,6 +367,20 @@ public class WebApplication extends HttpServlet {
                 db.setUsername(dbUsername);
                 db.setPassword(dbPassword);
                 db.setDriver(dbDriver);
+
+                // Load the optional connection pool settings
+                db.setMaxActive(getIntSetting(name + ".pool.maxActive", db.getMaxActive()));
+                db.setMaxIdle(getIntSetting(name + ".pool.maxIdle", db.getMaxIdle()));
+                db.setMinIdle(getIntSetting(name + ".pool.minIdle", db.getMinIdle()));
+                db.setMaxWait(getLongSetting(name + ".pool.maxWait", db.getMaxWait()));
+                db.setEvictionInterval(getLongSetting(name + ".pool.evictionInterval", db.getEvictionInterval()));
+                db.setMinEvictableIdleTime(getLongSetting(name + ".pool.minEvictableIdleTime", db.getMinEvictableIdleTime()));
+                db.setStatementCacheSize(getIntSetting(name + ".pool.statementCacheSize", db.getStatementCacheSize()));
+                String dbValidation = appSettings.getProperty(name + ".pool.validationQuery");
+                if (dbValidation != null) {
+                    db.setValidationQuery(dbValidation);
+                }
+
                 repositoryMgr.addRepository(name, db);
             } else if (repositoryType.equals("jndi")) {
                 String dbJndi = appSettings.getProperty(name + ".name");
@@ -344,6 +394,111 @@ public class WebApplication extends HttpServlet {
         }
     }
 
+    /**
+     * Return the integer value of the application setting, or the default 
+     * value if the setting is not defined or is not a valid integer.
+     *
+     * @param   name    Setting name
+     * @param   value   Default value
+     * @return  Setting value
+     */
+    protected int getIntSetting(String name, int value) {
+        String setting = appSettings.getProperty(name);
+        if ((setting != null) && (setting.trim().length() > 0)) {
+            try {
+                value = Integer.parseInt(setting.trim());
+            } catch (NumberFormatException nfe) {
+                commonLog.logEntry(this, SecureLog.ERROR, "Invalid integer value for " + name + ": " + setting);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Return the long value of the application setting, or the default 
+     * value if the setting is not defined or is not a valid long.
+     *
+     * @param   name    Setting name
+     * @param   value   Default value
+     * @return  Setting value
+     */
+    protected long getLongSetting(String name, long value) {
+        String setting = appSettings.getProperty(name);
+        if ((setting != null) && (setting.trim().length() > 0)) {
+            try {
+                value = Long.parseLong(setting.trim());
+            } catch (NumberFormatException nfe) {
+                commonLog.logEntry(this, SecureLog.ERROR, "Invalid long value for " + name + ": " + setting);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Create the queue used to send e-mail messages in the background.
+     * Queued messages are stored in the mail.queue.spool directory, which
+     * defaults to a directory within the log directory.  Messages which
+     * were not sent before the application was stopped are sent when the
+     * queue is started.
+     *
+     * @return Mail queue, or null if the queue cannot be created
+     */
+    protected CMnMailQueue createMailQueue() {
+        Properties mailProps = new Properties();
+        mailProps.putAll(System.getProperties());
+        String host = appSettings.getProperty("mail.host");
+        if (host != null) {
+            mailProps.put("mail.smtp.host", host);
+        }
+
+        File spoolDir = null;
+        String spool = appSettings.getProperty("mail.queue.spool");
+        if ((spool != null) && (spool.length() > 0)) {
+            spoolDir = new File(spool);
+        } else if (logDir != null) {
+            spoolDir = new File(logDir, "mailqueue");
+        }
+
+        int capacity = CMnMailQueue.DEFAULT_CAPACITY;
+        int workers = CMnMailQueue.DEFAULT_WORKERS;
+        try {
+            String size = appSettings.getProperty("mail.queue.size");
+            if ((size != null) && (size.length() > 0)) {
+                capacity = Integer.parseInt(size);
+            }
+            String threads = appSettings.getProperty("mail.queue.workers");
+            if ((threads != null) && (threads.length() > 0)) {
+                workers = Integer.parseInt(threads);
+            }
+        } catch (NumberFormatException nfe) {
+            commonLog.logEntry(this, SecureLog.ERROR, "Invalid mail queue setting: " + nfe.getMessage());
+        }
+
+        try {
+            CMnMailQueue queue = new CMnMailQueue(mailProps, spoolDir, capacity, workers);
+            queue.start();
+            commonLog.logEntry(this, SecureLog.INFO, "Mail queue started: " + spoolDir);
+            return queue;
+        } catch (Exception ex) {
+            commonLog.logException(this, SecureLog.ERROR, ex, "Unable to start the mail queue.");
+            return null;
+        }
+    }
+
+    /**
+     * Called by the host Servlet engine when the application is taken out
+     * of service.  Closes all of the repository connection pools.
+     */
+    public void destroy() {
+        if (mailQueue != null) {
+            mailQueue.shutdown(10 * 1000);
+        }
+        if (repositoryMgr != null) {
+            repositoryMgr.close();
+        }
+        super.destroy();
+    }
+
     /**
      * Sets the logging level for the application.
      * The logging levels are defined in 
@@ -550,6 +705,8 @@ public class WebApplication extends HttpServlet {
 
     /**
      * Determine if the request originated from a trusted host.
+     * Only the IP addresses of the request are checked so that the
+     * request never waits for a reverse DNS lookup.
      *
      * @param  req    HttpServletRequest
      * @return TRUE if the request is from a trusted source
@@ -558,11 +715,11 @@ public class WebApplication extends HttpServlet {
         boolean trusted = false;
 
         // If we trust the end user, we're ok
-        if (isTrusted(req.getRemoteAddr()) || isTrusted(req.getRemoteHost())) {
-            debug("Host has a trusted remote address or remote hostname.");
+        if (isTrusted(req.getRemoteAddr())) {
+            debug("Host has a trusted remote address.");
             trusted = true;
-        } else if (isTrusted(req.getLocalAddr()) || isTrusted(req.getLocalName())) {
-            debug("Host has a trusted local address or hostname.");
+        } else if (isTrusted(req.getLocalAddr())) {
+            debug("Host has a trusted local address.");
             trusted = true;
         } else {
             debug("Request does not match a trusted host.");
@@ -572,111 +729,26 @@ public class WebApplication extends HttpServlet {
         return trusted;
     }
 
-
-    /**
-     * Determine if the two hostnames are equal.
-     *
-     * @param   host1   Hostname or IP address
-     * @param   host2   Hostname or IP address
-     * @return TRUE if the hostnames are equal
-     */
-    private boolean areHostnamesEqual(String host1, String host2) {
-        boolean equal = false;
-
-        boolean fqn_1  = false; // fully qualified hostname
-        boolean IPv4_1 = false; // IPv4 IP address
-        boolean IPv6_1 = false; // IPv6 IP address
-
-        boolean fqn_2  = false; // fully qualified hostname
-        boolean IPv4_2 = false; // IPv4 IP address
-        boolean IPv6_2 = false; // IPv6 IP address
-
-        if ((host1 != null) && (host2 != null)) {
-            String name1 = host1.toLowerCase().trim();
-            String name2 = host2.toLowerCase().trim();
-
-            int fqn_idx1 = name1.indexOf('.');   // Location of the first '.' in the hostname
-            int fqn_idx2 = name2.indexOf('.');   // Location of the first '.' in the hostname
-
-            // Determine if the host is an IPv4 address
-            IPv4_1 = name1.matches(REGEX_IPv4);
-            IPv4_2 = name2.matches(REGEX_IPv4);
-            if (IPv4_1 || IPv4_2) {
-                return (name1.equals(name2));
-            }
-
-            // Determine if the name is an IPv6 address
-            IPv6_1 = name1.matches(REGEX_IPv6);
-            IPv6_2 = name2.matches(REGEX_IPv6);
-            if (IPv6_1 || IPv6_2) {
-                return (name1.equals(name2));
-            }
-
-            // Determine if the hostname can be compared directly
-            if (fqn_idx1 == fqn_idx2) {
-                return (name1.equals(name2));
-            } else {
-                if (fqn_idx1 > 0) {
-                    // The first name is fully qualified, the second is not
-                    return (name2.equals(name1.substring(0,fqn_idx1)));
-                } else if (fqn_idx2 > 0) {
-                    // The second name is fully qualified, the first is not
-                    return (name1.equals(name2.substring(0,fqn_idx2)));
-                }
-            }
-
-        }
-
-        return equal;
-    }
-
     /**
      * Determine if the specified host is in the list of trusted hosts.
+     * An IP address is compared to the trusted addresses, networks, and
+     * the addresses of the trusted hostnames.  A hostname is compared to
+     * the trusted hostnames without being resolved.
      *
      * @param   host    Name or address of the host
      * @return  TRUE if the host is in the list
      */
     public boolean isTrusted(String host) {
-        boolean trusted = false;
-
-        boolean name = false; // hostname
-        boolean fqn  = false; // fully qualified hostname
-        boolean IPv4 = false; // IPv4 IP address
-        boolean IPv6 = false; // IPv6 IP address
-
-        if ((host != null) && (host.length() > 0) && (trustedHosts != null) && (trustedHosts.length > 0)) {
-            // Determine if the host is an IP address or a hostname
-            IPv4 = host.matches(REGEX_IPv4); 
-            if (!IPv4) {
-                IPv6 = host.matches(REGEX_IPv6);
-            }
-            if (IPv4 || IPv6) {
-                name = false;
-                fqn = false;
-            } else {
-                name = true;
-                fqn = (host.indexOf('.') > 0);  // the presence of a '.' indicates a domain
-            }
-
-            // Check the host against each trusted host in the list
-            for (int idx = 0; idx < trustedHosts.length; idx++) {
-                debug("Comparing host to trusted host entry: " + host + " == " + trustedHosts[idx] + "?");
-                if (areHostnamesEqual(host, trustedHosts[idx])) {
-                    debug("Found a match in the list of trusted hosts: " + host);
-                    return true;
-                }
-            }
-        } else if ((trustedHosts == null) || (trustedHosts.length == 0)) {
+        if ((trustedHostMatcher == null) || trustedHostMatcher.isTrustAll()) {
             // If no hosts are defined, assume all hosts are trusted
             debug("The trusted-hosts property is not set.  All hosts will be trusted.");
-            trusted = true;
+            return true;
+        } else if (trustedHostMatcher.isTrusted(host)) {
+            debug("Found a match in the list of trusted hosts: " + host);
+            return true;
         } else {
-            // If the specified host is null, assume we can't trust it
-            debug("The specified host cannot be trusted because the host value is null or zero length.");
-            trusted = false;
+            return false;
         }
-
-        return trusted; 
     }
 
     /**
@@ -1219,6 +1291,18 @@ public class WebApplication extends HttpServlet {
             Hashtable hash)
         throws ServletException, IOException
     {
+        // Stream the spreadsheet content to the user
+        streamAsSpreadsheet(req, res, getSpreadsheetContent(hash));
+    }
+
+    /**
+     * Convert the hashtable to spreadsheet content.  Each name/value 
+     * pair is represented as a row in the spreadsheet.
+     *
+     * @param   hash    Hashtable of objects rendered using the object toString method 
+     * @return  Multi-dimensional list of objects to render as CSV 
+     */
+    public List<List<String>> getSpreadsheetContent(Hashtable hash) {
         // spreadsheet content
         List<List<String>> content = new ArrayList<List<String>>(hash.size());
 
@@ -1240,8 +1324,7 @@ public class WebApplication extends HttpServlet {
             }
         }
 
-        // Stream the spreadsheet content to the user
-        streamAsSpreadsheet(req, res, content);
+        return content;
     }
 
     /**
@@ -1260,27 +1343,106 @@ public class WebApplication extends HttpServlet {
             List<List<String>> content) 
         throws ServletException, IOException
     {
-        // Write the CSV content to the output stream
+        streamAsSpreadsheet(req, res, content.iterator());
+    } 
+
+    /**
+     * Writes directly to the response output stream.  Each row is
+     * requested from the iterator as it is written, so the rows can
+     * be produced one at a time rather than built up front.
+     *
+     * @param   req     HttpServletRequest object (represents the http request)
+     * @param   res     HttpServletResponse object (represents the response)
+     * @param   rows    Spreadsheet rows to render as CSV 
+     */
+    public void streamAsSpreadsheet(
+            HttpServletRequest req, 
+            HttpServletResponse res, 
+            Iterator<List<String>> rows) 
+        throws ServletException, IOException
+    {
+        OutputStream out = getSpreadsheetStream(req, res);
+        SpreadsheetWriter writer = new SpreadsheetWriter(out);
+        writer.writeRows(rows);
+        finishSpreadsheet(writer, out);
+    } 
+
+    /**
+     * Writes the query results directly to the response output stream
+     * as the database cursor advances.  Use 
+     * SpreadsheetWriter.prepareStreamingStatement to create the query
+     * so that the driver does not load the entire result set into memory.
+     * The result set is not closed by this method.
+     *
+     * @param   req     HttpServletRequest object (represents the http request)
+     * @param   res     HttpServletResponse object (represents the response)
+     * @param   rs      Query results to render as CSV 
+     * @param   header  TRUE if the column labels should be written as the first row
+     */
+    public void streamAsSpreadsheet(
+            HttpServletRequest req, 
+            HttpServletResponse res, 
+            ResultSet rs,
+            boolean header) 
+        throws ServletException, IOException, SQLException
+    {
+        OutputStream out = getSpreadsheetStream(req, res);
+        SpreadsheetWriter writer = new SpreadsheetWriter(out);
+        writer.writeRows(rs, header);
+        finishSpreadsheet(writer, out);
+    } 
+
+    /**
+     * Set the spreadsheet response headers and return the stream to which
+     * the content should be written.  The content is compressed if the
+     * browser accepts gzip encoding.
+     *
+     * @param   req     HttpServletRequest object (represents the http request)
+     * @param   res     HttpServletResponse object (represents the response)
+     * @return  Output stream
+     */
+    private OutputStream getSpreadsheetStream(HttpServletRequest req, HttpServletResponse res)
+        throws IOException
+    {
         res.setHeader("content-type", "text/csv");
         res.setHeader("content-disposition", "attachment;filename=\"spreadsheet.csv\"");
-        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(res.getOutputStream(), "UTF-8"));
+        res.setHeader("Vary", "Accept-Encoding");
 
-        String separator = ",";
+        String encoding = req.getHeader("Accept-Encoding");
+        if ((encoding != null) && (encoding.toLowerCase().indexOf("gzip") >= 0)) {
+            res.setHeader("Content-Encoding", "gzip");
+            return new GZIPOutputStream(res.getOutputStream(), 8192);
+        } else {
+            return res.getOutputStream();
+        }
+    }
 
-        // Iterate through the CSV content
-        for (List<String> row : content) {
-            for (Iterator<String> iter = row.iterator(); iter.hasNext();) {
-                String field = String.valueOf(iter.next()).replace("\"", "\"\"");
-                if (field.indexOf(separator) > -1 || field.indexOf('"') > -1) {
-                    field = '"' + field + '"';
-                }
-                writer.append(field);
-                if (iter.hasNext()) {
-                    writer.append(separator);
-                }
-            }
-            writer.newLine();
+    /**
+     * Flush the spreadsheet content and complete the compressed stream
+     * if the content is being compressed.
+     *
+     * @param   writer  Spreadsheet writer
+     * @param   out     Output stream returned by getSpreadsheetStream
+     */
+    private void finishSpreadsheet(SpreadsheetWriter writer, OutputStream out) throws IOException {
+        writer.flush();
+        if (out instanceof GZIPOutputStream) {
+            ((GZIPOutputStream) out).finish();
         }
+        out.flush();
+    }
+
+    /**
+     * Write the spreadsheet content to the output stream as CSV. 
+     *
+     * @param   out     Output stream
+     * @param   content Multi-dimensional list of objects to render as CSV 
+     */
+    public void writeSpreadsheet(OutputStream out, List<List<String>> content) 
+        throws IOException
+    {
+        SpreadsheetWriter writer = new SpreadsheetWriter(out);
+        writer.writeRows(content.iterator());
         writer.flush();
     } 
 
@@ -1301,7 +1463,7 @@ public class WebApplication extends HttpServlet {
 
         // Use the servlet context to obtain a real path to the relative directories
         ServletContext context = getServletContext();
-        File[] matches = BestFileMatch.getRealFileList(
+        File[] matches = BestFileMatch.getCachedFileList(
             context.getRealPath(jspDir.toString()), path, classPrefix, classPath);
 
         // Attempt to locate the resource relative to the servlet path
@@ -1506,6 +1668,18 @@ public class WebApplication extends HttpServlet {
                 "Missing mail configuration setting: mail.from");
         }
 
+        // Queue the message unless the queue is unavailable or full
+        if (mailQueue != null) {
+            try {
+                if (mailQueue.send(fromAddr, to, cc, subject, text, format)) {
+                    debug("WebApplication.sendMailMessage: queued subject=" + subject);
+                    return;
+                }
+            } catch (MessagingException exQueue) {
+                commonLog.logEntry(this, SecureLog.ERROR, "Unable to queue e-mail: " + exQueue.toString());
+            }
+        }
+
         // Load the default system properties and override with config values
         Properties mailProps = System.getProperties();
         if (host != null) {
@@ -1874,7 +2048,7 @@ public class WebApplication extends HttpServlet {
 
         // Use the servlet context to obtain a real path to the relative directories
         ServletContext context = getServletContext();
-        File[] matches = BestFileMatch.getRealFileList(
+        File[] matches = BestFileMatch.getCachedFileList(
             context.getRealPath(configDir.toString()), path, classPrefix, classPath);
 
         // Attempt to locate the resource relative to the servlet path
@@ -1898,10 +2072,8 @@ public class WebApplication extends HttpServlet {
         // Load the XML file as a DOM file
         if (match != null) {
             try {
-                DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-                DocumentBuilder db = dbf.newDocumentBuilder();
                 File xmlFile = new File(context.getRealPath(match));
-                doc = db.parse(xmlFile);
+                doc = parseXmlConfig(xmlFile);
             } catch (ParserConfigurationException pe) {
                 commonLog.logEntry(this, SecureLog.DEBUG, "Unable to create an XML parser to parse the config file: " + pe.toString());
             } catch (SAXException sex) {
@@ -1913,6 +2085,65 @@ public class WebApplication extends HttpServlet {
     }
 
 
+    /**
+     * Return a copy of the parsed XML file.  The parsed document is cached
+     * and the file is only parsed again if its modification time changes.
+     * The modification time is checked no more often than the check interval
+     * used when caching branded resources.  Callers are free to modify the
+     * document since each call returns a separate copy.
+     *
+     * @param   xmlFile   XML file to parse
+     * @return  Parsed XML document
+     */
+    private Document parseXmlConfig(File xmlFile)
+        throws ParserConfigurationException, SAXException, IOException
+    {
+        String key = xmlFile.getPath();
+        long now = System.currentTimeMillis();
+
+        CachedDocument entry = xmlConfigCache.get(key);
+        if (entry != null) {
+            synchronized (entry) {
+                if ((now - entry.checked) >= BestFileMatch.getCheckInterval()) {
+                    if (xmlFile.lastModified() == entry.modified) {
+                        entry.checked = now;
+                    } else {
+                        entry = null;
+                    }
+                }
+            }
+        }
+
+        if (entry == null) {
+            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+            DocumentBuilder db = dbf.newDocumentBuilder();
+            entry = new CachedDocument();
+            entry.modified = xmlFile.lastModified();
+            entry.checked = now;
+            entry.doc = db.parse(xmlFile);
+            xmlConfigCache.put(key, entry);
+        }
+
+        synchronized (entry) {
+            return (Document) entry.doc.cloneNode(true);
+        }
+    }
+
+    /**
+     * Parsed XML document and the modification time of the file it was parsed from.
+     */
+    private static class CachedDocument {
+        /** Parsed XML document */
+        Document doc;
+
+        /** Modification time of the XML file when it was parsed */
+        long modified;
+
+        /** Time when the modification time was last checked */
+        long checked;
+    }
+
+
     /**
      * Calculate the amount of memory used from the Java Runtime heap.
      * 
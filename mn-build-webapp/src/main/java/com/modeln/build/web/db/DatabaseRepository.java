@@ -27,6 +27,30 @@ public class DatabaseRepository extends DataRepository {
     /** Class containing the methods and code used to connect to the repository */
     private String driver;
 
+    /** Maximum number of pooled connections that can be in use at one time */
+    private int maxActive = 20;
+
+    /** Maximum number of pooled connections that can remain idle */
+    private int maxIdle = 8;
+
+    /** Minimum number of pooled connections that should remain idle */
+    private int minIdle = 0;
+
+    /** Maximum time (in milliseconds) to wait for a pooled connection to become available */
+    private long maxWait = 30000;
+
+    /** Query used to validate a pooled connection before it is returned */
+    private String validationQuery;
+
+    /** Time (in milliseconds) between checks for idle connections to evict */
+    private long evictionInterval = 60000;
+
+    /** Minimum time (in milliseconds) a connection must be idle before it can be evicted */
+    private long minEvictableIdleTime = 300000;
+
+    /** Maximum number of prepared statements cached for each connection */
+    private int statementCacheSize = 50;
+
     /**
      * Construct the database repository.
      */
@@ -117,5 +141,170 @@ public class DatabaseRepository extends DataRepository {
         return driver;
     }
 
+    /**
+     * Sets the maximum number of pooled connections that can be in use at one
+     * time.  Requests for additional connections will wait until a connection
+     * is returned to the pool.
+     *
+     * @param   max     Maximum number of active connections
+     */
+    public void setMaxActive(int max) {
+        maxActive = max;
+    }
+
+    /**
+     * Returns the maximum number of pooled connections that can be in use.
+     *
+     * @return  Maximum number of active connections
+     */
+    public int getMaxActive() {
+        return maxActive;
+    }
+
+    /**
+     * Sets the maximum number of pooled connections that can remain idle.
+     *
+     * @param   max     Maximum number of idle connections
+     */
+    public void setMaxIdle(int max) {
+        maxIdle = max;
+    }
+
+    /**
+     * Returns the maximum number of pooled connections that can remain idle.
+     *
+     * @return  Maximum number of idle connections
+     */
+    public int getMaxIdle() {
+        return maxIdle;
+    }
+
+    /**
+     * Sets the minimum number of pooled connections that should remain idle.
+     *
+     * @param   min     Minimum number of idle connections
+     */
+    public void setMinIdle(int min) {
+        minIdle = min;
+    }
+
+    /**
+     * Returns the minimum number of pooled connections that should remain idle.
+     *
+     * @return  Minimum number of idle connections
+     */
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    /**
+     * Sets the maximum amount of time to wait for a pooled connection.
+     *
+     * @param   millis  Wait time in milliseconds
+     */
+    public void setMaxWait(long millis) {
+        maxWait = millis;
+    }
+
+    /**
+     * Returns the maximum amount of time to wait for a pooled connection.
+     *
+     * @return  Wait time in milliseconds
+     */
+    public long getMaxWait() {
+        return maxWait;
+    }
+
+    /**
+     * Sets the query used to validate a pooled connection before it is
+     * borrowed from the pool.  An empty string disables validation.
+     *
+     * @param   query   Validation query
+     */
+    public void setValidationQuery(String query) {
+        validationQuery = query;
+    }
+
+    /**
+     * Returns the query used to validate a pooled connection.  If no query
+     * has been specified, a default query is selected based on the database
+     * URL.
+     *
+     * @return  Validation query, or null if validation is disabled
+     */
+    public String getValidationQuery() {
+        if (validationQuery != null) {
+            if (validationQuery.trim().length() > 0) {
+                return validationQuery;
+            } else {
+                return null;
+            }
+        } else if ((url != null) && url.startsWith("jdbc:oracle")) {
+            return "SELECT 1 FROM DUAL";
+        } else {
+            return "SELECT 1";
+        }
+    }
+
+    /**
+     * Sets the amount of time between checks for idle connections that
+     * should be evicted from the pool.  A value less than or equal to zero
+     * disables idle eviction.
+     *
+     * @param   millis  Eviction interval in milliseconds
+     */
+    public void setEvictionInterval(long millis) {
+        evictionInterval = millis;
+    }
+
+    /**
+     * Returns the amount of time between checks for idle connections.
+     *
+     * @return  Eviction interval in milliseconds
+     */
+    public long getEvictionInterval() {
+        return evictionInterval;
+    }
+
+    /**
+     * Sets the minimum amount of time a connection must be idle before
+     * it can be evicted from the pool.
+     *
+     * @param   millis  Idle time in milliseconds
+     */
+    public void setMinEvictableIdleTime(long millis) {
+        minEvictableIdleTime = millis;
+    }
+
+    /**
+     * Returns the minimum amount of time a connection must be idle before
+     * it can be evicted from the pool.
+     *
+     * @return  Idle time in milliseconds
+     */
+    public long getMinEvictableIdleTime() {
+        return minEvictableIdleTime;
+    }
+
+    /**
+     * Sets the maximum number of prepared statements cached for each
+     * pooled connection.  A value less than or equal to zero disables
+     * the statement cache.
+     *
+     * @param   size    Number of cached statements
+     */
+    public void setStatementCacheSize(int size) {
+        statementCacheSize = size;
+    }
+
+    /**
+     * Returns the maximum number of prepared statements cached for each
+     * pooled connection.
+     *
+     * @return  Number of cached statements
+     */
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
 
 }
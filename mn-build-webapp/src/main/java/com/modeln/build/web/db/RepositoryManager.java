@@ -25,11 +25,7 @@ import javax.naming.InitialContext;
 import javax.naming.NamingException;
 import javax.sql.DataSource;
 
-/**
-// Eventually, repository connections should be pooled
-import org.apache.commons.pool.*;
-import org.apache.commons.dbcp.*;
-*/
+import org.apache.commons.dbcp.BasicDataSource;
 
 import com.modeln.build.web.errors.*;
 import com.modeln.build.web.errors.*;
@@ -37,6 +33,9 @@ import com.modeln.build.web.errors.*;
 /**
  * The RepositoryManager manages connections to data repositories
  * such as databases, server sockets, and local files.
+ * Connections to JDBC repositories are obtained from a bounded pool
+ * of connections which is created for each repository.  Releasing
+ * a connection returns it to the pool rather than closing it.
  * 
  * @version            $Revision: 1.1.1.1 $  
  * @author             Shawn Stafford
@@ -46,8 +45,8 @@ public class RepositoryManager {
     /** List of repositories being managed */
     private Hashtable repositoryList = new Hashtable();
 
-    /** List of pooled repository connections */
-    private Hashtable repositoryPool = new Hashtable();
+    /** List of connection pools, one for each database repository */
+    private Hashtable<DataRepository, BasicDataSource> repositoryPool = new Hashtable<DataRepository, BasicDataSource>();
 
     /** Set the logging output used to log database messages */
     private PrintWriter repositoryLog = null;
@@ -85,6 +84,7 @@ public class RepositoryManager {
             if (repository instanceof DatabaseRepository) {
                 Class driver = Class.forName(((DatabaseRepository)repository).getDriver());
                 DriverManager.registerDriver((Driver) driver.newInstance());
+                repositoryPool.put(repository, createPool((DatabaseRepository)repository));
                 repositoryList.put(repositoryName, repository);
                 log("Adding repository to the list: " + repository.getDescription());
             } else if (repository instanceof JndiRepository) {
@@ -102,6 +102,107 @@ public class RepositoryManager {
 
     }
 
+    /**
+     * Create a pool of connections to the database repository.  The pool
+     * is bounded by the maximum number of active connections and validates
+     * each connection before it is borrowed from the pool.
+     *
+     * @param   repository   Database repository information
+     * @return  Connection pool
+     */
+    private BasicDataSource createPool(DatabaseRepository repository) {
+        BasicDataSource pool = new BasicDataSource();
+        pool.setDriverClassName(repository.getDriver());
+        pool.setUrl(repository.getUrl());
+        pool.setUsername(repository.getUsername());
+        pool.setPassword(repository.getPassword());
+
+        // Limit the number of connections to the database
+        pool.setMaxActive(repository.getMaxActive());
+        pool.setMaxIdle(repository.getMaxIdle());
+        pool.setMinIdle(repository.getMinIdle());
+        pool.setMaxWait(repository.getMaxWait());
+
+        // Make sure stale connections are not handed out 
+        String query = repository.getValidationQuery();
+        if (query != null) {
+            pool.setValidationQuery(query);
+            pool.setTestOnBorrow(true);
+            pool.setTestWhileIdle(true);
+        } else {
+            pool.setTestOnBorrow(false);
+        }
+
+        // Periodically close connections which have been idle too long
+        pool.setTimeBetweenEvictionRunsMillis(repository.getEvictionInterval());
+        pool.setMinEvictableIdleTimeMillis(repository.getMinEvictableIdleTime());
+
+        // Cache the prepared statements of each connection
+        if (repository.getStatementCacheSize() > 0) {
+            pool.setPoolPreparedStatements(true);
+            pool.setMaxOpenPreparedStatements(repository.getStatementCacheSize());
+        }
+
+        log("Created connection pool for " + repository.getDescription() + 
+            ": maxActive=" + repository.getMaxActive() + 
+            ", maxIdle=" + repository.getMaxIdle() +
+            ", maxWait=" + repository.getMaxWait() + "ms" +
+            ", statementCache=" + repository.getStatementCacheSize());
+
+        return pool;
+    }
+
+    /**
+     * Close all of the connection pools.  Any connections which are still
+     * in use will be closed when they are released.
+     */
+    public void close() {
+        Enumeration<DataRepository> list = repositoryPool.keys();
+        while (list.hasMoreElements()) {
+            DataRepository repository = list.nextElement();
+            BasicDataSource pool = repositoryPool.remove(repository);
+            try {
+                if (pool != null) {
+                    pool.close();
+                }
+            } catch (SQLException sqlex) {
+                log("Unable to close connection pool for " + repository.getDescription() + ": " + sqlex.toString());
+            }
+        }
+    }
+
+    /**
+     * Return the number of pooled connections which are currently in use
+     * for the repository.
+     *
+     * @param  repository   Repository information
+     * @return Number of active connections, or -1 if the repository is not pooled
+     */
+    public int getActiveCount(DataRepository repository) {
+        BasicDataSource pool = repositoryPool.get(repository);
+        if (pool != null) {
+            return pool.getNumActive();
+        } else {
+            return -1;
+        }
+    }
+
+    /**
+     * Return the number of pooled connections which are currently idle
+     * for the repository.
+     *
+     * @param  repository   Repository information
+     * @return Number of idle connections, or -1 if the repository is not pooled
+     */
+    public int getIdleCount(DataRepository repository) {
+        BasicDataSource pool = repositoryPool.get(repository);
+        if (pool != null) {
+            return pool.getNumIdle();
+        } else {
+            return -1;
+        }
+    }
+
     /**
      * Return the list of repositories.
      *
@@ -143,11 +244,17 @@ public class RepositoryManager {
         if (repository instanceof DatabaseRepository) {
             String url = ((DatabaseRepository)repository).getUrl();
             String user = ((DatabaseRepository)repository).getUsername();
-            String pass = ((DatabaseRepository)repository).getPassword();
-            DriverManager.setLogWriter(repositoryLog);
-            conn = DriverManager.getConnection(url, user, pass);
+            BasicDataSource pool = repositoryPool.get(repository);
+            if (pool != null) {
+                // Borrow a connection from the pool, waiting if all connections are in use
+                conn = pool.getConnection();
+            } else {
+                String pass = ((DatabaseRepository)repository).getPassword();
+                DriverManager.setLogWriter(repositoryLog);
+                conn = DriverManager.getConnection(url, user, pass);
+            }
             if (conn == null) {
-                log("Unable to establish a connection to the database: url=" + url + ", user=" + user + ", pass=" + pass);
+                log("Unable to establish a connection to the database: url=" + url + ", user=" + user);
             }
         } else if (repository instanceof JndiRepository) {
             DataSource ds = getDataSource((JndiRepository)repository);
@@ -173,8 +280,9 @@ public class RepositoryManager {
 
     /**
      * Close the database connection and log the information.
+     * Pooled connections are returned to the pool rather than closed.
      * 
-     * @param   conn   Database connection to be closed
+     * @param   rc   Database connection to be closed
      */
     public void release(RepositoryConnection rc) {
         boolean closed = false;
@@ -221,7 +329,9 @@ public class RepositoryManager {
     }
 
     /**
-     * Attempt to clean up any invalid connections.
+     * Attempt to clean up any invalid connections.  Since the thread which
+     * obtained an invalid connection no longer exists, the connection is
+     * released so that it does not permanently occupy a slot in the pool.
      */
     public void logInvalidConnections() {
         Vector<RepositoryConnection> leaks = getInvalidConnections();
@@ -229,6 +339,7 @@ public class RepositoryManager {
         while (list.hasMoreElements()) {
             RepositoryConnection rc = (RepositoryConnection) list.nextElement();
             log("Invalid connection detected: " + rc.toString()); 
+            release(rc);
         }
     }
 
@@ -242,13 +353,13 @@ public class RepositoryManager {
         Enumeration list = connectionList.keys();
         while (list.hasMoreElements()) {
             DataRepository repo = (DataRepository) connectionList.get(list.nextElement()); 
-            Integer count = new Integer(0);
+            int count = 0;
             if (repolist.containsKey(repo)) {
                 if (repolist.get(repo) != null) {
-                    count = repolist.get(repo);
+                    count = repolist.get(repo).intValue();
                 }
             }
-            repolist.put(repo, count++);
+            repolist.put(repo, Integer.valueOf(count + 1));
         }
         return repolist;
     }
@@ -362,8 +473,9 @@ public class RepositoryManager {
      */
     private void log(DataRepository repository) {
         log("Repository information: " + repository.getDescription());
+        RepositoryConnection rc = null;
         try {
-            RepositoryConnection rc = getDbConnection(repository);
+            rc = getDbConnection(repository);
             Connection conn = rc.getConnection();
             if (conn != null) {
                 // Make sure the connection is open
@@ -381,6 +493,10 @@ public class RepositoryManager {
             log("Failed to obtain a connection to the repository: " + repository.getDescription());
         } catch (SQLException sqlex) {
             log("Failed to log repository metadata for " + repository.getDescription());
+        } finally {
+            if (rc != null) {
+                release(rc);
+            }
         }
     }
 
@@ -0,0 +1,128 @@
+package com.modeln.build.common.branding;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * Test methods for verifying the cached file matching.
+ */
+public class BestFileMatchTest extends TestCase {
+
+    /** Target prefixes used when searching for files */
+    private static final String[] PREFIX = { "x", "y" };
+
+    /** Search path used when searching for files */
+    private static final String[] PATH = { "a", "b" };
+
+    /** Temporary directory containing the test files */
+    private File root;
+
+    protected void setUp() throws Exception {
+        root = File.createTempFile("bestfile", "");
+        root.delete();
+        new File(root, "a" + File.separator + "b").mkdirs();
+        createFile(new File(root, "app.cfg"));
+        createFile(new File(root, "a" + File.separator + "x.app.cfg"));
+
+        // Make the directories old enough that their modification times can be trusted
+        setModified(-10000);
+        BestFileMatch.clearCache();
+    }
+
+    protected void tearDown() throws Exception {
+        BestFileMatch.setCheckInterval(5000);
+        BestFileMatch.clearCache();
+        delete(root);
+    }
+
+    private static void createFile(File file) throws Exception {
+        FileWriter writer = new FileWriter(file);
+        writer.write("test=true\n");
+        writer.close();
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (int idx = 0; idx < children.length; idx++) {
+                delete(children[idx]);
+            }
+        }
+        file.delete();
+    }
+
+    private void setModified(long offset) {
+        long time = System.currentTimeMillis() + offset;
+        root.setLastModified(time);
+        new File(root, "a").setLastModified(time);
+        new File(root, "a" + File.separator + "b").setLastModified(time);
+    }
+
+    private File[] getCachedFiles() throws Exception {
+        return BestFileMatch.getCachedFileList(root.getPath(), "app.cfg", PREFIX, PATH);
+    }
+
+    public void testSameAsRealFileList() throws Exception {
+        File[] real = BestFileMatch.getRealFileList(root.getPath(), "app.cfg", PREFIX, PATH);
+        assertEquals(2, real.length);
+        assertTrue(Arrays.equals(real, getCachedFiles()));
+        assertTrue(Arrays.equals(real, getCachedFiles()));
+    }
+
+    public void testNoStatWithinInterval() throws Exception {
+        BestFileMatch.setCheckInterval(60000);
+        long before = BestFileMatch.getStatCount();
+        getCachedFiles();
+        long first = BestFileMatch.getStatCount() - before;
+
+        // Each of the 9 candidate files and 3 directories is checked once
+        assertEquals(12, first);
+
+        before = BestFileMatch.getStatCount();
+        for (int idx = 0; idx < 100; idx++) {
+            getCachedFiles();
+        }
+        assertEquals(0, BestFileMatch.getStatCount() - before);
+    }
+
+    public void testDirectoryCheckAfterInterval() throws Exception {
+        BestFileMatch.setCheckInterval(0);
+        getCachedFiles();
+
+        // Only the directories are checked when nothing has changed
+        long before = BestFileMatch.getStatCount();
+        File[] files = getCachedFiles();
+        assertEquals(3, BestFileMatch.getStatCount() - before);
+        assertEquals(2, files.length);
+    }
+
+    public void testInvalidatedByNewFile() throws Exception {
+        BestFileMatch.setCheckInterval(0);
+        assertEquals(2, getCachedFiles().length);
+
+        File added = new File(root, "a" + File.separator + "b" + File.separator + "x.y.app.cfg");
+        createFile(added);
+        setModified(-5000);
+
+        File[] files = getCachedFiles();
+        assertEquals(3, files.length);
+        assertEquals(added, files[files.length - 1]);
+    }
+
+    public void testCachedWithinInterval() throws Exception {
+        BestFileMatch.setCheckInterval(60000);
+        assertEquals(2, getCachedFiles().length);
+
+        // Changes are not detected until the check interval expires
+        createFile(new File(root, "a" + File.separator + "b" + File.separator + "app.cfg"));
+        setModified(-5000);
+        assertEquals(2, getCachedFiles().length);
+
+        BestFileMatch.setCheckInterval(0);
+        assertEquals(3, getCachedFiles().length);
+    }
+
+}
@@ -0,0 +1,218 @@
+package com.modeln.build.web.application;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import junit.framework.TestCase;
+
+/**
+ * Test methods for verifying that spreadsheet content is written as
+ * the rows are read rather than being held in memory.
+ */
+public class SpreadsheetWriterTest extends TestCase {
+
+    /** Embedded database used by the tests */
+    private static final String DB_URL = "jdbc:derby:memory:spreadsheet";
+
+    /** Output stream which counts the bytes and rows written and samples the heap */
+    private static class SamplingOutputStream extends OutputStream {
+        private long bytes = 0;
+        private long lines = 0;
+        private long maxHeap = 0;
+
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') {
+                lines++;
+                if ((lines % (128 * 1024)) == 0) {
+                    maxHeap = Math.max(maxHeap, getUsedHeap());
+                }
+            }
+        }
+
+        public void write(byte[] b, int off, int len) {
+            for (int idx = off; idx < off + len; idx++) {
+                write(b[idx]);
+            }
+        }
+    }
+
+    private static long getUsedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int idx = 0; idx < 3; idx++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    private static Connection connect() throws Exception {
+        // Keep the database log out of the source tree
+        File log = new File(System.getProperty("java.io.tmpdir"), "derby.log");
+        System.setProperty("derby.stream.error.file", log.getPath());
+        Class.forName("org.apache.derby.jdbc.EmbeddedDriver");
+        return DriverManager.getConnection(DB_URL + ";create=true");
+    }
+
+    protected void tearDown() throws Exception {
+        try {
+            DriverManager.getConnection(DB_URL + ";drop=true");
+        } catch (SQLException ex) {
+            // Derby reports a successful drop as an exception
+        }
+    }
+
+    /**
+     * Create a table with 2^power rows by repeatedly copying the table
+     * into itself.
+     */
+    private static int createBuilds(Connection conn, int power) throws SQLException {
+        Statement st = conn.createStatement();
+        try {
+            st.executeUpdate("CREATE TABLE build (build_id INT, build_version VARCHAR(64), status VARCHAR(16))");
+            st.executeUpdate("INSERT INTO build VALUES (0, 'MN-BUILD-5.4.0.0-20020101.0000', 'passed')");
+            int count = 1;
+            for (int idx = 0; idx < power; idx++) {
+                st.executeUpdate("INSERT INTO build SELECT build_id + " + count + ", build_version, status FROM build");
+                count = count * 2;
+            }
+            return count;
+        } finally {
+            st.close();
+        }
+    }
+
+    public void testResultSetHeapIsFlat() throws Exception {
+        Connection conn = connect();
+        try {
+            int count = createBuilds(conn, 20);
+            assertTrue(count > 1000000);
+
+            PreparedStatement st = SpreadsheetWriter.prepareStreamingStatement(conn,
+                "SELECT build_id, build_version, status FROM build");
+            assertEquals(SpreadsheetWriter.FETCH_SIZE, st.getFetchSize());
+
+            long baseline = getUsedHeap();
+            SamplingOutputStream out = new SamplingOutputStream();
+            ResultSet rs = st.executeQuery();
+            SpreadsheetWriter writer = new SpreadsheetWriter(out);
+            assertEquals(count, writer.writeRows(rs, true));
+            writer.flush();
+            rs.close();
+            st.close();
+
+            assertEquals(count + 1, out.lines);
+            assertTrue(out.bytes > count * 30L);
+
+            // Holding the rows in memory would require hundreds of megabytes
+            long growth = out.maxHeap - baseline;
+            assertTrue("Heap grew by " + growth + " bytes", growth < 16 * 1024 * 1024);
+        } finally {
+            conn.close();
+        }
+    }
+
+    public void testResultSetContent() throws Exception {
+        Connection conn = connect();
+        try {
+            createBuilds(conn, 1);
+            Statement st = conn.createStatement();
+            st.executeUpdate("UPDATE build SET build_version = 'quoted \"version\", with comma' WHERE build_id = 1");
+            st.executeUpdate("UPDATE build SET status = NULL WHERE build_id = 0");
+            ResultSet rs = st.executeQuery("SELECT build_id AS id, build_version, status FROM build ORDER BY build_id");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            SpreadsheetWriter writer = new SpreadsheetWriter(out);
+            assertEquals(2, writer.writeRows(rs, true));
+            writer.flush();
+            st.close();
+
+            assertEquals(3, writer.getRowCount());
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(out.toByteArray()), "UTF-8"));
+            assertEquals("ID,BUILD_VERSION,STATUS", reader.readLine());
+            assertEquals("0,MN-BUILD-5.4.0.0-20020101.0000,", reader.readLine());
+            assertEquals("1,\"quoted \"\"version\"\", with comma\",passed", reader.readLine());
+            assertNull(reader.readLine());
+        } finally {
+            conn.close();
+        }
+    }
+
+    public void testGzipResponse() throws Exception {
+        List<List<String>> content = new ArrayList<List<String>>();
+        content.add(Arrays.asList(new String[] { "12345", "patch, release", null }));
+        content.add(Arrays.asList(new String[] { "67890", "service pack", "fixed" }));
+
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        WebApplication app = new WebApplication();
+        app.writeSpreadsheet(plain, content);
+        assertEquals("12345,\"patch, release\",null\n67890,service pack,fixed\n",
+                     new String(plain.toByteArray(), "UTF-8").replace(System.getProperty("line.separator"), "\n"));
+
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final Hashtable<String, String> headers = new Hashtable<String, String>();
+        HttpServletRequest req = (HttpServletRequest) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class[] { HttpServletRequest.class },
+            new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if (method.getName().equals("getHeader") && "Accept-Encoding".equals(args[0])) {
+                        return "gzip, deflate";
+                    }
+                    return null;
+                }
+            });
+        HttpServletResponse res = (HttpServletResponse) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class[] { HttpServletResponse.class },
+            new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if (method.getName().equals("setHeader")) {
+                        headers.put((String) args[0], (String) args[1]);
+                    } else if (method.getName().equals("getOutputStream")) {
+                        return new ServletOutputStream() {
+                            public void write(int b) {
+                                body.write(b);
+                            }
+                        };
+                    }
+                    return null;
+                }
+            });
+
+        app.streamAsSpreadsheet(req, res, content.iterator());
+        assertEquals("gzip", headers.get("Content-Encoding"));
+        assertEquals("text/csv", headers.get("content-type"));
+
+        GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body.toByteArray()));
+        ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int len = in.read(buffer);
+        while (len > 0) {
+            inflated.write(buffer, 0, len);
+            len = in.read(buffer);
+        }
+        in.close();
+        assertTrue(Arrays.equals(plain.toByteArray(), inflated.toByteArray()));
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.modeln.build.web.application;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Vector;
+
+import junit.framework.TestCase;
+
+/**
+ * Test methods for verifying the trusted host matching.
+ */
+public class TrustedHostMatcherTest extends TestCase {
+
+    /**
+     * Resolver which returns fixed addresses and records the
+     * thread which made each call.
+     */
+    private static class CountingResolver implements TrustedHostMatcher.Resolver {
+        final Vector<Thread> callers = new Vector<Thread>();
+
+        public InetAddress[] resolve(String host) throws UnknownHostException {
+            callers.add(Thread.currentThread());
+            if (host.equals("build.example.com")) {
+                return new InetAddress[] {
+                    InetAddress.getByAddress(host, new byte[] { 10, 20, 30, 40 })
+                };
+            } else if (host.equals("broken.example.com")) {
+                throw new IllegalStateException(host);
+            } else {
+                throw new UnknownHostException(host);
+            }
+        }
+    }
+
+    private static final String[] HOSTS = {
+        "127.0.0.1", "192.168.0.0/16", "172.16.4.0/22", "2001:db8::/32", "::1", "build.example.com"
+    };
+
+    public void testAddresses() throws Exception {
+        TrustedHostMatcher matcher = new TrustedHostMatcher(HOSTS, new CountingResolver(), 60000);
+        assertTrue(matcher.isTrusted("127.0.0.1"));
+        assertFalse(matcher.isTrusted("127.0.0.2"));
+        assertTrue(matcher.isTrusted("192.168.200.1"));
+        assertFalse(matcher.isTrusted("192.169.0.1"));
+        assertTrue(matcher.isTrusted("172.16.7.255"));
+        assertFalse(matcher.isTrusted("172.16.8.0"));
+        assertTrue(matcher.isTrusted("2001:db8:1234::5"));
+        assertFalse(matcher.isTrusted("2001:db9::5"));
+        assertTrue(matcher.isTrusted("0:0:0:0:0:0:0:1"));
+        assertTrue(matcher.isTrusted("::ffff:192.168.1.1"));
+        assertTrue(matcher.isTrusted("10.20.30.40"));
+        assertFalse(matcher.isTrusted("10.20.30.41"));
+        assertFalse(matcher.isTrusted(null));
+        assertFalse(matcher.isTrusted("999.1.1.1"));
+    }
+
+    public void testHostnames() throws Exception {
+        TrustedHostMatcher matcher = new TrustedHostMatcher(HOSTS, new CountingResolver(), 60000);
+        assertTrue(matcher.isTrusted("build.example.com"));
+        assertTrue(matcher.isTrusted("BUILD"));
+        assertFalse(matcher.isTrusted("other.example.com"));
+    }
+
+    public void testEmptyListTrustsAll() throws Exception {
+        TrustedHostMatcher matcher = new TrustedHostMatcher(new String[0], new CountingResolver(), 60000);
+        assertTrue(matcher.isTrustAll());
+        assertTrue(matcher.isTrusted("8.8.8.8"));
+    }
+
+    public void testResolverNotCalledWhenMatching() throws Exception {
+        CountingResolver resolver = new CountingResolver();
+        TrustedHostMatcher matcher = new TrustedHostMatcher(HOSTS, resolver, 60000);
+        assertEquals(1, resolver.callers.size());
+
+        for (int idx = 0; idx < 1000; idx++) {
+            matcher.isTrusted("10.20.30.40");
+            matcher.isTrusted("203.0.113.9");
+            matcher.isTrusted("unknown.example.com");
+        }
+        assertEquals(1, resolver.callers.size());
+    }
+
+    public void testExpiredHostnamesResolvedInBackground() throws Exception {
+        CountingResolver resolver = new CountingResolver();
+        TrustedHostMatcher matcher = new TrustedHostMatcher(HOSTS, resolver, 0);
+        Thread.sleep(5);
+
+        // The previous addresses are used while the hostnames are resolved again
+        assertTrue(matcher.isTrusted("10.20.30.40"));
+        for (int idx = 0; (idx < 100) && (resolver.callers.size() < 2); idx++) {
+            Thread.sleep(10);
+        }
+        assertTrue(resolver.callers.size() >= 2);
+        for (int idx = 1; idx < resolver.callers.size(); idx++) {
+            assertNotSame(Thread.currentThread(), resolver.callers.get(idx));
+        }
+    }
+
+    public void testResolverFailure() throws Exception {
+        CountingResolver resolver = new CountingResolver();
+        String[] hosts = { "broken.example.com", "build.example.com" };
+        TrustedHostMatcher matcher = new TrustedHostMatcher(hosts, resolver, 0);
+        assertEquals(2, resolver.callers.size());
+        assertTrue(matcher.isTrusted("10.20.30.40"));
+
+        // A failed refresh must not prevent the hostnames from being resolved again
+        for (int idx = 0; (idx < 100) && (resolver.callers.size() < 6); idx++) {
+            matcher.isTrusted("203.0.113.9");
+            Thread.sleep(10);
+        }
+        assertTrue(resolver.callers.size() >= 6);
+        assertTrue(matcher.isTrusted("10.20.30.40"));
+    }
+
+}